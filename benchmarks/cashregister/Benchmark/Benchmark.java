@@ -0,0 +1,73 @@
+package cashregister.Benchmark;
+
+import java.io.IOException;
+
+/**
+ * A {@code Benchmark} measures one hot path of the cash register.
+ * The runner calls {@link #run()} over and over, and counts every call as one operation.
+ *
+ * @see BenchmarkRunner
+ */
+public interface Benchmark
+{
+    /**
+     * What the size of a benchmark is measured in.
+     */
+    enum SizeKind
+    {
+        /**
+         * Number of products in the synthetic catalog
+         */
+        CATALOG,
+
+        /**
+         * Number of scanned lines in the synthetic basket
+         */
+        BASKET,
+
+        /**
+         * Number of active promotions in the synthetic store
+         */
+        PROMOTIONS
+    }
+
+    /**
+     * Getter method for the name of the benchmark, as it is shown in the results.
+     *
+     * @return The name of the benchmark
+     */
+    String getName();
+
+    /**
+     * Getter method for what the size of the benchmark is measured in.
+     *
+     * @return The kind of size the benchmark is run with
+     */
+    SizeKind getSizeKind();
+
+    /**
+     * Prepares everything the benchmark needs. Nothing done here is measured.
+     *
+     * @param size              Number of products, basket lines or promotions to run with
+     *
+     * @throws IOException      if the synthetic files can't be written
+     */
+    void setUp(int size) throws IOException;
+
+    /**
+     * Runs one operation of the benchmark.
+     *
+     * @return A number derived from the result of the operation, so it can't be optimized away.
+     *         It is a primitive, so returning it doesn't allocate
+     *
+     * @throws IOException      if a file can't be read
+     */
+    long run() throws IOException;
+
+    /**
+     * Releases everything {@link #setUp(int)} created.
+     *
+     * @throws IOException      if the synthetic files can't be deleted
+     */
+    void tearDown() throws IOException;
+}
@@ -0,0 +1,339 @@
+package cashregister.Benchmark;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code BenchmarkRunner} class runs the benchmarks of the cash register and prints
+ * their throughput in operations per second and the bytes allocated per operation.
+ *
+ * Every benchmark is run once for every size. A run is a few warmup iterations followed by
+ * measured iterations, each one calling the benchmark for a fixed amount of time.
+ * Allocation is read from the thread's allocation counter, so it only counts the benchmark thread.
+ *
+ * Every run is forked into a new {@code java} process with the same class path and JVM options,
+ * so the code the JIT compiled and the garbage left by one run don't change the results of the next.
+ *
+ * Usage:
+ * <pre>
+ * java cashregister.Benchmark.BenchmarkRunner [options] [benchmark names]
+ *
+ *   --catalog=1000,10000     Catalog sizes (default 10^3 to 10^6, 10^7 has to be asked for)
+ *   --basket=1,100           Basket sizes (default 1 to 10^5)
+ *   --promotions=10,100      Numbers of active promotions (default 10 to 10^4)
+ *   --warmup=3               Warmup iterations
+ *   --iterations=5           Measured iterations
+ *   --time=1000              Milliseconds per iteration
+ *   --fork=false             Run every benchmark in this process instead
+ * </pre>
+ *
+ * @see Benchmark
+ */
+public class BenchmarkRunner
+{
+    private static final String RESULT_FORMAT = "%-26s%10s%18s%14s%16s%n";
+
+    private int[] catalogSizes = { 1000, 10000, 100000, 1000000 };
+    private int[] basketSizes = { 1, 10, 100, 1000, 10000, 100000 };
+    private int[] promotionCounts = { 10, 100, 1000, 10000 };
+    private int warmupIterations = 3;
+    private int measuredIterations = 5;
+    private long iterationNanos = 1000L * 1000 * 1000;
+    private boolean fork = true;
+    private List<String> names = new ArrayList<>();
+
+    /**
+     * Set in a forked process, which only runs what it was given and leaves the header to its parent
+     */
+    private boolean forked;
+
+    /**
+     * Results of every operation end up here, so the JIT can't throw the operations away
+     */
+    private volatile long sink;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.parseArguments(args);
+
+        runner.runAll(Arrays.asList(
+                new PopulateStoreBenchmark(),
+                new GenerateDiscountsBenchmark(),
+                new ScanBenchmark(),
+                new FinalPriceBenchmark(),
+                new TotalPriceBenchmark(false),
+                new TotalPriceBenchmark(true),
+                new RenderBenchmark(),
+                new PromotionScanBenchmark()));
+    }
+
+    /**
+     * Runs every benchmark whose name matches the selected names, for every size of its kind.
+     *
+     * @param benchmarks        All benchmarks
+     *
+     * @throws IOException      if a benchmark can't read or write its files, or a forked run fails
+     */
+    public void runAll(List<Benchmark> benchmarks) throws IOException
+    {
+        if (!this.forked)
+        {
+            System.out.printf(RESULT_FORMAT, "Benchmark", "Size", "ops/s", "+-", "bytes/op");
+        }
+
+        for (Benchmark benchmark : benchmarks)
+        {
+            if (!isSelected(benchmark))
+            {
+                continue;
+            }
+
+            int[] sizes = sizesOf(benchmark.getSizeKind());
+            for (int size : sizes)
+            {
+                if (this.fork && !this.forked)
+                {
+                    runForked(benchmark, size);
+                    continue;
+                }
+
+                benchmark.setUp(size);
+                try
+                {
+                    run(benchmark, size);
+                }
+                finally
+                {
+                    benchmark.tearDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one benchmark with one size in a new {@code java} process, which prints its own result.
+     *
+     * @param benchmark         The benchmark
+     * @param size              The size it is run with
+     *
+     * @throws IOException      if the process can't be started or doesn't finish successfully
+     */
+    private void runForked(Benchmark benchmark, int size) throws IOException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkRunner.class.getName());
+
+        command.add("--forked");
+        command.add(sizeOptionOf(benchmark.getSizeKind()) + size);
+        command.add("--warmup=" + this.warmupIterations);
+        command.add("--iterations=" + this.measuredIterations);
+        command.add("--time=" + this.iterationNanos / (1000 * 1000));
+        command.add(benchmark.getName());
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        try
+        {
+            int exitCode = process.waitFor();
+            if (exitCode != 0)
+            {
+                throw new IOException("The benchmark " + benchmark.getName() + " failed with exit code " + exitCode);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The benchmark " + benchmark.getName() + " was interrupted");
+        }
+    }
+
+    private static String sizeOptionOf(Benchmark.SizeKind sizeKind)
+    {
+        switch (sizeKind)
+        {
+            case CATALOG:
+                return "--catalog=";
+            case PROMOTIONS:
+                return "--promotions=";
+            default:
+                return "--basket=";
+        }
+    }
+
+    private int[] sizesOf(Benchmark.SizeKind sizeKind)
+    {
+        switch (sizeKind)
+        {
+            case CATALOG:
+                return this.catalogSizes;
+            case PROMOTIONS:
+                return this.promotionCounts;
+            default:
+                return this.basketSizes;
+        }
+    }
+
+    private void run(Benchmark benchmark, int size) throws IOException
+    {
+        for (int i = 0; i < this.warmupIterations; i++)
+        {
+            runIteration(benchmark, new double[2]);
+        }
+
+        double[] opsPerSecond = new double[this.measuredIterations];
+        double totalBytes = 0;
+        double totalOperations = 0;
+
+        for (int i = 0; i < this.measuredIterations; i++)
+        {
+            double[] result = new double[2];
+            opsPerSecond[i] = runIteration(benchmark, result);
+            totalOperations += result[0];
+            totalBytes += result[1];
+        }
+
+        double mean = Arrays.stream(opsPerSecond).average().orElse(0);
+        double variance = Arrays.stream(opsPerSecond).map(ops -> (ops - mean) * (ops - mean)).sum()
+                / Math.max(1, opsPerSecond.length - 1);
+
+        System.out.printf(RESULT_FORMAT,
+                benchmark.getName(),
+                size,
+                String.format("%.1f", mean),
+                String.format("%.1f", Math.sqrt(variance)),
+                String.format("%.0f", totalBytes / totalOperations));
+    }
+
+    /**
+     * Calls the benchmark for the length of one iteration. Operations are called in batches that
+     * double in size, so checking the clock doesn't cost more than the operations themselves.
+     *
+     * @param benchmark     The benchmark
+     * @param result        Receives the number of operations and the bytes allocated by them
+     *
+     * @return The number of operations per second
+     */
+    private double runIteration(Benchmark benchmark, double[] result) throws IOException
+    {
+        long threadId = Thread.currentThread().getId();
+        long operations = 0;
+        long batchSize = 1;
+        long sum = 0;
+
+        long startBytes = this.threads.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        long elapsed;
+
+        do
+        {
+            for (long i = 0; i < batchSize; i++)
+            {
+                sum += benchmark.run();
+            }
+
+            operations += batchSize;
+            batchSize = Math.min(batchSize * 2, 1 << 20);
+            elapsed = System.nanoTime() - startTime;
+        }
+        while (elapsed < this.iterationNanos);
+
+        long allocatedBytes = this.threads.getThreadAllocatedBytes(threadId) - startBytes;
+        this.sink += sum;
+
+        result[0] = operations;
+        result[1] = allocatedBytes;
+
+        return operations * 1e9 / elapsed;
+    }
+
+    private boolean isSelected(Benchmark benchmark)
+    {
+        if (this.names.isEmpty())
+        {
+            return true;
+        }
+
+        for (String name : this.names)
+        {
+            if (benchmark.getName().equalsIgnoreCase(name))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void parseArguments(String[] args)
+    {
+        for (String argument : args)
+        {
+            if (argument.startsWith("--catalog="))
+            {
+                this.catalogSizes = parseSizes(argument);
+            }
+            else if (argument.startsWith("--basket="))
+            {
+                this.basketSizes = parseSizes(argument);
+            }
+            else if (argument.startsWith("--promotions="))
+            {
+                this.promotionCounts = parseSizes(argument);
+            }
+            else if (argument.startsWith("--warmup="))
+            {
+                this.warmupIterations = Integer.parseInt(valueOf(argument));
+            }
+            else if (argument.startsWith("--iterations="))
+            {
+                this.measuredIterations = Math.max(1, Integer.parseInt(valueOf(argument)));
+            }
+            else if (argument.startsWith("--time="))
+            {
+                this.iterationNanos = Long.parseLong(valueOf(argument)) * 1000 * 1000;
+            }
+            else if (argument.startsWith("--fork="))
+            {
+                this.fork = Boolean.parseBoolean(valueOf(argument));
+            }
+            else if (argument.equals("--forked"))
+            {
+                this.forked = true;
+            }
+            else if (argument.startsWith("--"))
+            {
+                throw new IllegalArgumentException("Unknown option " + argument);
+            }
+            else
+            {
+                this.names.add(argument);
+            }
+        }
+    }
+
+    private static int[] parseSizes(String argument)
+    {
+        return Arrays.stream(valueOf(argument).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    private static String valueOf(String argument)
+    {
+        return argument.substring(argument.indexOf('=') + 1);
+    }
+}
@@ -0,0 +1,68 @@
+package cashregister.Benchmark;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.StoreAssortment;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures {@link Product#getFinalPrice(int)}, which looks up the price tier of a quantity.
+ * Products and quantities are picked at random from the catalog, so the lookups aren't all cache hits.
+ */
+public class FinalPriceBenchmark implements Benchmark
+{
+    /**
+     * Number of prepared lookups. A power of two, so the next one is found with a mask
+     */
+    private static final int LOOKUP_COUNT = 1 << 12;
+
+    private SyntheticCatalog catalog;
+    private Product[] products;
+    private int[] quantities;
+    private int next;
+
+    @Override
+    public String getName()
+    {
+        return "getFinalPrice";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.CATALOG;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(size);
+        StoreAssortment store = this.catalog.load().getStoreAssortment();
+
+        this.products = new Product[LOOKUP_COUNT];
+        this.quantities = new int[LOOKUP_COUNT];
+
+        Random random = new Random(size);
+        for (int i = 0; i < LOOKUP_COUNT; i++)
+        {
+            this.products[i] = store.getProduct(SyntheticCatalog.barcode(random.nextInt(size)));
+            this.quantities[i] = 1 + random.nextInt(12);
+        }
+    }
+
+    @Override
+    public long run()
+    {
+        int lookup = this.next++ & (LOOKUP_COUNT - 1);
+
+        return this.products[lookup].getFinalPrice(this.quantities[lookup]);
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.products = null;
+    }
+}
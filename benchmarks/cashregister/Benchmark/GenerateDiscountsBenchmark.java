@@ -0,0 +1,52 @@
+package cashregister.Benchmark;
+
+import cashregister.Controller.Controller;
+
+import java.io.IOException;
+
+/**
+ * Measures {@link Controller#generateDiscounts(String)} - loading a discounts file into a populated store.
+ * Loading the same discounts again replaces them, so the store is only populated once.
+ */
+public class GenerateDiscountsBenchmark implements Benchmark
+{
+    private SyntheticCatalog catalog;
+    private Controller controller;
+    private String discountsFile;
+
+    @Override
+    public String getName()
+    {
+        return "generateDiscounts";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.CATALOG;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(size);
+        this.controller = new Controller();
+        this.controller.populateStore(this.catalog.writePrices().toString());
+        this.discountsFile = this.catalog.writeDiscounts().toString();
+    }
+
+    @Override
+    public long run() throws IOException
+    {
+        this.controller.generateDiscounts(this.discountsFile);
+
+        return this.controller.getStoreAssortment().getProductTable().getVersion();
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.controller = null;
+    }
+}
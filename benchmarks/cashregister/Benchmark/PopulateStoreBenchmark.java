@@ -0,0 +1,49 @@
+package cashregister.Benchmark;
+
+import cashregister.Controller.Controller;
+
+import java.io.IOException;
+
+/**
+ * Measures {@link Controller#populateStore(String)} - loading a prices file into an empty store.
+ */
+public class PopulateStoreBenchmark implements Benchmark
+{
+    private SyntheticCatalog catalog;
+    private String pricesFile;
+
+    @Override
+    public String getName()
+    {
+        return "populateStore";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.CATALOG;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(size);
+        this.pricesFile = this.catalog.writePrices().toString();
+    }
+
+    @Override
+    public long run() throws IOException
+    {
+        //Every operation starts from an empty store
+        Controller controller = new Controller();
+        controller.populateStore(this.pricesFile);
+
+        return controller.getStoreAssortment().getProductTable().size();
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+    }
+}
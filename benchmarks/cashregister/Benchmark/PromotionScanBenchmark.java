@@ -0,0 +1,75 @@
+package cashregister.Benchmark;
+
+import cashregister.Controller.Controller;
+import cashregister.Model.CashRegister;
+import cashregister.Model.StoreAssortment;
+
+import java.io.IOException;
+
+/**
+ * Measures scanning a basket while promotions are active, and reading its total. The basket stays the same
+ * and the number of promotions grows, so the cost of a scan shouldn't depend on the number of promotions.
+ * One operation is one basket.
+ */
+public class PromotionScanBenchmark implements Benchmark
+{
+    /**
+     * Number of scanned lines in the basket
+     */
+    private static final int BASKET_LINES = 100;
+
+    private SyntheticCatalog catalog;
+    private StoreAssortment store;
+    private CashRegister register;
+    private String[] basket;
+
+    @Override
+    public String getName()
+    {
+        return "promotionScan";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.PROMOTIONS;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(SyntheticCatalog.BASKET_CATALOG_SIZE);
+        Controller controller = this.catalog.load();
+        controller.loadPromotions(this.catalog.writePromotions(size).toString());
+
+        this.store = controller.getStoreAssortment();
+
+        //The receipts are voided after every basket, so the history doesn't grow during the benchmark
+        this.register = new CashRegister(this.store);
+        this.basket = this.catalog.basket(BASKET_LINES, BASKET_LINES);
+    }
+
+    @Override
+    public long run()
+    {
+        this.register.startNewReceipt();
+
+        for (String barcode : this.basket)
+        {
+            this.register.addProductToReceipt(barcode, this.store);
+        }
+
+        long totalPrice = this.register.getCurrentReceipt().getTotalPrice();
+        this.register.cancelReceipt();
+
+        return totalPrice;
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.store = null;
+        this.register = null;
+    }
+}
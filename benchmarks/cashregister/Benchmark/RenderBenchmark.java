@@ -0,0 +1,53 @@
+package cashregister.Benchmark;
+
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.StoreAssortment;
+
+import java.io.IOException;
+
+/**
+ * Measures {@link CategoryReceipt#toString()} - rendering a receipt for a basket that has already been scanned.
+ */
+public class RenderBenchmark implements Benchmark
+{
+    private SyntheticCatalog catalog;
+    private CategoryReceipt receipt;
+
+    @Override
+    public String getName()
+    {
+        return "CategoryReceipt.toString";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.BASKET;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(SyntheticCatalog.BASKET_CATALOG_SIZE);
+        StoreAssortment store = this.catalog.load().getStoreAssortment();
+
+        this.receipt = new CategoryReceipt();
+        for (String barcode : this.catalog.basket(size, size))
+        {
+            this.receipt.addProductToReceipt(store.getProduct(barcode));
+        }
+    }
+
+    @Override
+    public long run()
+    {
+        return this.receipt.toString().length();
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.receipt = null;
+    }
+}
@@ -0,0 +1,65 @@
+package cashregister.Benchmark;
+
+import cashregister.Model.CashRegister;
+import cashregister.Model.StoreAssortment;
+
+import java.io.IOException;
+
+/**
+ * Measures {@link CashRegister#addProductToReceipt(String, StoreAssortment)} - scanning a whole basket
+ * into a new receipt. One operation is one basket, scanned on the same register every time.
+ */
+public class ScanBenchmark implements Benchmark
+{
+    private SyntheticCatalog catalog;
+    private StoreAssortment store;
+    private CashRegister register;
+    private String[] basket;
+
+    @Override
+    public String getName()
+    {
+        return "addProductToReceipt";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.BASKET;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(SyntheticCatalog.BASKET_CATALOG_SIZE);
+        this.store = this.catalog.load().getStoreAssortment();
+
+        //The receipts are voided after every basket, so the history doesn't grow during the benchmark
+        this.register = new CashRegister(this.store);
+        this.basket = this.catalog.basket(size, size);
+    }
+
+    @Override
+    public long run()
+    {
+        this.register.startNewReceipt();
+
+        for (String barcode : this.basket)
+        {
+            this.register.addProductToReceipt(barcode, this.store);
+        }
+
+        long totalPrice = this.register.getCurrentReceipt().getTotalPrice();
+        this.register.cancelReceipt();
+
+        return totalPrice;
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.store = null;
+        this.register = null;
+    }
+}
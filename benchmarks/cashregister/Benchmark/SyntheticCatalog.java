@@ -0,0 +1,202 @@
+package cashregister.Benchmark;
+
+import cashregister.Controller.Controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The {@code SyntheticCatalog} class writes <em>prices</em>, <em>discounts</em> and <em>promotions</em> files of any size,
+ * in the same format as the files in the data folder, and generates baskets of barcodes from them.
+ * The same size and seed always give the same files and baskets.
+ */
+public class SyntheticCatalog
+{
+    /**
+     * Number of products in the catalog that basket benchmarks scan from
+     */
+    public static final int BASKET_CATALOG_SIZE = 100000;
+
+    private static final int CATEGORY_COUNT = 16;
+
+    /**
+     * Every product with an ordinal divisible by this has discounts
+     */
+    private static final int DISCOUNT_EVERY = 4;
+
+    private final Path folder;
+    private final int productCount;
+
+    /**
+     * Creates a synthetic catalog in a new temporary folder.
+     *
+     * @param productCount      Number of products in the catalog
+     *
+     * @throws IOException      if the folder can't be created
+     */
+    public SyntheticCatalog(int productCount) throws IOException
+    {
+        this.folder = Files.createTempDirectory("cashregister-benchmark");
+        this.productCount = productCount;
+    }
+
+    /**
+     * Getter method for the barcode of a product. Barcodes are 13 digits long, like EAN-13 codes.
+     *
+     * @param ordinal   Number of the product, from 0
+     *
+     * @return The barcode of the product
+     */
+    public static String barcode(int ordinal)
+    {
+        return String.format("%013d", 5700000000000L + ordinal);
+    }
+
+    /**
+     * Writes the prices file of the catalog.
+     *
+     * @return Location of the prices file
+     *
+     * @throws IOException  if the file can't be written
+     */
+    public Path writePrices() throws IOException
+    {
+        Path pricesFile = this.folder.resolve("prices.txt");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(pricesFile, StandardCharsets.UTF_8))
+        {
+            for (int i = 0; i < this.productCount; i++)
+            {
+                //Prices go from 1,00 to 99,99
+                int price = 100 + (int) ((i * 7919L) % 9900);
+
+                writer.write(String.format("%s,KATEGORI %d,VARE %d,%d,%d",
+                        barcode(i), i % CATEGORY_COUNT, i, price / 100, price % 100));
+                writer.newLine();
+            }
+        }
+
+        return pricesFile;
+    }
+
+    /**
+     * Writes the discounts file of the catalog. Every fourth product gets two discount tiers.
+     *
+     * @return Location of the discounts file
+     *
+     * @throws IOException  if the file can't be written
+     */
+    public Path writeDiscounts() throws IOException
+    {
+        Path discountsFile = this.folder.resolve("discounts.txt");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(discountsFile, StandardCharsets.UTF_8))
+        {
+            for (int i = 0; i < this.productCount; i += DISCOUNT_EVERY)
+            {
+                writer.write(String.format("%s,3,0,90", barcode(i)));
+                writer.newLine();
+                writer.write(String.format("%s,10,0,50", barcode(i)));
+                writer.newLine();
+            }
+        }
+
+        return discountsFile;
+    }
+
+    /**
+     * Writes a promotions file for the catalog. One in every hundred promotions is a basket threshold,
+     * one in every ten is a mix-and-match on a category, and the rest are "3 for 2" on products spread
+     * over the catalog.
+     *
+     * @param promotionCount    Number of promotions
+     *
+     * @return Location of the promotions file
+     *
+     * @throws IOException  if the file can't be written
+     */
+    public Path writePromotions(int promotionCount) throws IOException
+    {
+        Path promotionsFile = this.folder.resolve("promotions.txt");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(promotionsFile, StandardCharsets.UTF_8))
+        {
+            for (int i = 0; i < promotionCount; i++)
+            {
+                if (i % 100 == 99)
+                {
+                    //Thresholds go from 100,00 to 1000,00
+                    int threshold = 100 + (i * 31) % 901;
+                    writer.write(String.format("THRESHOLD,SPAR %d,%d,0,%d,0", i, threshold, threshold / 20));
+                }
+                else if (i % 10 == 9)
+                {
+                    writer.write(String.format("MIXMATCH,BLAND %d,KATEGORI %d,%d,5,0", i, i % CATEGORY_COUNT, 2 + i % 4));
+                }
+                else
+                {
+                    //Spread over the catalog, so no two promotions share a product until the catalog runs out
+                    long ordinal = (i * 7919L) % this.productCount;
+                    writer.write(String.format("MULTIBUY,3 FOR 2 %d,%s,3,2", i, barcode((int) ordinal)));
+                }
+                writer.newLine();
+            }
+        }
+
+        return promotionsFile;
+    }
+
+    /**
+     * Writes the prices and discounts files of the catalog and loads them into a new controller.
+     *
+     * @return A controller with a store that holds the whole catalog
+     *
+     * @throws IOException  if the files can't be written or read
+     */
+    public Controller load() throws IOException
+    {
+        Controller controller = new Controller();
+        controller.populateStore(writePrices().toString());
+        controller.generateDiscounts(writeDiscounts().toString());
+
+        return controller;
+    }
+
+    /**
+     * Generates the barcodes of a basket. Products are picked at random, so some are scanned more than once.
+     *
+     * @param lineCount     Number of scanned lines
+     * @param seed          Seed of the random picks
+     *
+     * @return The scanned barcodes, in order
+     */
+    public String[] basket(int lineCount, long seed)
+    {
+        Random random = new Random(seed);
+        String[] barcodes = new String[lineCount];
+
+        for (int i = 0; i < lineCount; i++)
+        {
+            barcodes[i] = barcode(random.nextInt(this.productCount));
+        }
+
+        return barcodes;
+    }
+
+    /**
+     * Deletes all files of the catalog.
+     *
+     * @throws IOException  if a file can't be deleted
+     */
+    public void delete() throws IOException
+    {
+        Files.deleteIfExists(this.folder.resolve("prices.txt"));
+        Files.deleteIfExists(this.folder.resolve("discounts.txt"));
+        Files.deleteIfExists(this.folder.resolve("promotions.txt"));
+        Files.deleteIfExists(this.folder);
+    }
+}
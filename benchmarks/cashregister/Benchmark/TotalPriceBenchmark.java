@@ -0,0 +1,96 @@
+package cashregister.Benchmark;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.StoreAssortment;
+
+import java.io.IOException;
+
+/**
+ * Measures {@code BaseReceipt.totalPrice()} for a basket that has already been scanned.
+ * Either the running total is read as it is, or a price changes before every read,
+ * so the whole basket is priced again.
+ */
+public class TotalPriceBenchmark implements Benchmark
+{
+    private final boolean recompute;
+
+    private SyntheticCatalog catalog;
+    private MeasuredReceipt receipt;
+
+    /**
+     * A product outside the store, whose price is changed to invalidate the running total.
+     * Its table has a single row, so changing it costs little next to pricing the basket
+     */
+    private Product changedProduct;
+    private int changes;
+
+    /**
+     * Creates the benchmark.
+     *
+     * @param recompute     {@code true} if a price changes before every read of the total
+     */
+    public TotalPriceBenchmark(boolean recompute)
+    {
+        this.recompute = recompute;
+    }
+
+    @Override
+    public String getName()
+    {
+        return this.recompute ? "totalPriceRecompute" : "totalPrice";
+    }
+
+    @Override
+    public SizeKind getSizeKind()
+    {
+        return SizeKind.BASKET;
+    }
+
+    @Override
+    public void setUp(int size) throws IOException
+    {
+        this.catalog = new SyntheticCatalog(SyntheticCatalog.BASKET_CATALOG_SIZE);
+        StoreAssortment store = this.catalog.load().getStoreAssortment();
+
+        this.receipt = new MeasuredReceipt();
+        for (String barcode : this.catalog.basket(size, size))
+        {
+            this.receipt.addProductToReceipt(store.getProduct(barcode));
+        }
+
+        this.changedProduct = new Product("0", "BENCHMARK", "PRICE CHANGE", 100);
+        this.changes = 0;
+    }
+
+    @Override
+    public long run()
+    {
+        if (this.recompute)
+        {
+            //Every price change moves the price epoch, so the total can't be read from the last calculation
+            this.changedProduct.changeBasePrice(100 + (++this.changes & 1));
+        }
+
+        return this.receipt.measuredTotalPrice();
+    }
+
+    @Override
+    public void tearDown() throws IOException
+    {
+        this.catalog.delete();
+        this.receipt = null;
+        this.changedProduct = null;
+    }
+
+    /**
+     * The total price is protected, so it is reached through a subclass.
+     */
+    private static final class MeasuredReceipt extends CategoryReceipt
+    {
+        private long measuredTotalPrice()
+        {
+            return totalPrice();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package cashregister;
 
 import cashregister.Controller.Controller;
+import cashregister.Model.Metrics.Metrics;
 import cashregister.View.ConsoleUI;
 
+import javax.management.JMException;
 import java.io.IOException;
 
 /**
@@ -13,6 +15,17 @@ public class CashRegister
     public static void main(String[] args)
     {
         Controller controller = new Controller();
+
+        //The metrics can be watched in JMX tools while the store is trading
+        try
+        {
+            Metrics.registerMBeans();
+        }
+        catch (JMException e)
+        {
+            System.out.println("The metrics are not available over JMX: " + e.getMessage());
+        }
+
         try
         {
             ConsoleUI ui = new ConsoleUI(controller);
@@ -1,10 +1,29 @@
 package cashregister.Controller;
 
 import cashregister.HelperFunctions;
+import cashregister.Model.Analytics.BestSeller;
+import cashregister.Model.Analytics.BestSellerSketch;
+import cashregister.Model.Analytics.SalesAnalytics;
+import cashregister.Model.Analytics.SalesReport;
+import cashregister.Model.Batch.BatchReceiptProcessor;
+import cashregister.Model.Batch.BatchSummary;
+import cashregister.Model.Batch.ScanLogReader;
 import cashregister.Model.CashRegister;
+import cashregister.Model.Catalog.CatalogFileReader;
+import cashregister.Model.Catalog.CatalogSnapshot;
+import cashregister.Model.Catalog.CatalogWatcher;
+import cashregister.Model.Catalog.ImportReport;
+import cashregister.Model.Catalog.ParallelCatalogReader;
+import cashregister.Model.Catalog.PromotionFileReader;
+import cashregister.Model.Metrics.Metrics;
+import cashregister.Model.MultiLaneRegister;
+import cashregister.Model.Receipt.ReceiptLog;
 import cashregister.Model.StoreAssortment;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -17,6 +36,8 @@ public class Controller
 {
     private StoreAssortment storeAssortment;
     private CashRegister cashRegister;
+    private MultiLaneRegister laneRegister;
+    private CatalogWatcher catalogWatcher;
 
     /**
      * Initializes the store Assortment and the history keeper
@@ -25,6 +46,7 @@ public class Controller
     {
         this.storeAssortment = new StoreAssortment();
         this.cashRegister = new CashRegister(this.storeAssortment);
+        this.laneRegister = new MultiLaneRegister(this.storeAssortment);
     }
 
     /**
@@ -37,6 +59,16 @@ public class Controller
         return this.cashRegister;
     }
 
+    /**
+     * Getter method for the register that runs several lanes at once against the same store.
+     *
+     * @return The MultiLaneRegister object
+     */
+    public MultiLaneRegister getLaneRegister()
+    {
+        return this.laneRegister;
+    }
+
     /**
      * Getter method for the <em>StoreAssortment</em> object.
      *
@@ -56,14 +88,209 @@ public class Controller
      */
     public void populateStore(String fileName) throws FileNotFoundException
     {
-        //Read the file
-        List<String> linesInFile = HelperFunctions.readAllStringsInFile(fileName);
+        //Stream the file into the store, one line at a time
+        CatalogFileReader.readProducts(fileName, this.storeAssortment);
+    }
 
-        //Go through all lines in the file
-        for (String line : linesInFile)
+    /**
+     * Reads a <em>text file</em> and adds every valid <em>product</em> in it to the store.
+     * Unlike {@link #populateStore(String)}, lines with errors don't stop the import - they are reported instead.
+     *
+     * @param fileName Location of text file
+     *
+     * @return A report of the imported and rejected lines
+     *
+     * @throws FileNotFoundException if the text file doesn't exist
+     */
+    public ImportReport importStore(String fileName) throws FileNotFoundException
+    {
+        return CatalogFileReader.importProducts(fileName, this.storeAssortment);
+    }
+
+    /**
+     * Reads a <em>text file</em> and adds every valid <em>discount</em> in it to the store.
+     * Unlike {@link #generateDiscounts(String)}, lines with errors don't stop the import - they are reported instead.
+     *
+     * @param fileName Location of text file
+     *
+     * @return A report of the imported and rejected lines
+     *
+     * @throws FileNotFoundException if the text file doesn't exist
+     */
+    public ImportReport importDiscounts(String fileName) throws FileNotFoundException
+    {
+        return CatalogFileReader.importDiscounts(fileName, this.storeAssortment);
+    }
+
+    /**
+     * Generates a table of the metrics of the hot paths - scans, lookups, totals and rendering.
+     *
+     * @return The report
+     *
+     * @see Metrics
+     */
+    public String getStatistics()
+    {
+        return Metrics.getReport();
+    }
+
+    /**
+     * Forgets the metrics of the hot paths, so they start over from now.
+     */
+    public void resetStatistics()
+    {
+        Metrics.reset();
+    }
+
+    /**
+     * Reads a <em>promotions</em> text file and makes its rules the active promotions of the store.
+     * Open baskets are priced with the new promotions from their next scan on.
+     *
+     * @param fileName Location of text file
+     *
+     * @throws FileNotFoundException    if the text file doesn't exist
+     * @throws IllegalArgumentException if a line of the file has an error - the old promotions stay active
+     */
+    public void loadPromotions(String fileName) throws FileNotFoundException, IllegalArgumentException
+    {
+        this.storeAssortment.setPromotions(PromotionFileReader.readPromotions(fileName));
+    }
+
+    /**
+     * Reads a <em>text file</em> and generates the <em>store assortment</em> on all available cores.
+     * Meant for very large price files - the result is the same as {@link #populateStore(String)}.
+     *
+     * @param fileName Location of text file
+     *
+     * @throws FileNotFoundException if the text file doesn't exist
+     */
+    public void populateStoreInParallel(String fileName) throws FileNotFoundException
+    {
+        new ParallelCatalogReader().readProducts(fileName, this.storeAssortment);
+    }
+
+    /**
+     * Compiles all <em>products</em> and <em>discounts</em> in the store into a binary catalog file,
+     * which can be loaded much faster than the text files.
+     *
+     * @param fileName Location of the catalog file
+     *
+     * @throws IOException if the file cannot be written
+     *
+     * @see CatalogSnapshot
+     */
+    public void compileCatalog(String fileName) throws IOException
+    {
+        CatalogSnapshot.write(this.storeAssortment, fileName);
+    }
+
+    /**
+     * Opens a compiled catalog file. Products are only read from it the first time they are scanned,
+     * so the store can be used right away.
+     *
+     * @param fileName Location of the catalog file
+     *
+     * @throws IOException if the file doesn't exist or cannot be read
+     * @throws IllegalArgumentException if the file is not a valid catalog
+     *
+     * @see CatalogSnapshot
+     */
+    public void loadCatalog(String fileName) throws IOException
+    {
+        this.storeAssortment.attachProductSource(CatalogSnapshot.open(fileName));
+    }
+
+    /**
+     * Starts watching the <em>prices</em> and <em>discounts</em> text files that the store was loaded from.
+     * Every time they change, only the products and discounts that were added, changed or removed are applied.
+     * A previous watcher is stopped first.
+     *
+     * @param pricesFileName    Location of the prices file
+     * @param discountsFileName Location of the discounts file, or {@code null} if there is none
+     * @param listener          Receives the outcome of every reload
+     *
+     * @throws IOException if one of the files doesn't exist or cannot be watched
+     * @throws IllegalArgumentException if one of the files has errors in it
+     *
+     * @see CatalogWatcher
+     */
+    public void watchCatalog(String pricesFileName, String discountsFileName, CatalogWatcher.ReloadListener listener)
+            throws IOException
+    {
+        stopWatchingCatalog();
+
+        CatalogWatcher watcher = new CatalogWatcher(this.storeAssortment, pricesFileName, discountsFileName, listener);
+        watcher.start();
+        this.catalogWatcher = watcher;
+    }
+
+    /**
+     * Keeps the <em>receipt history</em> of the cash register in a log file from now on, so finished receipts
+     * don't stay in memory. An existing log is opened and its receipts become part of the history.
+     *
+     * @param fileName      Location of the log file
+     * @param historyWindow Number of finished receipts that stay in memory
+     *
+     * @throws IOException if the log cannot be opened or written
+     * @throws IllegalArgumentException if the file is not a receipt log
+     * @throws IllegalStateException if the history is already kept in a log
+     *
+     * @see ReceiptLog
+     */
+    public void keepHistoryInLog(String fileName, int historyWindow) throws IOException
+    {
+        ReceiptLog receiptLog = ReceiptLog.open(Paths.get(fileName));
+        try
+        {
+            this.cashRegister.setReceiptLog(receiptLog, historyWindow);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            receiptLog.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Analyzes the <em>receipt history</em> of the cash register on all cores: revenue, units and
+     * discount cost per product and per category, and baskets per hour of the day.
+     * Receipts that are only kept in the history's log are read back from it.
+     *
+     * @return The report of all finished receipts
+     *
+     * @see SalesAnalytics
+     */
+    public SalesReport analyzeSales()
+    {
+        return new SalesAnalytics().analyze(this.cashRegister.getHistory());
+    }
+
+    /**
+     * Finds the best-selling products of the cash register. They are counted while products are scanned,
+     * so the answer doesn't depend on the size of the receipt history.
+     *
+     * @param count The largest number of products that is returned
+     *
+     * @return The products with the most units, the most units first
+     *
+     * @see BestSellerSketch
+     */
+    public List<BestSeller> getBestSellers(int count)
+    {
+        return this.cashRegister.getBestSellers().top(count);
+    }
+
+    /**
+     * Stops watching the <em>prices</em> and <em>discounts</em> text files, if they are being watched.
+     *
+     * @throws IOException if the watcher cannot be stopped
+     */
+    public void stopWatchingCatalog() throws IOException
+    {
+        if (this.catalogWatcher != null)
         {
-            //Create and add the product to the store
-            this.storeAssortment.addNewProductToStore(line);
+            this.catalogWatcher.close();
+            this.catalogWatcher = null;
         }
     }
 
@@ -93,6 +320,63 @@ public class Controller
     }
 
 
+    /**
+     * Prices a whole batch of basket <em>text files</em> in parallel and writes their receipts
+     * in the order of the files. The receipts are not added to the cash register's history.
+     *
+     * @param basketFiles   The basket files
+     * @param out           Where the receipts are written
+     *
+     * @return The counts and the throughput of the batch
+     *
+     * @throws IOException if a file can't be read or a receipt can't be written
+     *
+     * @see BatchReceiptProcessor
+     */
+    public BatchSummary generateReceiptsFromFiles(List<Path> basketFiles, Appendable out) throws IOException
+    {
+        try (BatchReceiptProcessor processor = new BatchReceiptProcessor(this.storeAssortment))
+        {
+            return processor.process(basketFiles, out);
+        }
+    }
+
+    /**
+     * Prices all basket <em>text files</em> in a directory, or all files that match a glob pattern
+     * like {@code data/bar*.txt}, in parallel. The receipts are written in the order of the file names.
+     *
+     * @param directoryOrGlob   A directory, or a glob pattern for the file names
+     * @param out               Where the receipts are written
+     *
+     * @return The counts and the throughput of the batch
+     *
+     * @throws IOException if a file can't be read or a receipt can't be written
+     */
+    public BatchSummary generateReceiptsFromFiles(String directoryOrGlob, Appendable out) throws IOException
+    {
+        return generateReceiptsFromFiles(BatchReceiptProcessor.findBasketFiles(directoryOrGlob), out);
+    }
+
+    /**
+     * Prices a continuous <em>scan log</em>, where a delimiter line separates the transactions.
+     * Every receipt is written as soon as its transaction is closed, and the log is never held in memory.
+     * The receipts are not added to the cash register's history.
+     *
+     * @param fileName  Location of the scan log
+     * @param out       Where the receipts are written
+     *
+     * @return The counts and the throughput of the log
+     *
+     * @throws FileNotFoundException if the file doesn't exist
+     * @throws IOException if the file can't be read or a receipt can't be written
+     *
+     * @see ScanLogReader
+     */
+    public BatchSummary generateReceiptsFromScanLog(String fileName, Appendable out) throws IOException
+    {
+        return new ScanLogReader(this.storeAssortment).process(Paths.get(fileName), out);
+    }
+
     /**
      * Reads a <em>text file</em> and generates <em>discounts</em> which
      * will be available in the <em>store</em>.
@@ -103,14 +387,7 @@ public class Controller
      */
     public void generateDiscounts(String fileName) throws FileNotFoundException
     {
-        //Read the file
-        List<String> linesInFile = HelperFunctions.readAllStringsInFile(fileName);
-
-        //Go through all lines in the file
-        for (String line : linesInFile)
-        {
-            //Create and add the discount to the store
-            this.storeAssortment.addNewDiscountToStore(line);
-        }
+        //Stream the file into the store, one line at a time
+        CatalogFileReader.readDiscounts(fileName, this.storeAssortment);
     }
 }
\ No newline at end of file
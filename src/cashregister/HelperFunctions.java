@@ -49,13 +49,25 @@ public class HelperFunctions
      */
     public static int generatePrice(String kronerString, String oreString) throws NumberFormatException
     {
-        //Initialize the variable that will keep the final price
-        int totalOre = 0;
-
-        //Parse kroner and ore to doubles
+        //Parse kroner and ore to ints
         int kroner = Integer.parseInt(kronerString);
         int ore = Integer.parseInt(oreString);
 
+        return generatePrice(kroner, ore);
+    }
+
+    /**
+     * Generates the price of a product (or discount) from already parsed kroner and ore.
+     *
+     * @param kroner The kroner part of the price
+     * @param ore    The ore part of the price
+     * @return The final price as an int object, representing the total amount of ore
+     */
+    public static int generatePrice(int kroner, int ore) throws NumberFormatException
+    {
+        //Initialize the variable that will keep the final price
+        int totalOre = 0;
+
         if (kroner < 0 || ore < 0)
         {
             throw new NumberFormatException("Kroner and ore must be non-negative numbers!");
@@ -67,4 +79,18 @@ public class HelperFunctions
         //Return the final price (in ore)
         return totalOre;
     }
+
+    /**
+     * Makes sure a price can be used for a product (or discount).
+     *
+     * @param price The price that is to be checked, in ore
+     * @throws IllegalArgumentException if the price is not positive
+     */
+    public static void checkPrice(int price) throws IllegalArgumentException
+    {
+        if (price <= 0)
+        {
+            throw new IllegalArgumentException("The provided price was negative!");
+        }
+    }
 }
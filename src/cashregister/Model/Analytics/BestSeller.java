@@ -0,0 +1,88 @@
+package cashregister.Model.Analytics;
+
+/**
+ * The {@code BestSeller} class is one product in the answer of a {@code BestSellerSketch}.
+ * The sketch may count a product too often, but never too rarely: the true number of units
+ * lies between {@link #getGuaranteedUnits()} and {@link #getUnits()}.
+ *
+ * @see BestSellerSketch
+ */
+public class BestSeller
+{
+    private final String barcode;
+    private final String productName;
+    private final long units;
+    private final long error;
+
+    /**
+     * Creates the entry of one product.
+     *
+     * @param barcode       Barcode of the product
+     * @param productName   Name of the product
+     * @param units         Counted units, at least the true number
+     * @param error         Largest number of units that were counted too many
+     */
+    BestSeller(String barcode, String productName, long units, long error)
+    {
+        this.barcode = barcode;
+        this.productName = productName;
+        this.units = units;
+        this.error = error;
+    }
+
+    /**
+     * Getter method for the barcode of the product.
+     *
+     * @return The barcode
+     */
+    public String getBarcode()
+    {
+        return this.barcode;
+    }
+
+    /**
+     * Getter method for the name of the product.
+     *
+     * @return The product name
+     */
+    public String getProductName()
+    {
+        return this.productName;
+    }
+
+    /**
+     * Getter method for the counted units. The true number of units is never higher.
+     *
+     * @return The counted units
+     */
+    public long getUnits()
+    {
+        return this.units;
+    }
+
+    /**
+     * Getter method for the largest number of units that may have been counted too many.
+     *
+     * @return The error of the count
+     */
+    public long getError()
+    {
+        return this.error;
+    }
+
+    /**
+     * Getter method for the number of units that were sold for sure.
+     *
+     * @return The counted units without the error
+     */
+    public long getGuaranteedUnits()
+    {
+        return this.units - this.error;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s (%s): %d units, +-%d", this.productName, this.barcode, this.units, this.error);
+    }
+}
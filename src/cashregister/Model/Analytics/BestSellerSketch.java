@@ -0,0 +1,392 @@
+package cashregister.Model.Analytics;
+
+import cashregister.Model.Product.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code BestSellerSketch} class keeps track of the best-selling products while they are scanned,
+ * in a fixed amount of memory. It is a <em>Space-Saving</em> sketch: it has a counter for a fixed
+ * number of products, and a product without a counter takes over the counter with the fewest units.
+ *
+ * A counter that is taken over keeps its units as the <em>error</em> of the new product, so a count
+ * is never too low, and never too high by more than its error. No error is ever higher than
+ * {@code units / capacity}, where {@code units} is the number of units offered to the sketch,
+ * and every product that sold more than {@link #getMaxError()} units has a counter.
+ *
+ * Sketches of different lanes can be merged into one. The merged sketch has the same guarantees,
+ * for all units of all lanes.
+ *
+ * All methods can be called from any thread. Scanning only holds the lock of the sketch for one
+ * counter update, and a query only holds it while the counters are copied, so a query never keeps
+ * a lane from scanning for longer than that.
+ *
+ * @see BestSeller
+ */
+public class BestSellerSketch
+{
+    /**
+     * Number of products a sketch has counters for, unless asked otherwise
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * Most units first, products with the same units by barcode
+     */
+    private static final Comparator<Counter> BY_UNITS = (first, second) ->
+    {
+        int compared = Long.compare(second.units, first.units);
+        return compared != 0 ? compared : first.barcode.compareTo(second.barcode);
+    };
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    /**
+     * The counters, ordered as a heap with the fewest units on top
+     */
+    private final Counter[] heap;
+    private int size;
+    private long totalUnits;
+
+    /**
+     * Most units that a product without a counter may have sold before it was ever offered to this sketch.
+     * Only a merged sketch has such products
+     */
+    private long missingUnits;
+
+    /**
+     * Creates an empty sketch with counters for {@link #DEFAULT_CAPACITY} products.
+     */
+    public BestSellerSketch()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param capacity                  Number of products the sketch has counters for
+     *
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    public BestSellerSketch(int capacity) throws IllegalArgumentException
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("A sketch needs a counter for at least one product.");
+        }
+
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Creates an empty sketch whose counts are never too high by more than a share of all units.
+     *
+     * @param maxError                  The share, like {@code 0.001} for a tenth of a percent
+     *
+     * @return The sketch
+     *
+     * @throws IllegalArgumentException if the share isn't more than 0 and at most 1
+     */
+    public static BestSellerSketch withMaxError(double maxError) throws IllegalArgumentException
+    {
+        if (!(maxError > 0 && maxError <= 1))
+        {
+            throw new IllegalArgumentException("The error must be more than 0 and at most 1.");
+        }
+
+        return new BestSellerSketch((int) Math.ceil(1 / maxError));
+    }
+
+    /**
+     * Merges sketches, like the sketches of all lanes, into a new sketch. The sketches are not changed.
+     *
+     * @param capacity      Number of products the merged sketch has counters for
+     * @param sketches      The sketches that are merged
+     *
+     * @return A sketch of the units of all sketches
+     */
+    public static BestSellerSketch merge(int capacity, Collection<BestSellerSketch> sketches)
+    {
+        List<Counter[]> contents = new ArrayList<>(sketches.size());
+        long[] maxErrors = new long[sketches.size()];
+        long totalUnits = 0;
+        long missingUnits = 0;
+
+        for (BestSellerSketch sketch : sketches)
+        {
+            long[] totals = new long[2];
+            contents.add(sketch.copyCounters(totals));
+
+            totalUnits += totals[0];
+            maxErrors[contents.size() - 1] = totals[1];
+            missingUnits += totals[1];
+        }
+
+        //A product missing from a sketch may have sold up to the sketch's error there, so every
+        //product starts at the errors of all sketches, and each sketch that has it replaces its error by its count
+        Map<String, Counter> merged = new HashMap<>();
+        for (int i = 0; i < contents.size(); i++)
+        {
+            for (Counter counter : contents.get(i))
+            {
+                Counter mergedCounter = merged.get(counter.barcode);
+                if (mergedCounter == null)
+                {
+                    mergedCounter = new Counter(counter.barcode, counter.productName, missingUnits, missingUnits);
+                    merged.put(counter.barcode, mergedCounter);
+                }
+
+                mergedCounter.units += counter.units - maxErrors[i];
+                mergedCounter.error += counter.error - maxErrors[i];
+            }
+        }
+
+        //Only the products with the most units keep a counter
+        Counter[] mergedCounters = merged.values().toArray(new Counter[0]);
+        Arrays.sort(mergedCounters, BY_UNITS);
+
+        BestSellerSketch sketch = new BestSellerSketch(capacity);
+        sketch.size = Math.min(capacity, mergedCounters.length);
+        sketch.totalUnits = totalUnits;
+        sketch.missingUnits = missingUnits;
+
+        for (int i = 0; i < sketch.size; i++)
+        {
+            Counter counter = mergedCounters[i];
+            counter.index = i;
+            sketch.heap[i] = counter;
+            sketch.counters.put(counter.barcode, counter);
+        }
+
+        for (int i = sketch.size / 2 - 1; i >= 0; i--)
+        {
+            sketch.siftDown(i);
+        }
+
+        return sketch;
+    }
+
+    /**
+     * Counts one unit of a product.
+     *
+     * @param product   The product that was scanned
+     */
+    public void offer(Product product)
+    {
+        offer(product, 1);
+    }
+
+    /**
+     * Counts units of a product.
+     *
+     * @param product                   The product that was scanned
+     * @param units                     Number of units
+     *
+     * @throws IllegalArgumentException if the number of units is negative
+     */
+    public synchronized void offer(Product product, long units) throws IllegalArgumentException
+    {
+        if (units < 0)
+        {
+            throw new IllegalArgumentException("The number of units can't be negative.");
+        }
+
+        this.totalUnits += units;
+
+        Counter counter = this.counters.get(product.getBarcode());
+        if (counter != null)
+        {
+            counter.units += units;
+            siftDown(counter.index);
+            return;
+        }
+
+        if (this.size < this.capacity)
+        {
+            counter = new Counter(product.getBarcode(), product.getProductName(), this.missingUnits + units, this.missingUnits);
+            counter.index = this.size;
+            this.heap[this.size++] = counter;
+            siftUp(counter.index);
+        }
+        else
+        {
+            //The product takes over the counter with the fewest units, and those units become its error
+            counter = this.heap[0];
+            this.counters.remove(counter.barcode);
+
+            counter.barcode = product.getBarcode();
+            counter.productName = product.getProductName();
+            counter.error = counter.units;
+            counter.units += units;
+            siftDown(0);
+        }
+
+        this.counters.put(counter.barcode, counter);
+    }
+
+    /**
+     * Finds the products with the most units.
+     *
+     * @param count The largest number of products that is returned
+     *
+     * @return An unmodifiable list of the products with the most units, the most units first
+     */
+    public List<BestSeller> top(int count)
+    {
+        //The counters are sorted after the lock is let go, so scanning can go on meanwhile
+        Counter[] counters = copyCounters(null);
+        Arrays.sort(counters, BY_UNITS);
+
+        int limit = Math.max(0, Math.min(count, counters.length));
+        List<BestSeller> bestSellers = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++)
+        {
+            Counter counter = counters[i];
+            bestSellers.add(new BestSeller(counter.barcode, counter.productName, counter.units, counter.error));
+        }
+
+        return Collections.unmodifiableList(bestSellers);
+    }
+
+    /**
+     * Getter method for the number of products the sketch has counters for.
+     *
+     * @return The capacity of the sketch
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Getter method for the number of units that were offered to the sketch.
+     *
+     * @return The units of all products
+     */
+    public synchronized long getTotalUnits()
+    {
+        return this.totalUnits;
+    }
+
+    /**
+     * Getter method for the most units a product without a counter can have sold. It is also the
+     * highest error that any counter can have, and never more than {@code getTotalUnits() / getCapacity()}.
+     *
+     * @return The largest error of the sketch
+     */
+    public synchronized long getMaxError()
+    {
+        return maxError();
+    }
+
+    private long maxError()
+    {
+        return this.size < this.capacity ? this.missingUnits : Math.max(this.missingUnits, this.heap[0].units);
+    }
+
+    /**
+     * Copies the counters while holding the lock.
+     *
+     * @param totals    Receives the total units and the largest error, can be null
+     *
+     * @return Copies of all counters, in no particular order
+     */
+    private synchronized Counter[] copyCounters(long[] totals)
+    {
+        Counter[] copies = new Counter[this.size];
+        for (int i = 0; i < this.size; i++)
+        {
+            Counter counter = this.heap[i];
+            copies[i] = new Counter(counter.barcode, counter.productName, counter.units, counter.error);
+        }
+
+        if (totals != null)
+        {
+            totals[0] = this.totalUnits;
+            totals[1] = maxError();
+        }
+
+        return copies;
+    }
+
+    private void siftUp(int index)
+    {
+        Counter counter = this.heap[index];
+        while (index > 0)
+        {
+            int parent = (index - 1) / 2;
+            if (this.heap[parent].units <= counter.units)
+            {
+                break;
+            }
+
+            place(this.heap[parent], index);
+            index = parent;
+        }
+
+        place(counter, index);
+    }
+
+    private void siftDown(int index)
+    {
+        Counter counter = this.heap[index];
+        while (true)
+        {
+            int child = 2 * index + 1;
+            if (child >= this.size)
+            {
+                break;
+            }
+            if (child + 1 < this.size && this.heap[child + 1].units < this.heap[child].units)
+            {
+                child++;
+            }
+            if (counter.units <= this.heap[child].units)
+            {
+                break;
+            }
+
+            place(this.heap[child], index);
+            index = child;
+        }
+
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index)
+    {
+        this.heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * The counter of one product. When another product takes it over, the object is reused
+     */
+    private static final class Counter
+    {
+        private String barcode;
+        private String productName;
+        private long units;
+        private long error;
+        private int index;
+
+        private Counter(String barcode, String productName, long units, long error)
+        {
+            this.barcode = barcode;
+            this.productName = productName;
+            this.units = units;
+            this.error = error;
+        }
+    }
+}
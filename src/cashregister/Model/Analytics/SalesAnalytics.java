@@ -0,0 +1,185 @@
+package cashregister.Model.Analytics;
+
+import cashregister.Model.Product.Money;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptSnapshot;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code SalesAnalytics} class analyzes a receipt history on all cores.
+ * The history is split in ranges that are added up by fork/join tasks, and the partial results are
+ * merged on the way back, so no figure is ever shared between threads while it is being added up.
+ *
+ * Only finished receipts are analyzed - an open receipt in the history is skipped.
+ * A history that is kept in a {@code ReceiptLog} is read back in parallel as well.
+ *
+ * @see SalesReport
+ */
+public class SalesAnalytics
+{
+    /**
+     * Ranges with fewer receipts than this are added up by one task
+     */
+    private static final int RECEIPTS_PER_TASK = 2048;
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final ForkJoinPool pool;
+    private final ZoneId zone;
+
+    /**
+     * Creates an engine that runs on the common pool and counts hours in the system's time zone.
+     */
+    public SalesAnalytics()
+    {
+        this(ForkJoinPool.commonPool(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param pool  Pool the analysis runs on
+     * @param zone  Time zone the hours of the day are counted in
+     */
+    public SalesAnalytics(ForkJoinPool pool, ZoneId zone)
+    {
+        this.pool = pool;
+        this.zone = zone;
+    }
+
+    /**
+     * Analyzes a receipt history.
+     *
+     * @param history   The receipts, such as the history of a cash register
+     *
+     * @return The report of all finished receipts
+     */
+    public SalesReport analyze(List<? extends Receipt> history)
+    {
+        Partial result = this.pool.invoke(new AnalysisTask(history, 0, history.size()));
+
+        return new SalesReport(result.receiptCount, result.revenue,
+                result.products, result.categories, result.basketsPerHour);
+    }
+
+    /**
+     * Adds up one range of the history, or splits it in two if it is too large.
+     */
+    private final class AnalysisTask extends RecursiveTask<Partial>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends Receipt> history;
+        private final int from;
+        private final int to;
+
+        private AnalysisTask(List<? extends Receipt> history, int from, int to)
+        {
+            this.history = history;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute()
+        {
+            if (this.to - this.from <= RECEIPTS_PER_TASK)
+            {
+                Partial partial = new Partial();
+                for (int i = this.from; i < this.to; i++)
+                {
+                    Receipt receipt = this.history.get(i);
+                    if (receipt instanceof ReceiptSnapshot)
+                    {
+                        partial.add((ReceiptSnapshot) receipt, zone);
+                    }
+                }
+                return partial;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            AnalysisTask left = new AnalysisTask(this.history, this.from, middle);
+            left.fork();
+
+            Partial right = new AnalysisTask(this.history, middle, this.to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * The figures of one range of the history. Only touched by the task that owns it.
+     */
+    private static final class Partial
+    {
+        private long receiptCount;
+        private long revenue;
+        private final Map<String, SalesFigures> products = new HashMap<>();
+        private final Map<String, SalesFigures> categories = new HashMap<>();
+        private final long[] basketsPerHour = new long[HOURS_PER_DAY];
+
+        private void add(ReceiptSnapshot receipt, ZoneId zone)
+        {
+            this.receiptCount++;
+            this.revenue = Money.add(this.revenue, receipt.getTotalPrice());
+            this.basketsPerHour[Instant.ofEpochMilli(receipt.getFinishTime()).atZone(zone).getHour()]++;
+
+            for (ReceiptSnapshot.Line line : receipt.getLines())
+            {
+                long discountCost = Money.times(line.getBasePrice() - line.getFinalPrice(), line.getQuantity());
+
+                SalesFigures product = this.products.get(line.getBarcode());
+                if (product == null)
+                {
+                    product = new SalesFigures(line.getBarcode(), line.getProductName(), line.getCategory());
+                    this.products.put(line.getBarcode(), product);
+                }
+                product.add(line.getQuantity(), line.getLineTotal(), discountCost);
+
+                SalesFigures category = this.categories.get(line.getCategory());
+                if (category == null)
+                {
+                    category = new SalesFigures(line.getCategory(), line.getCategory(), line.getCategory());
+                    this.categories.put(line.getCategory(), category);
+                }
+                category.add(line.getQuantity(), line.getLineTotal(), discountCost);
+            }
+        }
+
+        /**
+         * Adds the figures of another range into these ones.
+         */
+        private Partial merge(Partial other)
+        {
+            this.receiptCount += other.receiptCount;
+            this.revenue = Money.add(this.revenue, other.revenue);
+            mergeFigures(this.products, other.products);
+            mergeFigures(this.categories, other.categories);
+
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++)
+            {
+                this.basketsPerHour[hour] += other.basketsPerHour[hour];
+            }
+
+            return this;
+        }
+
+        private static void mergeFigures(Map<String, SalesFigures> into, Map<String, SalesFigures> from)
+        {
+            for (Map.Entry<String, SalesFigures> figures : from.entrySet())
+            {
+                SalesFigures existing = into.putIfAbsent(figures.getKey(), figures.getValue());
+                if (existing != null)
+                {
+                    existing.merge(figures.getValue());
+                }
+            }
+        }
+    }
+}
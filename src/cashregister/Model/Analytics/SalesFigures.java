@@ -0,0 +1,117 @@
+package cashregister.Model.Analytics;
+
+import cashregister.Model.Product.Money;
+
+/**
+ * The {@code SalesFigures} class holds what was sold of one product or one category:
+ * the units, the revenue and what the discounts cost.
+ *
+ * @see SalesReport
+ */
+public class SalesFigures
+{
+    private final String key;
+    private final String name;
+    private final String category;
+    private long units;
+    private long revenue;
+    private long discountCost;
+
+    /**
+     * Creates empty figures.
+     *
+     * @param key       Barcode of the product, or name of the category
+     * @param name      Name of the product, or of the category
+     * @param category  Category of the product, or the category itself
+     */
+    SalesFigures(String key, String name, String category)
+    {
+        this.key = key;
+        this.name = name;
+        this.category = category;
+    }
+
+    /**
+     * Adds one line of a receipt.
+     *
+     * @param units         Number of units bought
+     * @param revenue       What was paid for them, in ore
+     * @param discountCost  What the discount took off the base price, in ore
+     */
+    void add(long units, long revenue, long discountCost)
+    {
+        this.units += units;
+        this.revenue = Money.add(this.revenue, revenue);
+        this.discountCost = Money.add(this.discountCost, discountCost);
+    }
+
+    /**
+     * Adds the figures of the same product or category from another part of the history.
+     *
+     * @param other The other figures
+     */
+    void merge(SalesFigures other)
+    {
+        add(other.units, other.revenue, other.discountCost);
+    }
+
+    /**
+     * Getter method for the barcode of the product, or the name of the category.
+     *
+     * @return The key of the figures
+     */
+    public String getKey()
+    {
+        return this.key;
+    }
+
+    /**
+     * Getter method for the name of the product, or of the category.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Getter method for the category of the product, or the category itself.
+     *
+     * @return The category
+     */
+    public String getCategory()
+    {
+        return this.category;
+    }
+
+    /**
+     * Getter method for the number of units sold.
+     *
+     * @return The units
+     */
+    public long getUnits()
+    {
+        return this.units;
+    }
+
+    /**
+     * Getter method for what was paid, including all discounts.
+     *
+     * @return The revenue, in ore
+     */
+    public long getRevenue()
+    {
+        return this.revenue;
+    }
+
+    /**
+     * Getter method for what the discount tiers took off the base prices.
+     *
+     * @return The discount cost, in ore
+     */
+    public long getDiscountCost()
+    {
+        return this.discountCost;
+    }
+}
@@ -0,0 +1,130 @@
+package cashregister.Model.Analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code SalesReport} class is the result of an analysis of a receipt history:
+ * revenue, units and discount cost per product and per category, and the number of baskets per hour of the day.
+ *
+ * @see SalesAnalytics
+ */
+public class SalesReport
+{
+    /**
+     * Orders figures by revenue, the highest first, and by key when the revenue is the same
+     */
+    private static final Comparator<SalesFigures> BY_REVENUE = Comparator
+            .comparingLong(SalesFigures::getRevenue).reversed()
+            .thenComparing(SalesFigures::getKey);
+
+    private final long receiptCount;
+    private final long revenue;
+    private final Map<String, SalesFigures> products;
+    private final Map<String, SalesFigures> categories;
+    private final long[] basketsPerHour;
+
+    /**
+     * Creates a report from the merged figures of the whole history.
+     *
+     * @param receiptCount      Number of receipts that were analyzed
+     * @param revenue           Revenue of all receipts, in ore
+     * @param products          Figures by barcode
+     * @param categories        Figures by category
+     * @param basketsPerHour    Number of baskets finished in every hour of the day
+     */
+    SalesReport(long receiptCount, long revenue, Map<String, SalesFigures> products,
+                Map<String, SalesFigures> categories, long[] basketsPerHour)
+    {
+        this.receiptCount = receiptCount;
+        this.revenue = revenue;
+        this.products = products;
+        this.categories = categories;
+        this.basketsPerHour = basketsPerHour;
+    }
+
+    /**
+     * Getter method for the number of receipts that were analyzed.
+     *
+     * @return The number of receipts
+     */
+    public long getReceiptCount()
+    {
+        return this.receiptCount;
+    }
+
+    /**
+     * Getter method for the revenue of all receipts.
+     *
+     * @return The revenue, in ore
+     */
+    public long getRevenue()
+    {
+        return this.revenue;
+    }
+
+    /**
+     * Getter method for the figures of every product that was sold.
+     *
+     * @return An unmodifiable list, ordered by revenue with the highest first
+     */
+    public List<SalesFigures> getProducts()
+    {
+        return sorted(this.products);
+    }
+
+    /**
+     * Getter method for the figures of one product.
+     *
+     * @param barcode   Barcode of the product
+     *
+     * @return The figures, or {@code null} if the product wasn't sold
+     */
+    public SalesFigures getProduct(String barcode)
+    {
+        return this.products.get(barcode);
+    }
+
+    /**
+     * Getter method for the figures of every category that was sold.
+     *
+     * @return An unmodifiable list, ordered by revenue with the highest first
+     */
+    public List<SalesFigures> getCategories()
+    {
+        return sorted(this.categories);
+    }
+
+    /**
+     * Getter method for the figures of one category.
+     *
+     * @param category  Name of the category
+     *
+     * @return The figures, or {@code null} if nothing in the category was sold
+     */
+    public SalesFigures getCategory(String category)
+    {
+        return this.categories.get(category);
+    }
+
+    /**
+     * Getter method for the number of baskets that were finished in every hour of the day.
+     *
+     * @return A copy of the counts, index 0 is the hour from midnight to 1 o'clock
+     */
+    public long[] getBasketsPerHour()
+    {
+        return Arrays.copyOf(this.basketsPerHour, this.basketsPerHour.length);
+    }
+
+    private static List<SalesFigures> sorted(Map<String, SalesFigures> figures)
+    {
+        List<SalesFigures> list = new ArrayList<>(figures.values());
+        list.sort(BY_REVENUE);
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -0,0 +1,280 @@
+package cashregister.Model.Batch;
+
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptPool;
+import cashregister.Model.StoreAssortment;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code BatchReceiptProcessor} class prices a whole batch of basket files on a pool of worker threads.
+ * Every basket file holds one barcode per line, like the files read by the console.
+ * All workers scan against the same {@code StoreAssortment}, which is only read.
+ *
+ * Receipts are written in the order of the input files, no matter which worker finishes first.
+ * Only a limited number of baskets are priced ahead of the one that is written next,
+ * so memory use doesn't depend on the number of files in the batch.
+ *
+ * @see BatchSummary
+ */
+public class BatchReceiptProcessor implements Closeable
+{
+    /**
+     * Number of baskets every worker may price ahead of the basket that is written next
+     */
+    private static final int BASKETS_AHEAD_PER_THREAD = 4;
+
+    /**
+     * Every worker thread reuses its own receipts, since a receipt is only needed until it is rendered
+     */
+    private static final ThreadLocal<ReceiptPool> receiptPools = ThreadLocal.withInitial(() -> new ReceiptPool(1));
+
+    private final StoreAssortment store;
+    private final ExecutorService workers;
+    private final int maxBasketsAhead;
+
+    /**
+     * Creates a processor with one worker per available core.
+     *
+     * @param store Store the baskets are priced against
+     */
+    public BatchReceiptProcessor(StoreAssortment store)
+    {
+        this(store, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a processor with a fixed number of workers.
+     *
+     * @param store         Store the baskets are priced against
+     * @param threadCount   Number of worker threads
+     */
+    public BatchReceiptProcessor(StoreAssortment store, int threadCount)
+    {
+        AtomicInteger workerNumber = new AtomicInteger();
+
+        this.store = store;
+        this.maxBasketsAhead = threadCount * BASKETS_AHEAD_PER_THREAD;
+        this.workers = Executors.newFixedThreadPool(threadCount, task ->
+        {
+            Thread worker = new Thread(task, "batch-worker-" + workerNumber.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /**
+     * Finds the basket files of a batch. A directory gives all files in it, anything else is taken as
+     * a glob pattern for the file names in a directory, like {@code data/bar*.txt}.
+     * The files are sorted by name, so the same batch is always processed in the same order.
+     *
+     * @param directoryOrGlob           A directory, or a glob pattern for the file names
+     *
+     * @return The basket files, sorted by name
+     *
+     * @throws FileNotFoundException    if the directory doesn't exist
+     * @throws IOException              if the directory can't be read
+     */
+    public static List<Path> findBasketFiles(String directoryOrGlob) throws IOException
+    {
+        Path path = Paths.get(directoryOrGlob);
+
+        Path directory = path;
+        String glob = "*";
+        if (!Files.isDirectory(path))
+        {
+            //The last part of the path is the pattern
+            directory = path.getParent() == null ? Paths.get(".") : path.getParent();
+            glob = path.getFileName().toString();
+        }
+
+        if (!Files.isDirectory(directory))
+        {
+            throw new FileNotFoundException(directory + " (No such file or directory)");
+        }
+
+        List<Path> basketFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob))
+        {
+            for (Path file : files)
+            {
+                if (Files.isRegularFile(file))
+                {
+                    basketFiles.add(file);
+                }
+            }
+        }
+
+        Collections.sort(basketFiles);
+        return basketFiles;
+    }
+
+    /**
+     * Prices every basket file and writes the receipts in the order of the files.
+     * Every receipt is preceded by a line with the name of its file.
+     *
+     * @param basketFiles   The basket files, in the order their receipts are written
+     * @param out           Where the receipts are written
+     *
+     * @return The counts and the throughput of the batch
+     *
+     * @throws IOException  if a basket file can't be read or a receipt can't be written
+     */
+    public BatchSummary process(List<Path> basketFiles, Appendable out) throws IOException
+    {
+        long startTime = System.nanoTime();
+        long[] counts = new long[3];
+
+        Deque<Future<PricedBasket>> pending = new ArrayDeque<>();
+        try
+        {
+            for (Path basketFile : basketFiles)
+            {
+                pending.add(this.workers.submit(() -> priceBasket(basketFile)));
+
+                //Write the oldest basket before too many are waiting
+                if (pending.size() >= this.maxBasketsAhead)
+                {
+                    write(next(pending), out, counts);
+                }
+            }
+
+            while (!pending.isEmpty())
+            {
+                write(next(pending), out, counts);
+            }
+        }
+        finally
+        {
+            //Only left over if something failed
+            for (Future<PricedBasket> basket : pending)
+            {
+                basket.cancel(true);
+            }
+        }
+
+        return new BatchSummary(counts[0], counts[1], counts[2], System.nanoTime() - startTime);
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close()
+    {
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Scans one basket file into a new receipt and renders it. Runs on a worker thread.
+     *
+     * @param basketFile    The basket file
+     *
+     * @return The rendered receipt and the counts of the basket
+     */
+    private PricedBasket priceBasket(Path basketFile)
+    {
+        ReceiptPool pool = receiptPools.get();
+        Receipt receipt = pool.acquire();
+        long lineCount = 0;
+        long unknownBarcodeCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(basketFile, StandardCharsets.UTF_8))
+        {
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                String barcode = line.trim();
+                if (barcode.isEmpty())
+                {
+                    continue;
+                }
+
+                lineCount++;
+                if (this.store.scanProduct(barcode, receipt) == null)
+                {
+                    unknownBarcodeCount++;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("The basket " + basketFile + " could not be read", e);
+        }
+
+        //Only the rendered text leaves the worker, so the receipt can be used for the next basket
+        String renderedReceipt = receipt.getReceipt();
+        pool.release(receipt);
+
+        return new PricedBasket(basketFile, renderedReceipt, lineCount, unknownBarcodeCount);
+    }
+
+    private static PricedBasket next(Deque<Future<PricedBasket>> pending) throws IOException
+    {
+        try
+        {
+            return pending.poll().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("The batch was interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw new IllegalStateException("A basket could not be priced", e.getCause());
+        }
+    }
+
+    private static void write(PricedBasket basket, Appendable out, long[] counts) throws IOException
+    {
+        out.append("*** ").append(basket.basketFile.toString()).append(" ***\n");
+        out.append(basket.receipt).append('\n');
+
+        counts[0]++;
+        counts[1] += basket.lineCount;
+        counts[2] += basket.unknownBarcodeCount;
+    }
+
+    /**
+     * The rendered receipt of one basket file.
+     */
+    private static final class PricedBasket
+    {
+        private final Path basketFile;
+        private final String receipt;
+        private final long lineCount;
+        private final long unknownBarcodeCount;
+
+        private PricedBasket(Path basketFile, String receipt, long lineCount, long unknownBarcodeCount)
+        {
+            this.basketFile = basketFile;
+            this.receipt = receipt;
+            this.lineCount = lineCount;
+            this.unknownBarcodeCount = unknownBarcodeCount;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cashregister.Model.Batch;
+
+/**
+ * The {@code BatchSummary} class holds the counts and the throughput of one batch of baskets.
+ *
+ * @see BatchReceiptProcessor
+ */
+public class BatchSummary
+{
+    private final long basketCount;
+    private final long lineCount;
+    private final long unknownBarcodeCount;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a summary of a finished batch.
+     *
+     * @param basketCount           Number of baskets that were priced
+     * @param lineCount             Number of scanned lines in all baskets
+     * @param unknownBarcodeCount   Number of lines with a barcode the store doesn't have
+     * @param elapsedNanos          Time the whole batch took, in nanoseconds
+     */
+    BatchSummary(long basketCount, long lineCount, long unknownBarcodeCount, long elapsedNanos)
+    {
+        this.basketCount = basketCount;
+        this.lineCount = lineCount;
+        this.unknownBarcodeCount = unknownBarcodeCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Getter method for the number of baskets that were priced.
+     *
+     * @return The number of baskets
+     */
+    public long getBasketCount()
+    {
+        return this.basketCount;
+    }
+
+    /**
+     * Getter method for the number of scanned lines in all baskets.
+     *
+     * @return The number of lines
+     */
+    public long getLineCount()
+    {
+        return this.lineCount;
+    }
+
+    /**
+     * Getter method for the number of lines with a barcode the store doesn't have.
+     * Those lines are skipped.
+     *
+     * @return The number of unknown barcodes
+     */
+    public long getUnknownBarcodeCount()
+    {
+        return this.unknownBarcodeCount;
+    }
+
+    /**
+     * Getter method for the time the whole batch took.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getElapsedNanos()
+    {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Getter method for the number of baskets that were priced per second.
+     *
+     * @return Baskets per second
+     */
+    public double getBasketsPerSecond()
+    {
+        return perSecond(this.basketCount);
+    }
+
+    /**
+     * Getter method for the number of scanned lines that were priced per second.
+     *
+     * @return Lines per second
+     */
+    public double getLinesPerSecond()
+    {
+        return perSecond(this.lineCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Priced %d baskets (%d lines, %d unknown barcodes) in %.2f s: %.0f baskets/s, %.0f lines/s",
+                this.basketCount,
+                this.lineCount,
+                this.unknownBarcodeCount,
+                this.elapsedNanos / 1e9,
+                getBasketsPerSecond(),
+                getLinesPerSecond());
+    }
+
+    private double perSecond(long count)
+    {
+        return this.elapsedNanos == 0 ? 0 : count * 1e9 / this.elapsedNanos;
+    }
+}
@@ -0,0 +1,164 @@
+package cashregister.Model.Batch;
+
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptPool;
+import cashregister.Model.StoreAssortment;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * The {@code ScanLogReader} class prices one continuous log of scans, as it is written by the scanners.
+ * The log holds one barcode per line, and a delimiter line between the transactions:
+ * <pre>
+ * 7044610873466
+ * 7044610873466
+ * ---
+ * 5701234567899
+ * </pre>
+ * The log is read line by line. A receipt is started with the first scan of a transaction and
+ * written out as soon as the delimiter closes it, so memory use only depends on the size of
+ * one receipt and never on the size of the log. The last transaction doesn't need a delimiter.
+ *
+ * @see BatchReceiptProcessor
+ */
+public class ScanLogReader
+{
+    /**
+     * Line that closes a transaction, unless another delimiter is given
+     */
+    public static final String DEFAULT_DELIMITER = "---";
+
+    private final StoreAssortment store;
+    private final String delimiter;
+
+    /**
+     * Creates a reader that uses the default delimiter.
+     *
+     * @param store Store the scans are priced against
+     */
+    public ScanLogReader(StoreAssortment store)
+    {
+        this(store, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Creates a reader with its own delimiter.
+     *
+     * @param store     Store the scans are priced against
+     * @param delimiter Line that closes a transaction. Surrounding whitespace is ignored
+     */
+    public ScanLogReader(StoreAssortment store, String delimiter)
+    {
+        this.store = store;
+        this.delimiter = delimiter.trim();
+    }
+
+    /**
+     * Prices every transaction in a log file.
+     *
+     * @param logFile                   The log file
+     * @param out                       Where the receipts are written
+     *
+     * @return The counts and the throughput of the log
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IOException              if the file can't be read or a receipt can't be written
+     */
+    public BatchSummary process(Path logFile, Appendable out) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8))
+        {
+            return process(reader, out);
+        }
+        catch (NoSuchFileException e)
+        {
+            throw new FileNotFoundException(logFile + " (No such file or directory)");
+        }
+    }
+
+    /**
+     * Prices every transaction that is read from a log. The log is not closed.
+     * Every receipt is preceded by a line with its number, and a flushable output is flushed after
+     * every receipt, so it goes out while the rest of the log is still being read.
+     *
+     * @param in            The log
+     * @param out           Where the receipts are written
+     *
+     * @return The counts and the throughput of the log
+     *
+     * @throws IOException  if the log can't be read or a receipt can't be written
+     */
+    public BatchSummary process(Reader in, Appendable out) throws IOException
+    {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+
+        long startTime = System.nanoTime();
+        long receiptCount = 0;
+        long lineCount = 0;
+        long unknownBarcodeCount = 0;
+
+        //A receipt is written out as soon as it closes, so the same receipt object is used for every transaction
+        ReceiptPool pool = new ReceiptPool(1);
+        Receipt receipt = pool.acquire();
+        boolean receiptHasProducts = false;
+        for (String line = reader.readLine(); line != null; line = reader.readLine())
+        {
+            String barcode = line.trim();
+            if (barcode.isEmpty())
+            {
+                continue;
+            }
+
+            if (barcode.equals(this.delimiter))
+            {
+                //Two delimiters in a row don't make an empty receipt
+                if (receiptHasProducts)
+                {
+                    write(++receiptCount, receipt, out);
+                    pool.release(receipt);
+                    receipt = pool.acquire();
+                    receiptHasProducts = false;
+                }
+                continue;
+            }
+
+            lineCount++;
+            if (this.store.scanProduct(barcode, receipt) == null)
+            {
+                unknownBarcodeCount++;
+            }
+            else
+            {
+                receiptHasProducts = true;
+            }
+        }
+
+        //The log may end without a delimiter
+        if (receiptHasProducts)
+        {
+            write(++receiptCount, receipt, out);
+        }
+
+        return new BatchSummary(receiptCount, lineCount, unknownBarcodeCount, System.nanoTime() - startTime);
+    }
+
+    private static void write(long receiptNumber, Receipt receipt, Appendable out) throws IOException
+    {
+        out.append("*** Receipt ").append(Long.toString(receiptNumber)).append(" ***\n");
+        receipt.appendReceipt(out);
+        out.append('\n');
+
+        if (out instanceof Flushable)
+        {
+            ((Flushable) out).flush();
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package cashregister.Model;
 
+import cashregister.Model.Analytics.BestSellerSketch;
 import cashregister.Model.Product.Product;
 import cashregister.Model.Receipt.BaseReceipt;
-import cashregister.Model.Receipt.CategoryReceipt;
 import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptLog;
+import cashregister.Model.Receipt.ReceiptPool;
+import cashregister.Model.Receipt.ReceiptSnapshot;
+import cashregister.Model.Receipt.ShiftTotals;
 import cashregister.Model.Receipt.SimpleReceipt;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Keeps track of the current receipt and a history of all receipts
+ * Keeps track of the current receipt and a history of all receipts.
+ * A receipt is made final when the next one is started, and the history keeps its snapshot.
+ * The receipt object itself is then used again for a later customer.
+ * Without a {@code ReceiptLog}, every snapshot stays in memory. With one, snapshots are
+ * written to the log and only a window of the most recent ones stays in memory.
  */
 public class CashRegister
 {
-    private List<Receipt> receiptHistory;
-    private int currentReceiptId;
+    /**
+     * Number of finished receipts that stay in memory when the history is kept in a log
+     */
+    public static final int DEFAULT_HISTORY_WINDOW = 100;
+
+    private List<ReceiptSnapshot> recentReceipts;
+    private Receipt currentReceipt;
+    private ReceiptPool receiptPool;
+    private ReceiptLog receiptLog;
+    private int historyWindow;
+    private ShiftTotals shiftTotals;
+    private BestSellerSketch bestSellers;
 
     /**
      * Initializes the starting values of the list of receipts
@@ -23,18 +44,106 @@ public class CashRegister
      */
     public CashRegister(StoreAssortment storeAssortment)
     {
-        this.currentReceiptId = -1;
-        this.receiptHistory = new ArrayList<>();
+        this.recentReceipts = new ArrayList<>();
+        this.currentReceipt = null;
+        this.receiptPool = new ReceiptPool();
+        this.receiptLog = null;
+        this.historyWindow = Integer.MAX_VALUE;
+        this.shiftTotals = new ShiftTotals();
+        this.bestSellers = new BestSellerSketch();
+    }
+
+    /**
+     * Keeps the history in a log on disk from now on. The receipts that were finished so far are
+     * written to the log, and only the most recent ones stay in memory.
+     * @param receiptLog Log the finished receipts are written to
+     * @param historyWindow Number of finished receipts that stay in memory
+     * @throws IllegalStateException if the history is already kept in a log
+     * @throws IOException if the receipts cannot be written to the log
+     */
+    public void setReceiptLog(ReceiptLog receiptLog, int historyWindow) throws IllegalStateException, IOException
+    {
+        if (this.receiptLog != null)
+        {
+            throw new IllegalStateException("The history is already kept in " + this.receiptLog.getPath());
+        }
+        if (historyWindow < 0)
+        {
+            throw new IllegalArgumentException("The history window can't be negative.");
+        }
+
+        //Receipts that are only in memory so far go to the log
+        for (ReceiptSnapshot receipt : this.recentReceipts)
+        {
+            receiptLog.append(receipt);
+        }
+
+        this.receiptLog = receiptLog;
+        this.historyWindow = historyWindow;
+        trimHistory();
+    }
+
+    /**
+     * Getter method for the log the history is kept in
+     * @return The receipt log, or null if all receipts are kept in memory
+     */
+    public ReceiptLog getReceiptLog()
+    {
+        return this.receiptLog;
     }
 
     /**
      * Ends the previous receipt (if there is one) and starts a new empty one
+     * @throws UncheckedIOException if the previous receipt cannot be written to the log
      */
     public void startNewReceipt()
     {
-        Receipt newReceipt = new CategoryReceipt();
-        this.receiptHistory.add(newReceipt);
-        this.currentReceiptId = this.receiptHistory.size() - 1;
+        if (this.currentReceipt != null)
+        {
+            finishReceipt(this.currentReceipt);
+        }
+
+        this.currentReceipt = this.receiptPool.acquire();
+    }
+
+    /**
+     * Voids the open receipt (if there is one). It is dropped without being added to the history
+     * or to the totals of the shift, and the receipt object is used again for a later customer
+     */
+    public void cancelReceipt()
+    {
+        if (this.currentReceipt != null)
+        {
+            this.receiptPool.release(this.currentReceipt);
+            this.currentReceipt = null;
+        }
+    }
+
+    /**
+     * Getter method for the running totals of the current shift. Only finished receipts are counted
+     * @return The totals of the shift
+     */
+    public ShiftTotals getShiftTotals()
+    {
+        return this.shiftTotals;
+    }
+
+    /**
+     * Ends the current shift, for a Z-report, and starts a new one with empty totals.
+     * The open receipt is finished first, so it counts towards the shift that ends
+     * @return The totals of the shift that ended
+     */
+    public ShiftTotals closeShift()
+    {
+        if (this.currentReceipt != null)
+        {
+            finishReceipt(this.currentReceipt);
+            this.currentReceipt = null;
+        }
+
+        ShiftTotals closedShift = this.shiftTotals;
+        this.shiftTotals = new ShiftTotals();
+        return closedShift;
     }
 
     /**
@@ -44,39 +153,135 @@ public class CashRegister
      */
     public void addProductToReceipt(String barcode, StoreAssortment store) throws ArrayIndexOutOfBoundsException
     {
-        if (this.currentReceiptId < 0)
+        if (this.currentReceipt == null)
         {
             throw new ArrayIndexOutOfBoundsException("No receipts started yet.");
         }
 
-        //Check if the store has this product
-        if (!store.hasProduct(barcode))
+        Product productInStore = store.scanProduct(barcode, getCurrentReceipt());
+        if (productInStore == null)
         {
-            //...It doesn't, skip the product
+            //The store doesn't have it, skip the product
             System.out.println("Product with barcode \"" + barcode + "\" doesn't exist in the store's assortment!");
             return;
         }
 
-        Product productInStore = store.getProduct(barcode);
-        Receipt currentReceipt = getCurrentReceipt();
-        currentReceipt.addProductToReceipt(productInStore);
+        this.bestSellers.offer(productInStore);
     }
 
     /**
-     * Getter method that retrieves the current receipt (if there is one)
-     * @return The current receipt in the register
+     * Getter method for the best-selling products, counted while they are scanned.
+     * Products that are removed from a receipt again are still counted
+     * @return The sketch of the best-selling products
+     */
+    public BestSellerSketch getBestSellers()
+    {
+        return this.bestSellers;
+    }
+
+    /**
+     * Getter method that retrieves the current receipt (if there is one).
+     * The receipt object is reused once the next receipt is started - the history keeps its snapshot
+     * @return The current receipt in the register, or null if no receipt was started yet
      */
     public Receipt getCurrentReceipt()
     {
-        return this.receiptHistory.get(this.currentReceiptId);
+        return this.currentReceipt;
     }
 
     /**
-     * Returns the whole history of the receipt
-     * @return
+     * Returns the whole history of the receipt, with the current receipt last.
+     * Finished receipts are in the list as their snapshots. The list is a view: receipts that are only
+     * in the log are read back from it when they are asked for.
+     * @return An unmodifiable view of all receipts
+     * @throws UncheckedIOException (from the list) if a receipt cannot be read from the log
      */
     public List<Receipt> getHistory()
     {
-        return this.receiptHistory;
+        return new AbstractList<Receipt>()
+        {
+            @Override
+            public Receipt get(int index)
+            {
+                int finishedCount = finishedCount();
+                int firstRecent = finishedCount - recentReceipts.size();
+
+                if (index < 0 || index >= size())
+                {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                }
+                if (index == finishedCount)
+                {
+                    return currentReceipt;
+                }
+                if (index >= firstRecent)
+                {
+                    return recentReceipts.get(index - firstRecent);
+                }
+
+                try
+                {
+                    return receiptLog.read(index);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public int size()
+            {
+                return finishedCount() + (currentReceipt == null ? 0 : 1);
+            }
+        };
+    }
+
+    /**
+     * Makes a receipt final and moves its snapshot into the history, and into the log if there is one.
+     * The receipt object goes back to the pool
+     */
+    private void finishReceipt(Receipt receipt)
+    {
+        ReceiptSnapshot snapshot = receipt.makeFinal();
+
+        if (this.receiptLog != null)
+        {
+            try
+            {
+                this.receiptLog.append(snapshot);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("The receipt could not be written to " + this.receiptLog.getPath(), e);
+            }
+        }
+
+        this.recentReceipts.add(snapshot);
+        this.shiftTotals.add(snapshot);
+        trimHistory();
+
+        //Only the snapshot is kept, so the receipt object is used again for a later customer
+        this.receiptPool.release(receipt);
+    }
+
+    /**
+     * Drops the oldest receipts from memory once there are more than the window allows. They are still in the log
+     */
+    private void trimHistory()
+    {
+        int excess = this.recentReceipts.size() - this.historyWindow;
+        if (excess > 0)
+        {
+            this.recentReceipts.subList(0, excess).clear();
+        }
+    }
+
+    /**
+     * Counts the receipts that are finished, both in the log and in memory
+     */
+    private int finishedCount()
+    {
+        return this.receiptLog == null ? this.recentReceipts.size() : this.receiptLog.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,473 @@
+package cashregister.Model.Catalog;
+
+import cashregister.HelperFunctions;
+import cashregister.Model.Product.Product;
+import cashregister.Model.StoreAssortment;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code CatalogFileReader} class streams the <em>prices</em> and <em>discounts</em>
+ * text files straight into a {@code StoreAssortment}.
+ * The file is memory-mapped and every line is tokenized from the mapped bytes,
+ * so the lines of the file are never held in memory at the same time.
+ * Every file is loaded as one update, so lanes never see a half loaded file.
+ *
+ * @see StoreAssortment
+ * @see CatalogLine
+ * @see ImportReport
+ */
+public class CatalogFileReader
+{
+    /**
+     * Largest part of a file that is mapped at once. Files bigger than this are
+     * mapped in several regions, each one ending on a line break.
+     */
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    /**
+     * Reads a prices file and adds every product in it to the store.
+     * Each line must follow the format {@code <barcode>,<category>,<name>,<kr>,<ore>}.
+     *
+     * @param fileName                  Location of the text file
+     * @param store                     Store the products are added to
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line has errors in the formatting or the product already exists
+     */
+    public static void readProducts(String fileName, StoreAssortment store) throws FileNotFoundException
+    {
+        //The whole file becomes one new version of the store
+        store.beginUpdate();
+        try
+        {
+            forEachLine(fileName, line ->
+            {
+                checkFieldCount(line, 5, "<barcode>,<category>,<name>,<kr>,<ore>");
+
+                //The price is parsed straight from the bytes
+                int productPrice = HelperFunctions.generatePrice(line.getInt(3), line.getInt(4));
+
+                store.addNewProductToStore(line.getString(0), line.getString(1), line.getString(2), productPrice);
+            });
+        }
+        finally
+        {
+            store.finishUpdate();
+        }
+    }
+
+    /**
+     * Reads a discounts file and adds every discount in it to its product in the store.
+     * Each line must follow the format {@code <barcode>,<limit>,<kr>,<ore>}.
+     *
+     * @param fileName                  Location of the text file
+     * @param store                     Store the discounts are added to
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line has errors in the formatting
+     */
+    public static void readDiscounts(String fileName, StoreAssortment store) throws FileNotFoundException
+    {
+        //The whole file becomes one new version of the store
+        store.beginUpdate();
+        try
+        {
+            forEachLine(fileName, line ->
+            {
+                checkFieldCount(line, 4, "<barcode>,<limit>,<kr>,<ore>");
+
+                int minAmount = line.getInt(1);
+                int discountPrice = HelperFunctions.generatePrice(line.getInt(2), line.getInt(3));
+
+                store.addNewDiscountToStore(line.getString(0), minAmount, discountPrice);
+            });
+        }
+        finally
+        {
+            store.finishUpdate();
+        }
+    }
+
+    /**
+     * Imports a prices file without stopping at lines that have errors in them.
+     * Every line is validated before it is added, so rejected lines don't cost an exception -
+     * they are collected in the returned report instead. All accepted lines are added as one update.
+     *
+     * @param fileName                  Location of the text file
+     * @param store                     Store the products are added to
+     *
+     * @return A report of the accepted and rejected lines
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     */
+    public static ImportReport importProducts(String fileName, StoreAssortment store) throws FileNotFoundException
+    {
+        ImportReport report = new ImportReport(fileName);
+
+        store.beginUpdate();
+        try
+        {
+            forEachLine(fileName, new ProductImport(store, report));
+        }
+        finally
+        {
+            store.finishUpdate();
+        }
+
+        return report;
+    }
+
+    /**
+     * Imports a discounts file without stopping at lines that have errors in them.
+     * Every line is validated before it is added, so rejected lines don't cost an exception -
+     * they are collected in the returned report instead. All accepted lines are added as one update.
+     *
+     * @param fileName                  Location of the text file
+     * @param store                     Store the discounts are added to
+     *
+     * @return A report of the accepted and rejected lines
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     */
+    public static ImportReport importDiscounts(String fileName, StoreAssortment store) throws FileNotFoundException
+    {
+        ImportReport report = new ImportReport(fileName);
+
+        store.beginUpdate();
+        try
+        {
+            forEachLine(fileName, new DiscountImport(store, report));
+        }
+        finally
+        {
+            store.finishUpdate();
+        }
+
+        return report;
+    }
+
+    /**
+     * Memory-maps a file and calls the handler once for every line in it.
+     * An empty segment after the final line break is not counted as a line.
+     *
+     * @param fileName                  Location of the text file
+     * @param handler                   Called for every line of the file
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     */
+    static void forEachLine(String fileName, LineHandler handler) throws FileNotFoundException
+    {
+        CatalogLine line = new CatalogLine();
+        forEachRegion(fileName, (region, size) -> forEachLine(region, 0, size, line, handler));
+    }
+
+    /**
+     * Memory-maps a file and calls the handler once for every mapped region of it.
+     * Every region except the last one ends right after a line break.
+     *
+     * @param fileName                  Location of the text file
+     * @param handler                   Called for every region of the file
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     */
+    static void forEachRegion(String fileName, RegionHandler handler) throws FileNotFoundException
+    {
+        Path path = Paths.get(fileName);
+        if (!Files.isRegularFile(path))
+        {
+            throw new FileNotFoundException(fileName + " (No such file or directory)");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+            long position = 0;
+
+            while (position < fileSize)
+            {
+                int regionSize = (int) Math.min(MAX_REGION_SIZE, fileSize - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+
+                //Unless this is the last region, stop after the last complete line in it
+                int usableSize = regionSize;
+                if (position + regionSize < fileSize)
+                {
+                    usableSize = lastLineBreak(region, regionSize) + 1;
+                    if (usableSize == 0)
+                    {
+                        throw new IllegalArgumentException("A line in " + fileName + " is too long to be read");
+                    }
+                }
+
+                handler.handleRegion(region, usableSize);
+                position += usableSize;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes sure a line has the number of fields its file format requires.
+     *
+     * @param line                      Line to check
+     * @param expectedFields            Number of fields the format has
+     * @param format                    Description of the format, used in the error message
+     *
+     * @throws IllegalArgumentException if the line has errors in the formatting
+     */
+    static void checkFieldCount(CatalogLine line, int expectedFields, String format) throws IllegalArgumentException
+    {
+        if (line.getFieldCount() != expectedFields)
+        {
+            //The line has errors in the formatting
+            String formatErrorMessage = String.format(
+                    "Line %s doesn't follow specified format of \"%s\" and will be skipped",
+                    line.getLine(),
+                    format);
+
+            throw new IllegalArgumentException(formatErrorMessage);
+        }
+    }
+
+    /**
+     * Calls the handler for every line in a range of a buffer.
+     *
+     * @param buffer    Buffer holding the lines
+     * @param start     Index of the first byte of the range
+     * @param end       Index after the last byte of the range
+     * @param line      Reusable line object
+     * @param handler   Called for every line in the range
+     */
+    static void forEachLine(ByteBuffer buffer, int start, int end, CatalogLine line, LineHandler handler)
+    {
+        int lineStart = start;
+        for (int i = start; i < end; i++)
+        {
+            if (buffer.get(i) == '\n')
+            {
+                line.reset(buffer, lineStart, i);
+                handler.handleLine(line);
+                lineStart = i + 1;
+            }
+        }
+
+        //The last line doesn't need a line break after it
+        if (lineStart < end)
+        {
+            line.reset(buffer, lineStart, end);
+            handler.handleLine(line);
+        }
+    }
+
+    private static int lastLineBreak(MappedByteBuffer buffer, int size)
+    {
+        for (int i = size - 1; i >= 0; i--)
+        {
+            if (buffer.get(i) == '\n')
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Validates the lines of a file one at a time, and reports every line it rejects instead of throwing.
+     */
+    private abstract static class LineImport implements LineHandler
+    {
+        protected final StoreAssortment store;
+        private final ImportReport report;
+        private long lineNumber;
+
+        /**
+         * The price parsed by the last call to {@link #parsePrice(CatalogLine, int, int)}
+         */
+        protected int price;
+
+        LineImport(StoreAssortment store, ImportReport report)
+        {
+            this.store = store;
+            this.report = report;
+        }
+
+        @Override
+        public void handleLine(CatalogLine line)
+        {
+            this.lineNumber++;
+
+            ImportReport.Reason reason = importLine(line);
+            if (reason == null)
+            {
+                this.report.accept();
+            }
+            else
+            {
+                this.report.reject(this.lineNumber, reason, line);
+            }
+        }
+
+        /**
+         * Validates one line and adds it to the store if it is valid.
+         *
+         * @param line  The line
+         *
+         * @return {@code null} if the line was added, otherwise the reason it was rejected
+         */
+        protected abstract ImportReport.Reason importLine(CatalogLine line);
+
+        /**
+         * Parses a price from its kroner and ore fields into {@link #price}.
+         *
+         * @param line          The line
+         * @param kronerField   Index of the kroner field
+         * @param oreField      Index of the ore field
+         *
+         * @return {@code null} if the price is valid, otherwise the reason it isn't
+         */
+        protected ImportReport.Reason parsePrice(CatalogLine line, int kronerField, int oreField)
+        {
+            long kroner = line.parseInt(kronerField);
+            long ore = line.parseInt(oreField);
+
+            if (kroner == CatalogLine.NOT_AN_INT || ore == CatalogLine.NOT_AN_INT)
+            {
+                return ImportReport.Reason.INVALID_NUMBER;
+            }
+
+            //The price has to fit in an int, and the store doesn't accept free products
+            long totalOre = kroner * 100 + ore;
+            if (kroner < 0 || ore < 0 || totalOre <= 0 || totalOre > Integer.MAX_VALUE)
+            {
+                return ImportReport.Reason.INVALID_PRICE;
+            }
+
+            this.price = (int) totalOre;
+            return null;
+        }
+    }
+
+    /**
+     * Imports the lines of a prices file.
+     */
+    private static final class ProductImport extends LineImport
+    {
+        ProductImport(StoreAssortment store, ImportReport report)
+        {
+            super(store, report);
+        }
+
+        @Override
+        protected ImportReport.Reason importLine(CatalogLine line)
+        {
+            if (line.getFieldCount() != 5)
+            {
+                return ImportReport.Reason.WRONG_FIELD_COUNT;
+            }
+
+            if (line.isEmpty(0) || line.isEmpty(1) || line.isEmpty(2))
+            {
+                return ImportReport.Reason.EMPTY_FIELD;
+            }
+
+            ImportReport.Reason priceError = parsePrice(line, 3, 4);
+            if (priceError != null)
+            {
+                return priceError;
+            }
+
+            String barcode = line.getString(0);
+            if (this.store.hasProduct(barcode))
+            {
+                return ImportReport.Reason.DUPLICATE_BARCODE;
+            }
+
+            //Everything that could fail has been checked, so this doesn't throw
+            this.store.addNewProductToStore(barcode, line.getString(1), line.getString(2), this.price);
+            return null;
+        }
+    }
+
+    /**
+     * Imports the lines of a discounts file.
+     */
+    private static final class DiscountImport extends LineImport
+    {
+        DiscountImport(StoreAssortment store, ImportReport report)
+        {
+            super(store, report);
+        }
+
+        @Override
+        protected ImportReport.Reason importLine(CatalogLine line)
+        {
+            if (line.getFieldCount() != 4)
+            {
+                return ImportReport.Reason.WRONG_FIELD_COUNT;
+            }
+
+            if (line.isEmpty(0))
+            {
+                return ImportReport.Reason.EMPTY_FIELD;
+            }
+
+            long minAmount = line.parseInt(1);
+            if (minAmount == CatalogLine.NOT_AN_INT)
+            {
+                return ImportReport.Reason.INVALID_NUMBER;
+            }
+
+            if (minAmount < 1)
+            {
+                return ImportReport.Reason.INVALID_QUANTITY;
+            }
+
+            ImportReport.Reason priceError = parsePrice(line, 2, 3);
+            if (priceError != null)
+            {
+                return priceError;
+            }
+
+            //Importing isn't scanning, so the lookup isn't counted
+            Product product = this.store.lookUpProduct(line.getString(0));
+            if (product == null)
+            {
+                return ImportReport.Reason.UNKNOWN_PRODUCT;
+            }
+
+            product.addDiscount((int) minAmount, this.price);
+            return null;
+        }
+    }
+
+    /**
+     * Receives the mapped regions of a catalog file one at a time.
+     */
+    interface RegionHandler
+    {
+        void handleRegion(MappedByteBuffer region, int size);
+    }
+
+    /**
+     * Receives the lines of a catalog file one at a time.
+     * The line object is reused, so it must not be kept after the call.
+     */
+    interface LineHandler
+    {
+        void handleLine(CatalogLine line);
+    }
+}
@@ -0,0 +1,241 @@
+package cashregister.Model.Catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@code CatalogLine} class is a reusable, comma separated view over
+ * <em>one line</em> of a memory-mapped catalog file.
+ * Fields are located by their byte offsets, so numbers can be parsed
+ * straight from the bytes and only the text fields become Strings.
+ *
+ * @see CatalogFileReader
+ */
+class CatalogLine
+{
+    private static final int MAX_FIELDS = 8;
+
+    /**
+     * Returned by {@link #parseInt(int)} when a field is not a valid int
+     */
+    static final long NOT_AN_INT = Long.MIN_VALUE;
+
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int lineEnd;
+
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private int fieldCount;
+
+    private byte[] decodeBuffer;
+
+    /**
+     * Creates an empty line which can be pointed at different parts of a buffer.
+     */
+    CatalogLine()
+    {
+        this.fieldStarts = new int[MAX_FIELDS];
+        this.fieldEnds = new int[MAX_FIELDS];
+        this.decodeBuffer = new byte[128];
+    }
+
+    /**
+     * Points the line at a new range of bytes and finds all fields in it.
+     *
+     * @param buffer    Buffer that holds the line
+     * @param start     Index of the first byte of the line
+     * @param end       Index after the last byte of the line (the line break is not included)
+     */
+    void reset(ByteBuffer buffer, int start, int end)
+    {
+        this.buffer = buffer;
+        this.lineStart = start;
+        this.lineEnd = end;
+        this.fieldCount = 0;
+
+        int fieldStart = start;
+        for (int i = start; i < end; i++)
+        {
+            if (buffer.get(i) == ',')
+            {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+
+        addField(fieldStart, end);
+    }
+
+    /**
+     * Getter method for the number of comma separated fields in the line.
+     *
+     * @return The number of fields
+     */
+    int getFieldCount()
+    {
+        return this.fieldCount;
+    }
+
+    /**
+     * Decodes one field as a trimmed UTF-8 String.
+     *
+     * @param field     Index of the field
+     *
+     * @return The text of the field
+     */
+    String getString(int field)
+    {
+        int start = trimStart(this.fieldStarts[field], this.fieldEnds[field]);
+        int end = trimEnd(start, this.fieldEnds[field]);
+
+        return decode(start, end);
+    }
+
+    /**
+     * Parses one field as a (trimmed) decimal int, without creating a String for it.
+     *
+     * @param field                     Index of the field
+     *
+     * @return The parsed number
+     *
+     * @throws NumberFormatException    if the field is not a valid int
+     */
+    int getInt(int field) throws NumberFormatException
+    {
+        long value = parseInt(field);
+        if (value == NOT_AN_INT)
+        {
+            int start = trimStart(this.fieldStarts[field], this.fieldEnds[field]);
+            throw invalidNumber(start, trimEnd(start, this.fieldEnds[field]));
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Parses one field as a (trimmed) decimal int, without creating a String for it.
+     * Unlike {@link #getInt(int)}, an invalid field is not an error.
+     *
+     * @param field     Index of the field
+     *
+     * @return The parsed number, or {@link #NOT_AN_INT} if the field is not a valid int
+     */
+    long parseInt(int field)
+    {
+        int start = trimStart(this.fieldStarts[field], this.fieldEnds[field]);
+        int end = trimEnd(start, this.fieldEnds[field]);
+
+        int position = start;
+        boolean isNegative = false;
+
+        //An optional sign is allowed, the same way Integer.parseInt allows it
+        if (position < end && (this.buffer.get(position) == '-' || this.buffer.get(position) == '+'))
+        {
+            isNegative = this.buffer.get(position) == '-';
+            position++;
+        }
+
+        if (position == end)
+        {
+            return NOT_AN_INT;
+        }
+
+        long limit = isNegative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+
+        for (; position < end; position++)
+        {
+            int digit = this.buffer.get(position) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return NOT_AN_INT;
+            }
+
+            value = value * 10 + digit;
+            if (value > limit)
+            {
+                return NOT_AN_INT;
+            }
+        }
+
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Checks whether one field is empty once it is trimmed.
+     *
+     * @param field     Index of the field
+     *
+     * @return {@code true} if the field has no text
+     */
+    boolean isEmpty(int field)
+    {
+        return trimStart(this.fieldStarts[field], this.fieldEnds[field]) == this.fieldEnds[field];
+    }
+
+    /**
+     * Decodes the whole (trimmed) line. Only used when reporting errors.
+     *
+     * @return The line as a String
+     */
+    String getLine()
+    {
+        int start = trimStart(this.lineStart, this.lineEnd);
+        return decode(start, trimEnd(start, this.lineEnd));
+    }
+
+    private void addField(int start, int end)
+    {
+        //Lines with too many fields are still counted, so the format check can reject them
+        if (this.fieldCount < MAX_FIELDS)
+        {
+            this.fieldStarts[this.fieldCount] = start;
+            this.fieldEnds[this.fieldCount] = end;
+        }
+
+        this.fieldCount++;
+    }
+
+    private int trimStart(int start, int end)
+    {
+        //Same rule as String.trim - every byte up to the space character is whitespace
+        while (start < end && (this.buffer.get(start) & 0xFF) <= ' ')
+        {
+            start++;
+        }
+
+        return start;
+    }
+
+    private int trimEnd(int start, int end)
+    {
+        while (end > start && (this.buffer.get(end - 1) & 0xFF) <= ' ')
+        {
+            end--;
+        }
+
+        return end;
+    }
+
+    private String decode(int start, int end)
+    {
+        int length = end - start;
+        if (length > this.decodeBuffer.length)
+        {
+            this.decodeBuffer = new byte[Math.max(length, this.decodeBuffer.length * 2)];
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            this.decodeBuffer[i] = this.buffer.get(start + i);
+        }
+
+        return new String(this.decodeBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private NumberFormatException invalidNumber(int start, int end)
+    {
+        return new NumberFormatException("For input string: \"" + decode(start, end) + "\"");
+    }
+}
@@ -0,0 +1,358 @@
+package cashregister.Model.Catalog;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.ProductSource;
+import cashregister.Model.StoreAssortment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code CatalogSnapshot} class is a compiled, binary copy of a whole
+ * <em>store assortment</em> - products, categories, base prices and discounts.
+ * A snapshot is memory-mapped when it is opened, and a {@code Product} is only
+ * created the first time its barcode is looked up, so a register can start
+ * taking scans without parsing the text files again.
+ *
+ * <p>The file starts with a header (magic number, format version, number of
+ * categories and products and a CRC32 of the rest of the file), followed by the
+ * category names, an index of product offsets sorted by barcode, and the products.</p>
+ *
+ * @see StoreAssortment#attachProductSource(ProductSource)
+ */
+public class CatalogSnapshot implements ProductSource
+{
+    /**
+     * File extension used for compiled catalogs
+     */
+    public static final String FILE_EXTENSION = ".catalog";
+
+    private static final int MAGIC = 0x4352434C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private final MappedByteBuffer buffer;
+    private final String[] categories;
+    private final int productCount;
+    private final int indexStart;
+    private final int recordsStart;
+
+    private CatalogSnapshot(MappedByteBuffer buffer, String[] categories, int productCount, int indexStart)
+    {
+        this.buffer = buffer;
+        this.categories = categories;
+        this.productCount = productCount;
+        this.indexStart = indexStart;
+        this.recordsStart = indexStart + productCount * 4;
+    }
+
+    /**
+     * Compiles every product in a store into a snapshot file.
+     *
+     * @param store         Store that is to be compiled
+     * @param fileName      Location of the snapshot file. An existing file is replaced
+     *
+     * @throws IOException  if the file cannot be written
+     */
+    public static void write(StoreAssortment store, String fileName) throws IOException
+    {
+        //The index is sorted by the barcode bytes, so lookups can use binary search
+        List<SortEntry> entries = new ArrayList<>();
+        for (Product product : store.getAllProducts())
+        {
+            entries.add(new SortEntry(utf8(product.getBarcode()), product));
+        }
+        entries.sort((first, second) -> compareBytes(first.barcode, second.barcode));
+
+        //Give every category a number
+        Map<String, Integer> categoryIds = new HashMap<>();
+        List<String> categories = new ArrayList<>();
+        for (SortEntry entry : entries)
+        {
+            Product product = entry.product;
+            if (!categoryIds.containsKey(product.getCategory()))
+            {
+                categoryIds.put(product.getCategory(), categories.size());
+                categories.add(product.getCategory());
+            }
+        }
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] offsets = new int[entries.size()];
+
+        for (int i = 0; i < entries.size(); i++)
+        {
+            Product product = entries.get(i).product;
+            offsets[i] = records.size();
+
+            writeString(records, product.getBarcode());
+            records.writeInt(categoryIds.get(product.getCategory()));
+            writeString(records, product.getProductName());
+
+            //The prices include the base price, which is the one at quantity 1
+            Map<Integer, Integer> prices = product.getAllPrices();
+            records.writeInt(prices.size());
+            for (Map.Entry<Integer, Integer> price : prices.entrySet())
+            {
+                records.writeInt(price.getKey());
+                records.writeInt(price.getValue());
+            }
+        }
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        for (String category : categories)
+        {
+            writeString(body, category);
+        }
+        for (int offset : offsets)
+        {
+            body.writeInt(offset);
+        }
+        recordBytes.writeTo(body);
+        body.flush();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(bodyBytes.toByteArray());
+
+        try (OutputStream file = Files.newOutputStream(Paths.get(fileName)))
+        {
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(categories.size());
+            header.writeInt(entries.size());
+            header.writeLong(checksum.getValue());
+            bodyBytes.writeTo(header);
+            header.flush();
+        }
+    }
+
+    /**
+     * Maps a snapshot file and checks that it is complete and unchanged.
+     *
+     * @param fileName                  Location of the snapshot file
+     *
+     * @return The opened snapshot
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if the file is not a snapshot, has another version or is corrupted
+     * @throws IOException              if the file cannot be read
+     */
+    public static CatalogSnapshot open(String fileName) throws IOException
+    {
+        Path path = Paths.get(fileName);
+        if (!Files.isRegularFile(path))
+        {
+            throw new FileNotFoundException(fileName + " (No such file or directory)");
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException(fileName + " is not a catalog snapshot");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC)
+        {
+            throw new IllegalArgumentException(fileName + " is not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != VERSION)
+        {
+            throw new IllegalArgumentException(String.format(
+                    "%s has version %d, but only version %d is supported",
+                    fileName,
+                    buffer.getInt(4),
+                    VERSION));
+        }
+
+        //Make sure the file wasn't cut short or changed after it was written
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        if (checksum.getValue() != buffer.getLong(16))
+        {
+            throw new IllegalArgumentException(fileName + " is corrupted, the checksum doesn't match");
+        }
+
+        //Categories are few, so they are read right away
+        String[] categories = new String[buffer.getInt(8)];
+        int position = HEADER_SIZE;
+        for (int i = 0; i < categories.length; i++)
+        {
+            categories[i] = readString(buffer, position);
+            position += 2 + (buffer.getShort(position) & 0xFFFF);
+        }
+
+        return new CatalogSnapshot(buffer, categories, buffer.getInt(12), position);
+    }
+
+    @Override
+    public Product findProduct(String barcode)
+    {
+        byte[] wanted = utf8(barcode);
+
+        //Binary search through the sorted index
+        int low = 0;
+        int high = this.productCount - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = compareBarcode(recordOffset(middle), wanted);
+
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return getProduct(middle);
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public int getProductCount()
+    {
+        return this.productCount;
+    }
+
+    @Override
+    public Product getProduct(int position)
+    {
+        int offset = recordOffset(position);
+
+        String barcode = readString(this.buffer, offset);
+        offset += 2 + (this.buffer.getShort(offset) & 0xFFFF);
+
+        String category = this.categories[this.buffer.getInt(offset)];
+        offset += 4;
+
+        String productName = readString(this.buffer, offset);
+        offset += 2 + (this.buffer.getShort(offset) & 0xFFFF);
+
+        int priceCount = this.buffer.getInt(offset);
+        offset += 4;
+
+        //The first price is always the base price. All prices are given at once, so no published price changes
+        SortedMap<Integer, Integer> prices = new TreeMap<>();
+        for (int i = 0; i < priceCount; i++, offset += 8)
+        {
+            prices.put(this.buffer.getInt(offset), this.buffer.getInt(offset + 4));
+        }
+
+        return new Product(barcode, category, productName, prices);
+    }
+
+    private int recordOffset(int position)
+    {
+        return this.recordsStart + this.buffer.getInt(this.indexStart + position * 4);
+    }
+
+    private int compareBarcode(int offset, byte[] wanted)
+    {
+        int length = this.buffer.getShort(offset) & 0xFFFF;
+        int shortest = Math.min(length, wanted.length);
+
+        for (int i = 0; i < shortest; i++)
+        {
+            int difference = (this.buffer.get(offset + 2 + i) & 0xFF) - (wanted[i] & 0xFF);
+            if (difference != 0)
+            {
+                return difference;
+            }
+        }
+
+        return length - wanted.length;
+    }
+
+    private static int compareBytes(byte[] first, byte[] second)
+    {
+        int shortest = Math.min(first.length, second.length);
+
+        for (int i = 0; i < shortest; i++)
+        {
+            int difference = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if (difference != 0)
+            {
+                return difference;
+            }
+        }
+
+        return first.length - second.length;
+    }
+
+    private static byte[] utf8(String text)
+    {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String text) throws IOException
+    {
+        byte[] bytes = utf8(text);
+        if (bytes.length > 0xFFFF)
+        {
+            throw new IllegalArgumentException("The text \"" + text + "\" is too long for a catalog snapshot");
+        }
+
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset)
+    {
+        byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A product together with its encoded barcode, used while sorting the index.
+     */
+    private static class SortEntry
+    {
+        private final byte[] barcode;
+        private final Product product;
+
+        private SortEntry(byte[] barcode, Product product)
+        {
+            this.barcode = barcode;
+            this.product = product;
+        }
+    }
+}
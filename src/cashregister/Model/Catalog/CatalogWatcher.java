@@ -0,0 +1,509 @@
+package cashregister.Model.Catalog;
+
+import cashregister.HelperFunctions;
+import cashregister.Model.Product.Product;
+import cashregister.Model.Product.ProductTable;
+import cashregister.Model.StoreAssortment;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The {@code CatalogWatcher} class keeps a {@code StoreAssortment} in sync with the
+ * <em>prices</em> and <em>discounts</em> text files while the register is running.
+ * Whenever one of the files changes, both are read again and compared with the products of the store,
+ * and only the <em>products</em> and <em>discounts</em> that were added, changed or removed are
+ * applied to the store - as one update, so lanes never see half of a reload. The files are the whole
+ * assortment of the store, so a product that isn't in the prices file is removed from it.
+ * If a file can't be read or has errors in it, nothing is applied and the next change is tried again.
+ *
+ * @see StoreAssortment
+ * @see CatalogFileReader
+ */
+public class CatalogWatcher implements Closeable
+{
+    /**
+     * Time given to whoever is writing a file to finish, before it is read
+     */
+    private static final long SETTLE_MILLIS = 200;
+
+    private static final SortedMap<Integer, Integer> NO_DISCOUNTS = Collections.emptySortedMap();
+
+    private final StoreAssortment store;
+    private final Path pricesFile;
+    private final Path discountsFile;
+    private final ReloadListener listener;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Creates a watcher for a store that is loaded from the provided files. Reloads in the background
+     * are not reported.
+     *
+     * @param store                     Store that is kept in sync with the files
+     * @param pricesFileName            Location of the prices file
+     * @param discountsFileName         Location of the discounts file, or {@code null} if there is none
+     *
+     * @throws FileNotFoundException    if one of the files doesn't exist
+     * @throws IllegalArgumentException if one of the files has errors in it
+     */
+    public CatalogWatcher(StoreAssortment store, String pricesFileName, String discountsFileName)
+            throws FileNotFoundException
+    {
+        this(store, pricesFileName, discountsFileName, ReloadListener.NONE);
+    }
+
+    /**
+     * Creates a watcher for a store that is loaded from the provided files.
+     *
+     * @param store                     Store that is kept in sync with the files
+     * @param pricesFileName            Location of the prices file
+     * @param discountsFileName         Location of the discounts file, or {@code null} if there is none
+     * @param listener                  Receives the outcome of every reload in the background
+     *
+     * @throws FileNotFoundException    if one of the files doesn't exist
+     * @throws IllegalArgumentException if one of the files has errors in it
+     */
+    public CatalogWatcher(StoreAssortment store, String pricesFileName, String discountsFileName,
+                          ReloadListener listener) throws FileNotFoundException
+    {
+        this.store = store;
+        this.pricesFile = Paths.get(pricesFileName).toAbsolutePath().normalize();
+        this.discountsFile = discountsFileName == null ? null : Paths.get(discountsFileName).toAbsolutePath().normalize();
+        this.listener = listener;
+
+        //The files are only checked here, the store is what later reloads are compared with
+        readDiscounts(this.discountsFile, readProducts(this.pricesFile));
+    }
+
+    /**
+     * Starts watching the files in the background. Every change is applied with {@link #reload()}.
+     *
+     * @throws IOException              if the folders of the files can't be watched
+     * @throws IllegalStateException    if the watcher has already been started
+     */
+    public synchronized void start() throws IOException
+    {
+        if (this.watchService != null)
+        {
+            throw new IllegalStateException("The watcher has already been started");
+        }
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        //Files are watched through their folders. A file that is replaced instead of rewritten shows up as created
+        this.pricesFile.getParent().register(this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        if (this.discountsFile != null)
+        {
+            this.discountsFile.getParent().register(this.watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        this.watchThread = new Thread(this::watch, "catalog-watcher");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+    /**
+     * Reads both files again and applies everything that is different in the store.
+     *
+     * @return The number of products and discounts that were added, changed or removed
+     *
+     * @throws FileNotFoundException    if one of the files doesn't exist
+     * @throws IllegalArgumentException if one of the files has errors in it
+     * @throws NoSuchElementException   if a discount belongs to a product that isn't in the prices file
+     */
+    public synchronized int reload() throws FileNotFoundException
+    {
+        //Both files are read and checked completely before anything is applied, so a broken file changes nothing
+        Map<String, ProductLine> products = readProducts(this.pricesFile);
+        Map<String, SortedMap<Integer, Integer>> discounts = readDiscounts(this.discountsFile, products);
+
+        int changes = 0;
+
+        this.store.beginUpdate();
+        try
+        {
+            //Products of the store that are no longer in the prices file
+            for (String barcode : storedBarcodes())
+            {
+                if (!products.containsKey(barcode))
+                {
+                    this.store.removeProduct(barcode);
+                    changes++;
+                }
+            }
+
+            for (Map.Entry<String, ProductLine> entry : products.entrySet())
+            {
+                changes += applyProduct(entry.getKey(), entry.getValue(), discounts.getOrDefault(entry.getKey(), NO_DISCOUNTS));
+            }
+        }
+        finally
+        {
+            this.store.finishUpdate();
+        }
+
+        return changes;
+    }
+
+    /**
+     * Stops watching the files. Changes that are made afterwards are not applied.
+     *
+     * @throws IOException if the watch service can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (this.watchService != null)
+        {
+            this.watchService.close();
+            this.watchThread.interrupt();
+            this.watchService = null;
+            this.watchThread = null;
+        }
+    }
+
+    /**
+     * Compares one product of the files with the store and applies the differences.
+     *
+     * @param barcode   Barcode of the product
+     * @param product   The product as it is in the prices file now
+     * @param discounts The product's discounts as they are in the discounts file now
+     *
+     * @return The number of changes that were applied
+     */
+    private int applyProduct(String barcode, ProductLine product, SortedMap<Integer, Integer> discounts)
+    {
+        int changes = 0;
+
+        Product storedProduct = this.store.lookUpProduct(barcode);
+        SortedMap<Integer, Integer> storedPrices = NO_DISCOUNTS;
+
+        //A discount for a quantity of 1 replaces the base price
+        int basePrice = discounts.getOrDefault(1, product.price);
+
+        if (storedProduct == null)
+        {
+            this.store.addNewProductToStore(barcode, product.category, product.name, basePrice);
+            changes++;
+        }
+        else
+        {
+            storedPrices = storedProduct.getAllPrices();
+            if (!product.category.equals(storedProduct.getCategory())
+                    || !product.name.equals(storedProduct.getProductName())
+                    || basePrice != storedProduct.getBasePrice())
+            {
+                this.store.updateProduct(barcode, product.category, product.name, basePrice);
+                changes++;
+            }
+        }
+
+        //Discount tiers that were removed from the file
+        for (Integer quantity : storedPrices.keySet())
+        {
+            if (quantity != 1 && !discounts.containsKey(quantity))
+            {
+                this.store.removeDiscountFromStore(barcode, quantity);
+                changes++;
+            }
+        }
+
+        //Discount tiers that were added or have a new price
+        for (Map.Entry<Integer, Integer> tier : discounts.entrySet())
+        {
+            int quantity = tier.getKey();
+            if (quantity != 1 && !tier.getValue().equals(storedPrices.get(quantity)))
+            {
+                this.store.addNewDiscountToStore(barcode, quantity, tier.getValue());
+                changes++;
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Collects the barcodes of the products in the store's table. They are collected before any is removed,
+     * since removing a product changes the table.
+     */
+    private List<String> storedBarcodes()
+    {
+        ProductTable table = this.store.getProductTable();
+        List<String> barcodes = new ArrayList<>(table.size());
+
+        for (int ordinal = 0; ordinal < table.size(); ordinal++)
+        {
+            if (!table.isRemoved(ordinal))
+            {
+                barcodes.add(table.getProduct(ordinal).getBarcode());
+            }
+        }
+
+        return barcodes;
+    }
+
+    /**
+     * Waits for changes to the files and reloads them until the watcher is closed.
+     */
+    private void watch()
+    {
+        WatchService service = this.watchService;
+
+        while (true)
+        {
+            try
+            {
+                WatchKey key = service.take();
+                boolean changed = isCatalogChanged(key);
+                key.reset();
+
+                if (changed)
+                {
+                    //Let the writer finish, and skip the events it causes in the meantime
+                    Thread.sleep(SETTLE_MILLIS);
+                    for (WatchKey pending = service.poll(); pending != null; pending = service.poll())
+                    {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+
+                    reloadInBackground();
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                //The watcher was closed
+                return;
+            }
+        }
+    }
+
+    private boolean isCatalogChanged(WatchKey key)
+    {
+        boolean changed = false;
+        Path folder = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                //Events were lost, so the files may have changed
+                changed = true;
+            }
+            else
+            {
+                Path file = folder.resolve((Path) event.context());
+                changed |= file.equals(this.pricesFile) || file.equals(this.discountsFile);
+            }
+        }
+
+        return changed;
+    }
+
+    private void reloadInBackground()
+    {
+        try
+        {
+            int changes = reload();
+            if (changes > 0)
+            {
+                this.listener.catalogReloaded(changes);
+            }
+        }
+        catch (FileNotFoundException | RuntimeException e)
+        {
+            //The store is left as it is, the next change to the files is tried again
+            this.listener.reloadFailed(e);
+        }
+    }
+
+    /**
+     * Reads every product in a prices file.
+     *
+     * @param file                      Location of the prices file
+     *
+     * @return The products of the file by barcode, in the order of the file
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line has errors in it or a barcode is used twice
+     */
+    private static Map<String, ProductLine> readProducts(Path file) throws FileNotFoundException
+    {
+        Map<String, ProductLine> products = new LinkedHashMap<>();
+
+        forEachLine(file, line ->
+        {
+            CatalogFileReader.checkFieldCount(line, 5, "<barcode>,<category>,<name>,<kr>,<ore>");
+
+            String barcode = line.getString(0);
+            ProductLine product = new ProductLine(
+                    line.getString(1),
+                    line.getString(2),
+                    HelperFunctions.generatePrice(line.getInt(3), line.getInt(4)));
+
+            //The store would refuse these in the middle of the update
+            if (barcode.isEmpty() || product.category.isEmpty() || product.name.isEmpty())
+            {
+                throw new IllegalArgumentException("The contents of a product cannot be empty!");
+            }
+            HelperFunctions.checkPrice(product.price);
+
+            if (products.putIfAbsent(barcode, product) != null)
+            {
+                String productExistsMessage = String.format(
+                        "A product with barcode %s already exists",
+                        barcode);
+
+                throw new IllegalArgumentException(productExistsMessage);
+            }
+        });
+
+        return products;
+    }
+
+    /**
+     * Reads every discount in a discounts file. A later line for the same quantity replaces an earlier one.
+     *
+     * @param file                      Location of the discounts file, or {@code null} if there is none
+     * @param products                  Products the discounts belong to
+     *
+     * @return The discounts of the file by barcode and quantity
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line has errors in it
+     * @throws NoSuchElementException   if a discount belongs to a product that doesn't exist
+     */
+    private static Map<String, SortedMap<Integer, Integer>> readDiscounts(Path file, Map<String, ProductLine> products)
+            throws FileNotFoundException
+    {
+        Map<String, SortedMap<Integer, Integer>> discounts = new LinkedHashMap<>();
+        if (file == null)
+        {
+            return discounts;
+        }
+
+        forEachLine(file, line ->
+        {
+            CatalogFileReader.checkFieldCount(line, 4, "<barcode>,<limit>,<kr>,<ore>");
+
+            String barcode = line.getString(0);
+            int minAmount = line.getInt(1);
+            int discountPrice = HelperFunctions.generatePrice(line.getInt(2), line.getInt(3));
+            HelperFunctions.checkPrice(discountPrice);
+
+            if (!products.containsKey(barcode))
+            {
+                String productDoesNotExistMessage = String.format(
+                        "Product with barcode %s doesn't exist, so a discount cannot be added",
+                        barcode);
+
+                throw new NoSuchElementException(productDoesNotExistMessage);
+            }
+
+            discounts.computeIfAbsent(barcode, key -> new TreeMap<>()).put(minAmount, discountPrice);
+        });
+
+        return discounts;
+    }
+
+    /**
+     * Calls the handler for every line of a file. The file is copied into memory instead of being mapped,
+     * since it may be rewritten while it is read.
+     */
+    private static void forEachLine(Path file, CatalogFileReader.LineHandler handler) throws FileNotFoundException
+    {
+        if (!Files.isRegularFile(file))
+        {
+            throw new FileNotFoundException(file + " (No such file or directory)");
+        }
+
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            CatalogFileReader.forEachLine(buffer, 0, buffer.limit(), new CatalogLine(), handler);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Receives the outcome of the reloads that the watcher does in the background.
+     */
+    public interface ReloadListener
+    {
+        /**
+         * A listener that ignores every reload
+         */
+        ReloadListener NONE = new ReloadListener()
+        {
+            @Override
+            public void catalogReloaded(int changes)
+            {
+            }
+
+            @Override
+            public void reloadFailed(Exception cause)
+            {
+            }
+        };
+
+        /**
+         * Called after the changes of the files were applied to the store.
+         *
+         * @param changes   The number of products and discounts that were added, changed or removed
+         */
+        void catalogReloaded(int changes);
+
+        /**
+         * Called when the files could not be applied. The store is left as it was.
+         *
+         * @param cause     Why the files could not be read or applied
+         */
+        void reloadFailed(Exception cause);
+    }
+
+    /**
+     * One line of the prices file, without its barcode.
+     */
+    private static final class ProductLine
+    {
+        private final String category;
+        private final String name;
+        private final int price;
+
+        private ProductLine(String category, String name, int price)
+        {
+            this.category = category;
+            this.name = name;
+            this.price = price;
+        }
+    }
+}
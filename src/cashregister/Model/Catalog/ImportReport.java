@@ -0,0 +1,223 @@
+package cashregister.Model.Catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code ImportReport} class is the result of a bulk import of a <em>prices</em> or <em>discounts</em> file.
+ * It counts the lines that were added to the store and keeps the lines that were rejected,
+ * together with their line number and the reason they were rejected.
+ * Only the first {@link #MAX_REJECTED_LINES} rejected lines are kept, but all of them are counted.
+ *
+ * @see CatalogFileReader#importProducts(String, cashregister.Model.StoreAssortment)
+ * @see CatalogFileReader#importDiscounts(String, cashregister.Model.StoreAssortment)
+ */
+public class ImportReport
+{
+    /**
+     * Largest number of rejected lines that are kept in the report
+     */
+    public static final int MAX_REJECTED_LINES = 1000;
+
+    private final String fileName;
+    private long acceptedCount;
+    private long rejectedCount;
+    private final long[] rejectedCountByReason;
+    private final List<RejectedLine> rejectedLines;
+
+    /**
+     * Creates an empty report for a file.
+     *
+     * @param fileName  Location of the file that is imported
+     */
+    ImportReport(String fileName)
+    {
+        this.fileName = fileName;
+        this.rejectedCountByReason = new long[Reason.values().length];
+        this.rejectedLines = new ArrayList<>();
+    }
+
+    /**
+     * Counts a line that was added to the store.
+     */
+    void accept()
+    {
+        this.acceptedCount++;
+    }
+
+    /**
+     * Counts a line that was rejected, and keeps it if there is still room in the report.
+     *
+     * @param lineNumber    Number of the line in the file, starting at 1
+     * @param reason        Why the line was rejected
+     * @param line          The rejected line
+     */
+    void reject(long lineNumber, Reason reason, CatalogLine line)
+    {
+        this.rejectedCount++;
+        this.rejectedCountByReason[reason.ordinal()]++;
+
+        //Only the kept lines are decoded, so a very dirty file costs no more than a clean one
+        if (this.rejectedLines.size() < MAX_REJECTED_LINES)
+        {
+            this.rejectedLines.add(new RejectedLine(lineNumber, reason, line.getLine()));
+        }
+    }
+
+    /**
+     * Getter method for the location of the imported file.
+     *
+     * @return The file name
+     */
+    public String getFileName()
+    {
+        return this.fileName;
+    }
+
+    /**
+     * Getter method for the number of lines that were added to the store.
+     *
+     * @return The number of accepted lines
+     */
+    public long getAcceptedCount()
+    {
+        return this.acceptedCount;
+    }
+
+    /**
+     * Getter method for the number of lines that were rejected.
+     *
+     * @return The number of rejected lines
+     */
+    public long getRejectedCount()
+    {
+        return this.rejectedCount;
+    }
+
+    /**
+     * Getter method for the number of lines that were rejected for one reason.
+     *
+     * @param reason    The reason
+     *
+     * @return The number of lines rejected for that reason
+     */
+    public long getRejectedCount(Reason reason)
+    {
+        return this.rejectedCountByReason[reason.ordinal()];
+    }
+
+    /**
+     * Getter method for the rejected lines, in the order of the file.
+     * At most {@link #MAX_REJECTED_LINES} are kept.
+     *
+     * @return An unmodifiable list of rejected lines
+     */
+    public List<RejectedLine> getRejectedLines()
+    {
+        return Collections.unmodifiableList(this.rejectedLines);
+    }
+
+    /**
+     * Checks whether any line of the file was rejected.
+     *
+     * @return {@code true} if there were rejected lines
+     */
+    public boolean hasErrors()
+    {
+        return this.rejectedCount > 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s: %d lines imported, %d lines rejected",
+                this.fileName,
+                this.acceptedCount,
+                this.rejectedCount);
+    }
+
+    /**
+     * The reasons a line can be rejected for.
+     */
+    public enum Reason
+    {
+        WRONG_FIELD_COUNT("The line doesn't follow the format of the file"),
+        EMPTY_FIELD("The line has an empty field"),
+        INVALID_NUMBER("A number in the line is not valid"),
+        INVALID_PRICE("The price must be positive"),
+        INVALID_QUANTITY("The quantity must be positive"),
+        DUPLICATE_BARCODE("A product with the barcode already exists"),
+        UNKNOWN_PRODUCT("There is no product with the barcode");
+
+        private final String description;
+
+        Reason(String description)
+        {
+            this.description = description;
+        }
+
+        /**
+         * Getter method for a readable description of the reason.
+         *
+         * @return The description
+         */
+        public String getDescription()
+        {
+            return this.description;
+        }
+    }
+
+    /**
+     * One line that was rejected during an import.
+     */
+    public static final class RejectedLine
+    {
+        private final long lineNumber;
+        private final Reason reason;
+        private final String line;
+
+        private RejectedLine(long lineNumber, Reason reason, String line)
+        {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.line = line;
+        }
+
+        /**
+         * Getter method for the number of the line in the file, starting at 1.
+         *
+         * @return The line number
+         */
+        public long getLineNumber()
+        {
+            return this.lineNumber;
+        }
+
+        /**
+         * Getter method for the reason the line was rejected.
+         *
+         * @return The reason
+         */
+        public Reason getReason()
+        {
+            return this.reason;
+        }
+
+        /**
+         * Getter method for the text of the line.
+         *
+         * @return The line, without surrounding whitespace
+         */
+        public String getLine()
+        {
+            return this.line;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Line %d: %s: \"%s\"", this.lineNumber, this.reason.getDescription(), this.line);
+        }
+    }
+}
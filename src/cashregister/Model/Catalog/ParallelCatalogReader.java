@@ -0,0 +1,222 @@
+package cashregister.Model.Catalog;
+
+import cashregister.HelperFunctions;
+import cashregister.Model.StoreAssortment;
+
+import java.io.FileNotFoundException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code ParallelCatalogReader} class loads a <em>prices</em> file on several threads.
+ * The mapped file is split into line-aligned chunks, every chunk is tokenized and
+ * decoded on a fork/join pool, and the chunks are then merged into
+ * the store <em>in file order</em>, one chunk at a time. Because of that, a duplicate barcode or a bad line
+ * fails in exactly the same place as it would when the file is read on one thread.
+ *
+ * @see CatalogFileReader
+ */
+public class ParallelCatalogReader
+{
+    /**
+     * Chunks smaller than this are not worth handing to another thread.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Number of chunks per thread, so threads that finish early can pick up more work.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a reader that parses on the common fork/join pool.
+     */
+    public ParallelCatalogReader()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a reader that parses on the provided pool.
+     *
+     * @param pool  Pool that the chunks are parsed on
+     */
+    public ParallelCatalogReader(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    /**
+     * Reads a prices file and adds every product in it to the store.
+     * Each line must follow the format {@code <barcode>,<category>,<name>,<kr>,<ore>}.
+     *
+     * @param fileName                  Location of the text file
+     * @param store                     Store the products are added to
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line has errors in the formatting or the product already exists
+     */
+    public void readProducts(String fileName, StoreAssortment store) throws FileNotFoundException
+    {
+        //The whole file becomes one new version of the store
+        store.beginUpdate();
+        try
+        {
+            CatalogFileReader.forEachRegion(fileName, (region, size) -> readRegion(region, size, store));
+        }
+        finally
+        {
+            store.finishUpdate();
+        }
+    }
+
+    private void readRegion(MappedByteBuffer region, int size, StoreAssortment store)
+    {
+        //Start parsing every chunk of the region
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int[] bounds : splitIntoChunks(region, size))
+        {
+            ChunkTask task = new ChunkTask(region, bounds[0], bounds[1]);
+            tasks.add(task);
+            this.pool.execute(task);
+        }
+
+        //Merge the chunks in file order, while the later ones are still being parsed
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            ChunkResult result = tasks.get(i).join();
+
+            try
+            {
+                //The whole chunk is added at once, with the columns it was parsed into
+                store.addNewProductsToStore(result.barcodes, result.categories, result.productNames,
+                        result.prices, result.rowCount);
+            }
+            catch (RuntimeException e)
+            {
+                //A product already exists, so no more chunks need to be parsed
+                cancelFrom(tasks, i + 1);
+                throw e;
+            }
+
+            if (result.error != null)
+            {
+                cancelFrom(tasks, i + 1);
+                throw result.error;
+            }
+        }
+    }
+
+    private void cancelFrom(List<ChunkTask> tasks, int firstTask)
+    {
+        for (int i = firstTask; i < tasks.size(); i++)
+        {
+            tasks.get(i).cancel(false);
+        }
+    }
+
+    private List<int[]> splitIntoChunks(MappedByteBuffer region, int size)
+    {
+        int chunkCount = Math.max(1, Math.min(this.pool.getParallelism() * CHUNKS_PER_THREAD, size / MIN_CHUNK_SIZE));
+        int targetSize = size / chunkCount;
+
+        List<int[]> chunks = new ArrayList<>();
+        int chunkStart = 0;
+
+        while (chunkStart < size)
+        {
+            //Move the end of the chunk forward until it is right after a line break
+            int chunkEnd = Math.min(size, chunkStart + targetSize);
+            while (chunkEnd < size && region.get(chunkEnd - 1) != '\n')
+            {
+                chunkEnd++;
+            }
+
+            chunks.add(new int[] { chunkStart, chunkEnd });
+            chunkStart = chunkEnd;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Products parsed from one chunk, and the error that stopped the parsing (if there was one).
+     * The products are kept in columns, like the rows of the product table they are added to.
+     */
+    private static class ChunkResult
+    {
+        private String[] barcodes = new String[256];
+        private String[] categories = new String[256];
+        private String[] productNames = new String[256];
+        private int[] prices = new int[256];
+        private int rowCount;
+        private RuntimeException error;
+
+        private void addRow(String barcode, String category, String productName, int price)
+        {
+            if (this.rowCount == this.prices.length)
+            {
+                this.barcodes = Arrays.copyOf(this.barcodes, this.rowCount * 2);
+                this.categories = Arrays.copyOf(this.categories, this.rowCount * 2);
+                this.productNames = Arrays.copyOf(this.productNames, this.rowCount * 2);
+                this.prices = Arrays.copyOf(this.prices, this.rowCount * 2);
+            }
+
+            this.barcodes[this.rowCount] = barcode;
+            this.categories[this.rowCount] = category;
+            this.productNames[this.rowCount] = productName;
+            this.prices[this.rowCount] = price;
+            this.rowCount++;
+        }
+    }
+
+    /**
+     * Parses all lines in one chunk of the mapped file.
+     */
+    private static class ChunkTask extends RecursiveTask<ChunkResult>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final MappedByteBuffer region;
+        private final int start;
+        private final int end;
+
+        private ChunkTask(MappedByteBuffer region, int start, int end)
+        {
+            this.region = region;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ChunkResult compute()
+        {
+            ChunkResult result = new ChunkResult();
+
+            try
+            {
+                CatalogFileReader.forEachLine(this.region, this.start, this.end, new CatalogLine(), line ->
+                {
+                    CatalogFileReader.checkFieldCount(line, 5, "<barcode>,<category>,<name>,<kr>,<ore>");
+
+                    int productPrice = HelperFunctions.generatePrice(line.getInt(3), line.getInt(4));
+
+                    result.addRow(line.getString(0), line.getString(1), line.getString(2), productPrice);
+                });
+            }
+            catch (RuntimeException e)
+            {
+                //Keep the error, so it is only thrown once all earlier lines are in the store
+                result.error = e;
+            }
+
+            return result;
+        }
+    }
+}
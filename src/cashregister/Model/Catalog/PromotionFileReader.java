@@ -0,0 +1,126 @@
+package cashregister.Model.Catalog;
+
+import cashregister.HelperFunctions;
+import cashregister.Model.Product.Promotion;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code PromotionFileReader} class reads a <em>promotions</em> text file. Every line is one rule,
+ * in one of these formats (amounts are kroner and ore, like in the other files):
+ *
+ * <pre>
+ * MULTIBUY,  &lt;name&gt;, &lt;barcode&gt;,  &lt;quantity&gt;, &lt;paid quantity&gt;
+ * MIXMATCH,  &lt;name&gt;, &lt;category&gt;, &lt;quantity&gt;, &lt;kr&gt;, &lt;ore&gt;
+ * THRESHOLD, &lt;name&gt;, &lt;kr&gt;, &lt;ore&gt;, &lt;kr&gt;, &lt;ore&gt;
+ * </pre>
+ *
+ * A threshold is the least the basket has to cost, followed by the amount it takes off.
+ * Empty lines are skipped. The whole file is read before anything is returned,
+ * so a file with an error in it never replaces the promotions of a store halfway.
+ *
+ * @see Promotion
+ */
+public class PromotionFileReader
+{
+    /**
+     * Reads every promotion in a file.
+     *
+     * @param fileName                  Location of the file
+     *
+     * @return The promotions, in the order of the file
+     *
+     * @throws FileNotFoundException    if the file doesn't exist
+     * @throws IllegalArgumentException if a line doesn't follow the format of the file
+     */
+    public static List<Promotion> readPromotions(String fileName) throws FileNotFoundException
+    {
+        Path path = Paths.get(fileName);
+        if (!Files.isRegularFile(path))
+        {
+            throw new FileNotFoundException(fileName + " (No such file or directory)");
+        }
+
+        List<Promotion> promotions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                lineNumber++;
+                if (line.trim().isEmpty())
+                {
+                    continue;
+                }
+
+                try
+                {
+                    promotions.add(parsePromotion(line));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IllegalArgumentException("Line " + lineNumber + " of " + fileName + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        return promotions;
+    }
+
+    /**
+     * Parses one line of a promotions file.
+     *
+     * @param line                      The line
+     *
+     * @return The promotion
+     *
+     * @throws IllegalArgumentException if the line doesn't follow the format of the file
+     */
+    public static Promotion parsePromotion(String line) throws IllegalArgumentException
+    {
+        String[] fields = line.split(",");
+        for (int i = 0; i < fields.length; i++)
+        {
+            fields[i] = fields[i].trim();
+        }
+
+        switch (fields[0].toUpperCase())
+        {
+            case "MULTIBUY":
+                checkFieldCount(fields, 5);
+                return Promotion.multiBuy(fields[1], fields[2], Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+            case "MIXMATCH":
+                checkFieldCount(fields, 6);
+                return Promotion.mixAndMatch(fields[1], fields[2], Integer.parseInt(fields[3]),
+                        HelperFunctions.generatePrice(fields[4], fields[5]));
+            case "THRESHOLD":
+                checkFieldCount(fields, 6);
+                return Promotion.basketThreshold(fields[1],
+                        HelperFunctions.generatePrice(fields[2], fields[3]),
+                        HelperFunctions.generatePrice(fields[4], fields[5]));
+            default:
+                throw new IllegalArgumentException("Unknown kind of promotion \"" + fields[0] + "\"");
+        }
+    }
+
+    private static void checkFieldCount(String[] fields, int fieldCount)
+    {
+        if (fields.length != fieldCount)
+        {
+            throw new IllegalArgumentException("A " + fields[0] + " promotion has " + fieldCount + " fields");
+        }
+    }
+}
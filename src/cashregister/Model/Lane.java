@@ -0,0 +1,157 @@
+package cashregister.Model;
+
+import cashregister.Model.Analytics.BestSellerSketch;
+import cashregister.Model.Product.Product;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptHistory;
+import cashregister.Model.Receipt.ReceiptPool;
+import cashregister.Model.Receipt.ReceiptSnapshot;
+
+/**
+ * The {@code Lane} class is one checkout lane of a {@code MultiLaneRegister}.
+ * Every lane has its own open <em>receipt</em> and scans against the shared {@code StoreAssortment},
+ * so lanes never wait for each other while they scan.
+ * A lane is meant to be used by one thread at a time - usually the thread that serves it.
+ *
+ * Every lane counts its own best-selling products, so counting never makes lanes wait for each other either.
+ *
+ * When a receipt is finished, its snapshot goes to the history and the receipt object itself is
+ * reused for a later customer, so only the snapshot should be kept.
+ *
+ * @see MultiLaneRegister
+ */
+public class Lane
+{
+    private final int laneId;
+    private final StoreAssortment store;
+    private final ReceiptHistory history;
+    private final ReceiptPool receiptPool;
+    private final BestSellerSketch bestSellers;
+
+    private Receipt currentReceipt;
+
+    /**
+     * Creates a lane without an open receipt.
+     *
+     * @param laneId    Number of the lane
+     * @param store     Store the lane scans products from
+     * @param history   History the lane's finished receipts are added to
+     * @param capacity  Number of products the lane counts best sellers for
+     */
+    Lane(int laneId, StoreAssortment store, ReceiptHistory history, int capacity)
+    {
+        this.laneId = laneId;
+        this.store = store;
+        this.history = history;
+        this.receiptPool = new ReceiptPool();
+        this.bestSellers = new BestSellerSketch(capacity);
+        this.currentReceipt = null;
+    }
+
+    /**
+     * Getter method for the number of the lane.
+     *
+     * @return The lane's number
+     */
+    public int getLaneId()
+    {
+        return this.laneId;
+    }
+
+    /**
+     * Starts a new empty receipt. A receipt that is still open is finished first.
+     */
+    public void startNewReceipt()
+    {
+        if (this.currentReceipt != null)
+        {
+            finishReceipt();
+        }
+
+        this.currentReceipt = this.receiptPool.acquire();
+    }
+
+    /**
+     * Finds one product in the store and adds it once to the open receipt.
+     * Unlike {@link CashRegister#addProductToReceipt(String, StoreAssortment)}, a missing product is not printed,
+     * since lanes would have to wait for each other to print.
+     *
+     * @param barcode                   Barcode of the product
+     *
+     * @return {@code true} if the product was added, {@code false} if the store doesn't have it
+     *
+     * @throws IllegalStateException    if there is no open receipt
+     */
+    public boolean addProductToReceipt(String barcode) throws IllegalStateException
+    {
+        Product productInStore = this.store.scanProduct(barcode, getCurrentReceipt());
+        if (productInStore == null)
+        {
+            return false;
+        }
+
+        this.bestSellers.offer(productInStore);
+        return true;
+    }
+
+    /**
+     * Getter method for the best-selling products of this lane, counted while they are scanned.
+     *
+     * @return The sketch of the lane's best-selling products
+     *
+     * @see MultiLaneRegister#getBestSellers()
+     */
+    public BestSellerSketch getBestSellers()
+    {
+        return this.bestSellers;
+    }
+
+    /**
+     * Finishes the open receipt and adds its snapshot to the shared history.
+     *
+     * @return The snapshot of the finished receipt
+     *
+     * @throws IllegalStateException    if there is no open receipt
+     */
+    public ReceiptSnapshot finishReceipt() throws IllegalStateException
+    {
+        Receipt receipt = getCurrentReceipt();
+        ReceiptSnapshot snapshot = receipt.makeFinal();
+
+        //The snapshot never changes, so the history can hand it to other threads as it is
+        this.history.add(snapshot);
+        this.currentReceipt = null;
+
+        //Nothing refers to the receipt object anymore, so it is used again for a later customer
+        this.receiptPool.release(receipt);
+
+        return snapshot;
+    }
+
+    /**
+     * Getter method for the open receipt of the lane.
+     *
+     * @return The open receipt
+     *
+     * @throws IllegalStateException    if there is no open receipt
+     */
+    public Receipt getCurrentReceipt() throws IllegalStateException
+    {
+        if (this.currentReceipt == null)
+        {
+            throw new IllegalStateException("Lane " + this.laneId + " has no open receipt.");
+        }
+
+        return this.currentReceipt;
+    }
+
+    /**
+     * Checks whether the lane has an open receipt.
+     *
+     * @return {@code true} if there is an open receipt
+     */
+    public boolean hasOpenReceipt()
+    {
+        return this.currentReceipt != null;
+    }
+}
@@ -0,0 +1,224 @@
+package cashregister.Model.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code LatencyHistogram} class counts latencies in nanoseconds, so their percentiles can be read
+ * while they are recorded. Recording never locks and never allocates.
+ *
+ * Latencies are counted in <em>log-linear</em> buckets: every power of two is split into
+ * {@value #SUB_BUCKET_COUNT} buckets of the same width, so a percentile is never off by more than
+ * 1/{@value #SUB_BUCKET_COUNT} of its value, from nanoseconds up to hours, in a fixed amount of memory.
+ *
+ * The buckets are <em>striped</em>: every thread counts in one of a few copies of the buckets, picked by
+ * its id, so lanes that record at the same time rarely update the same memory. Reading a percentile adds
+ * the stripes up. Latencies recorded while that happens may or may not be part of the result.
+ *
+ * @see OperationMetrics
+ */
+public class LatencyHistogram
+{
+    /**
+     * Number of buckets every power of two is split into
+     */
+    static final int SUB_BUCKET_COUNT = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Latencies below {@value #SUB_BUCKET_COUNT} have a bucket each, and every power of two
+     * from there up to {@code Long.MAX_VALUE} has {@value #SUB_BUCKET_COUNT}
+     */
+    static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private static final int MAX_STRIPES = 8;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Creates an empty histogram, with a stripe for every core, up to {@value #MAX_STRIPES}.
+     */
+    public LatencyHistogram()
+    {
+        int stripeCount = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            this.stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Counts one latency.
+     *
+     * @param nanos     The latency, in nanoseconds. Negative latencies are counted as 0
+     */
+    public void record(long nanos)
+    {
+        AtomicLongArray stripe = this.stripes[(int) Thread.currentThread().getId() & this.stripeMask];
+        stripe.getAndIncrement(bucketOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * Forgets every latency. Latencies recorded at the same time may or may not be kept.
+     */
+    public void reset()
+    {
+        for (AtomicLongArray stripe : this.stripes)
+        {
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Adds the stripes up into one copy of the buckets, that percentiles can be read from.
+     *
+     * @return The counts of all latencies recorded so far
+     */
+    public Snapshot snapshot()
+    {
+        long[] counts = new long[BUCKET_COUNT];
+
+        for (AtomicLongArray stripe : this.stripes)
+        {
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                counts[i] += stripe.get(i);
+            }
+        }
+
+        return new Snapshot(counts);
+    }
+
+    /**
+     * Finds the bucket of a latency.
+     *
+     * @param nanos     The latency, not negative
+     *
+     * @return The number of the bucket
+     */
+    static int bucketOf(long nanos)
+    {
+        if (nanos < SUB_BUCKET_COUNT)
+        {
+            return (int) nanos;
+        }
+
+        //The highest bit picks the power of two, and the next bits the bucket within it
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Finds the highest latency that is counted in a bucket.
+     *
+     * @param bucket    The number of the bucket
+     *
+     * @return The latency, in nanoseconds
+     */
+    static long highestOf(int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+        {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * The {@code Snapshot} class holds the counts of a histogram at one point in time.
+     */
+    public static final class Snapshot
+    {
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(long[] counts)
+        {
+            long count = 0;
+            for (long bucketCount : counts)
+            {
+                count += bucketCount;
+            }
+
+            this.counts = counts;
+            this.count = count;
+        }
+
+        /**
+         * Getter method for the number of latencies.
+         *
+         * @return The number of latencies
+         */
+        public long getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * Finds the latency that a share of all latencies are at most.
+         *
+         * @param percentile                The share, from 0 to 100, such as 99.9
+         *
+         * @return The latency in nanoseconds, rounded up to the end of its bucket. 0 if there are no latencies
+         *
+         * @throws IllegalArgumentException if the share isn't between 0 and 100
+         */
+        public long getPercentile(double percentile) throws IllegalArgumentException
+        {
+            if (!(percentile >= 0 && percentile <= 100))
+            {
+                throw new IllegalArgumentException("A percentile is between 0 and 100.");
+            }
+            if (this.count == 0)
+            {
+                return 0;
+            }
+
+            //The rank of the latency, from 1 to the number of latencies
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                seen += this.counts[i];
+                if (seen >= rank)
+                {
+                    return highestOf(i);
+                }
+            }
+
+            return getMax();
+        }
+
+        /**
+         * Getter method for the highest latency.
+         *
+         * @return The latency in nanoseconds, rounded up to the end of its bucket. 0 if there are no latencies
+         */
+        public long getMax()
+        {
+            for (int i = BUCKET_COUNT - 1; i >= 0; i--)
+            {
+                if (this.counts[i] != 0)
+                {
+                    return highestOf(i);
+                }
+            }
+
+            return 0;
+        }
+    }
+}
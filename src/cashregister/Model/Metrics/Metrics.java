@@ -0,0 +1,161 @@
+package cashregister.Model.Metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code Metrics} class holds the metrics of the hot paths of the cash register. They are shared by
+ * every register, lane and store of the program, are always on, and can be read while the store is trading,
+ * with the {@code "stats"} command or over JMX.
+ *
+ * Reading the clock costs more than a lookup or a total, so only a random sample of the calls is timed:
+ * one in {@value #SCAN_SAMPLING_INTERVAL} scans and one in {@value #FAST_SAMPLING_INTERVAL} lookups and totals.
+ * Rendering takes long enough that every call is timed. Scans and renderings are counted exactly, while the
+ * counts of lookups and totals are estimated from their sample, so they cost a few nanoseconds at most.
+ *
+ * @see OperationMetrics
+ */
+public final class Metrics
+{
+    /**
+     * One in this many scans is timed
+     */
+    public static final int SCAN_SAMPLING_INTERVAL = 16;
+
+    /**
+     * One in this many lookups and totals is timed
+     */
+    public static final int FAST_SAMPLING_INTERVAL = 64;
+
+    /**
+     * Domain of the MBeans in JMX tools
+     */
+    public static final String JMX_DOMAIN = "cashregister";
+
+    /**
+     * Scanning one barcode into a receipt, including the lookup
+     */
+    public static final OperationMetrics SCAN = new OperationMetrics("scan", SCAN_SAMPLING_INTERVAL, false);
+
+    /**
+     * Looking a barcode up in the store. Barcodes the store doesn't have are misses
+     */
+    public static final OperationMetrics LOOKUP = new OperationMetrics("lookup", FAST_SAMPLING_INTERVAL, true);
+
+    /**
+     * Reading the total of an open receipt
+     */
+    public static final OperationMetrics TOTAL_PRICE = new OperationMetrics("totalPrice", FAST_SAMPLING_INTERVAL, true);
+
+    /**
+     * Rendering the text of a receipt
+     */
+    public static final OperationMetrics RENDER = new OperationMetrics("render", 1, false);
+
+    private static final List<OperationMetrics> ALL =
+            Collections.unmodifiableList(Arrays.asList(SCAN, LOOKUP, TOTAL_PRICE, RENDER));
+
+    private static final String REPORT_FORMAT = "%-12s%12s%10s%12s%10s%10s%10s%12s%n";
+
+    private Metrics()
+    {
+    }
+
+    /**
+     * Getter method for the metrics of all hot paths.
+     *
+     * @return The metrics, in the order they are reported
+     */
+    public static List<OperationMetrics> getAll()
+    {
+        return ALL;
+    }
+
+    /**
+     * Forgets every call of every hot path.
+     */
+    public static void reset()
+    {
+        for (OperationMetrics metrics : ALL)
+        {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics of every hot path as an MBean with the platform MBean server, named
+     * {@code cashregister:type=Metrics,name=<hot path>}. Metrics that are already registered are skipped.
+     *
+     * @throws JMException if an MBean can't be registered
+     */
+    public static void registerMBeans() throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (OperationMetrics metrics : ALL)
+        {
+            try
+            {
+                server.registerMBean(metrics, objectNameOf(metrics));
+            }
+            catch (InstanceAlreadyExistsException e)
+            {
+                //Registered by an earlier call
+            }
+        }
+    }
+
+    /**
+     * Getter method for the JMX name of the metrics of a hot path.
+     *
+     * @param metrics   The metrics
+     *
+     * @return The name of their MBean
+     *
+     * @throws JMException if the name of the hot path can't be part of a JMX name
+     */
+    public static ObjectName objectNameOf(OperationMetrics metrics) throws JMException
+    {
+        return new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + metrics.getName());
+    }
+
+    /**
+     * Generates a table of the metrics of every hot path. Estimated counts start with a {@code ~},
+     * and latencies are in microseconds.
+     *
+     * @return The report
+     */
+    public static String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(REPORT_FORMAT, "Operation", "Count", "Misses", "ops/s", "p50 us", "p99 us", "p999 us", "max us"));
+
+        for (OperationMetrics metrics : ALL)
+        {
+            LatencyHistogram.Snapshot latencies = metrics.getLatencies();
+
+            report.append(String.format(REPORT_FORMAT,
+                    metrics.getName(),
+                    (metrics.isCountEstimated() ? "~" : "") + metrics.getCount(),
+                    metrics.getMissCount(),
+                    String.format("%.1f", metrics.getRatePerSecond()),
+                    micros(latencies.getPercentile(50)),
+                    micros(latencies.getPercentile(99)),
+                    micros(latencies.getPercentile(99.9)),
+                    micros(latencies.getMax())));
+        }
+
+        return report.toString();
+    }
+
+    private static String micros(long nanos)
+    {
+        return String.format("%.2f", nanos / 1000.0);
+    }
+}
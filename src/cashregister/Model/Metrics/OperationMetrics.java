@@ -0,0 +1,205 @@
+package cashregister.Model.Metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code OperationMetrics} class counts the calls of one hot path, and times a sample of them.
+ * A call is measured like this:
+ *
+ * <pre>
+ * long start = metrics.start();
+ * ...
+ * metrics.stop(start);
+ * </pre>
+ *
+ * Calls are counted in a {@code LongAdder}, so lanes that count at the same time don't contend.
+ * Reading the clock costs more than the cheapest hot paths themselves, so only one in every
+ * <em>sampling interval</em> calls is timed, picked at random. The percentiles of the sample are those
+ * of all calls, as long as the sample is large enough.
+ *
+ * Even an uncontended {@code LongAdder} costs a few times more than reading a cached total, so the
+ * cheapest hot paths can <em>estimate</em> their count instead: every timed call counts as a whole
+ * sampling interval of calls. Misses are always counted exactly.
+ *
+ * @see Metrics
+ * @see LatencyHistogram
+ */
+public class OperationMetrics implements OperationMetricsMXBean
+{
+    /**
+     * What {@link #start()} returns for a call that isn't timed
+     */
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final String name;
+    private final int samplingInterval;
+    private final int samplingMask;
+    private final boolean countEstimated;
+    private final LongAdder count;
+    private final LongAdder misses;
+    private final LatencyHistogram latencies;
+    private volatile long resetTime;
+
+    /**
+     * Creates the metrics of a hot path.
+     *
+     * @param name                      Name of the hot path, as it is shown in reports
+     * @param samplingInterval          One in this many calls is timed, a power of two. 1 times every call
+     * @param countEstimated            {@code true} if only the timed calls are counted, each as a whole interval
+     *
+     * @throws IllegalArgumentException if the sampling interval isn't a power of two
+     */
+    public OperationMetrics(String name, int samplingInterval, boolean countEstimated) throws IllegalArgumentException
+    {
+        if (samplingInterval < 1 || Integer.bitCount(samplingInterval) != 1)
+        {
+            throw new IllegalArgumentException("The sampling interval must be a power of two.");
+        }
+
+        this.name = name;
+        this.samplingInterval = samplingInterval;
+        this.samplingMask = samplingInterval - 1;
+        this.countEstimated = countEstimated;
+        this.count = new LongAdder();
+        this.misses = new LongAdder();
+        this.latencies = new LatencyHistogram();
+        this.resetTime = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring a call.
+     *
+     * @return The time the call started, to be passed to {@link #stop(long)}
+     */
+    public long start()
+    {
+        //A power of two, so picking the calls doesn't need a division
+        if (this.samplingMask != 0 && (ThreadLocalRandom.current().nextInt() & this.samplingMask) != 0)
+        {
+            return NOT_SAMPLED;
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Counts a call, and records its latency if it was timed.
+     *
+     * @param start     What {@link #start()} returned for the call
+     */
+    public void stop(long start)
+    {
+        if (start != NOT_SAMPLED)
+        {
+            this.latencies.record(System.nanoTime() - start);
+            this.count.add(this.countEstimated ? this.samplingInterval : 1);
+        }
+        else if (!this.countEstimated)
+        {
+            this.count.increment();
+        }
+    }
+
+    /**
+     * Counts a call that found nothing. The call itself is still counted by {@link #stop(long)}.
+     */
+    public void miss()
+    {
+        this.misses.increment();
+    }
+
+    /**
+     * Getter method for the name of the hot path.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Getter method for how many calls there are for every timed call.
+     *
+     * @return The sampling interval
+     */
+    public int getSamplingInterval()
+    {
+        return this.samplingInterval;
+    }
+
+    /**
+     * Getter method for the latencies of the timed calls.
+     *
+     * @return The latencies, at this point in time
+     */
+    public LatencyHistogram.Snapshot getLatencies()
+    {
+        return this.latencies.snapshot();
+    }
+
+    @Override
+    public boolean isCountEstimated()
+    {
+        return this.countEstimated;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return this.misses.sum();
+    }
+
+    @Override
+    public double getRatePerSecond()
+    {
+        double seconds = (System.nanoTime() - this.resetTime) / 1e9;
+        return seconds > 0 ? getCount() / seconds : 0;
+    }
+
+    @Override
+    public long getSampleCount()
+    {
+        return getLatencies().getCount();
+    }
+
+    @Override
+    public long getP50Nanos()
+    {
+        return getLatencies().getPercentile(50);
+    }
+
+    @Override
+    public long getP99Nanos()
+    {
+        return getLatencies().getPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos()
+    {
+        return getLatencies().getPercentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos()
+    {
+        return getLatencies().getMax();
+    }
+
+    @Override
+    public void reset()
+    {
+        this.count.reset();
+        this.misses.reset();
+        this.latencies.reset();
+        this.resetTime = System.nanoTime();
+    }
+}
@@ -0,0 +1,61 @@
+package cashregister.Model.Metrics;
+
+/**
+ * The management interface of the metrics of one hot path, as it is shown in JMX tools such as JConsole.
+ * Latencies are in nanoseconds, and only sampled calls have one.
+ *
+ * @see OperationMetrics
+ * @see Metrics#registerMBeans()
+ */
+public interface OperationMetricsMXBean
+{
+    /**
+     * @return Number of calls since the metrics were last reset, or an estimate of it
+     */
+    long getCount();
+
+    /**
+     * @return {@code true} if the count is estimated from the timed calls
+     */
+    boolean isCountEstimated();
+
+    /**
+     * @return Number of calls that found nothing, such as lookups of unknown barcodes
+     */
+    long getMissCount();
+
+    /**
+     * @return Calls per second since the metrics were last reset
+     */
+    double getRatePerSecond();
+
+    /**
+     * @return Number of calls that were timed
+     */
+    long getSampleCount();
+
+    /**
+     * @return Latency that half of the timed calls are at most
+     */
+    long getP50Nanos();
+
+    /**
+     * @return Latency that 99% of the timed calls are at most
+     */
+    long getP99Nanos();
+
+    /**
+     * @return Latency that 99.9% of the timed calls are at most
+     */
+    long getP999Nanos();
+
+    /**
+     * @return Highest latency of the timed calls
+     */
+    long getMaxNanos();
+
+    /**
+     * Forgets all calls so far.
+     */
+    void reset();
+}
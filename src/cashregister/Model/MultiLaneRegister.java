@@ -0,0 +1,158 @@
+package cashregister.Model;
+
+import cashregister.Model.Analytics.BestSellerSketch;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptHistory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code MultiLaneRegister} class runs any number of checkout <em>lanes</em> against one store.
+ * Every lane has its own open receipt, and finished receipts of all lanes go into one shared history.
+ * Lanes share nothing else, so they can scan in parallel - one thread per lane, of any kind.
+ * Every lane counts its own best sellers, and the counts of all lanes are merged when they are asked for.
+ *
+ * @see Lane
+ * @see ReceiptHistory
+ */
+public class MultiLaneRegister
+{
+    private final StoreAssortment store;
+    private final ReceiptHistory history;
+    private final ConcurrentMap<Integer, Lane> lanes;
+    private final AtomicInteger nextLaneId;
+    private final int bestSellerCapacity;
+
+    /**
+     * Best sellers of the lanes that were closed
+     */
+    private BestSellerSketch closedLaneBestSellers;
+
+    /**
+     * Creates a register without any lanes, whose lanes count {@link BestSellerSketch#DEFAULT_CAPACITY} best sellers.
+     *
+     * @param store Store that all lanes scan products from
+     */
+    public MultiLaneRegister(StoreAssortment store)
+    {
+        this(store, BestSellerSketch.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a register without any lanes.
+     *
+     * @param store                 Store that all lanes scan products from
+     * @param bestSellerCapacity    Number of products every lane counts best sellers for
+     */
+    public MultiLaneRegister(StoreAssortment store, int bestSellerCapacity)
+    {
+        this.store = store;
+        this.history = new ReceiptHistory();
+        this.lanes = new ConcurrentHashMap<>();
+        this.nextLaneId = new AtomicInteger();
+        this.bestSellerCapacity = bestSellerCapacity;
+        this.closedLaneBestSellers = new BestSellerSketch(bestSellerCapacity);
+    }
+
+    /**
+     * Opens a new lane. Lanes are numbered from 0, in the order they are opened.
+     *
+     * @return The new lane
+     */
+    public Lane openLane()
+    {
+        Lane lane = new Lane(this.nextLaneId.getAndIncrement(), this.store, this.history, this.bestSellerCapacity);
+        this.lanes.put(lane.getLaneId(), lane);
+
+        return lane;
+    }
+
+    /**
+     * Closes a lane. Its open receipt, if there is one, is finished first.
+     * The lane's best sellers are still counted after it is closed.
+     *
+     * @param lane  The lane that is to be closed
+     */
+    public void closeLane(Lane lane)
+    {
+        if (lane.hasOpenReceipt())
+        {
+            lane.finishReceipt();
+        }
+
+        synchronized (this)
+        {
+            if (this.lanes.remove(lane.getLaneId()) != null)
+            {
+                this.closedLaneBestSellers = BestSellerSketch.merge(this.bestSellerCapacity,
+                        Arrays.asList(this.closedLaneBestSellers, lane.getBestSellers()));
+            }
+        }
+    }
+
+    /**
+     * Retrieves an open lane by its number.
+     *
+     * @param laneId    Number of the lane
+     *
+     * @return The lane, or {@code null} if there is no open lane with that number
+     */
+    public Lane getLane(int laneId)
+    {
+        return this.lanes.get(laneId);
+    }
+
+    /**
+     * Getter method for all open lanes.
+     *
+     * @return An unmodifiable copy of the open lanes
+     */
+    public List<Lane> getLanes()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.lanes.values()));
+    }
+
+    /**
+     * Getter method for the shared history of finished receipts.
+     *
+     * @return The history of all lanes
+     */
+    public ReceiptHistory getReceiptHistory()
+    {
+        return this.history;
+    }
+
+    /**
+     * Merges the best sellers of all lanes, open and closed. Lanes go on scanning while they are merged,
+     * so units that are scanned meanwhile may or may not be counted.
+     *
+     * @return A new sketch of the best sellers of all lanes
+     */
+    public synchronized BestSellerSketch getBestSellers()
+    {
+        List<BestSellerSketch> sketches = new ArrayList<>();
+        sketches.add(this.closedLaneBestSellers);
+        for (Lane lane : this.lanes.values())
+        {
+            sketches.add(lane.getBestSellers());
+        }
+
+        return BestSellerSketch.merge(this.bestSellerCapacity, sketches);
+    }
+
+    /**
+     * Getter method for every finished receipt of all lanes.
+     *
+     * @return An unmodifiable copy of the finished receipts, in the order they were finished
+     */
+    public List<Receipt> getHistory()
+    {
+        return this.history.getReceipts();
+    }
+}
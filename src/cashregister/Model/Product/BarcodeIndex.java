@@ -0,0 +1,220 @@
+package cashregister.Model.Product;
+
+/**
+ * The {@code BarcodeIndex} class is an open-addressing hash table from a
+ * numeric barcode (stored in a {@code long}) to the <em>ordinal</em> of its product.
+ * A lookup is one probe sequence over primitive arrays and allocates nothing.
+ * Barcodes such as {@code "0 580524 463272"} are encoded by their digits only,
+ * so the caller must still compare the product's barcode with the scanned text.
+ *
+ * @see ProductTable
+ */
+class BarcodeIndex
+{
+    /**
+     * Returned by {@link #encode(String)} for barcodes that cannot be stored as a number.
+     */
+    static final long NOT_NUMERIC = -1;
+
+    /**
+     * Returned by {@link #get(long)} when there is no product with the key.
+     */
+    static final int NOT_FOUND = -1;
+
+    private static final int MAX_DIGITS = 18;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+
+    /**
+     * The ordinal of every slot plus one, so a new array means "all slots are empty"
+     */
+    private int[] values;
+
+    private int size;
+    private int mask;
+
+    /**
+     * Creates an empty index.
+     */
+    BarcodeIndex()
+    {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Creates a copy of another index, which can be changed without affecting the original.
+     *
+     * @param other     The index that is to be copied
+     */
+    BarcodeIndex(BarcodeIndex other)
+    {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+    }
+
+    /**
+     * Converts a barcode into its numeric key. Spaces are ignored, so
+     * {@code "0 580524 463272"} becomes {@code 580524463272}.
+     *
+     * @param barcode   The barcode text
+     *
+     * @return The key, or {@link #NOT_NUMERIC} if the barcode has other characters or too many digits
+     */
+    static long encode(String barcode)
+    {
+        long key = 0;
+        int digits = 0;
+
+        for (int i = 0; i < barcode.length(); i++)
+        {
+            char c = barcode.charAt(i);
+            if (c == ' ')
+            {
+                continue;
+            }
+
+            if (c < '0' || c > '9' || ++digits > MAX_DIGITS)
+            {
+                return NOT_NUMERIC;
+            }
+
+            key = key * 10 + (c - '0');
+        }
+
+        return digits == 0 ? NOT_NUMERIC : key;
+    }
+
+    /**
+     * Finds the ordinal stored with a key.
+     *
+     * @param key   Numeric key of the barcode
+     *
+     * @return The ordinal, or {@link #NOT_FOUND} if there is none
+     */
+    int get(long key)
+    {
+        int slot = slotOf(key);
+
+        //Probe until the key or an empty slot is found
+        while (this.values[slot] != 0)
+        {
+            if (this.keys[slot] == key)
+            {
+                return this.values[slot] - 1;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores an ordinal under a key, replacing any ordinal that had the same key.
+     *
+     * @param key       Numeric key of the barcode
+     * @param ordinal   Ordinal of the product
+     */
+    void put(long key, int ordinal)
+    {
+        //Keep the table at most half full, so probe sequences stay short
+        if ((this.size + 1) * 2 > this.values.length)
+        {
+            resize(this.values.length * 2);
+        }
+
+        int slot = slotOf(key);
+        while (this.values[slot] != 0)
+        {
+            if (this.keys[slot] == key)
+            {
+                this.values[slot] = ordinal + 1;
+                return;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = ordinal + 1;
+        this.size++;
+    }
+
+    /**
+     * Removes the ordinal stored under a key, if there is one.
+     *
+     * @param key       Numeric key of the barcode
+     */
+    void remove(long key)
+    {
+        int slot = slotOf(key);
+        while (this.values[slot] != 0 && this.keys[slot] != key)
+        {
+            slot = (slot + 1) & this.mask;
+        }
+
+        if (this.values[slot] == 0)
+        {
+            return;
+        }
+
+        this.values[slot] = 0;
+        this.size--;
+
+        //Put back every key after it in the probe sequence, so none of them get cut off by the empty slot
+        slot = (slot + 1) & this.mask;
+        while (this.values[slot] != 0)
+        {
+            long movedKey = this.keys[slot];
+            int movedOrdinal = this.values[slot] - 1;
+
+            this.values[slot] = 0;
+            this.size--;
+            put(movedKey, movedOrdinal);
+
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    /**
+     * Getter method for the number of products in the index.
+     *
+     * @return The number of products
+     */
+    int size()
+    {
+        return this.size;
+    }
+
+    private int slotOf(long key)
+    {
+        //Spread the bits, since barcodes that are close to each other are common
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private void resize(int newCapacity)
+    {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+
+        this.keys = new long[newCapacity];
+        this.values = new int[newCapacity];
+        this.mask = newCapacity - 1;
+        this.size = 0;
+
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            if (oldValues[i] != 0)
+            {
+                put(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package cashregister.Model.Product;
+
+/**
+ * The {@code Money} class does all arithmetic on amounts of money in the cash register.
+ * An amount is a {@code long} number of ore - a fixed-point number of kroner with two decimals -
+ * so amounts are exact, and no receipt, shift or report total can outgrow it in practice.
+ *
+ * Amounts stay plain {@code long} values instead of objects, so calculating a total never allocates.
+ * Every calculation that can leave the range of a {@code long} checks it and throws an
+ * {@code ArithmeticException} rather than wrapping around. Prices of single units stay {@code int},
+ * since multiplying two {@code int} values always fits in a {@code long}.
+ *
+ * @see Price
+ */
+public final class Money
+{
+    /**
+     * Number of ore in one krone
+     */
+    public static final int ORE_PER_KRONE = 100;
+
+    private static final char DECIMAL_SEPARATOR = ',';
+
+    private Money()
+    {
+    }
+
+    /**
+     * Calculates the price of a number of units. It can't overflow.
+     *
+     * @param unitPrice     Price of one unit, in ore
+     * @param quantity      Number of units
+     *
+     * @return The price of all units, in ore
+     */
+    public static long times(int unitPrice, int quantity)
+    {
+        return (long) unitPrice * quantity;
+    }
+
+    /**
+     * Adds two amounts.
+     *
+     * @param amount                The first amount, in ore
+     * @param other                 The second amount, in ore
+     *
+     * @return The sum, in ore
+     *
+     * @throws ArithmeticException  if the sum doesn't fit in a {@code long}
+     */
+    public static long add(long amount, long other) throws ArithmeticException
+    {
+        return Math.addExact(amount, other);
+    }
+
+    /**
+     * Subtracts an amount from another.
+     *
+     * @param amount                The amount, in ore
+     * @param other                 The amount that is subtracted, in ore
+     *
+     * @return The difference, in ore
+     *
+     * @throws ArithmeticException  if the difference doesn't fit in a {@code long}
+     */
+    public static long subtract(long amount, long other) throws ArithmeticException
+    {
+        return Math.subtractExact(amount, other);
+    }
+
+    /**
+     * Calculates the sales tax (MOMS) that is included in a price, like 25% tax is a fifth of the price.
+     * The tax is {@code amount * percent / (100 + percent)}, rounded half to even.
+     * The amount is split before it is multiplied, so the calculation itself can't overflow.
+     *
+     * @param amount                    The price with tax, in ore. Must not be negative
+     * @param percent                   The tax rate in percent. Must not be negative
+     *
+     * @return The included tax, in ore
+     *
+     * @throws IllegalArgumentException if the amount or the rate is negative
+     */
+    public static long includedTax(long amount, int percent) throws IllegalArgumentException
+    {
+        if (amount < 0 || percent < 0)
+        {
+            throw new IllegalArgumentException("The amount and the tax rate can't be negative.");
+        }
+
+        //amount = quotient * divisor + remainder, so the tax is quotient * percent plus the tax of the remainder
+        long divisor = 100L + percent;
+        long quotient = amount / divisor;
+        long remainderTax = (amount % divisor) * percent;
+
+        long tax = quotient * percent + remainderTax / divisor;
+        long twiceRemainder = (remainderTax % divisor) * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && tax % 2 == 1))
+        {
+            tax++;
+        }
+
+        return tax;
+    }
+
+    /**
+     * Calculates how many whole units of a size fit in an amount, like the number of marks a purchase gives.
+     *
+     * @param amount                    The amount, in ore
+     * @param unitSize                  The size of one unit, in ore. Must be positive
+     *
+     * @return The number of whole units, rounded down
+     *
+     * @throws IllegalArgumentException if the unit size isn't positive
+     */
+    public static long wholeUnits(long amount, long unitSize) throws IllegalArgumentException
+    {
+        if (unitSize <= 0)
+        {
+            throw new IllegalArgumentException("The unit size must be positive.");
+        }
+
+        return Math.floorDiv(amount, unitSize);
+    }
+
+    /**
+     * Formats an amount as kroner with two decimals and a decimal comma, like {@code 1234,50}.
+     *
+     * @param amount    The amount, in ore
+     *
+     * @return The formatted amount
+     */
+    public static String format(long amount)
+    {
+        return appendFormatted(new StringBuilder(24), amount).toString();
+    }
+
+    /**
+     * Writes an amount the same way {@link #format(long)} does, without creating a string for it.
+     *
+     * @param text      Where the amount is written
+     * @param amount    The amount, in ore
+     *
+     * @return The same builder, so more can be appended to it
+     */
+    public static StringBuilder appendFormatted(StringBuilder text, long amount)
+    {
+        //The ore are taken off before the sign, so the smallest long can be formatted as well
+        long kroner = amount / ORE_PER_KRONE;
+        int ore = (int) Math.abs(amount % ORE_PER_KRONE);
+        if (amount < 0 && kroner == 0)
+        {
+            text.append('-');
+        }
+
+        return text.append(kroner)
+                .append(DECIMAL_SEPARATOR)
+                .append((char) ('0' + ore / 10))
+                .append((char) ('0' + ore % 10));
+    }
+
+    /**
+     * Calculates how many characters an amount takes up once it is formatted.
+     *
+     * @param amount    The amount, in ore
+     *
+     * @return The number of characters
+     */
+    public static int formattedLength(long amount)
+    {
+        //The sign, one digit of kroner that is always written, the decimal comma and the two digits of ore
+        int length = amount < 0 ? 5 : 4;
+
+        //The kroner aren't made positive, so the smallest long doesn't overflow
+        for (long kroner = amount / ORE_PER_KRONE; kroner <= -10 || kroner >= 10; kroner /= 10)
+        {
+            length++;
+        }
+
+        return length;
+    }
+}
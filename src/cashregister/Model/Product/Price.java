@@ -1,7 +1,11 @@
 package cashregister.Model.Product;
 
-import java.util.Map;
+import cashregister.HelperFunctions;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.NoSuchElementException;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -10,11 +14,27 @@ import java.util.TreeMap;
  * the final price of the product depends on the quantity that was bought.
  * The class <em>is</em> package private, so only the Product class can use it.
  *
+ * The prices are kept as tiers in two sorted {@code int} arrays - the minimum quantity
+ * of every tier and its price. Every time the tiers change, the price of each small
+ * quantity is also written to a direct lookup table, so most baskets never search the tiers.
+ *
  * @author Ivan Mladenov
  */
 class Price
 {
-    private Map<Integer, Integer> priceRequirements;
+    /**
+     * Quantities below this are priced from the direct lookup table
+     */
+    private static final int DIRECT_TABLE_LIMIT = 32;
+
+    private int[] tierQuantities;
+    private int[] tierPrices;
+    private int tierCount;
+
+    /**
+     * The price of every quantity from 0 up to (not including) the quantity of the last tier
+     */
+    private int[] directPrices;
 
     /**
      * Constructor that initializes a new price object with initial values.
@@ -24,13 +44,31 @@ class Price
      */
     public Price(int price)
     {
-        //Initialize the tree map that holds all discounts
-        this.priceRequirements = new TreeMap<>();
+        //Initialize the arrays that hold all discounts
+        this.tierQuantities = new int[2];
+        this.tierPrices = new int[2];
+        this.tierCount = 0;
 
         //Add the first price this product will have. Quantity 1 means that this is the normal price
         addDiscount(1, price);
     }
 
+    /**
+     * Constructor that creates a copy of another price object, which can be changed
+     * without affecting the original.
+     *
+     * @param other     The price object that is to be copied
+     */
+    Price(Price other)
+    {
+        this.tierQuantities = other.tierQuantities.clone();
+        this.tierPrices = other.tierPrices.clone();
+        this.tierCount = other.tierCount;
+
+        //The direct table is never changed after it is built, only replaced
+        this.directPrices = other.directPrices;
+    }
+
     /**
      * Adds a new discount to the product's prices.
      *
@@ -42,13 +80,33 @@ class Price
      */
     public void addDiscount(int minQuantity, int discountedPrice)
     {
-        if (discountedPrice <= 0)
+        HelperFunctions.checkPrice(discountedPrice);
+
+        int tier = Arrays.binarySearch(this.tierQuantities, 0, this.tierCount, minQuantity);
+        if (tier >= 0)
+        {
+            //There is a tier for this quantity already, so only the price changes
+            this.tierPrices[tier] = discountedPrice;
+        }
+        else
         {
-            throw new IllegalArgumentException("The provided price was negative!");
+            //Make room for the new tier at its sorted position
+            int position = -(tier + 1);
+            if (this.tierCount == this.tierQuantities.length)
+            {
+                this.tierQuantities = Arrays.copyOf(this.tierQuantities, this.tierCount * 2);
+                this.tierPrices = Arrays.copyOf(this.tierPrices, this.tierCount * 2);
+            }
+
+            System.arraycopy(this.tierQuantities, position, this.tierQuantities, position + 1, this.tierCount - position);
+            System.arraycopy(this.tierPrices, position, this.tierPrices, position + 1, this.tierCount - position);
+
+            this.tierQuantities[position] = minQuantity;
+            this.tierPrices[position] = discountedPrice;
+            this.tierCount++;
         }
 
-        //The price is legal, update the map using this new price
-        this.priceRequirements.put(minQuantity, discountedPrice);
+        buildDirectPrices();
     }
 
     /**
@@ -66,9 +124,14 @@ class Price
         }
 
         //Try to remove the price if it exists
-        if (this.priceRequirements.containsKey(quantity))
+        int tier = Arrays.binarySearch(this.tierQuantities, 0, this.tierCount, quantity);
+        if (tier >= 0)
         {
-            this.priceRequirements.remove(quantity);
+            System.arraycopy(this.tierQuantities, tier + 1, this.tierQuantities, tier, this.tierCount - tier - 1);
+            System.arraycopy(this.tierPrices, tier + 1, this.tierPrices, tier, this.tierCount - tier - 1);
+            this.tierCount--;
+
+            buildDirectPrices();
         }
     }
 
@@ -79,12 +142,12 @@ class Price
     public void clearDiscounts()
     {
         //Retrieve the non-discounted price
-        int normalPrice = this.priceRequirements.get(1);
+        int normalPrice = getBasePrice();
 
-        //Clear the TreeMap of all elements
-        this.priceRequirements.clear();
+        //Remove all tiers
+        this.tierCount = 0;
 
-        //Insert the normal price back in the TreeMap
+        //Insert the normal price back in the tiers
         addDiscount(1, normalPrice);
     }
 
@@ -99,12 +162,29 @@ class Price
      */
     public int getBasePrice() throws NoSuchElementException
     {
-        if (!this.priceRequirements.containsKey(1))
+        int tier = Arrays.binarySearch(this.tierQuantities, 0, this.tierCount, 1);
+        if (tier < 0)
         {
             throw new NoSuchElementException("The product doesn't have a base price!");
         }
 
-        return this.priceRequirements.get(1);
+        return this.tierPrices[tier];
+    }
+
+    /**
+     * Getter method for all prices of the product, including the base price at quantity 1.
+     *
+     * @return                          An unmodifiable copy of the prices, sorted by minimum quantity
+     */
+    public SortedMap<Integer, Integer> getAllPrices()
+    {
+        TreeMap<Integer, Integer> prices = new TreeMap<>();
+        for (int i = 0; i < this.tierCount; i++)
+        {
+            prices.put(this.tierQuantities[i], this.tierPrices[i]);
+        }
+
+        return Collections.unmodifiableSortedMap(prices);
     }
 
     /**
@@ -118,34 +198,70 @@ class Price
      */
     public int getFinalPrice(int amountBought) throws NoSuchElementException
     {
-        //Start by getting the normal price. If there are no discounts to be added, use that
-        int finalPrice = getBasePrice();
+        //Everything from the last tier and up has the last tier's price
+        int lastTier = this.tierCount - 1;
+        if (amountBought >= this.tierQuantities[lastTier])
+        {
+            return this.tierPrices[lastTier];
+        }
 
-        //Iterate through the different prices of the product
-        for (Map.Entry<Integer, Integer> entry : this.priceRequirements.entrySet())
+        //Small quantities are looked up directly
+        if (amountBought >= 0 && amountBought < this.directPrices.length)
         {
-            //If the product was bought more (or equal) times of the registered discount...
-            if (amountBought >= entry.getKey())
-            {
-                //... set the final price to that of the discount
-                finalPrice = entry.getValue();
-            }
-            else
-            {
-                //...If it was bought less times, there's no need to continue iterating.
-                break;
-            }
+            return this.directPrices[amountBought];
         }
 
-        if (finalPrice < 0)
+        return findTierPrice(amountBought);
+    }
+
+    /**
+     * Getter method for the price of all units of a quantity together, with the discount for the quantity.
+     *
+     * @param amountBought              The quantity that was purchased
+     *
+     * @return                          The price of the whole quantity, in ore
+     *
+     * @throws NoSuchElementException   if the price map is empty (no actual prices added)
+     */
+    public long getLineTotal(int amountBought) throws NoSuchElementException
+    {
+        return Money.times(getFinalPrice(amountBought), amountBought);
+    }
+
+    /**
+     * Searches the tiers for the price of a quantity. The price is the one of the
+     * last tier whose minimum quantity is reached, or the base price if no tier is reached.
+     *
+     * @param amountBought              The quantity that was purchased
+     *
+     * @return                          The final price of the product
+     */
+    private int findTierPrice(int amountBought)
+    {
+        int tier = Arrays.binarySearch(this.tierQuantities, 0, this.tierCount, amountBought);
+
+        //A negative result is the position the quantity would be inserted at, so the tier before it applies
+        if (tier < 0)
         {
-            //Throw an exception if the current price is negative
-            throw new NoSuchElementException("There is no price possible for this product and specified amount");
+            tier = -(tier + 1) - 1;
         }
-        else
+
+        return tier < 0 ? getBasePrice() : this.tierPrices[tier];
+    }
+
+    /**
+     * Fills the direct lookup table with the price of every quantity below
+     * the last tier (up to the direct lookup limit).
+     */
+    private void buildDirectPrices()
+    {
+        int lastQuantity = this.tierQuantities[this.tierCount - 1];
+        int tableSize = Math.max(0, Math.min(DIRECT_TABLE_LIMIT, lastQuantity));
+
+        this.directPrices = new int[tableSize];
+        for (int quantity = 0; quantity < tableSize; quantity++)
         {
-            //Return the final price of the product
-            return finalPrice;
+            this.directPrices[quantity] = findTierPrice(quantity);
         }
     }
 }
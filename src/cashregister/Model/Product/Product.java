@@ -1,23 +1,26 @@
 package cashregister.Model.Product;
 
+import java.util.Map;
+import java.util.SortedMap;
+
 /**
  * The {@code Product} class holds the information about one product in the store,
  * including <em>barcode</em>, <em>category</em>, the product's <em>name</em>, and all known <em>prices</em>.
  * The known prices include all possible <em>discounts</em>.
+ * The information itself is kept in a {@code ProductTable} - a product is a view over one row of it.
  *
  * @author Ivan Mladenov
  *
  * @see Price
+ * @see ProductTable
  */
 public class Product
 {
-    private String barcode;
-    private String category;
-    private String productName;
-    private Price price;
+    private final ProductTable table;
+    private final int ordinal;
 
     /**
-     * Constructor that initializes a new product object.
+     * Constructor that initializes a new product object, which isn't part of any store.
      *
      * @param barcode                   The new product's barcode
      * @param category                  The new product's category
@@ -28,28 +31,81 @@ public class Product
      */
     public Product(String barcode, String category, String productName, int price) throws IllegalArgumentException
     {
-        //Ensures that the product's details are not null
-        if (barcode == null ||
-            category == null ||
-            productName == null)
+        //The product gets a table with only one row
+        this.table = new ProductTable(1);
+        this.ordinal = this.table.addRow(barcode, category, productName, price);
+    }
+
+    /**
+     * Constructor that initializes a new product object with all of its prices, which isn't part of any store.
+     * The prices are added in one update, so creating the product doesn't count as a price change.
+     *
+     * @param barcode                   The new product's barcode
+     * @param category                  The new product's category
+     * @param productName               The new product's name
+     * @param prices                    All prices of the product by quantity, the base price at quantity 1
+     *
+     * @throws IllegalArgumentException if any of the parameters are empty or null, or there is no base price
+     */
+    public Product(String barcode, String category, String productName, SortedMap<Integer, Integer> prices)
+            throws IllegalArgumentException
+    {
+        Integer basePrice = prices.get(1);
+        if (basePrice == null)
         {
-            throw new IllegalArgumentException("The contents of a product cannot be null!");
+            throw new IllegalArgumentException("A product needs a base price!");
         }
 
-        if (barcode.isEmpty() ||
-            category.isEmpty() ||
-            productName.isEmpty())
+        this.table = new ProductTable(1);
+        this.table.beginUpdate();
+        try
         {
-            throw new IllegalArgumentException("The contents of a product cannot be empty!");
+            this.ordinal = this.table.addRow(barcode, category, productName, basePrice);
+
+            for (Map.Entry<Integer, Integer> price : prices.entrySet())
+            {
+                if (price.getKey() != 1)
+                {
+                    this.table.addDiscount(this.ordinal, price.getKey(), price.getValue());
+                }
+            }
         }
+        finally
+        {
+            this.table.finishUpdate();
+        }
+    }
 
-        //Initialize the base values
-        this.barcode = barcode;
-        this.category = category;
-        this.productName = productName;
+    /**
+     * Constructor that creates the view of one row of a table.
+     *
+     * @param table                     Table that holds the product
+     * @param ordinal                   Row of the product in the table
+     */
+    Product(ProductTable table, int ordinal)
+    {
+        this.table = table;
+        this.ordinal = ordinal;
+    }
 
-        //Initialize the price object and set the base price of the product
-        this.price = new Price(price);
+    /**
+     * Getter method for retrieving the position of the product in its table
+     *
+     * @return              The ordinal of the product
+     */
+    public int getOrdinal()
+    {
+        return this.ordinal;
+    }
+
+    /**
+     * Getter method for retrieving the table the product is a row of
+     *
+     * @return              The table of the product
+     */
+    public ProductTable getTable()
+    {
+        return this.table;
     }
 
     /**
@@ -59,7 +115,7 @@ public class Product
      */
     public String getBarcode()
     {
-        return this.barcode;
+        return this.table.getBarcode(this.ordinal);
     }
 
     /**
@@ -69,7 +125,7 @@ public class Product
      */
     public String getCategory()
     {
-        return this.category;
+        return this.table.getCategory(this.ordinal);
     }
 
     /**
@@ -79,7 +135,7 @@ public class Product
      */
     public String getProductName()
     {
-        return this.productName;
+        return this.table.getProductName(this.ordinal);
     }
 
     /**
@@ -91,7 +147,19 @@ public class Product
     public void addDiscount(int quantityRequirement, int discountedPrice)
     {
         //Try to add or update the discount
-        this.price.addDiscount(quantityRequirement, discountedPrice);
+        this.table.addDiscount(this.ordinal, quantityRequirement, discountedPrice);
+    }
+
+    /**
+     * Removes the discount associated with a quantity, if there is one
+     *
+     * @param quantityRequirement       The quantity that triggers the discount
+     *
+     * @throws IllegalArgumentException if the operation will remove the base price
+     */
+    public void removeDiscount(int quantityRequirement) throws IllegalArgumentException
+    {
+        this.table.removeDiscount(this.ordinal, quantityRequirement);
     }
 
     /**
@@ -112,7 +180,18 @@ public class Product
      */
     public int getBasePrice()
     {
-        return this.price.getBasePrice();
+        return this.table.getBasePrice(this.ordinal);
+    }
+
+    /**
+     * Getter method for retrieving every price of a product, including all <em>discounts</em>
+     *
+     * @return                      The prices, sorted by the quantity that triggers them.
+     *                              The base price is the one at quantity 1
+     */
+    public SortedMap<Integer, Integer> getAllPrices()
+    {
+        return this.table.getAllPrices(this.ordinal);
     }
 
     /**
@@ -127,7 +206,61 @@ public class Product
      */
     public int getFinalPrice(int boughtAmount)
     {
-        //Call the Price object and get the final price
-        return this.price.getFinalPrice(boughtAmount);
+        //Call the table and get the final price
+        return this.table.getFinalPrice(this.ordinal, boughtAmount);
+    }
+
+    /**
+     * Gets the price of all units of a product together, based on the amount that was bought.
+     * The price of one unit is the <em>final price</em> for the amount.
+     *
+     * @param boughtAmount      The amount of this product that was bought
+     *
+     * @return                  The price of the whole amount, in ore
+     *
+     * @see Money
+     */
+    public long getLineTotal(int boughtAmount)
+    {
+        return this.table.getLineTotal(this.ordinal, boughtAmount);
+    }
+
+    /**
+     * Gets the active <em>promotions</em> of the store the product is in, compiled for its products.
+     * A product that isn't part of any store has no promotions.
+     *
+     * @return                  The compiled promotions
+     *
+     * @see Promotion
+     */
+    public PromotionIndex getPromotions()
+    {
+        return this.table.getPromotionTable().getPromotionIndex();
+    }
+
+    /**
+     * Checks whether the product is a row of a table.
+     *
+     * @param table             The table
+     *
+     * @return                  {@code true} if the product is in the table
+     */
+    boolean belongsTo(ProductTable table)
+    {
+        return this.table == table;
+    }
+
+    /**
+     * Checks whether the product is priced with the promotions of a table.
+     *
+     * @param table             The table
+     *
+     * @return                  {@code true} if the promotion table of the product's table is the given table
+     *
+     * @see ProductTable#getPromotionTable()
+     */
+    boolean isPricedBy(ProductTable table)
+    {
+        return this.table.getPromotionTable() == table;
     }
 }
@@ -0,0 +1,912 @@
+package cashregister.Model.Product;
+
+import cashregister.HelperFunctions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code ProductTable} class stores <em>products</em> column by column.
+ * Every product is a row, identified by its <em>ordinal</em> (the position it was added at).
+ * Categories are stored once in a dictionary and every row only keeps the category's id,
+ * and the discount tiers are only created for rows that actually have a discount.
+ * {@code Product} objects are small views over one row of the table.
+ *
+ * <p>The table is <em>versioned</em>. Readers always use the last published version,
+ * which is never changed, so they never lock or wait. Changes are made to a private
+ * copy of the table, which is published with a single volatile write once the update
+ * is finished. A whole catalog reload can be grouped into one version with
+ * {@link #beginUpdate()} and {@link #finishUpdate()}.</p>
+ *
+ * @see Product
+ * @see Price
+ */
+public class ProductTable
+{
+    /**
+     * Grows by one every time an update that changed a price is published, in any table
+     */
+    private static final AtomicLong priceEpoch = new AtomicLong();
+
+    /**
+     * The version every reader sees. It is never changed after it is published
+     */
+    private volatile Version published;
+
+    /**
+     * The copy that is being changed, only used by the thread that holds the write lock
+     */
+    private Version draft;
+    private int updateDepth;
+
+    /**
+     * Only used by writers, so it is not part of a version
+     */
+    private final Map<String, Integer> categoryIdsByName;
+
+    private final ReentrantLock writeLock;
+
+    /**
+     * The table whose promotions price the products of this table - this table itself, unless it was changed
+     */
+    private volatile ProductTable promotionTable;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param initialCapacity   Number of rows that fit before the columns need to grow
+     */
+    public ProductTable(int initialCapacity)
+    {
+        this.published = new Version(Math.max(1, initialCapacity));
+        this.draft = null;
+        this.updateDepth = 0;
+        this.categoryIdsByName = new HashMap<>();
+        this.writeLock = new ReentrantLock();
+        this.promotionTable = this;
+    }
+
+    /**
+     * Starts an update. All changes until the matching {@link #finishUpdate()} are made
+     * to a private copy of the table and become visible to readers at the same time.
+     * Updates can be nested - only the outermost one publishes the new version.
+     * Other writers wait until the update is finished, readers are never blocked.
+     */
+    public void beginUpdate()
+    {
+        this.writeLock.lock();
+
+        if (this.updateDepth == 0)
+        {
+            this.draft = this.published.copy();
+        }
+
+        this.updateDepth++;
+    }
+
+    /**
+     * Finishes an update started with {@link #beginUpdate()}.
+     * When the outermost update finishes, its changes are published with one atomic swap.
+     */
+    public void finishUpdate()
+    {
+        try
+        {
+            this.updateDepth--;
+
+            if (this.updateDepth == 0)
+            {
+                Version version = this.draft;
+                this.published = version;
+                this.draft = null;
+
+                //Only counted once the version is visible, so whoever sees the new epoch also sees the new prices
+                if (version.pricesChanged)
+                {
+                    priceEpoch.incrementAndGet();
+                }
+            }
+        }
+        finally
+        {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Getter method for the number of the published version. It grows by one with every update.
+     *
+     * @return The version number
+     */
+    public long getVersion()
+    {
+        return this.published.number;
+    }
+
+    /**
+     * Getter method for the price epoch, which changes every time a price of an existing product
+     * is changed in any table. Anything that is calculated from prices stays valid while the epoch is the same.
+     *
+     * @return The current price epoch
+     */
+    public static long getPriceEpoch()
+    {
+        return priceEpoch.get();
+    }
+
+    /**
+     * Adds a new row to the table.
+     *
+     * @param barcode                   The new product's barcode
+     * @param category                  The new product's category
+     * @param productName               The new product's name
+     * @param price                     The new product's base price
+     *
+     * @return The ordinal of the new row
+     *
+     * @throws IllegalArgumentException if any of the parameters are empty or null, or the price is not positive
+     */
+    public int addRow(String barcode, String category, String productName, int price) throws IllegalArgumentException
+    {
+        checkRow(barcode, category, productName, price);
+
+        beginUpdate();
+        try
+        {
+            return this.draft.addRow(this, barcode, categoryIdOf(category), productName, price);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Adds rows for many new products in one update, such as all products of a catalog file.
+     * The columns grow once, and the probe of the barcode index that places a row also finds a product
+     * that already has its barcode. Rows are added in order, so when one of them can't be added,
+     * the rows before it are kept.
+     *
+     * @param barcodes                  The new products' barcodes
+     * @param categories                The new products' categories
+     * @param productNames              The new products' names
+     * @param prices                    The new products' base prices
+     * @param count                     Number of rows, taken from the start of the arrays
+     *
+     * @throws IllegalArgumentException if any of the values are empty or null, a price is not positive,
+     *                                  or a barcode is already in the table
+     */
+    public void addRows(String[] barcodes, String[] categories, String[] productNames, int[] prices, int count)
+            throws IllegalArgumentException
+    {
+        beginUpdate();
+        try
+        {
+            Version version = this.draft;
+            version.ensureCapacity(version.size + count);
+
+            for (int row = 0; row < count; row++)
+            {
+                checkRow(barcodes[row], categories[row], productNames[row], prices[row]);
+
+                if (version.addNewRow(this, barcodes[row], categoryIdOf(categories[row]), productNames[row], prices[row]) < 0)
+                {
+                    String productExistsMessage = String.format(
+                            "A product with barcode %s already exists",
+                            barcodes[row]);
+
+                    throw new IllegalArgumentException(productExistsMessage);
+                }
+            }
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    private static void checkRow(String barcode, String category, String productName, int price)
+            throws IllegalArgumentException
+    {
+        //Ensures that the product's details are not null
+        if (barcode == null ||
+            category == null ||
+            productName == null)
+        {
+            throw new IllegalArgumentException("The contents of a product cannot be null!");
+        }
+
+        if (barcode.isEmpty() ||
+            category.isEmpty() ||
+            productName.isEmpty())
+        {
+            throw new IllegalArgumentException("The contents of a product cannot be empty!");
+        }
+
+        HelperFunctions.checkPrice(price);
+    }
+
+    /**
+     * Adds a copy of a product, including all of its discounts, as a new row.
+     *
+     * @param product   Product that is to be copied
+     *
+     * @return The ordinal of the new row
+     */
+    public int addRow(Product product)
+    {
+        beginUpdate();
+        try
+        {
+            int ordinal = addRow(product.getBarcode(), product.getCategory(), product.getProductName(), product.getBasePrice());
+
+            for (Map.Entry<Integer, Integer> price : product.getAllPrices().entrySet())
+            {
+                if (price.getKey() != 1)
+                {
+                    addDiscount(ordinal, price.getKey(), price.getValue());
+                }
+            }
+
+            return ordinal;
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Changes the category, name and base price of a row. Its discounts are kept.
+     *
+     * @param ordinal                   Ordinal of the row
+     * @param category                  The product's new category
+     * @param productName               The product's new name
+     * @param price                     The product's new base price
+     *
+     * @throws IllegalArgumentException if any of the parameters are empty or null, or the price is not positive
+     */
+    public void updateRow(int ordinal, String category, String productName, int price) throws IllegalArgumentException
+    {
+        if (category == null || productName == null || category.isEmpty() || productName.isEmpty())
+        {
+            throw new IllegalArgumentException("The contents of a product cannot be empty!");
+        }
+
+        beginUpdate();
+        try
+        {
+            checkOrdinal(this.draft, ordinal);
+
+            this.draft.categoryIds[ordinal] = categoryIdOf(category);
+            this.draft.productNames[ordinal] = productName;
+            addDiscount(ordinal, 1, price);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Removes a row from the barcode index, so it can no longer be looked up.
+     * The row itself is kept, so products that are already in a basket can still be priced.
+     *
+     * @param ordinal   Ordinal of the row
+     */
+    public void removeRow(int ordinal)
+    {
+        beginUpdate();
+        try
+        {
+            Version version = this.draft;
+            checkOrdinal(version, ordinal);
+
+            String barcode = version.barcodes[ordinal];
+            long key = BarcodeIndex.encode(barcode);
+            if (key != BarcodeIndex.NOT_NUMERIC && version.index.get(key) == ordinal)
+            {
+                version.index.remove(key);
+            }
+            else
+            {
+                version.otherOrdinals.remove(barcode);
+            }
+
+            version.removed[ordinal] = true;
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Checks whether a row has been removed from the table.
+     *
+     * @param ordinal   Ordinal of the row
+     *
+     * @return {@code true} if the row was removed
+     */
+    public boolean isRemoved(int ordinal)
+    {
+        Version version = current();
+        checkOrdinal(version, ordinal);
+
+        return version.removed[ordinal];
+    }
+
+    /**
+     * Getter method for the number of rows in the table, including removed rows.
+     *
+     * @return The number of products
+     */
+    public int size()
+    {
+        return current().size;
+    }
+
+    /**
+     * Getter method for the view of one row. The same object is returned every time.
+     *
+     * @param ordinal   Ordinal of the row
+     *
+     * @return The product at the ordinal
+     */
+    public Product getProduct(int ordinal)
+    {
+        Version version = current();
+        checkOrdinal(version, ordinal);
+
+        return version.views[ordinal];
+    }
+
+    /**
+     * Looks up a <em>product</em> with a single probe of the barcode index.
+     *
+     * @param barcode   Barcode of the product
+     *
+     * @return The product, or {@code null} if there is no product with the barcode
+     */
+    public Product findProduct(String barcode)
+    {
+        Version version = current();
+
+        int ordinal = findOrdinal(version, barcode);
+        return ordinal < 0 ? null : version.views[ordinal];
+    }
+
+    /**
+     * Replaces the active promotion rules of the table. The rules are compiled into a {@code PromotionIndex}
+     * the first time a basket asks for them, and again whenever the table changes.
+     * Open baskets price themselves again, as if a price had changed.
+     *
+     * @param promotions    The new rules
+     *
+     * @see #getPromotionIndex()
+     */
+    public void setPromotions(Collection<Promotion> promotions)
+    {
+        beginUpdate();
+        try
+        {
+            this.draft.promotions = Collections.unmodifiableList(new ArrayList<>(promotions));
+            this.draft.promotionIndex = this.draft.promotions.isEmpty() ? PromotionIndex.EMPTY : null;
+            this.draft.pricesChanged = true;
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Getter method for the table whose promotions price the products of this table.
+     *
+     * @return The table, which is this table unless {@link #setPromotionTable(ProductTable)} changed it
+     *
+     * @see PromotionIndex
+     */
+    public ProductTable getPromotionTable()
+    {
+        return this.promotionTable;
+    }
+
+    /**
+     * Prices the products of this table with the promotions of another table, such as the products that a store
+     * loads from a product source with the promotions of the store. The other table's promotions find the products
+     * by barcode and category, since they aren't rows of it.
+     *
+     * @param promotionTable    The table
+     */
+    public void setPromotionTable(ProductTable promotionTable)
+    {
+        this.promotionTable = promotionTable;
+    }
+
+    /**
+     * Getter method for the active promotion rules.
+     *
+     * @return An unmodifiable list of the rules
+     */
+    public List<Promotion> getPromotions()
+    {
+        return current().promotions;
+    }
+
+    /**
+     * Getter method for the active promotions, compiled against the rows of the table.
+     * The same index is returned until the table changes.
+     *
+     * @return The compiled promotions
+     */
+    public PromotionIndex getPromotionIndex()
+    {
+        Version version = current();
+
+        PromotionIndex promotionIndex = version.promotionIndex;
+        if (promotionIndex == null)
+        {
+            Map<String, Integer> categoryIds = new HashMap<>();
+            for (int categoryId = 0; categoryId < version.categoryCount; categoryId++)
+            {
+                categoryIds.put(version.categories[categoryId], categoryId);
+            }
+
+            promotionIndex = PromotionIndex.compile(this, version.promotions, version.size,
+                    barcode -> findOrdinal(version, barcode), categoryIds);
+
+            //A draft can still get new rows, so only a published version keeps its index
+            if (version == this.published)
+            {
+                version.promotionIndex = promotionIndex;
+            }
+        }
+
+        return promotionIndex;
+    }
+
+    /**
+     * Getter method for the number of different categories in the table.
+     *
+     * @return The number of categories
+     */
+    public int getCategoryCount()
+    {
+        return current().categoryCount;
+    }
+
+    /**
+     * Getter method for the name of a category.
+     *
+     * @param categoryId    Id of the category
+     *
+     * @return The name of the category
+     */
+    public String getCategoryName(int categoryId)
+    {
+        Version version = current();
+        if (categoryId < 0 || categoryId >= version.categoryCount)
+        {
+            throw new IndexOutOfBoundsException("There is no category with id " + categoryId);
+        }
+
+        return version.categories[categoryId];
+    }
+
+    /**
+     * Getter method for the category id of one row.
+     *
+     * @param ordinal   Ordinal of the row
+     *
+     * @return The id of the row's category
+     */
+    public int getCategoryId(int ordinal)
+    {
+        Version version = current();
+        checkOrdinal(version, ordinal);
+
+        return version.categoryIds[ordinal];
+    }
+
+    String getBarcode(int ordinal)
+    {
+        return current().barcodes[ordinal];
+    }
+
+    String getCategory(int ordinal)
+    {
+        Version version = current();
+        return version.categories[version.categoryIds[ordinal]];
+    }
+
+    String getProductName(int ordinal)
+    {
+        return current().productNames[ordinal];
+    }
+
+    int getBasePrice(int ordinal)
+    {
+        return current().basePrices[ordinal];
+    }
+
+    int getFinalPrice(int ordinal, int amountBought)
+    {
+        Version version = current();
+        Price price = version.discounts[ordinal];
+
+        //Products without discounts don't have tiers to look through
+        return price == null ? version.basePrices[ordinal] : price.getFinalPrice(amountBought);
+    }
+
+    long getLineTotal(int ordinal, int amountBought)
+    {
+        Version version = current();
+        Price price = version.discounts[ordinal];
+
+        return price == null ? Money.times(version.basePrices[ordinal], amountBought) : price.getLineTotal(amountBought);
+    }
+
+    SortedMap<Integer, Integer> getAllPrices(int ordinal)
+    {
+        Version version = current();
+        Price price = version.discounts[ordinal];
+        if (price == null)
+        {
+            TreeMap<Integer, Integer> basePrice = new TreeMap<>();
+            basePrice.put(1, version.basePrices[ordinal]);
+            return Collections.unmodifiableSortedMap(basePrice);
+        }
+
+        return price.getAllPrices();
+    }
+
+    void removeDiscount(int ordinal, int quantity)
+    {
+        beginUpdate();
+        try
+        {
+            Version version = this.draft;
+            checkOrdinal(version, ordinal);
+
+            if (quantity == 1)
+            {
+                throw new IllegalArgumentException("You can't remove the base price of a product");
+            }
+
+            Price price = version.discounts[ordinal];
+            if (price != null)
+            {
+                //The published version may share the price object, so it is copied before it is changed
+                price = new Price(price);
+                price.removeDiscount(quantity);
+
+                //Without any discounts left, the base price column is enough
+                version.discounts[ordinal] = price.getAllPrices().size() == 1 ? null : price;
+                markPriceChanged(version, ordinal);
+            }
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    void addDiscount(int ordinal, int quantityRequirement, int discountedPrice)
+    {
+        HelperFunctions.checkPrice(discountedPrice);
+
+        beginUpdate();
+        try
+        {
+            Version version = this.draft;
+            checkOrdinal(version, ordinal);
+
+            //The published version may share the price object, so it is copied before it is changed
+            Price price = version.discounts[ordinal];
+            if (quantityRequirement == 1)
+            {
+                //Quantity 1 is the base price
+                version.basePrices[ordinal] = discountedPrice;
+                price = price == null ? null : new Price(price);
+            }
+            else
+            {
+                price = price == null ? new Price(version.basePrices[ordinal]) : new Price(price);
+            }
+
+            if (price != null)
+            {
+                price.addDiscount(quantityRequirement, discountedPrice);
+                version.discounts[ordinal] = price;
+            }
+
+            markPriceChanged(version, ordinal);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * The version a thread should read - the draft for the thread that is updating the table,
+     * the published version for everyone else.
+     *
+     * @return The version to read
+     */
+    private Version current()
+    {
+        Version version = this.published;
+
+        if (this.writeLock.isHeldByCurrentThread())
+        {
+            version = this.draft;
+        }
+
+        return version;
+    }
+
+    private int categoryIdOf(String category)
+    {
+        Integer categoryId = this.categoryIdsByName.get(category);
+        if (categoryId == null)
+        {
+            //The category is new, so it gets the next id
+            categoryId = this.draft.addCategory(category);
+            this.categoryIdsByName.put(category, categoryId);
+        }
+
+        return categoryId;
+    }
+
+    private void markPriceChanged(Version version, int ordinal)
+    {
+        //Rows that haven't been published yet can't be in anyone's basket
+        if (ordinal < this.published.size)
+        {
+            version.pricesChanged = true;
+        }
+    }
+
+    /**
+     * Looks up the ordinal of a barcode with a single probe of the barcode index.
+     *
+     * @return The ordinal, or -1 if there is no product with the barcode
+     */
+    private static int findOrdinal(Version version, String barcode)
+    {
+        long key = BarcodeIndex.encode(barcode);
+        if (key != BarcodeIndex.NOT_NUMERIC)
+        {
+            //The index only knows the digits, so make sure it is the same barcode
+            int ordinal = version.index.get(key);
+            if (ordinal != BarcodeIndex.NOT_FOUND && version.barcodes[ordinal].equals(barcode))
+            {
+                return ordinal;
+            }
+        }
+
+        //Only hash the barcode text if there are products that need it
+        if (version.otherOrdinals.isEmpty())
+        {
+            return -1;
+        }
+
+        Integer ordinal = version.otherOrdinals.get(barcode);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    private static void checkOrdinal(Version version, int ordinal)
+    {
+        if (ordinal < 0 || ordinal >= version.size)
+        {
+            throw new IndexOutOfBoundsException("There is no product with ordinal " + ordinal);
+        }
+    }
+
+    /**
+     * One version of all columns of the table. Once a version is published, it is never changed.
+     */
+    private static final class Version
+    {
+        private final long number;
+
+        private String[] barcodes;
+        private String[] productNames;
+        private int[] categoryIds;
+        private int[] basePrices;
+
+        /**
+         * Discount tiers of every row, {@code null} for products that only have a base price
+         */
+        private Price[] discounts;
+
+        /**
+         * Whether a price of an existing row was changed in this version
+         */
+        private boolean pricesChanged;
+
+        /**
+         * Rows that can no longer be looked up by their barcode
+         */
+        private boolean[] removed;
+
+        /**
+         * The view of every row. A view reads whichever version is current, so it is shared by all versions
+         */
+        private Product[] views;
+
+        private String[] categories;
+        private int categoryCount;
+
+        /**
+         * Ordinals of products with numeric barcodes, which is nearly all of them
+         */
+        private final BarcodeIndex index;
+
+        /**
+         * Ordinals of products with barcodes that are not numeric, or whose digits match another product's barcode
+         */
+        private final Map<String, Integer> otherOrdinals;
+
+        private int size;
+
+        /**
+         * The active promotion rules, which are never changed
+         */
+        private List<Promotion> promotions;
+
+        /**
+         * The rules compiled against this version, or {@code null} until they are first asked for.
+         * Compiling gives the same index every time, so it doesn't matter which reader caches it
+         */
+        private volatile PromotionIndex promotionIndex;
+
+        private Version(int capacity)
+        {
+            this.number = 0;
+            this.barcodes = new String[capacity];
+            this.productNames = new String[capacity];
+            this.categoryIds = new int[capacity];
+            this.basePrices = new int[capacity];
+            this.discounts = new Price[capacity];
+            this.removed = new boolean[capacity];
+            this.views = new Product[capacity];
+            this.categories = new String[4];
+            this.categoryCount = 0;
+            this.index = new BarcodeIndex();
+            this.otherOrdinals = new HashMap<>();
+            this.size = 0;
+            this.promotions = Collections.emptyList();
+            this.promotionIndex = PromotionIndex.EMPTY;
+        }
+
+        private Version(Version other)
+        {
+            this.number = other.number + 1;
+            this.barcodes = other.barcodes.clone();
+            this.productNames = other.productNames.clone();
+            this.categoryIds = other.categoryIds.clone();
+            this.basePrices = other.basePrices.clone();
+            this.discounts = other.discounts.clone();
+            this.removed = other.removed.clone();
+            this.views = other.views.clone();
+            this.categories = other.categories.clone();
+            this.categoryCount = other.categoryCount;
+            this.index = new BarcodeIndex(other.index);
+            this.otherOrdinals = new HashMap<>(other.otherOrdinals);
+            this.size = other.size;
+
+            //Without rules there is nothing to compile, otherwise they are compiled against the new rows
+            this.promotions = other.promotions;
+            this.promotionIndex = other.promotions.isEmpty() ? PromotionIndex.EMPTY : null;
+        }
+
+        private Version copy()
+        {
+            return new Version(this);
+        }
+
+        private int addRow(ProductTable table, String barcode, int categoryId, String productName, int price)
+        {
+            long key = BarcodeIndex.encode(barcode);
+            int indexed = key == BarcodeIndex.NOT_NUMERIC ? BarcodeIndex.NOT_FOUND : this.index.get(key);
+
+            return putRow(table, barcode, key, indexed, categoryId, productName, price);
+        }
+
+        /**
+         * Adds a row unless a product already has its barcode.
+         *
+         * @return The ordinal of the new row, or -1 if the barcode is taken
+         */
+        private int addNewRow(ProductTable table, String barcode, int categoryId, String productName, int price)
+        {
+            long key = BarcodeIndex.encode(barcode);
+            int indexed = key == BarcodeIndex.NOT_NUMERIC ? BarcodeIndex.NOT_FOUND : this.index.get(key);
+
+            //The same probe that places the row tells whether the barcode is taken
+            if (indexed != BarcodeIndex.NOT_FOUND && this.barcodes[indexed].equals(barcode)
+                    || !this.otherOrdinals.isEmpty() && this.otherOrdinals.containsKey(barcode))
+            {
+                return -1;
+            }
+
+            return putRow(table, barcode, key, indexed, categoryId, productName, price);
+        }
+
+        /**
+         * Writes a new row, whose barcode was already probed in the index.
+         *
+         * @param key       The encoded barcode
+         * @param indexed   The ordinal the index has for the key
+         */
+        private int putRow(ProductTable table, String barcode, long key, int indexed,
+                           int categoryId, String productName, int price)
+        {
+            if (this.size == this.barcodes.length)
+            {
+                ensureCapacity(this.size + 1);
+            }
+
+            int ordinal = this.size;
+            this.barcodes[ordinal] = barcode;
+            this.productNames[ordinal] = productName;
+            this.categoryIds[ordinal] = categoryId;
+            this.basePrices[ordinal] = price;
+            this.views[ordinal] = new Product(table, ordinal);
+            this.size++;
+
+            //Make the row available by its barcode
+            if (key != BarcodeIndex.NOT_NUMERIC && indexed == BarcodeIndex.NOT_FOUND)
+            {
+                this.index.put(key, ordinal);
+            }
+            else
+            {
+                this.otherOrdinals.put(barcode, ordinal);
+            }
+
+            return ordinal;
+        }
+
+        private int addCategory(String category)
+        {
+            if (this.categoryCount == this.categories.length)
+            {
+                this.categories = Arrays.copyOf(this.categories, this.categoryCount * 2);
+            }
+
+            this.categories[this.categoryCount] = category;
+            return this.categoryCount++;
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (capacity <= this.barcodes.length)
+            {
+                return;
+            }
+
+            int newCapacity = Math.max(capacity, this.barcodes.length + (this.barcodes.length >> 1) + 1);
+
+            this.barcodes = Arrays.copyOf(this.barcodes, newCapacity);
+            this.productNames = Arrays.copyOf(this.productNames, newCapacity);
+            this.categoryIds = Arrays.copyOf(this.categoryIds, newCapacity);
+            this.basePrices = Arrays.copyOf(this.basePrices, newCapacity);
+            this.discounts = Arrays.copyOf(this.discounts, newCapacity);
+            this.removed = Arrays.copyOf(this.removed, newCapacity);
+            this.views = Arrays.copyOf(this.views, newCapacity);
+        }
+    }
+}
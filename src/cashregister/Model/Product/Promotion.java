@@ -0,0 +1,242 @@
+package cashregister.Model.Product;
+
+/**
+ * The {@code Promotion} class is one promotion rule of the store. Unlike the quantity tiers of a
+ * {@code Price}, a promotion can span several units, products or the whole basket:
+ *
+ * <ul>
+ *     <li><em>Multi-buy</em> - buy a number of units of one product, pay for fewer ("3 for 2")</li>
+ *     <li><em>Mix and match</em> - every group of a number of products from one category takes an amount off</li>
+ *     <li><em>Basket threshold</em> - a basket that costs at least an amount takes an amount off</li>
+ * </ul>
+ *
+ * Promotions are only rules. A {@code PromotionIndex} compiles the active rules of a store
+ * into the structure that baskets are evaluated against.
+ *
+ * @see PromotionIndex
+ */
+public final class Promotion
+{
+    /**
+     * The kinds of promotions.
+     */
+    public enum Kind
+    {
+        MULTI_BUY,
+        MIX_AND_MATCH,
+        BASKET_THRESHOLD
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final String target;
+    private final int quantity;
+    private final int paidQuantity;
+    private final long amount;
+    private final long discount;
+
+    private Promotion(Kind kind, String name, String target, int quantity, int paidQuantity, long amount, long discount)
+    {
+        if (name == null || name.isEmpty())
+        {
+            throw new IllegalArgumentException("A promotion needs a name.");
+        }
+
+        this.kind = kind;
+        this.name = name;
+        this.target = target;
+        this.quantity = quantity;
+        this.paidQuantity = paidQuantity;
+        this.amount = amount;
+        this.discount = discount;
+    }
+
+    /**
+     * Creates a multi-buy promotion: for every {@code quantity} units of the product,
+     * only {@code paidQuantity} units are paid for.
+     *
+     * @param name                      Name of the promotion, as it is printed on the receipt
+     * @param barcode                   Barcode of the product
+     * @param quantity                  Number of units in a group, at least 2
+     * @param paidQuantity              Number of units of a group that are paid for, less than the group
+     *
+     * @return The promotion
+     *
+     * @throws IllegalArgumentException if the quantities don't make a discount
+     */
+    public static Promotion multiBuy(String name, String barcode, int quantity, int paidQuantity) throws IllegalArgumentException
+    {
+        if (barcode == null || barcode.isEmpty())
+        {
+            throw new IllegalArgumentException("A multi-buy promotion needs a barcode.");
+        }
+        if (quantity < 2 || paidQuantity < 0 || paidQuantity >= quantity)
+        {
+            throw new IllegalArgumentException("A multi-buy promotion must pay for fewer units than it groups.");
+        }
+
+        return new Promotion(Kind.MULTI_BUY, name, barcode, quantity, paidQuantity, 0, 0);
+    }
+
+    /**
+     * Creates a mix-and-match promotion: every group of {@code quantity} products from the category,
+     * in any combination, takes an amount off the basket.
+     *
+     * @param name                      Name of the promotion, as it is printed on the receipt
+     * @param category                  Category of the products
+     * @param quantity                  Number of products in a group, at least 1
+     * @param discount                  Amount taken off for every group, in ore
+     *
+     * @return The promotion
+     *
+     * @throws IllegalArgumentException if the quantity or the discount isn't positive
+     */
+    public static Promotion mixAndMatch(String name, String category, int quantity, long discount) throws IllegalArgumentException
+    {
+        if (category == null || category.isEmpty())
+        {
+            throw new IllegalArgumentException("A mix-and-match promotion needs a category.");
+        }
+        if (quantity < 1 || discount <= 0)
+        {
+            throw new IllegalArgumentException("A mix-and-match promotion needs a positive quantity and discount.");
+        }
+
+        return new Promotion(Kind.MIX_AND_MATCH, name, category, quantity, 0, 0, discount);
+    }
+
+    /**
+     * Creates a basket threshold promotion: a basket that costs at least an amount, after all other
+     * promotions, takes an amount off. Only the best threshold that a basket reaches is used.
+     *
+     * @param name                      Name of the promotion, as it is printed on the receipt
+     * @param minimumTotal              Least the basket has to cost, in ore
+     * @param discount                  Amount taken off, in ore. At most the minimum total
+     *
+     * @return The promotion
+     *
+     * @throws IllegalArgumentException if the discount isn't positive or is more than the minimum total
+     */
+    public static Promotion basketThreshold(String name, long minimumTotal, long discount) throws IllegalArgumentException
+    {
+        if (discount <= 0 || discount > minimumTotal)
+        {
+            throw new IllegalArgumentException("A basket promotion must take off more than 0 and at most its threshold.");
+        }
+
+        return new Promotion(Kind.BASKET_THRESHOLD, name, null, 0, 0, minimumTotal, discount);
+    }
+
+    /**
+     * Calculates the discount of a multi-buy promotion.
+     *
+     * @param quantityBought    Number of units of the product in the basket
+     * @param unitPrice         Price of one unit, in ore
+     *
+     * @return The discount, in ore
+     */
+    long multiBuyDiscount(int quantityBought, int unitPrice)
+    {
+        //Every whole group has free units, and those never outnumber the units bought
+        int freeUnits = (quantityBought / this.quantity) * (this.quantity - this.paidQuantity);
+        return Money.times(unitPrice, freeUnits);
+    }
+
+    /**
+     * Calculates the discount of a mix-and-match promotion.
+     *
+     * @param countInCategory   Number of products of the category in the basket
+     *
+     * @return The discount, in ore
+     *
+     * @throws ArithmeticException if the discount doesn't fit in a {@code long}
+     */
+    long mixAndMatchDiscount(int countInCategory) throws ArithmeticException
+    {
+        return Math.multiplyExact(countInCategory / this.quantity, this.discount);
+    }
+
+    /**
+     * Getter method for the kind of promotion.
+     *
+     * @return The kind
+     */
+    public Kind getKind()
+    {
+        return this.kind;
+    }
+
+    /**
+     * Getter method for the name of the promotion, as it is printed on the receipt.
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Getter method for the barcode of a multi-buy promotion, or the category of a mix-and-match promotion.
+     *
+     * @return The barcode or the category, or {@code null} for a basket threshold
+     */
+    public String getTarget()
+    {
+        return this.target;
+    }
+
+    /**
+     * Getter method for the number of units or products in a group.
+     *
+     * @return The group size, or 0 for a basket threshold
+     */
+    public int getQuantity()
+    {
+        return this.quantity;
+    }
+
+    /**
+     * Getter method for the number of units of a multi-buy group that are paid for.
+     *
+     * @return The paid units, or 0 for other promotions
+     */
+    public int getPaidQuantity()
+    {
+        return this.paidQuantity;
+    }
+
+    /**
+     * Getter method for the least a basket has to cost for a basket threshold.
+     *
+     * @return The threshold in ore, or 0 for other promotions
+     */
+    public long getMinimumTotal()
+    {
+        return this.amount;
+    }
+
+    /**
+     * Getter method for the fixed amount taken off by a mix-and-match group or a basket threshold.
+     *
+     * @return The discount in ore, or 0 for a multi-buy promotion
+     */
+    public long getDiscount()
+    {
+        return this.discount;
+    }
+
+    @Override
+    public String toString()
+    {
+        switch (this.kind)
+        {
+            case MULTI_BUY:
+                return String.format("%s: %d for %d of %s", this.name, this.quantity, this.paidQuantity, this.target);
+            case MIX_AND_MATCH:
+                return String.format("%s: %d from %s save %s", this.name, this.quantity, this.target, Money.format(this.discount));
+            default:
+                return String.format("%s: spend %s save %s", this.name, Money.format(this.amount), Money.format(this.discount));
+        }
+    }
+}
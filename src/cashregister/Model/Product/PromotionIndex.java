@@ -0,0 +1,442 @@
+package cashregister.Model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * The {@code PromotionIndex} class is the compiled form of the active promotions of one {@code ProductTable}.
+ * Every rule is indexed by what it applies to, so a basket never looks at the rules of other products:
+ *
+ * <ul>
+ *     <li>Multi-buy rules are grouped by the <em>ordinal</em> of their product</li>
+ *     <li>Mix-and-match rules are grouped by the <em>category id</em> of their category</li>
+ *     <li>Basket thresholds are sorted, with the best discount of every threshold and the ones below it</li>
+ * </ul>
+ *
+ * Looking up a product or a category only goes through the rules of that product or category,
+ * and a threshold is found with a binary search, so thousands of active promotions cost a basket
+ * no more than a few. When several rules apply to the same product or category, the one that takes off
+ * the most is used. An index is never changed - the table compiles a new one when its rules or rows change.
+ * <p>
+ * A product that isn't a row of the table, such as one a store has loaded from its product source,
+ * finds its rules by its barcode and by the name of its category instead.
+ *
+ * @see Promotion
+ * @see ProductTable#setPromotions(java.util.Collection)
+ */
+public final class PromotionIndex
+{
+    /**
+     * The index of a table without promotions
+     */
+    public static final PromotionIndex EMPTY = new PromotionIndex(null, Collections.emptyList(),
+            new int[1], new Promotion[0], Collections.emptyMap(),
+            new int[1], new Promotion[0], Collections.emptyMap(), new long[0], new Promotion[0]);
+
+    private final ProductTable table;
+    private final List<Promotion> promotions;
+
+    /**
+     * The multi-buy rules of the product with ordinal {@code i} are at {@code productRuleStart[i]}
+     * up to (not including) {@code productRuleStart[i + 1]} in {@code productRules}
+     */
+    private final int[] productRuleStart;
+    private final Promotion[] productRules;
+
+    /**
+     * The multi-buy rules by the barcode they are for, for products that aren't rows of the table
+     */
+    private final Map<String, Promotion[]> barcodeRules;
+
+    /**
+     * The mix-and-match rules by category id, laid out like the multi-buy rules
+     */
+    private final int[] categoryRuleStart;
+    private final Promotion[] categoryRules;
+
+    /**
+     * The id of every category of the table, and after them the categories with mix-and-match rules that
+     * only products outside the table have
+     */
+    private final Map<String, Integer> categoryIds;
+
+    /**
+     * The minimum totals of the basket thresholds, from low to high
+     */
+    private final long[] thresholds;
+
+    /**
+     * The threshold with the biggest discount among the threshold at the same position and all lower ones
+     */
+    private final Promotion[] bestThresholds;
+
+    private PromotionIndex(ProductTable table, List<Promotion> promotions,
+                           int[] productRuleStart, Promotion[] productRules, Map<String, Promotion[]> barcodeRules,
+                           int[] categoryRuleStart, Promotion[] categoryRules, Map<String, Integer> categoryIds,
+                           long[] thresholds, Promotion[] bestThresholds)
+    {
+        this.table = table;
+        this.promotions = promotions;
+        this.productRuleStart = productRuleStart;
+        this.productRules = productRules;
+        this.barcodeRules = barcodeRules;
+        this.categoryRuleStart = categoryRuleStart;
+        this.categoryRules = categoryRules;
+        this.categoryIds = categoryIds;
+        this.thresholds = thresholds;
+        this.bestThresholds = bestThresholds;
+    }
+
+    /**
+     * Compiles the rules of one version of a table. Multi-buy rules for barcodes that the table doesn't have,
+     * and mix-and-match rules for categories that it doesn't have, only apply to products outside the table.
+     *
+     * @param table             The table
+     * @param promotions        The active rules
+     * @param rowCount          Number of rows in the version
+     * @param ordinals          Finds the ordinal of a barcode in the version, -1 if it can't be looked up
+     * @param categoryIds       Id of every category in the version, which the index takes over
+     *
+     * @return The index
+     */
+    static PromotionIndex compile(ProductTable table, List<Promotion> promotions, int rowCount,
+                                  ToIntFunction<String> ordinals, Map<String, Integer> categoryIds)
+    {
+        if (promotions.isEmpty())
+        {
+            return EMPTY;
+        }
+
+        //Products outside the table find multi-buy rules by barcode, and categories they alone have get the next ids
+        Map<String, List<Promotion>> rulesByBarcode = new HashMap<>();
+        for (Promotion promotion : promotions)
+        {
+            if (promotion.getKind() == Promotion.Kind.MULTI_BUY)
+            {
+                rulesByBarcode.computeIfAbsent(promotion.getTarget(), barcode -> new ArrayList<>()).add(promotion);
+            }
+            else if (promotion.getKind() == Promotion.Kind.MIX_AND_MATCH)
+            {
+                categoryIds.putIfAbsent(promotion.getTarget(), categoryIds.size());
+            }
+        }
+
+        Map<String, Promotion[]> barcodeRules = new HashMap<>();
+        for (Map.Entry<String, List<Promotion>> rules : rulesByBarcode.entrySet())
+        {
+            barcodeRules.put(rules.getKey(), rules.getValue().toArray(new Promotion[0]));
+        }
+
+        //Count the rules of every product and category first, so every group gets its place in one array
+        int[] productRuleStart = new int[rowCount + 1];
+        int[] categoryRuleStart = new int[categoryIds.size() + 1];
+        List<Promotion> thresholdRules = new ArrayList<>();
+
+        for (Promotion promotion : promotions)
+        {
+            int key = keyOf(promotion, ordinals, categoryIds);
+            if (promotion.getKind() == Promotion.Kind.MULTI_BUY && key >= 0)
+            {
+                productRuleStart[key + 1]++;
+            }
+            else if (promotion.getKind() == Promotion.Kind.MIX_AND_MATCH && key >= 0)
+            {
+                categoryRuleStart[key + 1]++;
+            }
+            else if (promotion.getKind() == Promotion.Kind.BASKET_THRESHOLD)
+            {
+                thresholdRules.add(promotion);
+            }
+        }
+
+        for (int i = 1; i < productRuleStart.length; i++)
+        {
+            productRuleStart[i] += productRuleStart[i - 1];
+        }
+        for (int i = 1; i < categoryRuleStart.length; i++)
+        {
+            categoryRuleStart[i] += categoryRuleStart[i - 1];
+        }
+
+        //Then every rule is put at the next free place of its group
+        Promotion[] productRules = new Promotion[productRuleStart[productRuleStart.length - 1]];
+        Promotion[] categoryRules = new Promotion[categoryRuleStart[categoryRuleStart.length - 1]];
+        int[] nextProductRule = Arrays.copyOf(productRuleStart, rowCount);
+        int[] nextCategoryRule = Arrays.copyOf(categoryRuleStart, categoryIds.size());
+
+        for (Promotion promotion : promotions)
+        {
+            int key = keyOf(promotion, ordinals, categoryIds);
+            if (promotion.getKind() == Promotion.Kind.MULTI_BUY && key >= 0)
+            {
+                productRules[nextProductRule[key]++] = promotion;
+            }
+            else if (promotion.getKind() == Promotion.Kind.MIX_AND_MATCH && key >= 0)
+            {
+                categoryRules[nextCategoryRule[key]++] = promotion;
+            }
+        }
+
+        //Thresholds are sorted, and every one remembers the best discount up to it
+        thresholdRules.sort((first, second) -> Long.compare(first.getMinimumTotal(), second.getMinimumTotal()));
+        long[] thresholds = new long[thresholdRules.size()];
+        Promotion[] bestThresholds = new Promotion[thresholdRules.size()];
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            Promotion threshold = thresholdRules.get(i);
+            thresholds[i] = threshold.getMinimumTotal();
+            bestThresholds[i] = i > 0 && bestThresholds[i - 1].getDiscount() >= threshold.getDiscount()
+                    ? bestThresholds[i - 1]
+                    : threshold;
+        }
+
+        return new PromotionIndex(table, Collections.unmodifiableList(new ArrayList<>(promotions)),
+                productRuleStart, productRules, barcodeRules, categoryRuleStart, categoryRules, categoryIds,
+                thresholds, bestThresholds);
+    }
+
+    /**
+     * Finds the ordinal or the category id that a rule is grouped by.
+     *
+     * @return The ordinal or category id, or -1 if the rule isn't grouped or the table doesn't have its product
+     */
+    private static int keyOf(Promotion promotion, ToIntFunction<String> ordinals, Map<String, Integer> categoryIds)
+    {
+        if (promotion.getKind() == Promotion.Kind.MULTI_BUY)
+        {
+            return ordinals.applyAsInt(promotion.getTarget());
+        }
+        if (promotion.getKind() == Promotion.Kind.MIX_AND_MATCH)
+        {
+            return categoryIds.getOrDefault(promotion.getTarget(), -1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Getter method for all active rules, the ones that never apply included.
+     *
+     * @return An unmodifiable list of the rules
+     */
+    public List<Promotion> getPromotions()
+    {
+        return this.promotions;
+    }
+
+    /**
+     * Checks whether there are no active rules at all.
+     *
+     * @return {@code true} if no promotion can ever apply
+     */
+    public boolean isEmpty()
+    {
+        return this.promotions.isEmpty();
+    }
+
+    /**
+     * Getter method for the number of category ids the index has rules for. Every category id
+     * returned by {@link #getCategoryId(Product)} is less than this.
+     *
+     * @return The number of category ids
+     */
+    public int getCategoryCount()
+    {
+        return this.categoryRuleStart.length - 1;
+    }
+
+    /**
+     * Finds the best multi-buy rule for a quantity of a product.
+     *
+     * @param product           The product
+     * @param quantityBought    Number of units in the basket
+     *
+     * @return The rule that takes off the most, or {@code null} if no rule applies
+     */
+    public Promotion getProductPromotion(Product product, int quantityBought)
+    {
+        return bestProductRule(product, quantityBought);
+    }
+
+    /**
+     * Calculates the multi-buy discount for a quantity of a product. Units are counted at the
+     * final price of the quantity, so a multi-buy adds to the quantity discounts of the product.
+     *
+     * @param product           The product
+     * @param quantityBought    Number of units in the basket
+     *
+     * @return The discount in ore, 0 if no rule applies
+     */
+    public long getProductDiscount(Product product, int quantityBought)
+    {
+        Promotion rule = bestProductRule(product, quantityBought);
+        return rule == null ? 0 : rule.multiBuyDiscount(quantityBought, product.getFinalPrice(quantityBought));
+    }
+
+    /**
+     * Finds the category id that mix-and-match rules of a product's category are grouped by.
+     *
+     * @param product   The product
+     *
+     * @return The category id, or -1 if no mix-and-match rule can apply to the product
+     */
+    public int getCategoryId(Product product)
+    {
+        if (this.categoryRules.length == 0 || !product.isPricedBy(this.table))
+        {
+            return -1;
+        }
+
+        int categoryId;
+        if (isCompiledRow(product))
+        {
+            categoryId = this.table.getCategoryId(product.getOrdinal());
+        }
+        else
+        {
+            categoryId = this.categoryIds.getOrDefault(product.getCategory(), -1);
+        }
+
+        return categoryId < getCategoryCount() ? categoryId : -1;
+    }
+
+    /**
+     * Finds the best mix-and-match rule for a number of products from a category.
+     *
+     * @param categoryId    The category id, from {@link #getCategoryId(Product)}
+     * @param count         Number of products from the category in the basket
+     *
+     * @return The rule that takes off the most, or {@code null} if no rule applies
+     */
+    public Promotion getCategoryPromotion(int categoryId, int count)
+    {
+        int rule = bestCategoryRule(categoryId, count);
+        return rule < 0 ? null : this.categoryRules[rule];
+    }
+
+    /**
+     * Calculates the mix-and-match discount for a number of products from a category.
+     *
+     * @param categoryId    The category id, from {@link #getCategoryId(Product)}
+     * @param count         Number of products from the category in the basket
+     *
+     * @return The discount in ore, 0 if no rule applies
+     */
+    public long getCategoryDiscount(int categoryId, int count)
+    {
+        int rule = bestCategoryRule(categoryId, count);
+        return rule < 0 ? 0 : this.categoryRules[rule].mixAndMatchDiscount(count);
+    }
+
+    /**
+     * Finds the basket threshold with the best discount that a total reaches.
+     *
+     * @param total     Total of the basket after all other promotions, in ore
+     *
+     * @return The threshold, or {@code null} if the total doesn't reach any
+     */
+    public Promotion getBasketPromotion(long total)
+    {
+        //The last threshold that isn't above the total
+        int position = Arrays.binarySearch(this.thresholds, total);
+        if (position < 0)
+        {
+            position = -(position + 1) - 1;
+        }
+        else
+        {
+            //Equal thresholds are all reached, so move past them
+            while (position + 1 < this.thresholds.length && this.thresholds[position + 1] == total)
+            {
+                position++;
+            }
+        }
+
+        return position < 0 ? null : this.bestThresholds[position];
+    }
+
+    /**
+     * Calculates the discount of the best basket threshold that a total reaches.
+     *
+     * @param total     Total of the basket after all other promotions, in ore
+     *
+     * @return The discount in ore, 0 if the total doesn't reach any threshold
+     */
+    public long getBasketDiscount(long total)
+    {
+        Promotion threshold = getBasketPromotion(total);
+        return threshold == null ? 0 : threshold.getDiscount();
+    }
+
+    /**
+     * Checks whether a product is one of the rows that the index was compiled with.
+     */
+    private boolean isCompiledRow(Product product)
+    {
+        return product.belongsTo(this.table) && product.getOrdinal() < this.productRuleStart.length - 1;
+    }
+
+    private Promotion bestProductRule(Product product, int quantityBought)
+    {
+        if (this.productRules.length == 0 && this.barcodeRules.isEmpty() || !product.isPricedBy(this.table))
+        {
+            return null;
+        }
+
+        if (isCompiledRow(product))
+        {
+            int ordinal = product.getOrdinal();
+            return bestProductRule(this.productRules, this.productRuleStart[ordinal], this.productRuleStart[ordinal + 1],
+                    quantityBought);
+        }
+
+        Promotion[] rules = this.barcodeRules.get(product.getBarcode());
+        return rules == null ? null : bestProductRule(rules, 0, rules.length, quantityBought);
+    }
+
+    private static Promotion bestProductRule(Promotion[] rules, int from, int to, int quantityBought)
+    {
+        //Every unit has the same price, so the rule with the most free units takes off the most
+        Promotion bestRule = null;
+        int bestFreeUnits = 0;
+        for (int rule = from; rule < to; rule++)
+        {
+            Promotion promotion = rules[rule];
+            int freeUnits = (quantityBought / promotion.getQuantity()) * (promotion.getQuantity() - promotion.getPaidQuantity());
+            if (freeUnits > bestFreeUnits)
+            {
+                bestRule = promotion;
+                bestFreeUnits = freeUnits;
+            }
+        }
+
+        return bestRule;
+    }
+
+    private int bestCategoryRule(int categoryId, int count)
+    {
+        if (categoryId < 0 || categoryId >= getCategoryCount())
+        {
+            return -1;
+        }
+
+        int bestRule = -1;
+        long bestDiscount = 0;
+        for (int rule = this.categoryRuleStart[categoryId]; rule < this.categoryRuleStart[categoryId + 1]; rule++)
+        {
+            long discount = this.categoryRules[rule].mixAndMatchDiscount(count);
+            if (discount > bestDiscount)
+            {
+                bestRule = rule;
+                bestDiscount = discount;
+            }
+        }
+
+        return bestRule;
+    }
+}
@@ -0,0 +1,38 @@
+package cashregister.Model;
+
+import cashregister.Model.Product.Product;
+
+/**
+ * The {@code ProductSource} interface describes a place outside the
+ * {@code StoreAssortment} that <em>products</em> can be loaded from on demand,
+ * such as a compiled catalog file.
+ *
+ * @see StoreAssortment#attachProductSource(ProductSource)
+ */
+public interface ProductSource
+{
+    /**
+     * Creates the <em>product</em> with the provided barcode.
+     *
+     * @param barcode   Barcode of the product
+     *
+     * @return A new product object, or {@code null} if the source doesn't have the barcode
+     */
+    Product findProduct(String barcode);
+
+    /**
+     * Getter method for the number of products in the source.
+     *
+     * @return The number of products
+     */
+    int getProductCount();
+
+    /**
+     * Creates the <em>product</em> at a position in the source.
+     *
+     * @param position  Position of the product, from 0 to {@code getProductCount() - 1}
+     *
+     * @return A new product object
+     */
+    Product getProduct(int position);
+}
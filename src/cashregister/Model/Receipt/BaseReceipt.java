@@ -1,9 +1,13 @@
 package cashregister.Model.Receipt;
 
+import cashregister.Model.Metrics.Metrics;
+import cashregister.Model.Product.Money;
 import cashregister.Model.Product.Product;
+import cashregister.Model.Product.ProductTable;
+import cashregister.Model.Product.Promotion;
+import cashregister.Model.Product.PromotionIndex;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * The {@code BaseReceipt} class holds all {@code Products} added to a basket
@@ -17,33 +21,65 @@ import java.util.Map;
 public abstract class BaseReceipt implements Receipt
 {
     /**
-     * Used to store all products in the basket.
-     * Key is a {@code Product} instance, value is the number of times
-     * it has been added to the basket
+     * Used to store all products in the basket, and the number of times
+     * each of them has been added to the basket
      *
      * @see Product
      */
-    protected Map<Product, Integer> productsBought;
+    final BasketCounts productsBought;
+
+    /**
+     * Promotion discounts of the basket, kept up to date with the counts
+     */
+    final BasketPromotions promotions;
+
+    /**
+     * The table of the store the basket is scanned in, whose promotions price the basket.
+     * It is the promotion table of the first product that is added, and {@code null} while the basket is empty
+     */
+    private ProductTable storeTable;
 
     /**
      * String representation of the final state of the basket
      */
     protected String finalReceipt;
 
+    /**
+     * The frozen state of the basket, once the transaction is completed
+     */
+    private ReceiptSnapshot snapshot;
+
+    /**
+     * Final price of the whole basket, kept up to date every time the basket changes
+     */
+    private long runningTotal;
+
+    /**
+     * The price epoch the running total belongs to. If prices change, the total is calculated again
+     *
+     * @see ProductTable#getPriceEpoch()
+     */
+    private long totalEpoch;
+
     /**
      * Constructor that creates a new receipt object.
      *
-     * Only initializes a new empty HashMap.
+     * Only initializes new empty counts.
      */
     public BaseReceipt()
     {
-        this.productsBought = new HashMap<>();
+        this.productsBought = new BasketCounts();
+        this.promotions = new BasketPromotions();
+        this.storeTable = null;
         this.finalReceipt = null;
+        this.snapshot = null;
+        this.runningTotal = 0;
+        this.totalEpoch = ProductTable.getPriceEpoch();
     }
 
     public boolean isProductInReceipt(Product productToCheck)
     {
-        return this.productsBought.containsKey(productToCheck);
+        return this.productsBought.getCount(productToCheck) > 0;
     }
 
     public void addProductToReceipt(Product productToAdd) throws IllegalStateException
@@ -54,18 +90,28 @@ public abstract class BaseReceipt implements Receipt
             throw new IllegalStateException("The receipt has been printed, the basket can no longer be changed!");
         }
 
-        //Set the base value of the "amount bought" counter
-        int totalCount = 1;
-
-        //Check if the product has been previously bought
-        if (isProductInReceipt(productToAdd))
+        //The first product decides the store. Products of any other store have no promotions in it
+        if (this.storeTable == null)
         {
-            //...It has, so increment the count bought
-            totalCount += this.productsBought.get(productToAdd);
+            this.storeTable = productToAdd.getTable().getPromotionTable();
         }
 
-        //Insert the product in the basket (or update it, if it has been already added)
-        this.productsBought.put(productToAdd, totalCount);
+        //Make sure the total and the promotions are up to date before they are changed
+        refreshTotal();
+        refreshPromotions();
+
+        //Find the product's counter, or start one at 0 if it hasn't been bought before
+        int entry = this.productsBought.findOrAdd(productToAdd);
+        int previousCount = this.productsBought.getCount(entry);
+        int totalCount = previousCount + 1;
+
+        //Increment the count bought
+        this.productsBought.setCount(entry, totalCount);
+
+        //Only this product's line of the total changes - including a discount that starts or stops applying
+        this.runningTotal = Money.add(this.runningTotal,
+                lineTotal(productToAdd, totalCount) - lineTotal(productToAdd, previousCount));
+        this.promotions.update(entry, productToAdd, previousCount, totalCount);
     }
 
     public void removeProduct(Product productToRemove) throws IllegalStateException, IllegalArgumentException
@@ -82,28 +128,62 @@ public abstract class BaseReceipt implements Receipt
             throw new IllegalArgumentException("This product has not been added to the receipt yet!");
         }
 
-        //Decrease the "amount bought" counter of the product
-        int newCount = this.productsBought.get(productToRemove) - 1;
+        //Make sure the total and the promotions are up to date before they are changed
+        refreshTotal();
+        refreshPromotions();
 
-        if (newCount == 0)
-        {
-            //The product can be safely removed from the map
-            this.productsBought.remove(productToRemove);
-        }
-        else
-        {
-            //The product's counter should get updated
-            this.productsBought.put(productToRemove, newCount);
-        }
+        //Decrease the "amount bought" counter of the product. At 0, the product is no longer in the basket
+        int entry = this.productsBought.find(productToRemove);
+        int previousCount = this.productsBought.getCount(entry);
+        int newCount = previousCount - 1;
+
+        this.productsBought.setCount(entry, newCount);
+
+        this.runningTotal = Money.add(this.runningTotal,
+                lineTotal(productToRemove, newCount) - lineTotal(productToRemove, previousCount));
+        this.promotions.update(entry, productToRemove, previousCount, newCount);
     }
 
-    public void makeFinal()
+    public long getTotalPrice()
     {
-        //Only generate the string if it hasn't been generated already
-        if (isFinal())
+        return totalPrice();
+    }
+
+    public ReceiptSnapshot makeFinal()
+    {
+        //Only freeze the basket if it hasn't been frozen already
+        if (!isFinal())
         {
-            this.finalReceipt = toString();
+            refresh();
+
+            //Every line keeps the prices that were charged, so later price changes don't show up
+            ReceiptSnapshot.Line[] lines = new ReceiptSnapshot.Line[this.productsBought.countProducts()];
+            int line = 0;
+            for (int entry = 0; entry < this.productsBought.size(); entry++)
+            {
+                int amountBought = this.productsBought.getCount(entry);
+                if (amountBought > 0)
+                {
+                    Product product = this.productsBought.getProduct(entry);
+                    lines[line++] = new ReceiptSnapshot.Line(
+                            product.getBarcode(),
+                            product.getCategory(),
+                            product.getProductName(),
+                            amountBought,
+                            product.getBasePrice(),
+                            product.getFinalPrice(amountBought));
+                }
+            }
+
+            //The receipt is rendered one last time, with the same total as the lines
+            long total = totalPrice();
+            String text = render();
+
+            this.snapshot = new ReceiptSnapshot(lines, System.currentTimeMillis(), total, text);
+            this.finalReceipt = text;
         }
+
+        return this.snapshot;
     }
 
     public String getReceipt()
@@ -112,35 +192,223 @@ public abstract class BaseReceipt implements Receipt
         if (!isFinal())
         {
             //Generate the string on the fly
-            return toString();
+            return render();
         }
 
         //Otherwise, return the already generated string
         return this.finalReceipt;
     }
 
+    public void appendReceipt(Appendable out) throws IOException
+    {
+        //If the receipt has been finalized, the generated string is written as it is
+        if (isFinal())
+        {
+            out.append(this.finalReceipt);
+        }
+        else
+        {
+            long start = Metrics.RENDER.start();
+            appendRenderedReceipt(out);
+            Metrics.RENDER.stop(start);
+        }
+    }
+
+    /**
+     * Renders the receipt into a string, and counts it in the rendering metrics.
+     *
+     * @return The text of the receipt
+     */
+    private String render()
+    {
+        long start = Metrics.RENDER.start();
+        String text = toString();
+        Metrics.RENDER.stop(start);
+
+        return text;
+    }
+
+    /**
+     * Empties the basket and opens it again, so the receipt object can be reused for the next customer.
+     * The memory the basket has grown to is kept.
+     *
+     * @see ReceiptPool
+     */
+    protected void reset()
+    {
+        this.productsBought.clear();
+        this.storeTable = null;
+        this.finalReceipt = null;
+        this.snapshot = null;
+        this.runningTotal = 0;
+        this.totalEpoch = ProductTable.getPriceEpoch();
+        this.promotions.clear(PromotionIndex.EMPTY);
+    }
+
+    /**
+     * Renders the receipt into an {@code Appendable}. Receipt types that can render a few lines
+     * at a time override this, all others write their whole string at once.
+     *
+     * @param out           Where the receipt is written
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    protected void appendRenderedReceipt(Appendable out) throws IOException
+    {
+        out.append(toString());
+    }
+
+    /**
+     * Getter method for the final price of the whole transaction.
+     * That includes all discounts and promotions that were triggered, but is never less than 0.
+     * The total is kept up to date as products are added and removed, so this doesn't go through the basket.
+     *
+     * @return      The final price of the transaction
+     */
+    protected long totalPrice()
+    {
+        //Once the receipt is final, its total doesn't follow price changes anymore
+        if (isFinal())
+        {
+            return this.snapshot.getTotalPrice();
+        }
+
+        long start = Metrics.TOTAL_PRICE.start();
+        refreshTotal();
+
+        long total = Money.subtract(this.runningTotal, this.promotions.getItemDiscount());
+        total = Money.subtract(total, this.promotions.getIndex().getBasketDiscount(total));
+
+        Metrics.TOTAL_PRICE.stop(start);
+        return Math.max(0, total);
+    }
+
+    /**
+     * Finds the basket threshold promotion that the basket reaches.
+     *
+     * @return The promotion, or {@code null} if the basket doesn't reach any threshold
+     */
+    Promotion basketPromotion()
+    {
+        refreshTotal();
+
+        //Thresholds are reached by the total after all other promotions
+        return this.promotions.getIndex().getBasketPromotion(
+                Money.subtract(this.runningTotal, this.promotions.getItemDiscount()));
+    }
+
+    /**
+     * Brings the total and the promotions of the basket up to date with the store's current prices and promotions.
+     * Called before anything reads the promotions of single lines, such as rendering.
+     */
+    protected void refresh()
+    {
+        refreshTotal();
+        refreshPromotions();
+    }
+
+    /**
+     * Calculates the total again if any price has changed since it was last calculated.
+     * The promotions are calculated again as well, since they depend on the prices.
+     */
+    private void refreshTotal()
+    {
+        //The epoch is read first, so a price change during the calculation is caught the next time
+        long epoch = ProductTable.getPriceEpoch();
+
+        if (epoch != this.totalEpoch)
+        {
+            this.runningTotal = calculateTotalPrice();
+            this.totalEpoch = epoch;
+
+            applyPromotions(storePromotions());
+        }
+    }
+
+    /**
+     * Calculates the promotions of the whole basket again if the store's promotions have changed.
+     */
+    private void refreshPromotions()
+    {
+        PromotionIndex promotionIndex = storePromotions();
+        if (promotionIndex != this.promotions.getIndex())
+        {
+            applyPromotions(promotionIndex);
+        }
+    }
+
+    /**
+     * Getter method for the current promotions of the store the basket is scanned in.
+     *
+     * @return The compiled promotions, or none while the basket is empty
+     */
+    private PromotionIndex storePromotions()
+    {
+        return this.storeTable == null ? PromotionIndex.EMPTY : this.storeTable.getPromotionIndex();
+    }
+
+    /**
+     * Calculates the promotions of the whole basket in one pass.
+     *
+     * @param promotionIndex    The rules
+     */
+    private void applyPromotions(PromotionIndex promotionIndex)
+    {
+        this.promotions.clear(promotionIndex);
+
+        for (int entry = 0; entry < this.productsBought.size(); entry++)
+        {
+            int amountBought = this.productsBought.getCount(entry);
+            if (amountBought > 0)
+            {
+                this.promotions.update(entry, this.productsBought.getProduct(entry), 0, amountBought);
+            }
+        }
+    }
+
+    /**
+     * Calculates the price of one product's line in the basket.
+     *
+     * @param product       The product
+     * @param amountBought  Number of times the product is in the basket, can be 0
+     *
+     * @return The price of all units of the product together
+     */
+    private static long lineTotal(Product product, int amountBought)
+    {
+        if (amountBought == 0)
+        {
+            return 0;
+        }
+
+        return product.getLineTotal(amountBought);
+    }
+
     /**
-     * Calculates the final price of the whole transaction.
-     * That includes all discounts that were triggered.
+     * Calculates the final price of the whole transaction by going through the whole basket.
      *
      * @return      The final price of the transaction
      */
-    protected int totalPrice()
+    private long calculateTotalPrice()
     {
         //Start a counter for the final price
-        int finalPrice = 0;
+        long finalPrice = 0;
 
         //Go through all items in the basket
-        for (Map.Entry<Product, Integer> productBought : this.productsBought.entrySet())
+        for (int entry = 0; entry < this.productsBought.size(); entry++)
         {
             //Get the number of times this item was bought
-            int amountBought = productBought.getValue();
+            int amountBought = this.productsBought.getCount(entry);
+            if (amountBought == 0)
+            {
+                continue;
+            }
 
             //Get the final price of the product per unit
-            int productPricePerUnit = getProductPrice(productBought.getKey(), amountBought, false);
+            int productPricePerUnit = getProductPrice(this.productsBought.getProduct(entry), amountBought, false);
 
             //Increment the final price by multiplying the two
-            finalPrice += productPricePerUnit * amountBought;
+            finalPrice = Money.add(finalPrice, Money.times(productPricePerUnit, amountBought));
         }
 
         return finalPrice;
@@ -188,7 +456,7 @@ public abstract class BaseReceipt implements Receipt
      */
     private boolean isFinal()
     {
-        //Check if the receipt string is still null
-        return this.finalReceipt != null;
+        //Check if the basket has been frozen yet
+        return this.snapshot != null;
     }
 }
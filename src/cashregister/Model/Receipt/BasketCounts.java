@@ -0,0 +1,215 @@
+package cashregister.Model.Receipt;
+
+import cashregister.Model.Product.Product;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BasketCounts} class counts how many times every product is in a basket.
+ * Counts are kept in primitive arrays, so scanning a product never boxes a number or allocates an entry.
+ *
+ * Products are found through a small open-addressing table, hashed by their ordinal in the store's table.
+ * Every product gets an <em>entry</em> the first time it is scanned, and entries are numbered in the order
+ * the products were first scanned. An entry stays when its count drops to 0 again, so entry numbers never
+ * change until the counts are cleared. Clearing keeps the arrays, so a reused basket doesn't allocate
+ * anything until it holds more products than it ever did.
+ *
+ * @see BaseReceipt
+ */
+final class BasketCounts
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Open-addressing table of entry numbers plus one, 0 marks an empty slot
+     */
+    private int[] slots;
+
+    private Product[] products;
+    private int[] counts;
+    private int size;
+
+    /**
+     * Creates empty counts.
+     */
+    BasketCounts()
+    {
+        this.slots = new int[INITIAL_CAPACITY * 2];
+        this.products = new Product[INITIAL_CAPACITY];
+        this.counts = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Finds the entry of a product.
+     *
+     * @param product   The product
+     *
+     * @return The entry number, or -1 if the product was never scanned
+     */
+    int find(Product product)
+    {
+        int mask = this.slots.length - 1;
+        for (int slot = hash(product) & mask; ; slot = (slot + 1) & mask)
+        {
+            int entry = this.slots[slot] - 1;
+            if (entry < 0 || this.products[entry] == product)
+            {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Finds the entry of a product, and adds one with a count of 0 if the product was never scanned.
+     *
+     * @param product   The product
+     *
+     * @return The entry number
+     */
+    int findOrAdd(Product product)
+    {
+        int entry = find(product);
+        if (entry >= 0)
+        {
+            return entry;
+        }
+
+        if (this.size == this.products.length)
+        {
+            grow();
+        }
+
+        entry = this.size++;
+        this.products[entry] = product;
+        this.counts[entry] = 0;
+        insert(entry);
+
+        return entry;
+    }
+
+    /**
+     * Getter method for the number of entries, including the ones whose count dropped to 0.
+     *
+     * @return The number of entries
+     */
+    int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Getter method for the product of an entry.
+     *
+     * @param entry     The entry number
+     *
+     * @return The product
+     */
+    Product getProduct(int entry)
+    {
+        return this.products[entry];
+    }
+
+    /**
+     * Getter method for the count of an entry.
+     *
+     * @param entry     The entry number
+     *
+     * @return The number of times the product is in the basket
+     */
+    int getCount(int entry)
+    {
+        return this.counts[entry];
+    }
+
+    /**
+     * Getter method for the count of a product.
+     *
+     * @param product   The product
+     *
+     * @return The number of times the product is in the basket, 0 if it is not
+     */
+    int getCount(Product product)
+    {
+        int entry = find(product);
+        return entry < 0 ? 0 : this.counts[entry];
+    }
+
+    /**
+     * Setter method for the count of an entry.
+     *
+     * @param entry     The entry number
+     * @param count     The new count
+     */
+    void setCount(int entry, int count)
+    {
+        this.counts[entry] = count;
+    }
+
+    /**
+     * Counts the products that are in the basket at least once.
+     *
+     * @return The number of different products
+     */
+    int countProducts()
+    {
+        int products = 0;
+        for (int entry = 0; entry < this.size; entry++)
+        {
+            if (this.counts[entry] > 0)
+            {
+                products++;
+            }
+        }
+
+        return products;
+    }
+
+    /**
+     * Removes all entries, keeping the arrays for the next basket.
+     */
+    void clear()
+    {
+        Arrays.fill(this.slots, 0);
+        Arrays.fill(this.products, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void grow()
+    {
+        int capacity = this.products.length * 2;
+        this.products = Arrays.copyOf(this.products, capacity);
+        this.counts = Arrays.copyOf(this.counts, capacity);
+
+        //The table is kept at most half full
+        this.slots = new int[capacity * 2];
+        for (int entry = 0; entry < this.size; entry++)
+        {
+            insert(entry);
+        }
+    }
+
+    private void insert(int entry)
+    {
+        int mask = this.slots.length - 1;
+        int slot = hash(this.products[entry]) & mask;
+        while (this.slots[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        this.slots[slot] = entry + 1;
+    }
+
+    /**
+     * Products of a store have their own ordinal. Products outside of a store all have ordinal 0
+     * in a table of their own, so those are told apart by their identity instead.
+     */
+    private static int hash(Product product)
+    {
+        int ordinal = product.getOrdinal();
+        int hash = ordinal == 0 ? System.identityHashCode(product) : ordinal;
+
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
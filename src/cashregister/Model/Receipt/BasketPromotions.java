@@ -0,0 +1,174 @@
+package cashregister.Model.Receipt;
+
+import cashregister.Model.Product.Money;
+import cashregister.Model.Product.Product;
+import cashregister.Model.Product.Promotion;
+import cashregister.Model.Product.PromotionIndex;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BasketPromotions} class keeps the promotion discounts of a basket up to date while it is scanned.
+ * When the count of a product changes, only that product's multi-buy rules and its category's mix-and-match
+ * rules are looked up again, so a scan costs the same no matter how many promotions are active.
+ *
+ * Discounts are kept by the <em>entry</em> numbers of {@code BasketCounts} and by category id, in primitive
+ * arrays that are kept when the basket is cleared. Basket thresholds depend on the whole total, so they are
+ * looked up when the total is asked for.
+ *
+ * @see PromotionIndex
+ * @see BaseReceipt
+ */
+final class BasketPromotions
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private PromotionIndex index;
+
+    /**
+     * Multi-buy discount of every basket entry
+     */
+    private long[] entryDiscounts;
+
+    /**
+     * Number of products in the basket, and their mix-and-match discount, by category id
+     */
+    private int[] categoryCounts;
+    private long[] categoryDiscounts;
+
+    /**
+     * All multi-buy and mix-and-match discounts together
+     */
+    private long itemDiscount;
+
+    /**
+     * Creates the promotions of an empty basket, without any rules.
+     */
+    BasketPromotions()
+    {
+        this.index = PromotionIndex.EMPTY;
+        this.entryDiscounts = new long[INITIAL_CAPACITY];
+        this.categoryCounts = new int[0];
+        this.categoryDiscounts = new long[0];
+        this.itemDiscount = 0;
+    }
+
+    /**
+     * Getter method for the rules the discounts were calculated with.
+     *
+     * @return The compiled rules
+     */
+    PromotionIndex getIndex()
+    {
+        return this.index;
+    }
+
+    /**
+     * Forgets every discount and starts over with a set of rules, as for an empty basket.
+     *
+     * @param index The compiled rules
+     */
+    void clear(PromotionIndex index)
+    {
+        this.index = index;
+        this.itemDiscount = 0;
+        Arrays.fill(this.entryDiscounts, 0);
+
+        int categoryCount = index.getCategoryCount();
+        if (this.categoryCounts.length < categoryCount)
+        {
+            this.categoryCounts = new int[categoryCount];
+            this.categoryDiscounts = new long[categoryCount];
+        }
+        else
+        {
+            Arrays.fill(this.categoryCounts, 0);
+            Arrays.fill(this.categoryDiscounts, 0);
+        }
+    }
+
+    /**
+     * Updates the discounts after the count of a product has changed.
+     *
+     * @param entry         Basket entry of the product
+     * @param product       The product
+     * @param previousCount Count of the product before the change
+     * @param newCount      Count of the product after the change
+     */
+    void update(int entry, Product product, int previousCount, int newCount)
+    {
+        //Most stores have no promotions at all
+        if (this.index.isEmpty())
+        {
+            return;
+        }
+
+        if (entry >= this.entryDiscounts.length)
+        {
+            this.entryDiscounts = Arrays.copyOf(this.entryDiscounts, Math.max(entry + 1, this.entryDiscounts.length * 2));
+        }
+
+        long productDiscount = this.index.getProductDiscount(product, newCount);
+        this.itemDiscount = Money.add(this.itemDiscount, productDiscount - this.entryDiscounts[entry]);
+        this.entryDiscounts[entry] = productDiscount;
+
+        int categoryId = this.index.getCategoryId(product);
+        if (categoryId >= 0)
+        {
+            int count = this.categoryCounts[categoryId] + newCount - previousCount;
+            long categoryDiscount = this.index.getCategoryDiscount(categoryId, count);
+
+            this.itemDiscount = Money.add(this.itemDiscount, categoryDiscount - this.categoryDiscounts[categoryId]);
+            this.categoryCounts[categoryId] = count;
+            this.categoryDiscounts[categoryId] = categoryDiscount;
+        }
+    }
+
+    /**
+     * Getter method for the multi-buy discount of a basket entry.
+     *
+     * @param entry     Basket entry of the product
+     *
+     * @return The discount, in ore
+     */
+    long getProductDiscount(int entry)
+    {
+        return entry < this.entryDiscounts.length ? this.entryDiscounts[entry] : 0;
+    }
+
+    /**
+     * Finds the mix-and-match rule that applies to the category of a product.
+     *
+     * @param product   A product of the category
+     *
+     * @return The rule, or {@code null} if none applies
+     */
+    Promotion getCategoryPromotion(Product product)
+    {
+        int categoryId = this.index.getCategoryId(product);
+        return categoryId < 0 ? null : this.index.getCategoryPromotion(categoryId, this.categoryCounts[categoryId]);
+    }
+
+    /**
+     * Getter method for the mix-and-match discount of the category of a product.
+     *
+     * @param product   A product of the category
+     *
+     * @return The discount, in ore
+     */
+    long getCategoryDiscount(Product product)
+    {
+        int categoryId = this.index.getCategoryId(product);
+        return categoryId < 0 ? 0 : this.categoryDiscounts[categoryId];
+    }
+
+    /**
+     * Getter method for all multi-buy and mix-and-match discounts together.
+     *
+     * @return The discount, in ore
+     */
+    long getItemDiscount()
+    {
+        return this.itemDiscount;
+    }
+}
@@ -1,9 +1,12 @@
 package cashregister.Model.Receipt;
 
+import cashregister.Model.Product.Money;
 import cashregister.Model.Product.Product;
+import cashregister.Model.Product.Promotion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.*;
 
 /**
@@ -35,13 +38,24 @@ import java.util.*;
  */
 public class CategoryReceipt extends BaseReceipt
 {
-    private final int lineLength = 38;
-    private final String lineWithPriceFormat = "%-28s%10s";
-    private final double kronerPerMark = 50.0;
-    private final double salesTaxPercent = 25.0;
-    private final char decimalSeparator = ',';
+    private static final int orePerMark = 5000;
+    private static final int salesTaxPercent = 25;
+
+    /**
+     * Every thread renders into its own formatter, which is reused for all receipts it renders
+     */
+    private static final ThreadLocal<ReceiptFormatter> formatters = ThreadLocal.withInitial(ReceiptFormatter::new);
+
+    /**
+     * Number of every category in the basket. Categories are printed in the order of this map
+     */
+    private Map<String, Integer> categoryNumbers;
 
-    private Map<String, Set<Product>> productsInCategory;
+    /**
+     * Category number of every entry in the basket, by entry number
+     */
+    private int[] entryCategories;
+    private int categorizedEntries;
 
     /**
      * Constructor that creates a new "Category" type receipt.
@@ -53,7 +67,9 @@ public class CategoryReceipt extends BaseReceipt
     public CategoryReceipt()
     {
         super();
-        this.productsInCategory = new HashMap<>();
+        this.categoryNumbers = new HashMap<>();
+        this.entryCategories = new int[16];
+        this.categorizedEntries = 0;
     }
 
     /**
@@ -71,86 +87,141 @@ public class CategoryReceipt extends BaseReceipt
         //Executes the base method
         super.addProductToReceipt(productToAdd);
 
-        //If the product has been added successfully (or has been added before)...
-        if (super.productsBought.containsKey(productToAdd))
+        //Entries are numbered in order, so only a product that is scanned for the first time has no category yet
+        int entry = this.productsBought.find(productToAdd);
+        if (entry == this.categorizedEntries)
         {
             //Get the product's category
             String productCategory = productToAdd.getCategory();
 
             //Check if the category is registered in the map
-            if (!this.productsInCategory.containsKey(productCategory))
+            Integer categoryNumber = this.categoryNumbers.get(productCategory);
+            if (categoryNumber == null)
             {
                 //It hasn't, so add it
-                this.productsInCategory.put(productCategory, new HashSet<>());
+                categoryNumber = this.categoryNumbers.size();
+                this.categoryNumbers.put(productCategory, categoryNumber);
+            }
+
+            if (entry == this.entryCategories.length)
+            {
+                this.entryCategories = Arrays.copyOf(this.entryCategories, entry * 2);
             }
 
-            //Get the category's set and add the product to it (Set makes sure the product exists only once)
-            Set<Product> categorySet = this.productsInCategory.get(productCategory);
-            categorySet.add(productToAdd);
+            this.entryCategories[entry] = categoryNumber;
+            this.categorizedEntries++;
         }
     }
 
+    /**
+     * Empties the basket and forgets its categories, so the receipt object can be reused.
+     *
+     * @see BaseReceipt#reset()
+     */
+    @Override
+    protected void reset()
+    {
+        super.reset();
+        this.categoryNumbers.clear();
+        this.categorizedEntries = 0;
+    }
+
     public String toString()
     {
-        //Create the symbols formatter, which ensures the numbers use a comma and not dot for trailing points
-        DecimalFormatSymbols priceFormatSymbols = new DecimalFormatSymbols();
-        priceFormatSymbols.setDecimalSeparator(decimalSeparator);
+        //The formatter of this thread is reused, so only the finished string is allocated
+        ReceiptFormatter formatter = formatters.get();
+        formatter.reset();
 
-        //Create the object that formats prices to two decimal trailing points
-        DecimalFormat priceFormat = new DecimalFormat("0.00", priceFormatSymbols);
+        try
+        {
+            render(formatter, null);
+        }
+        catch (IOException e)
+        {
+            //Nothing is written out while the whole receipt is kept in the buffer
+            throw new UncheckedIOException(e);
+        }
 
-        //Use StringBuilder to generate the whole receipt
-        StringBuilder builder = new StringBuilder();
+        return formatter.getBuffer().toString();
+    }
+
+    /**
+     * Renders the receipt a few lines at a time, so the whole receipt is never in memory at once.
+     *
+     * @param out           Where the receipt is written
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    @Override
+    protected void appendRenderedReceipt(Appendable out) throws IOException
+    {
+        ReceiptFormatter formatter = formatters.get();
+        formatter.reset();
+
+        render(formatter, out);
+        formatter.flushTo(out);
+    }
+
+    /**
+     * Renders the receipt into a formatter.
+     *
+     * @param formatter     Formatter the lines are written into
+     * @param out           Where full buffers are written out, or {@code null} to keep the whole receipt in the buffer
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    private void render(ReceiptFormatter formatter, Appendable out) throws IOException
+    {
+        //The promotion lines have to add up to the total, even if prices changed since the last scan
+        refresh();
 
         //Always start with an empty line
-        builder.append("\n");
+        formatter.append("\n");
+
+        //The entries of category n are from categoryStarts[n] up to categoryStarts[n + 1] of the grouped entries
+        int[] categoryStarts = new int[this.categoryNumbers.size() + 1];
+        int[] groupedEntries = groupEntriesByCategory(categoryStarts);
 
         //Go through all categories
-        for (Map.Entry<String, Set<Product>> keyValPair : this.productsInCategory.entrySet())
+        for (Map.Entry<String, Integer> keyValPair : this.categoryNumbers.entrySet())
         {
-            //Start off by adding the category
-            String category = "* " + keyValPair.getKey() + " *";
+            int categoryNumber = keyValPair.getValue();
 
-            //Calculate how many spaces it needs before appending it (since it should be centered)
-            //The category should be aligned right by (38-length / 2) - 1 + length
-            int spacesRequired = (lineLength - category.length()) / 2 - 1;
+            //A category whose products were all removed again is left out
+            if (categoryStarts[categoryNumber] == categoryStarts[categoryNumber + 1])
+            {
+                continue;
+            }
 
-            //Create and append the category string to the string builder
-            category = String.format("%" + (spacesRequired + category.length()) + "s", category);
-            builder.append(category + "\n");
+            //Start off by adding the category, centered on the line
+            formatter.appendHeader(keyValPair.getKey());
 
-            //Continue with all product in the category
-            for (Product product : keyValPair.getValue())
+            //Continue with all product in the category, in the order they were scanned
+            Product categoryProduct = null;
+            for (int i = categoryStarts[categoryNumber]; i < categoryStarts[categoryNumber + 1]; i++)
             {
                 //Get the bought quantity of the product
-                int quantityBought = this.productsBought.get(product);
-                double productPrice = super.getProductPrice(product, quantityBought, true) / 100.0;
+                int entry = groupedEntries[i];
+                int quantityBought = this.productsBought.getCount(entry);
+
+                Product product = this.productsBought.getProduct(entry);
+                int productPrice = super.getProductPrice(product, quantityBought, true);
+                categoryProduct = product;
 
                 //If the product is bought only once, the price is on the same line
                 if (quantityBought == 1)
                 {
-                    //Create the string that holds both the product and the price, aligned left and right respectively
-                    String productWithPrice = String.format(
-                            lineWithPriceFormat,
-                            product.getProductName(),
-                            priceFormat.format(productPrice));
-
-                    //Add the product and price to the final string
-                    builder.append(productWithPrice + "\n");
+                    //The product and the price are aligned left and right respectively
+                    formatter.appendAmountLine(product.getProductName(), productPrice, "");
                 }
                 else
                 {
                     //The price needs to be on a separate line. Since there's nothing to the right, do not align
-                    builder.append(product.getProductName() + "\n");
+                    formatter.append(product.getProductName());
+                    formatter.append("\n");
 
-                    //Generate the line that holds the quantity of the product, price per unit, and total price
-                    String quantityWithPrice = String.format(
-                            lineWithPriceFormat,
-                            " " + quantityBought + " x " + priceFormat.format((double)product.getBasePrice() / 100.0),
-                            priceFormat.format(productPrice));
-
-                    //Add the quantity and total price to the final string
-                    builder.append(quantityWithPrice + "\n");
+                    //Add the line that holds the quantity of the product, price per unit, and total price
+                    formatter.appendQuantityLine(quantityBought, product.getBasePrice(), productPrice);
                 }
 
                 //Add the discount if there is one
@@ -160,53 +231,128 @@ public class CategoryReceipt extends BaseReceipt
                     int rabat = super.getProductPrice(product, quantityBought, true) -
                                    super.getProductPrice(product, quantityBought, false);
 
-                    //Generate a string for the discount
-                    String rabatString = String.format(
-                            lineWithPriceFormat,
-                            "RABAT",
-                            priceFormat.format((double)rabat / 100.0));
+                    //Add it with a "-" at the end as specified
+                    formatter.appendAmountLine("RABAT", rabat, "-");
+                }
 
-                    //Add it to the final string, with a "-" at the end as specified
-                    builder.append(rabatString + "-\n");
+                //Add the multi-buy promotion if there is one, under the name of the promotion
+                long promotionDiscount = this.promotions.getProductDiscount(entry);
+                if (promotionDiscount > 0)
+                {
+                    Promotion promotion = this.promotions.getIndex().getProductPromotion(product, quantityBought);
+                    formatter.appendAmountLine(promotion.getName(), promotionDiscount, "-");
                 }
+
+                //Write the lines out once enough of them are buffered
+                formatter.flushIfFull(out);
+            }
+
+            //Add the mix-and-match promotion of the category if there is one
+            long categoryDiscount = this.promotions.getCategoryDiscount(categoryProduct);
+            if (categoryDiscount > 0)
+            {
+                formatter.appendAmountLine(this.promotions.getCategoryPromotion(categoryProduct).getName(), categoryDiscount, "-");
             }
 
             //Add a new line after all products are added and before a new category starts
-            builder.append("\n");
+            formatter.append("\n");
+        }
+
+        //Add the promotion for the whole basket if the basket reaches one
+        Promotion basketPromotion = basketPromotion();
+        if (basketPromotion != null)
+        {
+            formatter.appendAmountLine(basketPromotion.getName(), basketPromotion.getDiscount(), "-");
+            formatter.append("\n");
         }
 
         //TOTAL
-        //Generate the total price
-        double totalPrice = super.totalPrice() / 100.0;
+        long totalPrice = super.totalPrice();
 
-        //Generate a string out of it
-        String totalString = String.format(
-                lineWithPriceFormat,
-                "TOTAL",
-                priceFormat.format(totalPrice));
-        //Append it to the final string, with two new lines at the end
-        builder.append(totalString + "\n\n");
+        //Append it with two new lines at the end
+        formatter.appendAmountLine("TOTAL", totalPrice, "");
+        formatter.append("\n");
 
         //MARKS
         //Calculate the amount of marks the receipt will give as a bonus
-        int marks = (int)(totalPrice / kronerPerMark);
+        long marks = marksFor(totalPrice);
 
         //Add a message specifying the amount of marks, no need to align it
-        builder.append("KØBET HAR UDLØST " + marks + " MÆRKER" + "\n\n");
+        formatter.append("KØBET HAR UDLØST ");
+        formatter.append(marks);
+        formatter.append(" MÆRKER\n\n");
 
         //SALES TAX
-        //Calculate the sales tax
-        double beforeTax = (totalPrice / (100 + salesTaxPercent)) * 100;
-        double tax = totalPrice - beforeTax;
-
-        //Generate a string with it
-        String taxString = String.format(
-                lineWithPriceFormat,
-                "MOMS UDGØR",
-                priceFormat.format(tax));
-        //Add the tax to the final string, and two empty lines so the next command is far below the receipt
-        builder.append(taxString + "\n\n");
-
-        return builder.toString();
+        //The tax is the part of the total that is added on top of the price before tax
+        long tax = salesTaxFor(totalPrice);
+
+        //Add the tax, and two empty lines so the next command is far below the receipt
+        formatter.appendAmountLine("MOMS UDGØR", tax, "");
+        formatter.append("\n");
+    }
+
+    /**
+     * Groups the entries that are still in the basket by category with a counting sort, in one pass over the basket.
+     * Within a category, the entries stay in the order they were scanned.
+     *
+     * @param categoryStarts    Filled with where the entries of every category start, with one extra slot at the end
+     *                          for where the last category ends
+     *
+     * @return The entries, grouped by category
+     */
+    private int[] groupEntriesByCategory(int[] categoryStarts)
+    {
+        int categoryCount = categoryStarts.length - 1;
+
+        //Count the entries of every category, one slot to the right
+        for (int entry = 0; entry < this.productsBought.size(); entry++)
+        {
+            if (this.productsBought.getCount(entry) > 0)
+            {
+                categoryStarts[this.entryCategories[entry] + 1]++;
+            }
+        }
+
+        //Every category starts where the categories before it end
+        for (int categoryNumber = 0; categoryNumber < categoryCount; categoryNumber++)
+        {
+            categoryStarts[categoryNumber + 1] += categoryStarts[categoryNumber];
+        }
+
+        int[] nextSlots = Arrays.copyOf(categoryStarts, categoryCount);
+        int[] groupedEntries = new int[categoryStarts[categoryCount]];
+        for (int entry = 0; entry < this.productsBought.size(); entry++)
+        {
+            if (this.productsBought.getCount(entry) > 0)
+            {
+                groupedEntries[nextSlots[this.entryCategories[entry]]++] = entry;
+            }
+        }
+
+        return groupedEntries;
+    }
+
+    /**
+     * Calculates the number of marks a purchase gives as a bonus.
+     *
+     * @param totalPrice    Total price of the purchase, in ore
+     *
+     * @return The number of marks
+     */
+    static long marksFor(long totalPrice)
+    {
+        return Money.wholeUnits(totalPrice, orePerMark);
+    }
+
+    /**
+     * Calculates the sales tax (MOMS) that is included in the total price of a purchase.
+     *
+     * @param totalPrice    Total price of the purchase, in ore
+     *
+     * @return The sales tax, in ore
+     */
+    static long salesTaxFor(long totalPrice)
+    {
+        return Money.includedTax(totalPrice, salesTaxPercent);
     }
 }
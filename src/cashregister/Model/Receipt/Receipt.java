@@ -2,6 +2,14 @@ package cashregister.Model.Receipt;
 
 import cashregister.Model.Product.Product;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,11 +55,23 @@ public interface Receipt
      */
     void removeProduct(Product productToRemove) throws IllegalArgumentException;
 
+    /**
+     * Getter method for the final price of everything in the basket, including all discounts.
+     * The total is kept up to date as the basket changes, so it can be read after every scan.
+     *
+     * @return The total price, in ore
+     */
+    long getTotalPrice();
+
     /**
      * Makes the items in the basket final and generates the {@code Receipt} string.
-     * This will make the instance unmodifiable.
+     * This will make the instance unmodifiable. Calling it again returns the same snapshot.
+     *
+     * @return The frozen lines, totals and text of the receipt
+     *
+     * @see ReceiptSnapshot
      */
-    void makeFinal();
+    ReceiptSnapshot makeFinal();
 
     /**
      * Generates the String representation of the {@code Receipt}.
@@ -63,4 +83,47 @@ public interface Receipt
      * @see Receipt#makeFinal()
      */
     String getReceipt();
+
+    /**
+     * Writes the same text as {@link #getReceipt()} into an {@code Appendable}, such as a {@code Writer}
+     * or a {@code StringBuilder}. The receipt is written a few lines at a time, as it is rendered,
+     * so it is never held in memory as one string.
+     *
+     * @param out           Where the receipt is written
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    void appendReceipt(Appendable out) throws IOException;
+
+    /**
+     * Writes the same text as {@link #getReceipt()} into an {@code OutputStream}, encoded with a charset.
+     * The stream is flushed, but not closed.
+     *
+     * @param out           Where the receipt is written
+     * @param charset       Charset the text is encoded with
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    default void writeReceipt(OutputStream out, Charset charset) throws IOException
+    {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+        appendReceipt(writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the same text as {@link #getReceipt()} into a channel, such as a file or a printer port,
+     * encoded with a charset. The channel is not closed.
+     *
+     * @param channel       Where the receipt is written
+     * @param charset       Charset the text is encoded with
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    default void writeReceipt(WritableByteChannel channel, Charset charset) throws IOException
+    {
+        Writer writer = Channels.newWriter(channel, charset.newEncoder(), -1);
+        appendReceipt(writer);
+        writer.flush();
+    }
 }
@@ -0,0 +1,233 @@
+package cashregister.Model.Receipt;
+
+import cashregister.Model.Product.Money;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The {@code ReceiptFormatter} class writes the lines of a receipt into a reusable buffer.
+ * Amounts are kept in ore and written as fixed-point digits, so no number is ever converted to a
+ * {@code double} or formatted with a {@code DecimalFormat}. Once the buffer has grown to the size
+ * of the largest receipt, writing a line doesn't allocate anything.
+ *
+ * The layout is the one of the {@code "%-28s%10s"} format: a text column padded to 28 characters,
+ * followed by an amount that is right-aligned in a column of 10 characters.
+ *
+ * @see CategoryReceipt
+ */
+final class ReceiptFormatter
+{
+    /**
+     * Width of a whole line, used to center headers
+     */
+    static final int LINE_LENGTH = 38;
+
+    /**
+     * Width of the text column. Longer texts push the amount to the right
+     */
+    static final int TEXT_COLUMN = 28;
+
+    /**
+     * Width of the amount column. Amounts are aligned to its right edge
+     */
+    static final int AMOUNT_COLUMN = 10;
+
+    /**
+     * Once this much text is buffered, it is written out when the formatter streams a receipt
+     */
+    static final int FLUSH_SIZE = 4096;
+
+    private final StringBuilder buffer;
+
+    /**
+     * Used to hand the buffered text to a {@code Writer} without creating a string
+     */
+    private char[] chars;
+
+    /**
+     * Creates a formatter with an empty buffer.
+     */
+    ReceiptFormatter()
+    {
+        this.buffer = new StringBuilder(1024);
+        this.chars = new char[FLUSH_SIZE];
+    }
+
+    /**
+     * Empties the buffer, keeping the memory it has already grown to.
+     */
+    void reset()
+    {
+        this.buffer.setLength(0);
+    }
+
+    /**
+     * Writes the buffered text out if there is enough of it, and empties the buffer.
+     * Without an {@code Appendable}, everything stays in the buffer.
+     *
+     * @param out           Where the text is written, or {@code null} to keep it in the buffer
+     *
+     * @throws IOException  if the text can't be written
+     */
+    void flushIfFull(Appendable out) throws IOException
+    {
+        if (out != null && this.buffer.length() >= FLUSH_SIZE)
+        {
+            flushTo(out);
+        }
+    }
+
+    /**
+     * Writes all buffered text out and empties the buffer.
+     *
+     * @param out           Where the text is written
+     *
+     * @throws IOException  if the text can't be written
+     */
+    void flushTo(Appendable out) throws IOException
+    {
+        int length = this.buffer.length();
+
+        if (out instanceof Writer)
+        {
+            //A Writer would turn the text into a string first, so it gets the characters instead
+            if (length > this.chars.length)
+            {
+                this.chars = new char[Math.max(length, this.chars.length * 2)];
+            }
+
+            this.buffer.getChars(0, length, this.chars, 0);
+            ((Writer) out).write(this.chars, 0, length);
+        }
+        else
+        {
+            out.append(this.buffer);
+        }
+
+        reset();
+    }
+
+    /**
+     * Getter method for the buffer that the lines are written into.
+     *
+     * @return The buffer
+     */
+    StringBuilder getBuffer()
+    {
+        return this.buffer;
+    }
+
+    /**
+     * Writes a header with the category between two stars, centered on the line.
+     *
+     * @param category  Name of the category
+     */
+    void appendHeader(String category)
+    {
+        //"* category *" is aligned right by (38 - length) / 2 - 1
+        int length = category.length() + 4;
+        appendSpaces((LINE_LENGTH - length) / 2 - 1);
+
+        this.buffer.append("* ").append(category).append(" *\n");
+    }
+
+    /**
+     * Writes a line with a text and an amount, like {@code String.format("%-28s%10s", text, amount)}.
+     *
+     * @param text      Text on the left side of the line
+     * @param ore       Amount on the right side, in ore
+     * @param suffix    Written right after the amount, before the line break
+     */
+    void appendAmountLine(String text, long ore, String suffix)
+    {
+        int lineStart = this.buffer.length();
+
+        this.buffer.append(text);
+        appendAmountColumn(lineStart, ore);
+
+        this.buffer.append(suffix).append('\n');
+    }
+
+    /**
+     * Writes a line with a text and a whole number, like {@code String.format("%-28s%10d", text, number)}.
+     *
+     * @param text      Text on the left side of the line
+     * @param number    Number on the right side
+     */
+    void appendNumberLine(String text, long number)
+    {
+        int lineStart = this.buffer.length();
+
+        this.buffer.append(text);
+        appendSpaces(TEXT_COLUMN - (this.buffer.length() - lineStart));
+
+        //The number is written first, then moved right by the padding it needs
+        int numberStart = this.buffer.length();
+        this.buffer.append(number);
+        int padding = AMOUNT_COLUMN - (this.buffer.length() - numberStart);
+        for (int i = 0; i < padding; i++)
+        {
+            this.buffer.insert(numberStart, ' ');
+        }
+
+        this.buffer.append('\n');
+    }
+
+    /**
+     * Writes the line of a product that was bought more than once, like
+     * {@code String.format("%-28s%10s", " 3 x 5,95", amount)}.
+     *
+     * @param quantity  Number of units bought
+     * @param unitOre   Price of one unit, in ore
+     * @param ore       Amount on the right side of the line, in ore
+     */
+    void appendQuantityLine(int quantity, long unitOre, long ore)
+    {
+        int lineStart = this.buffer.length();
+
+        this.buffer.append(' ').append(quantity).append(" x ");
+        Money.appendFormatted(this.buffer, unitOre);
+        appendAmountColumn(lineStart, ore);
+
+        this.buffer.append('\n');
+    }
+
+    /**
+     * Writes a text as it is.
+     *
+     * @param text  The text
+     */
+    void append(String text)
+    {
+        this.buffer.append(text);
+    }
+
+    /**
+     * Writes a whole number.
+     *
+     * @param number    The number
+     */
+    void append(long number)
+    {
+        this.buffer.append(number);
+    }
+
+    /**
+     * Pads the text column that starts at a position and writes an amount right-aligned after it.
+     */
+    private void appendAmountColumn(int lineStart, long ore)
+    {
+        appendSpaces(TEXT_COLUMN - (this.buffer.length() - lineStart));
+        appendSpaces(AMOUNT_COLUMN - Money.formattedLength(ore));
+        Money.appendFormatted(this.buffer, ore);
+    }
+
+    private void appendSpaces(int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            this.buffer.append(' ');
+        }
+    }
+}
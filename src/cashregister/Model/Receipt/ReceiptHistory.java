@@ -0,0 +1,121 @@
+package cashregister.Model.Receipt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code ReceiptHistory} class holds every finished <em>receipt</em> of all lanes of a store.
+ * Lanes add their receipts without taking a lock, so lanes never wait for each other when they finish a receipt.
+ * Receipts are kept in the order they were added. The totals of the current shift are kept up to date as well.
+ * Every shift counts the receipts that are being added to it, so ending a shift waits for those adds to finish,
+ * and every receipt counts towards exactly one shift.
+ *
+ * @see Receipt
+ */
+public class ReceiptHistory
+{
+    private final ConcurrentLinkedQueue<Receipt> receipts;
+    private final AtomicLong size;
+    private final AtomicReference<Shift> shift;
+
+    /**
+     * Creates an empty history.
+     */
+    public ReceiptHistory()
+    {
+        this.receipts = new ConcurrentLinkedQueue<>();
+        this.size = new AtomicLong();
+        this.shift = new AtomicReference<>(new Shift());
+    }
+
+    /**
+     * Adds a finished receipt to the history. Safe to call from any number of threads at once.
+     *
+     * @param receipt   Snapshot of the finished receipt
+     */
+    public void add(ReceiptSnapshot receipt)
+    {
+        this.receipts.add(receipt);
+        this.size.incrementAndGet();
+
+        while (true)
+        {
+            Shift shift = this.shift.get();
+            shift.addsInFlight.increment();
+
+            //If the shift ended before the add was counted, closeShift may not wait for it, so try the new shift
+            if (this.shift.get() == shift)
+            {
+                shift.totals.add(receipt);
+                shift.addsInFlight.decrement();
+                return;
+            }
+
+            shift.addsInFlight.decrement();
+        }
+    }
+
+    /**
+     * Getter method for the totals of the current shift.
+     *
+     * @return The running totals
+     */
+    public ShiftTotals getShiftTotals()
+    {
+        return this.shift.get().totals;
+    }
+
+    /**
+     * Ends the current shift and starts a new one with empty totals. The receipts stay in the history.
+     * A receipt that is finished while the shift ends counts towards either shift, but never both or neither.
+     *
+     * @return The totals of the shift that ended, which no longer change
+     */
+    public ShiftTotals closeShift()
+    {
+        Shift closedShift = this.shift.getAndSet(new Shift());
+
+        //Lanes that started adding to the shift before it ended finish first. Adding a receipt takes microseconds
+        while (closedShift.addsInFlight.sum() != 0)
+        {
+            Thread.yield();
+        }
+
+        return closedShift.totals;
+    }
+
+    /**
+     * Getter method for the number of receipts in the history.
+     *
+     * @return The number of receipts
+     */
+    public long size()
+    {
+        return this.size.get();
+    }
+
+    /**
+     * Getter method for all receipts in the history. Receipts added while the list is made
+     * may or may not be part of it.
+     *
+     * @return An unmodifiable copy of the receipts, in the order they were added
+     */
+    public List<Receipt> getReceipts()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.receipts));
+    }
+
+    /**
+     * The totals of one shift, and the number of receipts that are being added to them.
+     */
+    private static final class Shift
+    {
+        private final ShiftTotals totals = new ShiftTotals();
+        private final LongAdder addsInFlight = new LongAdder();
+    }
+}
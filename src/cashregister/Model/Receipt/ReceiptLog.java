@@ -0,0 +1,334 @@
+package cashregister.Model.Receipt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code ReceiptLog} class keeps finished <em>receipts</em> in an append-only binary file on disk,
+ * so a register doesn't have to hold every receipt of the day on the heap.
+ *
+ * <p>The file starts with a header (magic number and format version), followed by one record per receipt.
+ * A record holds its length, the time it was finished, the total price, every line with the prices that were charged, and the
+ * printed text of the receipt. Records are never changed once they are written. An index of record offsets by
+ * receipt number is kept in memory - eight bytes per receipt - and is rebuilt when an existing log is opened.
+ * A record that was cut short, because the register stopped while writing it, is dropped at that point.</p>
+ *
+ * <p>Receipts are read back through a memory-mapped region of the file, as snapshots.</p>
+ *
+ * @see ReceiptSnapshot
+ */
+public class ReceiptLog implements Closeable
+{
+    /**
+     * File extension used for receipt logs
+     */
+    public static final String FILE_EXTENSION = ".receipts";
+
+    private static final int MAGIC = 0x43525243;
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the part of the file that is mapped at once
+     */
+    private static final long REGION_SIZE = 1 << 26;
+
+    private final Path path;
+    private final FileChannel channel;
+    private long end;
+
+    private long[] offsets;
+    private int size;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long regionEnd;
+
+    /**
+     * Reused to build every record before it is written
+     */
+    private final ByteArrayOutputStream recordBytes;
+    private final DataOutputStream record;
+
+    private ReceiptLog(Path path, FileChannel channel)
+    {
+        this.path = path;
+        this.channel = channel;
+        this.offsets = new long[1024];
+        this.recordBytes = new ByteArrayOutputStream(1024);
+        this.record = new DataOutputStream(this.recordBytes);
+    }
+
+    /**
+     * Opens a receipt log, or creates it if it doesn't exist yet. The receipts that are already
+     * in the file stay in the log, and new receipts are added after them.
+     *
+     * @param path                      Location of the log file
+     *
+     * @return The opened log
+     *
+     * @throws IllegalArgumentException if the file is not a receipt log or has another version
+     * @throws IOException              if the file cannot be opened
+     */
+    public static ReceiptLog open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        ReceiptLog log = new ReceiptLog(path, channel);
+        try
+        {
+            log.readIndex();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+
+        return log;
+    }
+
+    /**
+     * Adds a finished receipt to the end of the log. The record goes straight to the file,
+     * so it is not lost if the register stops afterwards.
+     *
+     * @param receipt       The snapshot of the finished receipt
+     *
+     * @return The number of the receipt in the log, starting at 0
+     *
+     * @throws IOException  if the receipt cannot be written
+     */
+    public synchronized int append(ReceiptSnapshot receipt) throws IOException
+    {
+        this.recordBytes.reset();
+
+        //The length is filled in once the record is complete
+        this.record.writeInt(0);
+        this.record.writeLong(receipt.getFinishTime());
+        this.record.writeLong(receipt.getTotalPrice());
+
+        ReceiptSnapshot.Line[] lines = receipt.lines();
+        this.record.writeInt(lines.length);
+        for (ReceiptSnapshot.Line line : lines)
+        {
+            writeString(this.record, line.getBarcode());
+            writeString(this.record, line.getCategory());
+            writeString(this.record, line.getProductName());
+            this.record.writeInt(line.getQuantity());
+            this.record.writeInt(line.getBasePrice());
+            this.record.writeInt(line.getFinalPrice());
+        }
+
+        //The snapshot's bytes are already encoded, so they are written as they are
+        byte[] text = receipt.getBytes();
+        this.record.writeInt(text.length);
+        this.record.write(text);
+        this.record.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(this.recordBytes.toByteArray());
+        bytes.putInt(0, bytes.remaining());
+
+        long offset = this.end;
+        while (bytes.hasRemaining())
+        {
+            this.end += this.channel.write(bytes, this.end);
+        }
+
+        if (this.size == this.offsets.length)
+        {
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+        }
+        this.offsets[this.size] = offset;
+
+        return this.size++;
+    }
+
+    /**
+     * Reads a receipt back from the log.
+     *
+     * @param receiptNumber                 Number of the receipt in the log, starting at 0
+     *
+     * @return The snapshot of the receipt
+     *
+     * @throws IndexOutOfBoundsException    if there is no receipt with that number
+     * @throws IOException                  if the file cannot be read
+     */
+    public ReceiptSnapshot read(int receiptNumber) throws IOException
+    {
+        //Only finding the record is locked, so many threads can decode records at once
+        ByteBuffer buffer = recordBuffer(receiptNumber);
+        buffer.position(buffer.position() + 4);
+
+        long finishTime = buffer.getLong();
+        long totalPrice = buffer.getLong();
+
+        ReceiptSnapshot.Line[] lines = new ReceiptSnapshot.Line[buffer.getInt()];
+        for (int i = 0; i < lines.length; i++)
+        {
+            lines[i] = new ReceiptSnapshot.Line(
+                    readString(buffer),
+                    readString(buffer),
+                    readString(buffer),
+                    buffer.getInt(),
+                    buffer.getInt(),
+                    buffer.getInt());
+        }
+
+        byte[] text = new byte[buffer.getInt()];
+        buffer.get(text);
+
+        return new ReceiptSnapshot(lines, finishTime, totalPrice, new String(text, StandardCharsets.UTF_8), text);
+    }
+
+    /**
+     * Gives a buffer over the whole record of a receipt.
+     */
+    private synchronized ByteBuffer recordBuffer(int receiptNumber) throws IOException
+    {
+        if (receiptNumber < 0 || receiptNumber >= this.size)
+        {
+            throw new IndexOutOfBoundsException("The log has no receipt number " + receiptNumber);
+        }
+
+        long offset = this.offsets[receiptNumber];
+        long recordEnd = receiptNumber + 1 < this.size ? this.offsets[receiptNumber + 1] : this.end;
+
+        return map(offset, (int) (recordEnd - offset));
+    }
+
+    /**
+     * Getter method for the number of receipts in the log.
+     *
+     * @return The number of receipts
+     */
+    public synchronized int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Getter method for the location of the log file.
+     *
+     * @return The log file
+     */
+    public Path getPath()
+    {
+        return this.path;
+    }
+
+    /**
+     * Closes the log file. Receipts that were read before stay readable.
+     *
+     * @throws IOException  if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        this.region = null;
+        this.channel.close();
+    }
+
+    /**
+     * Writes the header of a new log, or goes through the records of an existing one to find their offsets.
+     */
+    private void readIndex() throws IOException
+    {
+        long fileSize = this.channel.size();
+        if (fileSize == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining())
+            {
+                this.end += this.channel.write(header, this.end);
+            }
+            return;
+        }
+
+        ByteBuffer header = fileSize < HEADER_SIZE ? null : map(0, HEADER_SIZE);
+        if (header == null || header.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException(this.path + " is not a receipt log");
+        }
+        if (header.getInt() != VERSION)
+        {
+            throw new IllegalArgumentException(String.format(
+                    "%s has a different version, only version %d is supported",
+                    this.path,
+                    VERSION));
+        }
+
+        long offset = HEADER_SIZE;
+        while (offset + 4 <= fileSize)
+        {
+            int length = map(offset, 4).getInt();
+            if (length < 4 || offset + length > fileSize)
+            {
+                break;
+            }
+
+            if (this.size == this.offsets.length)
+            {
+                this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+            }
+            this.offsets[this.size++] = offset;
+            offset += length;
+        }
+
+        //Anything after the last complete record was cut short, and is written over
+        this.end = offset;
+        if (offset < fileSize)
+        {
+            this.region = null;
+            this.channel.truncate(offset);
+        }
+    }
+
+    /**
+     * Gives a buffer over a part of the file. The file is mapped in regions, and a region
+     * is only mapped again when a record outside of it is read.
+     */
+    private ByteBuffer map(long offset, int length) throws IOException
+    {
+        if (this.region == null || offset < this.regionStart || offset + length > this.regionEnd)
+        {
+            long start = offset - offset % REGION_SIZE;
+            long size = Math.min(this.channel.size() - start, Math.max(REGION_SIZE, offset + length - start));
+
+            this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            this.regionStart = start;
+            this.regionEnd = start + size;
+        }
+
+        ByteBuffer buffer = this.region.duplicate();
+        buffer.position((int) (offset - this.regionStart));
+        buffer.limit(buffer.position() + length);
+        return buffer;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package cashregister.Model.Receipt;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The {@code ReceiptPool} class keeps receipt objects that are no longer needed, so they can be
+ * reset and used again for the next customer instead of allocating a new receipt every time.
+ * A reused receipt keeps the memory its basket has grown to.
+ *
+ * A pool is not thread-safe - every lane or worker thread has a pool of its own.
+ * A receipt must only be released once nothing refers to it anymore.
+ *
+ * @see BaseReceipt#reset()
+ */
+public class ReceiptPool
+{
+    /**
+     * Largest number of receipts a pool keeps, unless another size is given
+     */
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    private final Deque<CategoryReceipt> freeReceipts;
+    private final int maxSize;
+
+    /**
+     * Creates an empty pool with the default size.
+     */
+    public ReceiptPool()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param maxSize   Largest number of receipts the pool keeps. Receipts released into a full pool are dropped
+     */
+    public ReceiptPool(int maxSize)
+    {
+        this.freeReceipts = new ArrayDeque<>(maxSize);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Hands out an empty, open receipt. A released receipt is reused if there is one.
+     *
+     * @return An empty receipt
+     */
+    public CategoryReceipt acquire()
+    {
+        CategoryReceipt receipt = this.freeReceipts.pollLast();
+        return receipt == null ? new CategoryReceipt() : receipt;
+    }
+
+    /**
+     * Takes back a receipt that is no longer needed. It is emptied right away.
+     * Receipts of other types, and receipts that don't fit in the pool anymore, are left to the garbage collector.
+     *
+     * @param receipt   The receipt, which nothing may refer to anymore
+     */
+    public void release(Receipt receipt)
+    {
+        if (receipt instanceof CategoryReceipt && this.freeReceipts.size() < this.maxSize)
+        {
+            CategoryReceipt categoryReceipt = (CategoryReceipt) receipt;
+            categoryReceipt.reset();
+            this.freeReceipts.addLast(categoryReceipt);
+        }
+    }
+
+    /**
+     * Getter method for the number of receipts that are ready to be reused.
+     *
+     * @return The number of free receipts
+     */
+    public int size()
+    {
+        return this.freeReceipts.size();
+    }
+}
@@ -0,0 +1,324 @@
+package cashregister.Model.Receipt;
+
+import cashregister.Model.Product.Money;
+import cashregister.Model.Product.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code ReceiptSnapshot} class is the frozen state of a <em>receipt</em> once its transaction is completed.
+ * It holds every line with the prices that were charged, the total price and the printed text,
+ * both as a string and as UTF-8 bytes.
+ *
+ * A snapshot never changes and doesn't refer to the products or the store, so later price changes
+ * don't show up in it. Reprinting it only copies the bytes that were rendered when it was made,
+ * and it can be shared between threads without copying or locking.
+ *
+ * @see Receipt#makeFinal()
+ */
+public final class ReceiptSnapshot implements Receipt
+{
+    private final Line[] lines;
+    private final long finishTime;
+    private final long totalPrice;
+    private final String text;
+    private final byte[] bytes;
+
+    /**
+     * Creates a snapshot from the lines, the total and the printed text of a receipt.
+     *
+     * @param lines         Every line of the receipt, which the snapshot takes over
+     * @param finishTime    When the receipt was finished, in milliseconds since the epoch
+     * @param totalPrice    Total price of the receipt, in ore
+     * @param text          Printed text of the receipt
+     */
+    ReceiptSnapshot(Line[] lines, long finishTime, long totalPrice, String text)
+    {
+        this(lines, finishTime, totalPrice, text, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a snapshot whose text has already been encoded.
+     *
+     * @param lines         Every line of the receipt, which the snapshot takes over
+     * @param finishTime    When the receipt was finished, in milliseconds since the epoch
+     * @param totalPrice    Total price of the receipt, in ore
+     * @param text          Printed text of the receipt
+     * @param bytes         The printed text in UTF-8, which the snapshot takes over
+     */
+    ReceiptSnapshot(Line[] lines, long finishTime, long totalPrice, String text, byte[] bytes)
+    {
+        this.lines = lines;
+        this.finishTime = finishTime;
+        this.totalPrice = totalPrice;
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Getter method for the lines of the receipt, in the order the products were first scanned.
+     *
+     * @return An unmodifiable list of the lines
+     */
+    public List<Line> getLines()
+    {
+        return Collections.unmodifiableList(Arrays.asList(this.lines));
+    }
+
+    /**
+     * Getter method for the time the receipt was finished.
+     *
+     * @return The time, in milliseconds since the epoch
+     */
+    public long getFinishTime()
+    {
+        return this.finishTime;
+    }
+
+    /**
+     * Getter method for the printed text of the receipt, encoded in UTF-8.
+     *
+     * @return A read-only buffer over the bytes, which are not copied
+     */
+    public ByteBuffer getReceiptBytes()
+    {
+        return ByteBuffer.wrap(this.bytes).asReadOnlyBuffer();
+    }
+
+    public boolean isProductInReceipt(Product productToCheck)
+    {
+        return findLine(productToCheck.getBarcode()) != null;
+    }
+
+    /**
+     * Finds the line of a product.
+     *
+     * @param barcode   Barcode of the product
+     *
+     * @return The line, or {@code null} if the product is not on the receipt
+     */
+    public Line findLine(String barcode)
+    {
+        for (Line line : this.lines)
+        {
+            if (line.barcode.equals(barcode))
+            {
+                return line;
+            }
+        }
+
+        return null;
+    }
+
+    public void addProductToReceipt(Product productToAdd) throws IllegalStateException
+    {
+        throw new IllegalStateException("The receipt has been printed, the basket can no longer be changed!");
+    }
+
+    public void removeProduct(Product productToRemove) throws IllegalStateException
+    {
+        throw new IllegalStateException("The receipt has been printed, the basket can no longer be changed!");
+    }
+
+    public long getTotalPrice()
+    {
+        return this.totalPrice;
+    }
+
+    /**
+     * A snapshot is already final.
+     *
+     * @return This snapshot
+     */
+    public ReceiptSnapshot makeFinal()
+    {
+        return this;
+    }
+
+    public String getReceipt()
+    {
+        return this.text;
+    }
+
+    public void appendReceipt(Appendable out) throws IOException
+    {
+        out.append(this.text);
+    }
+
+    /**
+     * Writes the printed text into an {@code OutputStream}. The bytes rendered for the snapshot are
+     * written as they are if the charset is UTF-8.
+     *
+     * @param out           Where the receipt is written
+     * @param charset       Charset the text is encoded with
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    @Override
+    public void writeReceipt(OutputStream out, Charset charset) throws IOException
+    {
+        out.write(encode(charset));
+        out.flush();
+    }
+
+    /**
+     * Writes the printed text into a channel. The bytes rendered for the snapshot are
+     * written as they are if the charset is UTF-8.
+     *
+     * @param channel       Where the receipt is written
+     * @param charset       Charset the text is encoded with
+     *
+     * @throws IOException  if the receipt can't be written
+     */
+    @Override
+    public void writeReceipt(WritableByteChannel channel, Charset charset) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(encode(charset));
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.text;
+    }
+
+    /**
+     * Getter method for the text in UTF-8, without a copy. Only used inside the package, which doesn't change it.
+     *
+     * @return The bytes of the printed text
+     */
+    byte[] getBytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * Gives the lines without a copy. Only used inside the package, which doesn't change them.
+     *
+     * @return The lines
+     */
+    Line[] lines()
+    {
+        return this.lines;
+    }
+
+    private byte[] encode(Charset charset)
+    {
+        return charset.equals(StandardCharsets.UTF_8) ? this.bytes : this.text.getBytes(charset);
+    }
+
+    /**
+     * One product on a frozen receipt, with the prices that were charged for it.
+     */
+    public static final class Line
+    {
+        private final String barcode;
+        private final String category;
+        private final String productName;
+        private final int quantity;
+        private final int basePrice;
+        private final int finalPrice;
+
+        /**
+         * Creates a line.
+         *
+         * @param barcode       Barcode of the product
+         * @param category      Category of the product
+         * @param productName   Name of the product
+         * @param quantity      Number of units bought
+         * @param basePrice     Price of one unit without discounts, in ore
+         * @param finalPrice    Price of one unit with the discount for the quantity, in ore
+         */
+        Line(String barcode, String category, String productName, int quantity, int basePrice, int finalPrice)
+        {
+            this.barcode = barcode;
+            this.category = category;
+            this.productName = productName;
+            this.quantity = quantity;
+            this.basePrice = basePrice;
+            this.finalPrice = finalPrice;
+        }
+
+        /**
+         * Getter method for the barcode of the product.
+         *
+         * @return The barcode
+         */
+        public String getBarcode()
+        {
+            return this.barcode;
+        }
+
+        /**
+         * Getter method for the category of the product.
+         *
+         * @return The category
+         */
+        public String getCategory()
+        {
+            return this.category;
+        }
+
+        /**
+         * Getter method for the name of the product.
+         *
+         * @return The product name
+         */
+        public String getProductName()
+        {
+            return this.productName;
+        }
+
+        /**
+         * Getter method for the number of units bought.
+         *
+         * @return The quantity
+         */
+        public int getQuantity()
+        {
+            return this.quantity;
+        }
+
+        /**
+         * Getter method for the price of one unit without discounts.
+         *
+         * @return The base price, in ore
+         */
+        public int getBasePrice()
+        {
+            return this.basePrice;
+        }
+
+        /**
+         * Getter method for the price of one unit with the discount for the quantity.
+         *
+         * @return The final price, in ore
+         */
+        public int getFinalPrice()
+        {
+            return this.finalPrice;
+        }
+
+        /**
+         * Getter method for the price of all units together.
+         *
+         * @return The line total, in ore
+         */
+        public long getLineTotal()
+        {
+            return Money.times(this.finalPrice, this.quantity);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package cashregister.Model.Receipt;
+
+import cashregister.Model.Product.Money;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code ShiftTotals} class keeps the running totals of one shift - the number of receipts and items,
+ * the turnover, the discounts given, the sales tax (MOMS), the marks issued and the turnover of every category.
+ * Every finished receipt is added once, so reading the totals or printing a report never goes through the history.
+ *
+ * Receipts can be added from any number of lanes at once without taking a lock.
+ * The sales tax and the marks are added up per receipt, so they match the printed receipts exactly.
+ *
+ * @see ReceiptSnapshot
+ */
+public class ShiftTotals
+{
+    private final LongAdder receiptCount;
+    private final LongAdder itemCount;
+    private final LongAdder grossTotal;
+    private final LongAdder discountTotal;
+    private final LongAdder salesTax;
+    private final LongAdder marks;
+    private final ConcurrentHashMap<String, LongAdder> categoryTotals;
+
+    /**
+     * Creates the totals of a new shift, with nothing sold yet.
+     */
+    public ShiftTotals()
+    {
+        this.receiptCount = new LongAdder();
+        this.itemCount = new LongAdder();
+        this.grossTotal = new LongAdder();
+        this.discountTotal = new LongAdder();
+        this.salesTax = new LongAdder();
+        this.marks = new LongAdder();
+        this.categoryTotals = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a finished receipt to the totals. Safe to call from any number of threads at once.
+     *
+     * @param receipt   Snapshot of the finished receipt
+     */
+    public void add(ReceiptSnapshot receipt)
+    {
+        long totalPrice = receipt.getTotalPrice();
+
+        this.receiptCount.increment();
+        this.grossTotal.add(totalPrice);
+        this.salesTax.add(CategoryReceipt.salesTaxFor(totalPrice));
+        this.marks.add(CategoryReceipt.marksFor(totalPrice));
+
+        long lineTotals = 0;
+        for (ReceiptSnapshot.Line line : receipt.lines())
+        {
+            this.itemCount.add(line.getQuantity());
+            this.discountTotal.add(Money.times(line.getBasePrice() - line.getFinalPrice(), line.getQuantity()));
+            this.categoryTotals.computeIfAbsent(line.getCategory(), category -> new LongAdder()).add(line.getLineTotal());
+            lineTotals = Money.add(lineTotals, line.getLineTotal());
+        }
+
+        //Promotions are taken off the whole receipt, so they are what the lines cost more than the total
+        this.discountTotal.add(lineTotals - totalPrice);
+    }
+
+    /**
+     * Getter method for the number of receipts in the shift.
+     *
+     * @return The number of receipts
+     */
+    public long getReceiptCount()
+    {
+        return this.receiptCount.sum();
+    }
+
+    /**
+     * Getter method for the number of items sold in the shift.
+     *
+     * @return The number of items
+     */
+    public long getItemCount()
+    {
+        return this.itemCount.sum();
+    }
+
+    /**
+     * Getter method for the turnover of the shift, which is what the customers paid, including all discounts.
+     *
+     * @return The turnover, in ore
+     */
+    public long getGrossTotal()
+    {
+        return this.grossTotal.sum();
+    }
+
+    /**
+     * Getter method for the sum of all discounts (RABAT) and promotions given in the shift.
+     *
+     * @return The discounts, in ore
+     */
+    public long getDiscountTotal()
+    {
+        return this.discountTotal.sum();
+    }
+
+    /**
+     * Getter method for the sales tax (MOMS) included in the turnover.
+     *
+     * @return The sales tax, in ore
+     */
+    public long getSalesTax()
+    {
+        return this.salesTax.sum();
+    }
+
+    /**
+     * Getter method for the number of marks issued in the shift.
+     *
+     * @return The number of marks
+     */
+    public long getMarks()
+    {
+        return this.marks.sum();
+    }
+
+    /**
+     * Getter method for the turnover of every category.
+     *
+     * @return A copy of the turnover by category name, in ore, sorted by name
+     */
+    public SortedMap<String, Long> getCategoryTotals()
+    {
+        SortedMap<String, Long> totals = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> category : this.categoryTotals.entrySet())
+        {
+            totals.put(category.getKey(), category.getValue().sum());
+        }
+
+        return totals;
+    }
+
+    /**
+     * Renders a report of the shift, in the same layout as a receipt.
+     * Receipts that are added while the report is made may or may not be part of it.
+     *
+     * @param title     Title at the top of the report, such as {@code "Z-RAPPORT"}
+     *
+     * @return The report
+     */
+    public String getReport(String title)
+    {
+        ReceiptFormatter formatter = new ReceiptFormatter();
+
+        formatter.append("\n");
+        formatter.appendHeader(title);
+        formatter.appendNumberLine("KVITTERINGER", getReceiptCount());
+        formatter.appendNumberLine("VARER", getItemCount());
+        formatter.append("\n");
+
+        formatter.appendHeader("OMSÆTNING");
+        for (Map.Entry<String, Long> category : getCategoryTotals().entrySet())
+        {
+            formatter.appendAmountLine(category.getKey(), category.getValue(), "");
+        }
+        formatter.append("\n");
+
+        formatter.appendAmountLine("RABAT", getDiscountTotal(), "-");
+        formatter.appendAmountLine("TOTAL", getGrossTotal(), "");
+        formatter.appendAmountLine("MOMS UDGØR", getSalesTax(), "");
+        formatter.appendNumberLine("UDLØSTE MÆRKER", getMarks());
+        formatter.append("\n");
+
+        return formatter.getBuffer().toString();
+    }
+}
@@ -1,11 +1,13 @@
 package cashregister.Model.Receipt;
 
+import cashregister.Model.Product.Money;
+
 /**
  * The {@code SimpleReceipt} class only prints out the
  * total of the basket, nothing else.
  *
  * Example:
- * TOTAL: 23.85
+ * TOTAL: 23,85
  *
  * @see BaseReceipt
  *
@@ -15,7 +17,6 @@ public class SimpleReceipt extends BaseReceipt
 {
     public String toString()
     {
-        double total = super.totalPrice() / 100.0;
-        return "TOTAL: " + total;
+        return "TOTAL: " + Money.format(super.totalPrice());
     }
 }
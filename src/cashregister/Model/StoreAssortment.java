@@ -1,11 +1,20 @@
 package cashregister.Model;
 
 import cashregister.HelperFunctions;
+import cashregister.Model.Metrics.Metrics;
 import cashregister.Model.Product.Product;
-
-import java.util.HashMap;
-import java.util.Map;
+import cashregister.Model.Product.ProductTable;
+import cashregister.Model.Product.Promotion;
+import cashregister.Model.Receipt.Receipt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The {@code StoreAssortment} class contains all <em>products</em> that are sold at a store.
@@ -17,14 +26,128 @@ import java.util.NoSuchElementException;
  */
 public class StoreAssortment
 {
-    private Map<String, Product> allProducts;
+    /**
+     * Holds the data of every product in the store, column by column
+     */
+    private ProductTable productTable;
+
+    /**
+     * Products that haven't been loaded yet are taken from here the first time they are looked up
+     */
+    private volatile ProductSource productSource;
+
+    /**
+     * Products that have been taken from the product source so far. They stay out of the product table,
+     * so loading them never waits for an update of the store
+     */
+    private ConcurrentMap<String, Product> sourceProducts;
+
+    /**
+     * Barcodes that were removed from the store, so they must not be loaded from the product source again
+     */
+    private Set<String> removedBarcodes;
 
     /**
      * Initializes a new store assortment object with no products in it
      */
     public StoreAssortment()
     {
-        this.allProducts = new HashMap<>();
+        this.productTable = new ProductTable(16);
+        this.productSource = null;
+        this.sourceProducts = new ConcurrentHashMap<>();
+        this.removedBarcodes = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Starts an update of the store. Products and discounts that are added until the matching
+     * {@link #finishUpdate()} become visible to everyone else at the same time, as one new version
+     * of the store. Lookups are never blocked by an update - they keep using the previous version.
+     */
+    public void beginUpdate()
+    {
+        this.productTable.beginUpdate();
+    }
+
+    /**
+     * Finishes an update started with {@link #beginUpdate()} and publishes its changes.
+     */
+    public void finishUpdate()
+    {
+        this.productTable.finishUpdate();
+    }
+
+    /**
+     * Attaches a source that <em>products</em> are loaded from the first time they are looked up.
+     * Products that are already in the store take priority over the ones in the source.
+     *
+     * @param source Source of products, such as a compiled catalog
+     */
+    public void attachProductSource(ProductSource source)
+    {
+        this.sourceProducts.clear();
+        this.removedBarcodes.clear();
+        this.productSource = source;
+    }
+
+    /**
+     * Getter method for all <em>products</em> in the store, in the order they were added.
+     * Products that have been removed are left out.
+     * If a product source is attached, all of its products are moved into the store first.
+     *
+     * @return An unmodifiable list of all products
+     */
+    public List<Product> getAllProducts()
+    {
+        if (this.productSource != null)
+        {
+            beginUpdate();
+            try
+            {
+                //Load every product the source has, since they are all part of the store
+                ProductSource source = this.productSource;
+
+                for (int i = 0; source != null && i < source.getProductCount(); i++)
+                {
+                    Product product = source.getProduct(i);
+                    String barcode = product.getBarcode();
+                    if (this.productTable.findProduct(barcode) == null && !this.removedBarcodes.contains(barcode))
+                    {
+                        this.productTable.addRow(product);
+                    }
+                }
+
+                this.productSource = null;
+                this.sourceProducts.clear();
+                this.removedBarcodes.clear();
+            }
+            finally
+            {
+                finishUpdate();
+            }
+        }
+
+        //The table's rows are in the order the products were added
+        List<Product> products = new ArrayList<>(this.productTable.size());
+        for (int i = 0; i < this.productTable.size(); i++)
+        {
+            if (!this.productTable.isRemoved(i))
+            {
+                products.add(this.productTable.getProduct(i));
+            }
+        }
+
+        return Collections.unmodifiableList(products);
+    }
+
+    /**
+     * Getter method for the table that holds the data of all loaded <em>products</em>.
+     * A product's ordinal is its row in this table.
+     *
+     * @return The product table of the store
+     */
+    public ProductTable getProductTable()
+    {
+        return this.productTable;
     }
 
     /**
@@ -75,11 +198,81 @@ public class StoreAssortment
             //Generate the price
             int productPrice = HelperFunctions.generatePrice(kronerString, oreString);
 
-            //Try to create the product object
-            Product product = new Product(barcode, category, productName, productPrice);
+            //Create the product and add it to the store
+            addNewProductToStore(barcode, category, productName, productPrice);
+        }
+    }
+
+    /**
+     * Creates a new <em>product</em> from already parsed values and adds it to the store.
+     *
+     * @param barcode       Barcode of the product
+     * @param category      Category of the product
+     * @param productName   Name of the product
+     * @param productPrice  Base price of the product, in ore
+     *
+     * @throws IllegalArgumentException if any of the values are illegal or if the product already exists
+     */
+    public void addNewProductToStore(String barcode, String category, String productName, int productPrice)
+            throws IllegalArgumentException
+    {
+        beginUpdate();
+        try
+        {
+            //If the barcode is already registered, that means the product has been added before
+            if (hasProduct(barcode))
+            {
+                String productExistsMessage = String.format(
+                        "A product with barcode %s already exists",
+                        barcode);
+
+                throw new IllegalArgumentException(productExistsMessage);
+            }
+
+            //Add a row to the product table, which fails if any of the values are illegal
+            this.productTable.addRow(barcode, category, productName, productPrice);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
 
-            //Add it to the assortment of products
-            addNewProduct(product);
+    /**
+     * Adds many new <em>products</em> from already parsed values in one update, such as all products of a
+     * catalog file. The products are added in order, so when one of them can't be added, the ones before it are kept.
+     *
+     * @param barcodes      Barcodes of the products
+     * @param categories    Categories of the products
+     * @param productNames  Names of the products
+     * @param prices        Base prices of the products, in ore
+     * @param count         Number of products, taken from the start of the arrays
+     *
+     * @throws IllegalArgumentException if any of the values are illegal or if a product already exists
+     */
+    public void addNewProductsToStore(String[] barcodes, String[] categories, String[] productNames, int[] prices,
+                                      int count) throws IllegalArgumentException
+    {
+        beginUpdate();
+        try
+        {
+            if (this.productSource == null)
+            {
+                //The table finds existing barcodes itself
+                this.productTable.addRows(barcodes, categories, productNames, prices, count);
+            }
+            else
+            {
+                //Products of the source aren't rows yet, so every barcode is looked up there as well
+                for (int i = 0; i < count; i++)
+                {
+                    addNewProductToStore(barcodes[i], categories[i], productNames[i], prices[i]);
+                }
+            }
+        }
+        finally
+        {
+            finishUpdate();
         }
     }
 
@@ -125,6 +318,121 @@ public class StoreAssortment
         }
     }
 
+    /**
+     * Adds an already parsed <em>discount</em> to its associated <em>product</em>.
+     * If there is already a <em>discount<em> for the <em>provided amount</em>, it will be <em>overwritten</em>.
+     *
+     * @param barcode       Barcode of the product that will have a discount added
+     * @param minAmount     Minimum quantity that will trigger the discounted price
+     * @param discountPrice The discounted price, in ore
+     *
+     * @throws NoSuchElementException if there is no product to add a discount to
+     */
+    public void addNewDiscountToStore(String barcode, int minAmount, int discountPrice) throws NoSuchElementException
+    {
+        addNewDiscount(barcode, minAmount, discountPrice);
+    }
+
+    /**
+     * Changes the category, name and base price of a <em>product</em> in the store.
+     * The discounts of the product are kept.
+     *
+     * @param barcode       Barcode of the product that is to be changed
+     * @param category      New category of the product
+     * @param productName   New name of the product
+     * @param productPrice  New base price of the product, in ore
+     *
+     * @throws NoSuchElementException   if there is no product with the provided barcode
+     * @throws IllegalArgumentException if any of the values are illegal
+     */
+    public void updateProduct(String barcode, String category, String productName, int productPrice)
+            throws NoSuchElementException, IllegalArgumentException
+    {
+        beginUpdate();
+        try
+        {
+            Product product = getStoredProduct(barcode);
+            this.productTable.updateRow(product.getOrdinal(), category, productName, productPrice);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Removes a <em>product</em> from the store, so it can no longer be scanned.
+     * Receipts that already contain the product are not affected.
+     *
+     * @param barcode Barcode of the product that is to be removed
+     *
+     * @throws NoSuchElementException if there is no product with the provided barcode
+     */
+    public void removeProduct(String barcode) throws NoSuchElementException
+    {
+        beginUpdate();
+        try
+        {
+            Product product = getStoredProduct(barcode);
+            this.productTable.removeRow(product.getOrdinal());
+
+            //Keep the product source from bringing it back
+            if (this.productSource != null)
+            {
+                this.removedBarcodes.add(barcode);
+                this.sourceProducts.remove(barcode);
+            }
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Removes the <em>discount</em> for a quantity from a <em>product</em> in the store, if it has one.
+     *
+     * @param barcode       Barcode of the product that will have a discount removed
+     * @param minAmount     Quantity of the discount
+     *
+     * @throws NoSuchElementException   if there is no product with the provided barcode
+     * @throws IllegalArgumentException if the quantity is the one of the base price
+     */
+    public void removeDiscountFromStore(String barcode, int minAmount)
+            throws NoSuchElementException, IllegalArgumentException
+    {
+        beginUpdate();
+        try
+        {
+            getStoredProduct(barcode).removeDiscount(minAmount);
+        }
+        finally
+        {
+            finishUpdate();
+        }
+    }
+
+    /**
+     * Replaces the active <em>promotions</em> of the store: multi-buy, mix-and-match and basket threshold rules.
+     * Open baskets are priced with the new promotions from the next time their total is read.
+     *
+     * @param promotions The new promotions
+     */
+    public void setPromotions(Collection<Promotion> promotions)
+    {
+        this.productTable.setPromotions(promotions);
+    }
+
+    /**
+     * Getter method for the active <em>promotions</em> of the store.
+     *
+     * @return An unmodifiable list of the promotions
+     */
+    public List<Promotion> getPromotions()
+    {
+        return this.productTable.getPromotions();
+    }
+
     /**
      * Checks whether a <em>product</em> exists in the <em>store assortment</em>.
      *
@@ -134,7 +442,92 @@ public class StoreAssortment
      */
     public boolean hasProduct(String barcode)
     {
-        return this.allProducts.containsKey(barcode);
+        return lookUpProduct(barcode) != null;
+    }
+
+    /**
+     * Looks up a <em>product</em> with a single probe of the barcode index.
+     * Unlike {@link #getProduct(String)}, a missing product is not an error.
+     *
+     * @param barcode Barcode of the product that is to be retrieved
+     *
+     * @return The <em>product</em> associated with the barcode, or {@code null} if there is none
+     */
+    public Product findProduct(String barcode)
+    {
+        long start = Metrics.LOOKUP.start();
+
+        Product product = lookUpProduct(barcode);
+        if (product == null)
+        {
+            Metrics.LOOKUP.miss();
+        }
+
+        Metrics.LOOKUP.stop(start);
+        return product;
+    }
+
+    /**
+     * Scans a barcode into a receipt: the <em>product</em> is looked up once, and added to the receipt
+     * if the store has it. Registers, lanes and batches all scan through here, so every scan is counted.
+     *
+     * @param barcode Barcode that was scanned
+     * @param receipt Receipt the product is added to
+     *
+     * @return The product that was added, or {@code null} if the store doesn't have it
+     */
+    public Product scanProduct(String barcode, Receipt receipt)
+    {
+        long start = Metrics.SCAN.start();
+
+        //Look the product up once - it is null if the store doesn't have it
+        Product product = findProduct(barcode);
+        if (product == null)
+        {
+            Metrics.SCAN.miss();
+        }
+        else
+        {
+            receipt.addProductToReceipt(product);
+        }
+
+        Metrics.SCAN.stop(start);
+        return product;
+    }
+
+    /**
+     * Looks up a <em>product</em> like {@link #findProduct(String)}, without counting the lookup.
+     * Used while the store itself is changed, such as by imports, since those lookups aren't scans.
+     *
+     * @param barcode Barcode of the product that is to be retrieved
+     *
+     * @return The <em>product</em> associated with the barcode, or {@code null} if there is none
+     */
+    public Product lookUpProduct(String barcode)
+    {
+        Product product = this.productTable.findProduct(barcode);
+
+        ProductSource source = this.productSource;
+        if (product == null && source != null && !this.removedBarcodes.contains(barcode))
+        {
+            //Load the product from the source the first time it is needed
+            product = this.sourceProducts.get(barcode);
+            if (product == null)
+            {
+                Product sourceProduct = source.findProduct(barcode);
+                if (sourceProduct != null)
+                {
+                    //The product is priced with the promotions of the store, without becoming a row of its table
+                    sourceProduct.getTable().setPromotionTable(this.productTable);
+
+                    //If another lane loaded it at the same time, use that one instead
+                    product = this.sourceProducts.putIfAbsent(barcode, sourceProduct);
+                    product = product == null ? sourceProduct : product;
+                }
+            }
+        }
+
+        return product;
     }
 
     /**
@@ -148,7 +541,22 @@ public class StoreAssortment
      */
     public Product getProduct(String barcode) throws NoSuchElementException
     {
-        if (!hasProduct(barcode))
+        return checkExists(findProduct(barcode), barcode);
+    }
+
+    /**
+     * Checks that a lookup found a <em>product</em>.
+     *
+     * @param product   The product that was found, or {@code null}
+     * @param barcode   Barcode that was looked up
+     *
+     * @return The product
+     *
+     * @throws NoSuchElementException if no product was found
+     */
+    private static Product checkExists(Product product, String barcode) throws NoSuchElementException
+    {
+        if (product == null)
         {
             //The barcode hasn't been registered yet
             String productDoesNotExistMessage = String.format(
@@ -158,36 +566,70 @@ public class StoreAssortment
             throw new NoSuchElementException(productDoesNotExistMessage);
         }
 
-        return this.allProducts.get(barcode);
+        return product;
     }
 
     /**
-     * Adds a new <em>product</em> to the <em>store assortment</em>
+     * Adds a new <em>product</em> to the <em>store assortment</em>.
+     * The store keeps its own copy of the product, including all discounts.
      *
      * @param productToAdd Product that is to be added to the assortment
      *
      * @throws IllegalArgumentException if the product already exists
      */
-    private void addNewProduct(Product productToAdd) throws IllegalArgumentException
+    public void addNewProduct(Product productToAdd) throws IllegalArgumentException
     {
         String productBarcode = productToAdd.getBarcode();
 
-        if (hasProduct(productBarcode))
+        beginUpdate();
+        try
         {
-            //The product already exists, so throw an exception
-            String productExistsMessage = String.format(
-                    "Product with barcode %s already exists in the product list",
-                    productBarcode);
+            if (hasProduct(productBarcode))
+            {
+                //The product already exists, so throw an exception
+                String productExistsMessage = String.format(
+                        "Product with barcode %s already exists in the product list",
+                        productBarcode);
 
-            throw new IllegalArgumentException(productExistsMessage);
+                throw new IllegalArgumentException(productExistsMessage);
+            }
+            else
+            {
+                //Add a copy of the product to the store assortment
+                this.productTable.addRow(productToAdd);
+            }
         }
-        else
+        finally
         {
-            //Add the product to the store assortment
-            this.allProducts.put(productBarcode, productToAdd);
+            finishUpdate();
         }
     }
 
+    /**
+     * Retrieves a <em>product</em> that is stored in the product table,
+     * moving it there from the product source first if it hasn't been loaded yet.
+     *
+     * @param barcode Barcode of the product
+     *
+     * @return The product's row in the product table
+     *
+     * @throws NoSuchElementException if there is no product with the provided barcode
+     */
+    private Product getStoredProduct(String barcode) throws NoSuchElementException
+    {
+        Product product = this.productTable.findProduct(barcode);
+        if (product == null)
+        {
+            //The product may only exist in the source, so it is copied into the table to be changed there.
+            //Changing the store isn't a scan, so the lookup isn't counted
+            product = checkExists(lookUpProduct(barcode), barcode);
+            this.productTable.addRow(product);
+            product = this.productTable.findProduct(barcode);
+        }
+
+        return product;
+    }
+
     /**
      * Adds a new <em>discount</em> to a <em>product</em> in the <em>store assortment</em>
      *
@@ -199,22 +641,18 @@ public class StoreAssortment
      */
     private void addNewDiscount(String barcode, int discountQuantity, int priceToAdd) throws NoSuchElementException
     {
-        if (!hasProduct(barcode))
+        beginUpdate();
+        try
         {
-            //The barcode hasn't been registered yet
-            String productDoesNotExistMessage = String.format(
-                    "Product with barcode %s doesn't exist, so a discount cannot be added",
-                    barcode);
-
-            throw new NoSuchElementException(productDoesNotExistMessage);
-        }
-        else
-        {
-            //Get the product
-            Product product = getProduct(barcode);
+            //Get the product's row in the table, this fails if the barcode hasn't been registered yet
+            Product product = getStoredProduct(barcode);
 
             //Add the discount to the product
             product.addDiscount(discountQuantity, priceToAdd);
         }
+        finally
+        {
+            finishUpdate();
+        }
     }
 }
\ No newline at end of file
@@ -1,14 +1,30 @@
 package cashregister.View;
 
 import cashregister.Controller.Controller;
+import cashregister.Model.Analytics.BestSeller;
+import cashregister.Model.Analytics.SalesFigures;
+import cashregister.Model.Analytics.SalesReport;
+import cashregister.Model.Batch.BatchReceiptProcessor;
+import cashregister.Model.Batch.BatchSummary;
+import cashregister.Model.CashRegister;
+import cashregister.Model.Catalog.CatalogSnapshot;
+import cashregister.Model.Catalog.CatalogWatcher;
+import cashregister.Model.Catalog.ImportReport;
+import cashregister.Model.Product.Money;
 import cashregister.Model.Receipt.Receipt;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The console GUI for the cash register.
@@ -26,7 +42,15 @@ public class ConsoleUI
     {
         //If there is a file passed as a command line argument, it is the store
         boolean hasPopulatedStore = false;
-        if (args.length > 0)
+        boolean hasAddedDiscounts = false;
+        if (args.length > 0 && args[0].endsWith(CatalogSnapshot.FILE_EXTENSION))
+        {
+            //A compiled catalog already holds both the products and the discounts
+            controller.loadCatalog(args[0]);
+            hasPopulatedStore = true;
+            hasAddedDiscounts = true;
+        }
+        else if (args.length > 0)
         {
             //Read the first text file and create the store products
             controller.populateStore(args[0]);
@@ -34,20 +58,38 @@ public class ConsoleUI
         }
 
         //If there is a second file passed as a command line argument, it will be discounts
-        boolean hasAddedDiscounts = false;
-        if (args.length > 1)
+        if (!hasAddedDiscounts && args.length > 1)
         {
             //Read the second text file and create the discounts
             controller.generateDiscounts(args[1]);
             hasAddedDiscounts = true;
         }
 
+        //If there are more files, or the third one is a directory or a pattern, all of them are baskets
+        if (args.length > 3 || (args.length == 3 && isBatch(args[2])))
+        {
+            List<Path> basketFiles = new ArrayList<>();
+            for (int i = 2; i < args.length; i++)
+            {
+                if (isBatch(args[i]))
+                {
+                    basketFiles.addAll(BatchReceiptProcessor.findBasketFiles(args[i]));
+                }
+                else
+                {
+                    basketFiles.add(Paths.get(args[i]));
+                }
+            }
+
+            BatchSummary summary = controller.generateReceiptsFromFiles(basketFiles, System.out);
+            System.out.println(summary);
+        }
         //If there is a third file, it is the receipt text file
-        if (args.length > 2)
+        else if (args.length > 2)
         {
             //Generate and print the receipt
             controller.generateReceiptFromFile(args[2]);
-            System.out.println(controller.getCashRegister().getCurrentReceipt().toString());
+            printReceipt(controller.getCashRegister().getCurrentReceipt());
         }
 
         //Used to read user commands
@@ -97,6 +139,57 @@ public class ConsoleUI
                     }
                     readCommandUsed(arguments[1], arguments[2]);
                     break;
+                case "batch":
+                    if (arguments[1] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    batchCommandUsed(arguments[1], arguments[2]);
+                    break;
+                case "import":
+                    if (arguments[1] == null || arguments[2] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    importCommandUsed(arguments[1], arguments[2]);
+                    break;
+                case "save":
+                    if (arguments[1] == null || arguments[2] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    saveCommandUsed(arguments[1], arguments[2]);
+                    break;
+                case "watch":
+                    if (arguments[1] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    watchCommandUsed(arguments[1], arguments[2]);
+                    break;
+                case "sales":
+                    if (arguments[1] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    salesCommandUsed(arguments[1], arguments[2]);
+                    break;
+                case "stats":
+                    statsCommandUsed(arguments[1]);
+                    break;
+                case "history":
+                    if (arguments[1] == null)
+                    {
+                        printUnknownCommand();
+                        continue;
+                    }
+                    historyCommandUsed(arguments[1], arguments[2]);
+                    break;
                 case "add":
                     if (arguments[1] == null || arguments[2] == null)
                     {
@@ -174,6 +267,23 @@ public class ConsoleUI
                 case "receipt":
                     controller.generateReceiptFromFile(fileName);
                     break;
+                case "catalog":
+                    controller.loadCatalog(fileName);
+                    break;
+                case "promotion":
+                    try
+                    {
+                        controller.loadPromotions(fileName);
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        //The old promotions stay active
+                        System.out.println(e.getMessage());
+                    }
+                    break;
+                case "log":
+                    System.out.println(controller.generateReceiptsFromScanLog(fileName, System.out));
+                    break;
                 default:
                     printUnknownCommand();
                     break;
@@ -183,6 +293,196 @@ public class ConsoleUI
         {
             System.out.println("The file \"" + fileName + "\" was not found.");
         }
+        catch (IOException e)
+        {
+            System.out.println("The file \"" + fileName + "\" could not be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Used when the user invoked a "batch" command. Prices all baskets in a directory or matching a pattern
+     * @param directoryOrGlob Directory or pattern of the basket files
+     * @param outputFile File the receipts are written to, or null to print them
+     */
+    private void batchCommandUsed(String directoryOrGlob, String outputFile)
+    {
+        try
+        {
+            BatchSummary summary;
+            if (outputFile == null)
+            {
+                summary = controller.generateReceiptsFromFiles(directoryOrGlob, System.out);
+            }
+            else
+            {
+                try (Writer writer = new BufferedWriter(
+                        Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)))
+                {
+                    summary = controller.generateReceiptsFromFiles(directoryOrGlob, writer);
+                }
+            }
+
+            System.out.println(summary);
+        }
+        catch (FileNotFoundException e)
+        {
+            System.out.println("The file \"" + directoryOrGlob + "\" was not found.");
+        }
+        catch (IOException e)
+        {
+            System.out.println("The baskets could not be processed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a command line argument names a whole batch of baskets instead of one basket file
+     * @param argument The argument
+     * @return True if the argument is a directory or a glob pattern
+     */
+    private boolean isBatch(String argument)
+    {
+        return argument.contains("*") || argument.contains("?") || Files.isDirectory(Paths.get(argument));
+    }
+
+    /**
+     * Used when the user invoked an "import" command. Lines with errors are skipped and listed afterwards
+     * @param type Type of the import command - product or discount
+     * @param fileName File that is imported
+     */
+    private void importCommandUsed(String type, String fileName)
+    {
+        try
+        {
+            ImportReport report;
+            switch (type) {
+                case "product":
+                    report = controller.importStore(fileName);
+                    break;
+                case "discount":
+                    report = controller.importDiscounts(fileName);
+                    break;
+                default:
+                    printUnknownCommand();
+                    return;
+            }
+
+            System.out.println(report);
+
+            //Only the first few errors are shown, the rest are counted
+            int shownLines = 0;
+            for (ImportReport.RejectedLine rejectedLine : report.getRejectedLines())
+            {
+                if (shownLines++ == 10)
+                {
+                    System.out.println("  ...");
+                    break;
+                }
+                System.out.println("  " + rejectedLine);
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            System.out.println("The file \"" + fileName + "\" was not found.");
+        }
+    }
+
+    /**
+     * Used when the user invoked a "save" command. Currently only the compiled catalog can be saved
+     * @param type Type of the save command - catalog
+     * @param fileName File that is written
+     */
+    private void saveCommandUsed(String type, String fileName)
+    {
+        if (!type.equals("catalog"))
+        {
+            printUnknownCommand();
+            return;
+        }
+
+        try
+        {
+            controller.compileCatalog(fileName);
+        }
+        catch (IOException e)
+        {
+            System.out.println("The file \"" + fileName + "\" could not be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Used when the user invoked a "stats" command. Prints the metrics of the hot paths, or resets them
+     * @param reset "reset", or null
+     */
+    private void statsCommandUsed(String reset)
+    {
+        if (reset == null)
+        {
+            System.out.print(controller.getStatistics());
+        }
+        else if (reset.equals("reset"))
+        {
+            controller.resetStatistics();
+        }
+        else
+        {
+            printUnknownCommand();
+        }
+    }
+
+    /**
+     * Used when the user invoked a "history" command. Keeps the finished receipts in a log file from now on
+     * @param fileName Log file of the receipts
+     * @param window Number of receipts that stay in memory, can be null
+     */
+    private void historyCommandUsed(String fileName, String window)
+    {
+        try
+        {
+            int historyWindow = window == null ? CashRegister.DEFAULT_HISTORY_WINDOW : Integer.parseInt(window);
+            controller.keepHistoryInLog(fileName, historyWindow);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.out.println("The history could not be kept in \"" + fileName + "\": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Used when the user invoked a "watch" command. Either starts watching the prices and discounts files,
+     * or stops watching them
+     * @param pricesFile Prices file that is watched, or "stop"
+     * @param discountsFile Discounts file that is watched, can be null
+     */
+    private void watchCommandUsed(String pricesFile, String discountsFile)
+    {
+        try
+        {
+            if (pricesFile.equals("stop"))
+            {
+                controller.stopWatchingCatalog();
+            }
+            else
+            {
+                controller.watchCatalog(pricesFile, discountsFile, new CatalogWatcher.ReloadListener()
+                {
+                    @Override
+                    public void catalogReloaded(int changes)
+                    {
+                        System.out.println("The catalog was reloaded with " + changes + " changes.");
+                    }
+
+                    @Override
+                    public void reloadFailed(Exception cause)
+                    {
+                        System.out.println("The catalog could not be reloaded: " + cause.getMessage());
+                    }
+                });
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.out.println("The files could not be watched: " + e.getMessage());
+        }
     }
 
     /**
@@ -227,26 +527,24 @@ public class ConsoleUI
     {
         if (currentOrAll.equals("all"))
         {
-            double total = 0;
-//            for (Receipt receipt : controller.getCashRegister().getHistory())
-//            {
-//                total += receipt.calculateTotalPrice();
-//            }
-//
-//            if (controller.getCashRegister().getCurrentReceipt() != null)
-//            {
-//                total += controller.getCashRegister().getCurrentReceipt().();
-//            }
-
-
-            //Create the symbols formatter, which ensures the numbers use a comma and not dot for trailing points
-            DecimalFormatSymbols priceFormatSymbols = new DecimalFormatSymbols();
-            priceFormatSymbols.setDecimalSeparator(',');
-            //Create the object that formats prices to two decimal trailing points
-            DecimalFormat priceFormat = new DecimalFormat("0.00", priceFormatSymbols);
-            String totalString = priceFormat.format(total);
+            //The finished receipts are already added up, only the open receipt is added to them
+            long totalOre = controller.getCashRegister().getShiftTotals().getGrossTotal();
+            if (controller.getCashRegister().getCurrentReceipt() != null)
+            {
+                totalOre = Money.add(totalOre, controller.getCashRegister().getCurrentReceipt().getTotalPrice());
+            }
 
-            System.out.println("TOTAL: " + totalString);
+            System.out.println("TOTAL: " + Money.format(totalOre));
+        }
+        else if (currentOrAll.equals("shift"))
+        {
+            //X-report: the totals so far, the shift goes on
+            System.out.println(controller.getCashRegister().getShiftTotals().getReport("X-RAPPORT"));
+        }
+        else if (currentOrAll.equals("zreport"))
+        {
+            //Z-report: the open receipt is finished and a new shift starts
+            System.out.println(controller.getCashRegister().closeShift().getReport("Z-RAPPORT"));
         }
         else if (currentOrAll.equals("current"))
         {
@@ -258,7 +556,7 @@ public class ConsoleUI
             }
 
             Receipt lastReceipt = controller.getCashRegister().getCurrentReceipt();
-            System.out.println(lastReceipt.getReceipt());
+            printReceipt(lastReceipt);
         }
         else
         {
@@ -269,7 +567,7 @@ public class ConsoleUI
 
                 Receipt generatedReceipt = controller.getCashRegister().getCurrentReceipt();
 
-                System.out.println(generatedReceipt.getReceipt());
+                printReceipt(generatedReceipt);
             }
             catch (FileNotFoundException e)
             {
@@ -278,6 +576,95 @@ public class ConsoleUI
         }
     }
 
+    /**
+     * Used when the user invoked a "sales" command. Analyzes the receipt history and prints one part of the result
+     * @param type What is printed: "products", "categories", "hours" or "top"
+     * @param count Number of products that are printed, can be null
+     */
+    private void salesCommandUsed(String type, String count)
+    {
+        if (count != null && !count.matches("\\d{1,9}"))
+        {
+            printUnknownCommand();
+            return;
+        }
+
+        //The best sellers are counted while scanning, so the history isn't analyzed for them
+        if (type.equals("top"))
+        {
+            List<BestSeller> bestSellers = controller.getBestSellers(count == null ? 10 : Integer.parseInt(count));
+
+            System.out.println(String.format("%-26s%8s%12s", "", "UNITS", "+-"));
+            for (BestSeller bestSeller : bestSellers)
+            {
+                System.out.println(String.format("%-26s%8d%12d",
+                        bestSeller.getProductName(),
+                        bestSeller.getUnits(),
+                        bestSeller.getError()));
+            }
+            return;
+        }
+
+        SalesReport report = controller.analyzeSales();
+        String lineFormat = "%-26s%8s%12s%12s";
+
+        switch (type)
+        {
+            case "products":
+            case "categories":
+                List<SalesFigures> figures = type.equals("products") ? report.getProducts() : report.getCategories();
+                int limit = figures.size();
+                if (count != null)
+                {
+                    limit = Math.min(limit, Integer.parseInt(count));
+                }
+
+                System.out.println(String.format(lineFormat, "", "UNITS", "REVENUE", "RABAT"));
+                for (SalesFigures figure : figures.subList(0, limit))
+                {
+                    System.out.println(String.format(lineFormat,
+                            figure.getName(),
+                            figure.getUnits(),
+                            Money.format(figure.getRevenue()),
+                            Money.format(figure.getDiscountCost())));
+                }
+                break;
+            case "hours":
+                long[] basketsPerHour = report.getBasketsPerHour();
+                for (int hour = 0; hour < basketsPerHour.length; hour++)
+                {
+                    if (basketsPerHour[hour] > 0)
+                    {
+                        System.out.println(String.format("%02d:00 - %02d:00%12d", hour, hour + 1, basketsPerHour[hour]));
+                    }
+                }
+                break;
+            default:
+                printUnknownCommand();
+                return;
+        }
+
+        System.out.println(String.format("%d receipts, revenue %s", report.getReceiptCount(), Money.format(report.getRevenue())));
+    }
+
+    /**
+     * Streams a receipt to the terminal, followed by an empty line
+     * @param receipt Receipt that is printed
+     */
+    private void printReceipt(Receipt receipt)
+    {
+        try
+        {
+            receipt.appendReceipt(System.out);
+        }
+        catch (IOException e)
+        {
+            //Printing to the terminal doesn't throw, the errors are kept by the stream
+        }
+
+        System.out.println();
+    }
+
     /**
      * Prints all possible commands to the terminal
      */
@@ -309,12 +696,72 @@ public class ConsoleUI
                         "%-30s%s",
                         "  add discount <discount>",
                         ": Creates a new discount. Replaces old discounts if they share same product"));
+        //import prices
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  import product <text file>",
+                        ": Adds all valid products of a text file and lists the invalid lines"));
+        //import discounts
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  import discount <text file>",
+                        ": Adds all valid discounts of a text file and lists the invalid lines"));
+        //read catalog
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  read catalog <file>",
+                        ": Opens a compiled catalog with all products and discounts"));
+        //read promotions
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  read promotion <text file>",
+                        ": Replaces the active promotions with the rules of a text file"));
+        //save catalog
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  save catalog <file>",
+                        ": Compiles all products and discounts into a catalog file"));
+        //watch prices and discounts
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  watch <prices> <discounts>",
+                        ": Applies every later change of the files to the store"));
+        //stop watching
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  watch stop",
+                        ": Stops applying changes of the watched files"));
+        //receipt history
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  history <file> [window]",
+                        ": Keeps finished receipts in a log file, with a few in memory"));
+        //batch receipts
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  batch <folder> [file]",
+                        ": Prices all baskets in a folder or pattern, optionally into a file"));
         //read receipts
         System.out.println(
                 String.format(
                         "%-30s%s",
                         "  read receipt <text file>",
                         ": Reads a text file and generates a receipt from it"));
+        //read scan log
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  read log <text file>",
+                        ": Prices every transaction in a scan log, split by \"---\" lines"));
         //print receipt
         System.out.println(
                 String.format(
@@ -339,6 +786,45 @@ public class ConsoleUI
                         "%-30s%s",
                         "  print all",
                         ": Prints the total of all receipts"));
+        //Sales analytics
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  sales products [count]",
+                        ": Prints units, revenue and discounts of the best-selling products"));
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  sales top [count]",
+                        ": Prints the best-selling products, counted while scanning"));
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  sales categories",
+                        ": Prints units, revenue and discounts of every category"));
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  sales hours",
+                        ": Prints the number of baskets in every hour of the day"));
+        //Hot path metrics
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  stats [reset]",
+                        ": Prints scan, lookup, total and rendering rates and latencies"));
+        //Print the shift totals
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  print shift",
+                        ": Prints the totals of the shift so far (X-report)"));
+        //Close the shift
+        System.out.println(
+                String.format(
+                        "%-30s%s",
+                        "  print zreport",
+                        ": Prints the totals and starts a new shift (Z-report)"));
         //Print a receipt from a file
         System.out.println(
                 String.format(
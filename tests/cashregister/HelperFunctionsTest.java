@@ -44,4 +44,10 @@ public class HelperFunctionsTest
         double price = HelperFunctions.generatePrice("5", "-5");
         assertEquals(0, price, 1e-15);
     }
-}
\ No newline at end of file
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkZeroPriceTest()
+    {
+        HelperFunctions.checkPrice(0);
+    }
+}
@@ -0,0 +1,156 @@
+package cashregister.Model.Analytics;
+
+import cashregister.Model.Lane;
+import cashregister.Model.MultiLaneRegister;
+import cashregister.Model.Product.Product;
+import cashregister.Model.StoreAssortment;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code BestSellerSketch} class
+ */
+public class BestSellerSketchTest
+{
+    @Test
+    public void exactWhileThereIsRoomTest()
+    {
+        BestSellerSketch sketch = new BestSellerSketch(10);
+        Product orange = new Product("1", "Fruit", "Orange", 2495);
+        Product apple = new Product("2", "Fruit", "Apple", 2550);
+
+        sketch.offer(orange);
+        sketch.offer(apple, 3);
+        sketch.offer(orange);
+
+        List<BestSeller> top = sketch.top(5);
+        assertEquals(2, top.size());
+        assertEquals("2", top.get(0).getBarcode());
+        assertEquals(3, top.get(0).getUnits());
+        assertEquals("Orange", top.get(1).getProductName());
+        assertEquals(2, top.get(1).getUnits());
+        assertEquals(0, top.get(1).getError());
+
+        assertEquals(1, sketch.top(1).size());
+        assertEquals(5, sketch.getTotalUnits());
+        assertEquals(0, sketch.getMaxError());
+    }
+
+    @Test
+    public void heavyHittersAreKeptTest()
+    {
+        BestSellerSketch sketch = new BestSellerSketch(20);
+        Map<String, Long> trueUnits = new HashMap<>();
+        Product[] products = products(2000);
+        Random random = new Random(42);
+
+        //Three products sell much more than the thousands of others
+        for (int i = 0; i < 30000; i++)
+        {
+            Product product = i % 3 == 0 ? products[i % 9 / 3] : products[3 + random.nextInt(products.length - 3)];
+            sketch.offer(product);
+            trueUnits.merge(product.getBarcode(), 1L, Long::sum);
+        }
+
+        assertTrue(sketch.getMaxError() <= sketch.getTotalUnits() / sketch.getCapacity());
+
+        List<BestSeller> top = sketch.top(3);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(Integer.parseInt(top.get(i).getBarcode()) < 3);
+        }
+        for (BestSeller bestSeller : sketch.top(20))
+        {
+            long units = trueUnits.get(bestSeller.getBarcode());
+            assertTrue(bestSeller.getUnits() >= units);
+            assertTrue(bestSeller.getGuaranteedUnits() <= units);
+        }
+    }
+
+    @Test
+    public void mergeTest()
+    {
+        Product[] products = products(50);
+        BestSellerSketch first = new BestSellerSketch(10);
+        BestSellerSketch second = new BestSellerSketch(10);
+        long[] trueUnits = new long[products.length];
+
+        //The first lane sells product 0 and the second product 1, but both sell a lot of product 2
+        for (int i = 0; i < 5000; i++)
+        {
+            int firstProduct = i % 2 == 0 ? (i % 4 == 0 ? 0 : 2) : 3 + i % 47;
+            int secondProduct = i % 2 == 0 ? (i % 4 == 0 ? 1 : 2) : 3 + (i * 7) % 47;
+            first.offer(products[firstProduct]);
+            second.offer(products[secondProduct]);
+            trueUnits[firstProduct]++;
+            trueUnits[secondProduct]++;
+        }
+
+        BestSellerSketch merged = BestSellerSketch.merge(10, Arrays.asList(first, second));
+        assertEquals(10000, merged.getTotalUnits());
+        assertTrue(merged.getMaxError() <= merged.getTotalUnits() / 5);
+
+        List<BestSeller> top = merged.top(3);
+        assertEquals("2", top.get(0).getBarcode());
+        for (BestSeller bestSeller : top)
+        {
+            long units = trueUnits[Integer.parseInt(bestSeller.getBarcode())];
+            assertTrue(bestSeller.getUnits() >= units);
+            assertTrue(bestSeller.getGuaranteedUnits() <= units);
+        }
+
+        //Merging doesn't change the sketches
+        assertEquals(5000, first.getTotalUnits());
+    }
+
+    @Test
+    public void closedLanesStayCountedTest()
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.addNewProductToStore("1", "Fruit", "Orange", 1000);
+        store.addNewProductToStore("2", "Fruit", "Apple", 500);
+        MultiLaneRegister register = new MultiLaneRegister(store, 10);
+
+        Lane first = register.openLane();
+        Lane second = register.openLane();
+        first.startNewReceipt();
+        second.startNewReceipt();
+
+        first.addProductToReceipt("1");
+        first.addProductToReceipt("1");
+        second.addProductToReceipt("1");
+        second.addProductToReceipt("2");
+        register.closeLane(first);
+
+        List<BestSeller> top = register.getBestSellers().top(10);
+        assertEquals(2, top.size());
+        assertEquals("Orange", top.get(0).getProductName());
+        assertEquals(3, top.get(0).getUnits());
+        assertEquals(1, top.get(1).getUnits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxErrorTest()
+    {
+        assertEquals(1000, BestSellerSketch.withMaxError(0.001).getCapacity());
+        BestSellerSketch.withMaxError(0);
+    }
+
+    private static Product[] products(int count)
+    {
+        Product[] products = new Product[count];
+        for (int i = 0; i < count; i++)
+        {
+            products[i] = new Product(Integer.toString(i), "Category", "Product " + i, 100);
+        }
+
+        return products;
+    }
+}
@@ -0,0 +1,110 @@
+package cashregister.Model.Analytics;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code SalesAnalytics} class
+ */
+public class SalesAnalyticsTest
+{
+    private Product milk;
+    private Product coffee;
+    private Product bread;
+
+    @Before
+    public void setUp()
+    {
+        this.milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        this.milk.addDiscount(3, 500);
+        this.coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+        this.bread = new Product("3", "ØVR. FØDEVARER", "KERNEBRØD", 2075);
+    }
+
+    @Test
+    public void productsAndCategoriesTest()
+    {
+        List<Receipt> history = new ArrayList<>();
+        history.add(finish(this.milk, this.milk, this.milk, this.coffee));
+        history.add(finish(this.bread, this.milk));
+
+        //An open receipt at the end of the history is not counted
+        CategoryReceipt open = new CategoryReceipt();
+        open.addProductToReceipt(this.coffee);
+        history.add(open);
+
+        SalesReport report = new SalesAnalytics().analyze(history);
+
+        assertEquals(2, report.getReceiptCount());
+        assertEquals(7050 + 2670, report.getRevenue());
+
+        SalesFigures milkSales = report.getProduct("1");
+        assertEquals(4, milkSales.getUnits());
+        assertEquals(1500 + 595, milkSales.getRevenue());
+        assertEquals(3 * 95, milkSales.getDiscountCost());
+
+        SalesFigures groceries = report.getCategory("ØVR. FØDEVARER");
+        assertEquals(2, groceries.getUnits());
+        assertEquals(5550 + 2075, groceries.getRevenue());
+
+        //Ordered by revenue
+        assertEquals("2", report.getProducts().get(0).getKey());
+        assertEquals("ØVR. FØDEVARER", report.getCategories().get(0).getKey());
+    }
+
+    @Test
+    public void largeHistoryTest()
+    {
+        List<Receipt> history = new ArrayList<>();
+        long revenue = 0;
+        for (int i = 0; i < 20000; i++)
+        {
+            ReceiptSnapshot receipt = i % 3 == 0 ? finish(this.milk, this.coffee) : finish(this.bread);
+            revenue += receipt.getTotalPrice();
+            history.add(receipt);
+        }
+
+        SalesAnalytics analytics = new SalesAnalytics(new ForkJoinPool(4), ZoneOffset.UTC);
+        SalesReport report = analytics.analyze(history);
+
+        assertEquals(20000, report.getReceiptCount());
+        assertEquals(revenue, report.getRevenue());
+        assertEquals(6667, report.getProduct("2").getUnits());
+        assertEquals(13333, report.getProduct("3").getUnits());
+
+        //All receipts were finished just now
+        long[] basketsPerHour = report.getBasketsPerHour();
+        int hour = Instant.ofEpochMilli(((ReceiptSnapshot) history.get(19999)).getFinishTime())
+                .atZone(ZoneId.of("UTC")).getHour();
+        long counted = 0;
+        for (long baskets : basketsPerHour)
+        {
+            counted += baskets;
+        }
+        assertEquals(20000, counted);
+        assertTrue(basketsPerHour[hour] > 0);
+    }
+
+    private static ReceiptSnapshot finish(Product... products)
+    {
+        CategoryReceipt receipt = new CategoryReceipt();
+        for (Product product : products)
+        {
+            receipt.addProductToReceipt(product);
+        }
+        return receipt.makeFinal();
+    }
+}
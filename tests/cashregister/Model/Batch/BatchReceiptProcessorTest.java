@@ -0,0 +1,157 @@
+package cashregister.Model.Batch;
+
+import cashregister.Model.Catalog.CatalogFileReader;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code BatchReceiptProcessor} class
+ */
+public class BatchReceiptProcessorTest
+{
+    private StoreAssortment store;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.store = new StoreAssortment();
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+        CatalogFileReader.readDiscounts("test-resources/discounts-test.txt", this.store);
+
+        this.directory = Files.createTempDirectory("baskets");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        for (Path file : BatchReceiptProcessor.findBasketFiles(this.directory.toString()))
+        {
+            Files.delete(file);
+        }
+        Files.delete(this.directory);
+        this.store = null;
+    }
+
+    @Test
+    public void receiptsInFileOrderTest() throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+        {
+            //Every basket has a different number of products, so they take different times to price
+            String[] barcodes = new String[i % 7 + 1];
+            Arrays.fill(barcodes, i % 2 == 0 ? "1" : "2");
+            files.add(write(String.format("basket%02d.txt", i), barcodes));
+        }
+
+        StringBuilder out = new StringBuilder();
+        BatchSummary summary;
+        try (BatchReceiptProcessor processor = new BatchReceiptProcessor(this.store, 4))
+        {
+            summary = processor.process(files, out);
+        }
+
+        assertEquals(40, summary.getBasketCount());
+        assertEquals(0, summary.getUnknownBarcodeCount());
+
+        //The output is the same as pricing the baskets one after the other
+        StringBuilder expected = new StringBuilder();
+        long lineCount = 0;
+        for (Path file : files)
+        {
+            Receipt receipt = new CategoryReceipt();
+            for (String barcode : Files.readAllLines(file, StandardCharsets.UTF_8))
+            {
+                receipt.addProductToReceipt(this.store.getProduct(barcode));
+                lineCount++;
+            }
+            expected.append("*** ").append(file).append(" ***\n").append(receipt.getReceipt()).append('\n');
+        }
+
+        assertEquals(lineCount, summary.getLineCount());
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    public void unknownBarcodesTest() throws IOException
+    {
+        Path file = write("basket.txt", "1", "", "999", "2");
+
+        StringBuilder out = new StringBuilder();
+        BatchSummary summary;
+        try (BatchReceiptProcessor processor = new BatchReceiptProcessor(this.store, 2))
+        {
+            summary = processor.process(Arrays.asList(file), out);
+        }
+
+        //Blank lines are skipped, unknown barcodes are counted but not priced
+        assertEquals(1, summary.getBasketCount());
+        assertEquals(3, summary.getLineCount());
+        assertEquals(1, summary.getUnknownBarcodeCount());
+    }
+
+    @Test
+    public void paddedBarcodesTest() throws IOException
+    {
+        Path file = write("basket.txt", " 1", "2 ", "\t1\t");
+
+        StringBuilder out = new StringBuilder();
+        BatchSummary summary;
+        try (BatchReceiptProcessor processor = new BatchReceiptProcessor(this.store, 2))
+        {
+            summary = processor.process(Arrays.asList(file), out);
+        }
+
+        //Barcodes are trimmed, like in a scan log
+        assertEquals(3, summary.getLineCount());
+        assertEquals(0, summary.getUnknownBarcodeCount());
+    }
+
+    @Test
+    public void findBasketFilesTest() throws IOException
+    {
+        Path second = write("bar2.txt", "1");
+        Path first = write("bar1.txt", "1");
+        write("notes.csv", "1");
+
+        assertEquals(Arrays.asList(first, second),
+                BatchReceiptProcessor.findBasketFiles(this.directory.resolve("bar*.txt").toString()));
+        assertEquals(3, BatchReceiptProcessor.findBasketFiles(this.directory.toString()).size());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingDirectoryTest() throws IOException
+    {
+        BatchReceiptProcessor.findBasketFiles(this.directory.resolve("missing").resolve("*.txt").toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingBasketFileTest() throws IOException
+    {
+        try (BatchReceiptProcessor processor = new BatchReceiptProcessor(this.store, 2))
+        {
+            processor.process(Arrays.asList(this.directory.resolve("missing.txt")), new StringBuilder());
+        }
+    }
+
+    private Path write(String name, String... lines) throws IOException
+    {
+        return Files.write(this.directory.resolve(name), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,116 @@
+package cashregister.Model.Batch;
+
+import cashregister.Model.Catalog.CatalogFileReader;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code ScanLogReader} class
+ */
+public class ScanLogReaderTest
+{
+    private StoreAssortment store;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.store = new StoreAssortment();
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+        CatalogFileReader.readDiscounts("test-resources/discounts-test.txt", this.store);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.store = null;
+    }
+
+    @Test
+    public void delimitedTransactionsTest() throws IOException
+    {
+        String log = String.join("\n",
+                "1", "1", "---",
+                "---",
+                "2", "", "999", "1",
+                "---",
+                "2");
+
+        StringBuilder out = new StringBuilder();
+        BatchSummary summary = new ScanLogReader(this.store).process(new StringReader(log), out);
+
+        //The empty transaction is skipped, and the last one doesn't need a delimiter
+        assertEquals(3, summary.getBasketCount());
+        assertEquals(6, summary.getLineCount());
+        assertEquals(1, summary.getUnknownBarcodeCount());
+
+        String expected = "*** Receipt 1 ***\n" + receipt("1", "1") + "\n"
+                + "*** Receipt 2 ***\n" + receipt("2", "1") + "\n"
+                + "*** Receipt 3 ***\n" + receipt("2") + "\n";
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    public void customDelimiterTest() throws IOException
+    {
+        String log = "1\nEND\n2\nEND\n";
+
+        BatchSummary summary = new ScanLogReader(this.store, "END").process(new StringReader(log), new StringBuilder());
+
+        assertEquals(2, summary.getBasketCount());
+        assertEquals(2, summary.getLineCount());
+    }
+
+    @Test
+    public void receiptsGoOutBeforeTheLogEndsTest() throws IOException
+    {
+        StringBuilder out = new StringBuilder();
+
+        //The log fails after the first transaction - its receipt has already been written
+        Reader log = new StringReader("1\n---\n2\n")
+        {
+            private int reads;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException
+            {
+                if (this.reads++ > 0)
+                {
+                    throw new IOException("The scanner went away");
+                }
+                return super.read(buffer, offset, 6);
+            }
+        };
+
+        try
+        {
+            new ScanLogReader(this.store).process(log, out);
+            fail();
+        }
+        catch (IOException e)
+        {
+            //The log broke off
+        }
+
+        assertEquals("*** Receipt 1 ***\n" + receipt("1") + "\n", out.toString());
+    }
+
+    private String receipt(String... barcodes)
+    {
+        Receipt receipt = new CategoryReceipt();
+        for (String barcode : barcodes)
+        {
+            receipt.addProductToReceipt(this.store.getProduct(barcode));
+        }
+        return receipt.getReceipt();
+    }
+}
@@ -0,0 +1,217 @@
+package cashregister.Model;
+
+import cashregister.Model.Catalog.CatalogFileReader;
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptLog;
+import cashregister.Model.Receipt.ReceiptSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code CashRegister} class and its history in a {@code ReceiptLog}
+ */
+public class CashRegisterTest
+{
+    private StoreAssortment store;
+    private CashRegister register;
+    private Path logFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.store = new StoreAssortment();
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+        CatalogFileReader.readDiscounts("test-resources/discounts-test.txt", this.store);
+
+        this.register = new CashRegister(this.store);
+        this.logFile = Files.createTempFile("history", ReceiptLog.FILE_EXTENSION);
+        Files.delete(this.logFile);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        if (this.register.getReceiptLog() != null)
+        {
+            this.register.getReceiptLog().close();
+        }
+        Files.deleteIfExists(this.logFile);
+        this.store = null;
+        this.register = null;
+    }
+
+    @Test
+    public void historyInMemoryTest()
+    {
+        assertNull(this.register.getCurrentReceipt());
+        assertEquals(0, this.register.getHistory().size());
+
+        List<Receipt> receipts = ring(5);
+        List<Receipt> history = this.register.getHistory();
+
+        //Finished receipts are in the history as their snapshots, the open one as it is
+        assertEquals(5, history.size());
+        assertSame(receipts.get(4), history.get(4));
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(history.get(i) instanceof ReceiptSnapshot);
+            assertSame(receipts.get(i).makeFinal(), history.get(i));
+        }
+    }
+
+    @Test
+    public void finishedReceiptIsFrozenTest()
+    {
+        ring(1);
+
+        //The receipt object is reused once the next receipt starts, so only its snapshot is kept
+        Receipt finished = this.register.getCurrentReceipt().makeFinal();
+        String printed = finished.getReceipt();
+        long total = finished.getTotalPrice();
+
+        this.register.startNewReceipt();
+
+        //Later price changes don't reach a finished receipt
+        this.store.getProduct("1").changeBasePrice((int) total + 100);
+        assertEquals(total, finished.getTotalPrice());
+        assertEquals(printed, finished.getReceipt());
+        assertEquals(printed, this.register.getHistory().get(0).getReceipt());
+
+        try
+        {
+            finished.addProductToReceipt(this.store.getProduct("2"));
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+            //The basket can no longer be changed
+        }
+    }
+
+    @Test
+    public void cancelledReceiptTest()
+    {
+        ring(2);
+        this.register.cancelReceipt();
+
+        //A voided receipt isn't part of the history or the shift
+        assertNull(this.register.getCurrentReceipt());
+        assertEquals(1, this.register.getHistory().size());
+        assertEquals(1, this.register.getShiftTotals().getReceiptCount());
+
+        this.register.cancelReceipt();
+        this.register.startNewReceipt();
+        assertEquals(0, this.register.getCurrentReceipt().getTotalPrice());
+        assertEquals(2, this.register.getHistory().size());
+    }
+
+    @Test
+    public void historyWindowTest() throws IOException
+    {
+        //Receipts finished before the log is set go to the log as well
+        List<Receipt> receipts = ring(3);
+        this.register.setReceiptLog(ReceiptLog.open(this.logFile), 2);
+        receipts.set(2, receipts.get(2).makeFinal());
+        receipts.addAll(ring(7));
+
+        List<Receipt> history = this.register.getHistory();
+        assertEquals(10, history.size());
+        assertEquals(9, this.register.getReceiptLog().size());
+
+        //The last two snapshots and the open receipt are still in memory
+        assertSame(receipts.get(9), history.get(9));
+        assertSame(receipts.get(8).makeFinal(), history.get(8));
+        assertSame(receipts.get(7).makeFinal(), history.get(7));
+
+        //Older receipts are read back from the log
+        for (int i = 0; i < 7; i++)
+        {
+            assertNotSame(receipts.get(i).makeFinal(), history.get(i));
+            assertEquals(receipts.get(i).getReceipt(), history.get(i).getReceipt());
+            assertEquals(receipts.get(i).getTotalPrice(), history.get(i).getTotalPrice());
+        }
+
+        assertTrue(history.get(1).isProductInReceipt(this.store.getProduct("2")));
+        assertFalse(history.get(0).isProductInReceipt(this.store.getProduct("2")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void archivedReceiptCantChangeTest() throws IOException
+    {
+        ring(3);
+        this.register.setReceiptLog(ReceiptLog.open(this.logFile), 0);
+
+        this.register.getHistory().get(0).addProductToReceipt(this.store.getProduct("1"));
+    }
+
+    @Test
+    public void reopenedLogTest() throws IOException
+    {
+        this.register.setReceiptLog(ReceiptLog.open(this.logFile), 1);
+        List<Receipt> receipts = ring(4);
+        this.register.getReceiptLog().close();
+
+        //A record that was cut short is dropped when the log is opened again
+        try (FileChannel channel = FileChannel.open(this.logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 1, 0, 7 }));
+        }
+
+        try (ReceiptLog log = ReceiptLog.open(this.logFile))
+        {
+            assertEquals(3, log.size());
+            for (int i = 0; i < 3; i++)
+            {
+                assertEquals(receipts.get(i).getReceipt(), log.read(i).getReceipt());
+            }
+
+            //New receipts go after the old ones
+            log.append(receipts.get(3).makeFinal());
+            assertEquals(4, log.size());
+            assertEquals(receipts.get(3).getReceipt(), log.read(3).getReceipt());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notALogTest() throws IOException
+    {
+        ReceiptLog.open(Paths.get("test-resources/products-test.txt"));
+    }
+
+    /**
+     * Rings up a number of receipts, with a different basket every time. The last one stays open,
+     * the others are snapshots, since the register reuses the receipt objects
+     */
+    private List<Receipt> ring(int count)
+    {
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            if (i > 0)
+            {
+                receipts.set(i - 1, receipts.get(i - 1).makeFinal());
+            }
+
+            this.register.startNewReceipt();
+            for (int j = 0; j <= i; j++)
+            {
+                this.register.addProductToReceipt(j % 2 == 0 ? "1" : "2", this.store);
+            }
+            receipts.add(this.register.getCurrentReceipt());
+        }
+        return receipts;
+    }
+}
@@ -0,0 +1,143 @@
+package cashregister.Model.Catalog;
+
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code CatalogFileReader} class
+ */
+public class CatalogFileReaderTest
+{
+    private StoreAssortment store;
+
+    @Before
+    public void setUp()
+    {
+        this.store = new StoreAssortment();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.store = null;
+    }
+
+    @Test
+    public void readProductsTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+
+        assertEquals("Orange", this.store.getProduct("1").getProductName());
+        assertEquals(2495, this.store.getProduct("1").getBasePrice());
+        assertEquals("Apple", this.store.getProduct("2").getProductName());
+        assertEquals(2550, this.store.getProduct("2").getBasePrice());
+    }
+
+    @Test
+    public void readUtf8ProductsTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("test-resources/products-utf8-test.txt", this.store);
+
+        assertEquals("SKUMMETMÆLK", this.store.getProduct("0 580524 463272").getProductName());
+        assertEquals(595, this.store.getProduct("0 580524 463272").getBasePrice());
+        assertEquals("ØVR. FØDEVARER", this.store.getProduct("1 173648 738266").getCategory());
+    }
+
+    @Test
+    public void readDiscountsTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+        CatalogFileReader.readDiscounts("test-resources/discounts-test.txt", this.store);
+
+        assertEquals(2495, this.store.getProduct("1").getFinalPrice(4));
+        assertEquals(2000, this.store.getProduct("1").getFinalPrice(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateProductTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("test-resources/products-error.txt", this.store);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongFormatTest() throws FileNotFoundException
+    {
+        //A discounts file doesn't have enough fields to be a prices file
+        CatalogFileReader.readProducts("test-resources/discounts-test.txt", this.store);
+    }
+
+    @Test
+    public void importDuplicateProductTest() throws FileNotFoundException
+    {
+        ImportReport report = CatalogFileReader.importProducts("test-resources/products-error.txt", this.store);
+
+        //The first line is imported, the second one uses the same barcode
+        assertEquals(1, report.getAcceptedCount());
+        assertEquals(1, report.getRejectedCount());
+        assertEquals(2, report.getRejectedLines().get(0).getLineNumber());
+        assertEquals(ImportReport.Reason.DUPLICATE_BARCODE, report.getRejectedLines().get(0).getReason());
+        assertEquals("Orange", this.store.getProduct("1").getProductName());
+    }
+
+    @Test
+    public void importUnknownDiscountTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("test-resources/products-test.txt", this.store);
+        ImportReport report = CatalogFileReader.importDiscounts("test-resources/discounts-error.txt", this.store);
+
+        assertEquals(1, report.getAcceptedCount());
+        assertEquals(1, report.getRejectedCount(ImportReport.Reason.UNKNOWN_PRODUCT));
+        assertEquals(2000, this.store.getProduct("1").getFinalPrice(5));
+    }
+
+    @Test
+    public void importRejectsEveryKindOfErrorTest() throws IOException
+    {
+        Path pricesFile = Files.createTempFile("prices", ".txt");
+        try
+        {
+            String lines = String.join("\n",
+                    "1,Fruit,Orange,24,95",
+                    "2,Fruit,Apple",
+                    "3,,Pear,10,0",
+                    "4,Fruit,Plum,ten,0",
+                    "5,Fruit,Kiwi,-1,0",
+                    "6,Fruit,Lime,0,0",
+                    "7,Fruit,Fig,99999999,0",
+                    "8,Fruit,Melon,30,0");
+            Files.write(pricesFile, lines.getBytes(StandardCharsets.UTF_8));
+
+            ImportReport report = CatalogFileReader.importProducts(pricesFile.toString(), this.store);
+
+            assertEquals(2, report.getAcceptedCount());
+            assertEquals(6, report.getRejectedCount());
+            assertEquals(1, report.getRejectedCount(ImportReport.Reason.WRONG_FIELD_COUNT));
+            assertEquals(1, report.getRejectedCount(ImportReport.Reason.EMPTY_FIELD));
+            assertEquals(1, report.getRejectedCount(ImportReport.Reason.INVALID_NUMBER));
+            assertEquals(3, report.getRejectedCount(ImportReport.Reason.INVALID_PRICE));
+            assertEquals("2,Fruit,Apple", report.getRejectedLines().get(0).getLine());
+            assertTrue(this.store.hasProduct("8"));
+            assertFalse(this.store.hasProduct("6"));
+        }
+        finally
+        {
+            Files.deleteIfExists(pricesFile);
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void nonExistingFileTest() throws FileNotFoundException
+    {
+        CatalogFileReader.readProducts("some-file.txt", this.store);
+    }
+}
@@ -0,0 +1,131 @@
+package cashregister.Model.Catalog;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.Product.ProductTable;
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code CatalogSnapshot} class
+ */
+public class CatalogSnapshotTest
+{
+    private Path snapshotFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.snapshotFile = Files.createTempFile("store", CatalogSnapshot.FILE_EXTENSION);
+
+        StoreAssortment store = new StoreAssortment();
+        store.addNewProductToStore("0 580524 463272,MEJERI,SKUMMETMÆLK,5,95");
+        store.addNewProductToStore("1 173648 738266,ØVR. FØDEVARER,HAVREGRYN,11,95");
+        store.addNewProductToStore("12345,MEJERI,SKYR,22,75");
+        store.addNewDiscountToStore("1 173648 738266,2,10,0");
+
+        CatalogSnapshot.write(store, this.snapshotFile.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(this.snapshotFile);
+    }
+
+    @Test
+    public void snapshotTest() throws IOException
+    {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(this.snapshotFile.toString());
+        assertEquals(3, snapshot.getProductCount());
+
+        Product oats = snapshot.findProduct("1 173648 738266");
+        assertEquals("HAVREGRYN", oats.getProductName());
+        assertEquals("ØVR. FØDEVARER", oats.getCategory());
+        assertEquals(1195, oats.getFinalPrice(1));
+        assertEquals(1000, oats.getFinalPrice(2));
+
+        assertEquals("SKUMMETMÆLK", snapshot.findProduct("0 580524 463272").getProductName());
+        assertNull(snapshot.findProduct("nonExisting"));
+    }
+
+    @Test
+    public void snapshotProductIsNoPriceChangeTest() throws IOException
+    {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(this.snapshotFile.toString());
+
+        //Creating a product with discounts doesn't invalidate anything calculated from the prices of other products
+        long epoch = ProductTable.getPriceEpoch();
+        Product oats = snapshot.findProduct("1 173648 738266");
+        assertEquals(1000, oats.getFinalPrice(2));
+        assertEquals(epoch, ProductTable.getPriceEpoch());
+    }
+
+    @Test
+    public void lazyStoreTest() throws IOException
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.attachProductSource(CatalogSnapshot.open(this.snapshotFile.toString()));
+
+        //The product is only created once, the first time it is looked up
+        Product skyr = store.getProduct("12345");
+        assertSame(skyr, store.getProduct("12345"));
+        assertEquals(2275, skyr.getBasePrice());
+
+        assertEquals(3, store.getAllProducts().size());
+    }
+
+    @Test
+    public void lazyLookupLeavesTableTest() throws IOException
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.attachProductSource(CatalogSnapshot.open(this.snapshotFile.toString()));
+        long version = store.getProductTable().getVersion();
+
+        //Looking up a product of the source doesn't update the store's table
+        Product skyr = store.getProduct("12345");
+        assertEquals(version, store.getProductTable().getVersion());
+        assertSame(store.getProductTable(), skyr.getTable().getPromotionTable());
+    }
+
+    @Test
+    public void discountOnLazyProductTest() throws IOException
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.attachProductSource(CatalogSnapshot.open(this.snapshotFile.toString()));
+
+        //The discounts are changed in the store, so loading the whole source doesn't undo them
+        store.addNewDiscountToStore("12345", 3, 2000);
+        store.removeDiscountFromStore("1 173648 738266", 2);
+        assertEquals(2000, store.getProduct("12345").getFinalPrice(3));
+
+        store.getAllProducts();
+        assertEquals(2000, store.getProduct("12345").getFinalPrice(3));
+        assertEquals(1195, store.getProduct("1 173648 738266").getFinalPrice(2));
+        assertEquals(3, store.getAllProducts().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void corruptedSnapshotTest() throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(this.snapshotFile);
+        bytes[bytes.length - 1]++;
+        Files.write(this.snapshotFile, bytes);
+
+        CatalogSnapshot.open(this.snapshotFile.toString());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void nonExistingSnapshotTest() throws IOException
+    {
+        CatalogSnapshot.open("some-file.catalog");
+    }
+}
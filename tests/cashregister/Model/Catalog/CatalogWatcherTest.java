@@ -0,0 +1,213 @@
+package cashregister.Model.Catalog;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code CatalogWatcher} class
+ */
+public class CatalogWatcherTest
+{
+    private StoreAssortment store;
+    private Path pricesFile;
+    private Path discountsFile;
+    private CatalogWatcher watcher;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.store = new StoreAssortment();
+        this.pricesFile = Files.createTempFile("prices", ".txt");
+        this.discountsFile = Files.createTempFile("discounts", ".txt");
+
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 8, 50",
+                "2, BROED, RUGBROED, 20, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+        write(this.discountsFile,
+                "2, 2, 15, 0",
+                "3, 3, 2, 0");
+
+        CatalogFileReader.readProducts(this.pricesFile.toString(), this.store);
+        CatalogFileReader.readDiscounts(this.discountsFile.toString(), this.store);
+
+        this.watcher = new CatalogWatcher(this.store, this.pricesFile.toString(), this.discountsFile.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.watcher.close();
+        Files.deleteIfExists(this.pricesFile);
+        Files.deleteIfExists(this.discountsFile);
+        this.store = null;
+    }
+
+    @Test
+    public void unchangedFilesTest() throws IOException
+    {
+        assertEquals(0, this.watcher.reload());
+        assertEquals(3, this.store.getAllProducts().size());
+    }
+
+    @Test
+    public void changedPriceTest() throws IOException
+    {
+        Product bread = this.store.getProduct("2");
+
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 8, 50",
+                "2, BROED, RUGBROED, 22, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+
+        assertEquals(1, this.watcher.reload());
+
+        //The row is changed in place, so it is still the same product with the same discount
+        assertSame(bread, this.store.getProduct("2"));
+        assertEquals(2200, bread.getBasePrice());
+        assertEquals(1500, bread.getFinalPrice(2));
+    }
+
+    @Test
+    public void addedAndRemovedProductsTest() throws IOException
+    {
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 8, 50",
+                "2, BROED, RUGBROED, 20, 0",
+                "4, FRUGT, PAERE, 4, 0");
+        write(this.discountsFile,
+                "2, 2, 15, 0",
+                "4, 5, 3, 0");
+
+        //Product 3 and its discount are removed, product 4 and its discount are added
+        assertEquals(3, this.watcher.reload());
+
+        assertNull(this.store.findProduct("3"));
+        assertEquals("PAERE", this.store.getProduct("4").getProductName());
+        assertEquals(300, this.store.getProduct("4").getFinalPrice(5));
+        assertEquals(3, this.store.getAllProducts().size());
+    }
+
+    @Test
+    public void changedDiscountTiersTest() throws IOException
+    {
+        write(this.discountsFile,
+                "2, 3, 14, 0",
+                "3, 3, 2, 50",
+                "1, 1, 7, 0");
+
+        assertEquals(4, this.watcher.reload());
+
+        Product bread = this.store.getProduct("2");
+        assertEquals(2000, bread.getFinalPrice(2));
+        assertEquals(1400, bread.getFinalPrice(3));
+        assertEquals(250, this.store.getProduct("3").getFinalPrice(3));
+
+        //A discount for a quantity of 1 is the new base price, until it is removed again
+        assertEquals(700, this.store.getProduct("1").getBasePrice());
+
+        write(this.discountsFile,
+                "2, 3, 14, 0",
+                "3, 3, 2, 50");
+
+        assertEquals(1, this.watcher.reload());
+        assertEquals(850, this.store.getProduct("1").getBasePrice());
+    }
+
+    @Test
+    public void storeIsComparedWithFilesTest() throws IOException
+    {
+        //Changes that were made to the store by hand are undone, since the files are the whole assortment
+        this.store.updateProduct("2", "BROED", "RUGBROED", 2500);
+        this.store.addNewProductToStore("5", "FRUGT", "BANAN", 200);
+
+        assertEquals(2, this.watcher.reload());
+        assertEquals(2000, this.store.getProduct("2").getBasePrice());
+        assertEquals(1500, this.store.getProduct("2").getFinalPrice(2));
+        assertNull(this.store.findProduct("5"));
+    }
+
+    @Test
+    public void brokenFileChangesNothingTest() throws IOException
+    {
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 9, 50",
+                "2, BROED, RUGBROED");
+
+        try
+        {
+            this.watcher.reload();
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            //The file has errors in it
+        }
+
+        assertEquals(850, this.store.getProduct("1").getBasePrice());
+
+        //Once the file is fixed, the change is applied
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 9, 50",
+                "2, BROED, RUGBROED, 20, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+
+        assertEquals(1, this.watcher.reload());
+        assertEquals(950, this.store.getProduct("1").getBasePrice());
+    }
+
+    @Test
+    public void invalidValuesChangeNothingTest() throws IOException
+    {
+        //Every line parses, but the store would refuse the empty name and the price of 0
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 99, 0",
+                "2, BROED, , 20, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+        assertReloadFails();
+
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 99, 0",
+                "2, BROED, RUGBROED, 0, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+        assertReloadFails();
+
+        assertEquals(850, this.store.getProduct("1").getBasePrice());
+
+        //The loaded state was kept, so the next reload applies the whole change
+        write(this.pricesFile,
+                "1, MEJERI, MAELK, 99, 0",
+                "2, BROED, RUGBROED, 20, 0",
+                "3, FRUGT, AEBLE, 3, 0");
+        assertEquals(1, this.watcher.reload());
+        assertEquals(9900, this.store.getProduct("1").getBasePrice());
+    }
+
+    private void assertReloadFails() throws IOException
+    {
+        try
+        {
+            this.watcher.reload();
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            //The file has errors in it
+        }
+    }
+
+    private static void write(Path file, String... lines) throws IOException
+    {
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
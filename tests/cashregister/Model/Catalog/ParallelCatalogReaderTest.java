@@ -0,0 +1,89 @@
+package cashregister.Model.Catalog;
+
+import cashregister.Model.StoreAssortment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code ParallelCatalogReader} class
+ */
+public class ParallelCatalogReaderTest
+{
+    private static final int PRODUCT_COUNT = 20000;
+
+    private StoreAssortment store;
+    private ParallelCatalogReader reader;
+    private Path pricesFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.store = new StoreAssortment();
+        this.reader = new ParallelCatalogReader(new ForkJoinPool(4));
+        this.pricesFile = Files.createTempFile("prices", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(this.pricesFile);
+        this.store = null;
+        this.reader = null;
+    }
+
+    @Test
+    public void readLargeFileTest() throws IOException
+    {
+        writePrices(-1);
+        this.reader.readProducts(this.pricesFile.toString(), this.store);
+
+        assertEquals("VARE 0", this.store.getProduct("0").getProductName());
+        assertEquals("VARE 19999", this.store.getProduct("19999").getProductName());
+        assertEquals(1999 * 100 + 99, this.store.getProduct("19999").getBasePrice());
+        assertEquals("MEJERI", this.store.getProduct("12345").getCategory());
+    }
+
+    @Test
+    public void duplicateIsDetectedInFileOrderTest() throws IOException
+    {
+        //The last line repeats the barcode of the first one
+        writePrices(0);
+
+        try
+        {
+            this.reader.readProducts(this.pricesFile.toString(), this.store);
+            fail("The duplicate barcode was not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            //Every line before the duplicate is loaded, like when reading on one thread
+            assertTrue(this.store.hasProduct("19999"));
+            assertEquals("VARE 0", this.store.getProduct("0").getProductName());
+        }
+    }
+
+    private void writePrices(int duplicateBarcode) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < PRODUCT_COUNT; i++)
+        {
+            builder.append(i).append(",MEJERI,VARE ").append(i).append(',').append(i / 10).append(",99\n");
+        }
+
+        if (duplicateBarcode >= 0)
+        {
+            builder.append(duplicateBarcode).append(",MEJERI,DUPLICATE,1,0\n");
+        }
+
+        Files.write(this.pricesFile, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,196 @@
+package cashregister.Model.Metrics;
+
+import cashregister.Model.CashRegister;
+import cashregister.Model.Catalog.CatalogFileReader;
+import cashregister.Model.StoreAssortment;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code LatencyHistogram}, {@code OperationMetrics} and {@code Metrics} classes
+ */
+public class MetricsTest
+{
+    @Test
+    public void bucketTest()
+    {
+        //Every latency is in the bucket that ends at or after it, and after the end of the bucket before
+        long[] latencies = { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE };
+        for (long latency : latencies)
+        {
+            int bucket = LatencyHistogram.bucketOf(latency);
+            assertTrue(bucket < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(LatencyHistogram.highestOf(bucket) >= latency);
+            assertTrue(bucket == 0 || LatencyHistogram.highestOf(bucket - 1) < latency);
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestOf(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void percentileTest()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long latency = 1; latency <= 100000; latency++)
+        {
+            histogram.record(latency);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100000, snapshot.getCount());
+
+        //A percentile is never lower than the exact one, and never higher by more than a bucket
+        assertWithinBucket(50000, snapshot.getPercentile(50));
+        assertWithinBucket(99000, snapshot.getPercentile(99));
+        assertWithinBucket(99900, snapshot.getPercentile(99.9));
+        assertWithinBucket(100000, snapshot.getMax());
+        assertEquals(1, snapshot.getPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongPercentileTest()
+    {
+        new LatencyHistogram().snapshot().getPercentile(101);
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException
+    {
+        OperationMetrics metrics = new OperationMetrics("test", 1, false);
+        List<Thread> threads = new ArrayList<>();
+
+        //No call is lost when several threads count and record at the same time
+        for (int i = 0; i < 4; i++)
+        {
+            Thread thread = new Thread(() ->
+            {
+                for (int call = 0; call < 10000; call++)
+                {
+                    metrics.stop(metrics.start());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(40000, metrics.getCount());
+        assertEquals(40000, metrics.getSampleCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getCount());
+        assertEquals(0, metrics.getSampleCount());
+    }
+
+    @Test
+    public void samplingTest()
+    {
+        OperationMetrics exact = new OperationMetrics("exact", 64, false);
+        OperationMetrics estimated = new OperationMetrics("estimated", 64, true);
+        for (int call = 0; call < 64000; call++)
+        {
+            exact.stop(exact.start());
+            estimated.stop(estimated.start());
+        }
+
+        //Every call is counted, about one in 64 is timed
+        assertEquals(64000, exact.getCount());
+        assertTrue(exact.getSampleCount() > 500 && exact.getSampleCount() < 1500);
+
+        //Every timed call counts as 64 calls
+        assertEquals(64 * estimated.getSampleCount(), estimated.getCount());
+        assertTrue(estimated.getCount() > 32000 && estimated.getCount() < 96000);
+    }
+
+    @Test
+    public void scanTest()
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.addNewProductToStore("1", "MEJERI", "SKUMMETMÆLK", 595);
+        CashRegister register = new CashRegister(store);
+        register.startNewReceipt();
+
+        Metrics.reset();
+        register.addProductToReceipt("1", store);
+        register.addProductToReceipt("1", store);
+        register.addProductToReceipt("2", store);
+        register.getCurrentReceipt().getReceipt();
+
+        assertEquals(3, Metrics.SCAN.getCount());
+        assertEquals(1, Metrics.SCAN.getMissCount());
+        assertEquals(1, Metrics.LOOKUP.getMissCount());
+        assertEquals(1, Metrics.RENDER.getCount());
+        assertTrue(Metrics.LOOKUP.isCountEstimated());
+        assertTrue(Metrics.getReport().contains("scan"));
+    }
+
+    @Test
+    public void storeChangesTest() throws IOException
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.addNewProductToStore("1", "MEJERI", "SKUMMETMÆLK", 595);
+        Path discountsFile = Files.createTempFile("discounts", ".txt");
+
+        //Changing and importing into the store doesn't count as scanning, even for barcodes that don't exist
+        Metrics.reset();
+        try
+        {
+            Files.write(discountsFile, Arrays.asList("1,3,5,0", "2,3,5,0"), StandardCharsets.UTF_8);
+            CatalogFileReader.importDiscounts(discountsFile.toString(), store);
+
+            store.addNewDiscountToStore("1", 2, 550);
+            store.removeDiscountFromStore("1", 2);
+            store.updateProduct("1", "MEJERI", "LETMÆLK", 695);
+            store.addNewDiscountToStore("2", 2, 550);
+            fail();
+        }
+        catch (NoSuchElementException e)
+        {
+            assertEquals(0, Metrics.LOOKUP.getSampleCount());
+            assertEquals(0, Metrics.LOOKUP.getMissCount());
+        }
+        finally
+        {
+            Files.delete(discountsFile);
+        }
+    }
+
+    @Test
+    public void mbeanTest() throws Exception
+    {
+        Metrics.registerMBeans();
+        Metrics.registerMBeans();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Metrics.reset();
+        Metrics.SCAN.stop(Metrics.SCAN.start());
+
+        Object count = server.getAttribute(Metrics.objectNameOf(Metrics.SCAN), "Count");
+        assertEquals(1L, count);
+    }
+
+    private static void assertWithinBucket(long exact, long percentile)
+    {
+        assertTrue(percentile >= exact);
+        assertTrue(percentile <= exact + exact / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+}
@@ -0,0 +1,176 @@
+package cashregister.Model;
+
+import cashregister.Model.Receipt.Receipt;
+import cashregister.Model.Receipt.ReceiptHistory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code MultiLaneRegister} and {@code Lane} classes
+ */
+public class MultiLaneRegisterTest
+{
+    private static final int LANE_COUNT = 8;
+    private static final int RECEIPTS_PER_LANE = 200;
+
+    private StoreAssortment store;
+    private MultiLaneRegister register;
+
+    @Before
+    public void setUp()
+    {
+        this.store = new StoreAssortment();
+        this.store.addNewProductToStore("1", "Fruit", "Orange", 1000);
+        this.store.addNewProductToStore("2", "Fruit", "Apple", 500);
+        this.register = new MultiLaneRegister(this.store);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.register = null;
+        this.store = null;
+    }
+
+    @Test
+    public void lanesHaveTheirOwnReceiptTest()
+    {
+        Lane first = this.register.openLane();
+        Lane second = this.register.openLane();
+
+        first.startNewReceipt();
+        second.startNewReceipt();
+
+        assertTrue(first.addProductToReceipt("1"));
+        assertFalse(second.addProductToReceipt("3"));
+
+        assertTrue(first.getCurrentReceipt().isProductInReceipt(this.store.getProduct("1")));
+        assertFalse(second.getCurrentReceipt().isProductInReceipt(this.store.getProduct("1")));
+        assertEquals(0, this.register.getHistory().size());
+
+        Receipt finished = first.finishReceipt();
+        assertFalse(first.hasOpenReceipt());
+        assertSame(finished, this.register.getHistory().get(0));
+
+        //The lane reuses its receipt object, but the snapshot in the history stays as it was
+        first.startNewReceipt();
+        first.addProductToReceipt("2");
+        assertTrue(finished.isProductInReceipt(this.store.getProduct("1")));
+        assertFalse(finished.isProductInReceipt(this.store.getProduct("2")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scanWithoutReceiptTest()
+    {
+        this.register.openLane().addProductToReceipt("1");
+    }
+
+    @Test
+    public void closeLaneFinishesReceiptTest()
+    {
+        Lane lane = this.register.openLane();
+        lane.startNewReceipt();
+        lane.addProductToReceipt("2");
+
+        this.register.closeLane(lane);
+
+        assertNull(this.register.getLane(lane.getLaneId()));
+        assertEquals(1, this.register.getReceiptHistory().size());
+    }
+
+    @Test
+    public void lanesScanInParallelTest() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(LANE_COUNT);
+        try
+        {
+            List<Future<?>> lanes = new ArrayList<>();
+            for (int i = 0; i < LANE_COUNT; i++)
+            {
+                Lane lane = this.register.openLane();
+                lanes.add(executor.submit(() ->
+                {
+                    for (int receipt = 0; receipt < RECEIPTS_PER_LANE; receipt++)
+                    {
+                        lane.startNewReceipt();
+                        lane.addProductToReceipt("1");
+                        lane.addProductToReceipt("2");
+                        lane.finishReceipt();
+                    }
+                }));
+            }
+
+            for (Future<?> lane : lanes)
+            {
+                lane.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(LANE_COUNT * RECEIPTS_PER_LANE, this.register.getReceiptHistory().size());
+        assertEquals(LANE_COUNT * RECEIPTS_PER_LANE, this.register.getHistory().size());
+    }
+
+    @Test
+    public void closeShiftWhileLanesScanTest() throws Exception
+    {
+        ReceiptHistory history = this.register.getReceiptHistory();
+        AtomicBoolean scanning = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(LANE_COUNT);
+        long closedReceipts = 0;
+
+        try
+        {
+            List<Future<?>> lanes = new ArrayList<>();
+            for (int i = 0; i < LANE_COUNT; i++)
+            {
+                Lane lane = this.register.openLane();
+                lanes.add(executor.submit(() ->
+                {
+                    for (int receipt = 0; receipt < RECEIPTS_PER_LANE; receipt++)
+                    {
+                        lane.startNewReceipt();
+                        lane.addProductToReceipt("1");
+                        lane.finishReceipt();
+                    }
+                }));
+            }
+
+            //Shifts end while the lanes finish receipts. The totals of a shift that ended don't change anymore
+            executor.submit(() ->
+            {
+                for (Future<?> lane : lanes)
+                {
+                    lane.get();
+                }
+                scanning.set(false);
+                return null;
+            });
+            while (scanning.get())
+            {
+                closedReceipts += history.closeShift().getReceiptCount();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        //Every receipt counts towards exactly one shift
+        closedReceipts += history.closeShift().getReceiptCount();
+        assertEquals(LANE_COUNT * RECEIPTS_PER_LANE, closedReceipts);
+    }
+}
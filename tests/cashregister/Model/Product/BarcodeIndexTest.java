@@ -0,0 +1,75 @@
+package cashregister.Model.Product;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code BarcodeIndex} class
+ */
+public class BarcodeIndexTest
+{
+    @Test
+    public void encodeTest()
+    {
+        assertEquals(580524463272L, BarcodeIndex.encode("0 580524 463272"));
+        assertEquals(12345, BarcodeIndex.encode("12345"));
+        assertEquals(BarcodeIndex.NOT_NUMERIC, BarcodeIndex.encode("nonExisting"));
+        assertEquals(BarcodeIndex.NOT_NUMERIC, BarcodeIndex.encode(""));
+        assertEquals(BarcodeIndex.NOT_NUMERIC, BarcodeIndex.encode("1234567890123456789"));
+    }
+
+    @Test
+    public void putAndGetTest()
+    {
+        BarcodeIndex index = new BarcodeIndex();
+
+        //Enough products to make the table grow a few times
+        for (int i = 0; i < 1000; i++)
+        {
+            index.put(i * 7L, i);
+        }
+
+        assertEquals(1000, index.size());
+        assertEquals(0, index.get(0));
+        assertEquals(999, index.get(999 * 7L));
+        assertEquals(BarcodeIndex.NOT_FOUND, index.get(1));
+    }
+
+    @Test
+    public void removeTest()
+    {
+        BarcodeIndex index = new BarcodeIndex();
+        for (int i = 0; i < 100; i++)
+        {
+            index.put(i, i);
+        }
+
+        //Every other key is removed, the rest must still be found
+        for (int i = 0; i < 100; i += 2)
+        {
+            index.remove(i);
+        }
+
+        assertEquals(50, index.size());
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(i % 2 == 0 ? BarcodeIndex.NOT_FOUND : i, index.get(i));
+        }
+    }
+
+    @Test
+    public void copyTest()
+    {
+        BarcodeIndex index = new BarcodeIndex();
+        index.put(5, 0);
+
+        //Changing the copy doesn't change the original
+        BarcodeIndex copy = new BarcodeIndex(index);
+        copy.put(6, 1);
+
+        assertEquals(1, copy.get(6));
+        assertEquals(BarcodeIndex.NOT_FOUND, index.get(6));
+        assertEquals(0, index.get(5));
+    }
+}
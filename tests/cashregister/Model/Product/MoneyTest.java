@@ -0,0 +1,108 @@
+package cashregister.Model.Product;
+
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.Receipt;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code Money} class
+ */
+public class MoneyTest
+{
+    @Test
+    public void includedTaxTest()
+    {
+        assertEquals(0, Money.includedTax(0, 25));
+        assertEquals(20, Money.includedTax(100, 25));
+        assertEquals(1229, Money.includedTax(6145, 25));
+
+        //Every amount is rounded half to even, like the exact decimal result
+        for (long amount = 0; amount < 10000; amount++)
+        {
+            assertEquals(exactTax(amount, 25), Money.includedTax(amount, 25));
+        }
+
+        //Amounts that would overflow if they were multiplied by the rate first
+        long[] largeAmounts = { Long.MAX_VALUE, Long.MAX_VALUE - 62, Long.MAX_VALUE / 3, 4000000000L };
+        for (long amount : largeAmounts)
+        {
+            assertEquals(exactTax(amount, 25), Money.includedTax(amount, 25));
+            assertEquals(exactTax(amount, 7), Money.includedTax(amount, 7));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeTaxTest()
+    {
+        Money.includedTax(-1, 25);
+    }
+
+    @Test
+    public void wholeUnitsTest()
+    {
+        assertEquals(0, Money.wholeUnits(4999, 5000));
+        assertEquals(1, Money.wholeUnits(5000, 5000));
+        assertEquals(Long.MAX_VALUE / 5000, Money.wholeUnits(Long.MAX_VALUE, 5000));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void overflowTest()
+    {
+        Money.add(Long.MAX_VALUE, 1);
+    }
+
+    @Test
+    public void formatTest()
+    {
+        assertEquals("0,00", Money.format(0));
+        assertEquals("0,05", Money.format(5));
+        assertEquals("-0,05", Money.format(-5));
+        assertEquals("1234,50", Money.format(123450));
+        assertEquals("-21474836,48", Money.format(Integer.MIN_VALUE));
+        assertEquals("92233720368547758,07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758,08", Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void formattedLengthTest()
+    {
+        //The length is the one of the written amount, the smallest long included
+        long[] amounts = {0, 5, -5, 150, -150, 123450, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long amount : amounts)
+        {
+            String text = Money.appendFormatted(new StringBuilder("x"), amount).substring(1);
+            assertEquals(Money.format(amount), text);
+            assertEquals(text, text.length(), Money.formattedLength(amount));
+        }
+    }
+
+    @Test
+    public void totalAboveIntTest()
+    {
+        //Two units of this product cost more than an int can hold
+        Product product = new Product("1", "Cars", "Car", 2000000000);
+        Receipt receipt = new CategoryReceipt();
+
+        receipt.addProductToReceipt(product);
+        receipt.addProductToReceipt(product);
+        assertEquals(4000000000L, receipt.getTotalPrice());
+        assertEquals(4000000000L, product.getLineTotal(2));
+
+        receipt.removeProduct(product);
+        assertEquals(2000000000L, receipt.getTotalPrice());
+        assertTrue(receipt.getReceipt().contains("MOMS UDGØR                  4000000,00"));
+    }
+
+    private static long exactTax(long amount, int percent)
+    {
+        return BigDecimal.valueOf(amount)
+                .multiply(BigDecimal.valueOf(percent))
+                .divide(BigDecimal.valueOf(100 + percent), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+}
@@ -89,6 +89,32 @@ public class PriceTest
         assertEquals(120, price.getFinalPrice(11));
     }
 
+    @Test
+    public void manyTiersTest()
+    {
+        Price price = new Price(1000);
+
+        //Tiers above the direct lookup table are found by searching
+        for (int quantity = 10; quantity <= 100; quantity += 10)
+        {
+            price.addDiscount(quantity, 1000 - quantity);
+        }
+
+        assertEquals(1000, price.getFinalPrice(0));
+        assertEquals(1000, price.getFinalPrice(9));
+        assertEquals(990, price.getFinalPrice(10));
+        assertEquals(970, price.getFinalPrice(31));
+        assertEquals(960, price.getFinalPrice(45));
+        assertEquals(910, price.getFinalPrice(99));
+        assertEquals(900, price.getFinalPrice(100));
+        assertEquals(900, price.getFinalPrice(Integer.MAX_VALUE));
+
+        //Replacing a tier only changes its price
+        price.addDiscount(40, 500);
+        assertEquals(500, price.getFinalPrice(45));
+        assertEquals(1000, price.getBasePrice());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void removeBasePriceTest()
     {
@@ -0,0 +1,135 @@
+package cashregister.Model.Product;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code ProductTable} class
+ */
+public class ProductTableTest
+{
+    @Test
+    public void columnsTest()
+    {
+        ProductTable table = new ProductTable(1);
+
+        //Enough rows to make the columns grow
+        for (int i = 0; i < 100; i++)
+        {
+            table.addRow(Integer.toString(i), i % 2 == 0 ? "MEJERI" : "FRUGT & GRØNT", "VARE " + i, 100 + i);
+        }
+
+        assertEquals(100, table.size());
+        assertEquals("VARE 42", table.getProduct(42).getProductName());
+        assertEquals(142, table.getProduct(42).getBasePrice());
+        assertEquals(42, table.getProduct(42).getOrdinal());
+        assertSame(table.getProduct(42), table.getProduct(42));
+    }
+
+    @Test
+    public void addRowsTest()
+    {
+        ProductTable table = new ProductTable(1);
+        table.addRow("1 2", "MEJERI", "SKYR", 2275);
+
+        //"12" has the digits of "1 2" but is another barcode, the second "1" is a duplicate
+        String[] barcodes = { "1", "12", "ABC", "1", "2" };
+        String[] categories = { "MEJERI", "MEJERI", "FRUGT", "MEJERI", "FRUGT" };
+        String[] names = { "MÆLK", "SMØR", "AEBLE", "MÆLK", "PAERE" };
+        int[] prices = { 595, 1995, 300, 595, 400 };
+
+        try
+        {
+            table.addRows(barcodes, categories, names, prices, barcodes.length);
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("A product with barcode 1 already exists", e.getMessage());
+        }
+
+        //The rows before the duplicate are kept, in order
+        assertEquals(4, table.size());
+        assertEquals("SMØR", table.findProduct("12").getProductName());
+        assertEquals("SKYR", table.findProduct("1 2").getProductName());
+        assertEquals(3, table.findProduct("ABC").getOrdinal());
+        assertNull(table.findProduct("2"));
+    }
+
+    @Test
+    public void categoryDictionaryTest()
+    {
+        ProductTable table = new ProductTable(4);
+        table.addRow("1", "MEJERI", "SKUMMETMÆLK", 595);
+        table.addRow("2", "FRUGT & GRØNT", "DK AGURK", 1500);
+        table.addRow("3", "MEJERI", "SKYR", 2275);
+
+        //Every category is only stored once
+        assertEquals(2, table.getCategoryCount());
+        assertEquals(table.getCategoryId(0), table.getCategoryId(2));
+        assertEquals("MEJERI", table.getCategoryName(table.getCategoryId(2)));
+        assertEquals("FRUGT & GRØNT", table.getProduct(1).getCategory());
+    }
+
+    @Test
+    public void discountsTest()
+    {
+        ProductTable table = new ProductTable(2);
+        table.addRow("1", "MEJERI", "SKYR", 2275);
+        table.addRow("2", "MEJERI", "SKUMMETMÆLK", 595);
+
+        Product skyr = table.getProduct(0);
+        skyr.addDiscount(2, 1300);
+        skyr.changeBasePrice(2300);
+
+        assertEquals(2300, skyr.getFinalPrice(1));
+        assertEquals(1300, skyr.getFinalPrice(2));
+        assertEquals(595, table.getProduct(1).getFinalPrice(10));
+
+        //Copying a product keeps all of its prices
+        Product copy = table.getProduct(table.addRow(skyr));
+        assertEquals(skyr.getAllPrices(), copy.getAllPrices());
+    }
+
+    @Test
+    public void updateIsPublishedAtOnceTest() throws InterruptedException
+    {
+        ProductTable table = new ProductTable(4);
+        table.addRow("1", "MEJERI", "SKUMMETMÆLK", 595);
+        Product milk = table.getProduct(0);
+        long version = table.getVersion();
+
+        table.beginUpdate();
+        table.addRow("2", "MEJERI", "SKYR", 2275);
+        milk.changeBasePrice(700);
+
+        //Another thread keeps reading the old version while the update is not finished
+        int[] seen = new int[3];
+        Thread reader = new Thread(() ->
+        {
+            seen[0] = table.size();
+            seen[1] = milk.getBasePrice();
+            seen[2] = table.findProduct("2") == null ? 0 : 1;
+        });
+        reader.start();
+        reader.join();
+
+        assertEquals(1, seen[0]);
+        assertEquals(595, seen[1]);
+        assertEquals(0, seen[2]);
+
+        table.finishUpdate();
+
+        assertEquals(2, table.size());
+        assertEquals(700, milk.getBasePrice());
+        assertSame(table.getProduct(1), table.findProduct("2"));
+        assertEquals(version + 1, table.getVersion());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePriceTest()
+    {
+        new ProductTable(1).addRow("1", "MEJERI", "SKYR", -1);
+    }
+}
@@ -0,0 +1,265 @@
+package cashregister.Model;
+
+import cashregister.Model.Catalog.CatalogSnapshot;
+import cashregister.Model.Catalog.PromotionFileReader;
+import cashregister.Model.Product.Promotion;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.Receipt;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the promotions of a store and how baskets are priced with them
+ */
+public class PromotionTest
+{
+    private StoreAssortment store;
+
+    @Before
+    public void setUp()
+    {
+        this.store = new StoreAssortment();
+        this.store.addNewProductToStore("1", "MEJERI", "SKUMMETMÆLK", 1000);
+        this.store.addNewProductToStore("2", "DRIKKE", "COLA", 1500);
+        this.store.addNewProductToStore("3", "DRIKKE", "APPELSINJUICE", 2000);
+        this.store.addNewProductToStore("4", "ØVR. FØDEVARER", "BØNNEKAFFE", 5000);
+    }
+
+    @Test
+    public void multiBuyTest()
+    {
+        this.store.setPromotions(Collections.singletonList(Promotion.multiBuy("3 FOR 2", "1", 3, 2)));
+        Receipt receipt = new CategoryReceipt();
+
+        scan(receipt, "1", "1");
+        assertEquals(2000, receipt.getTotalPrice());
+
+        scan(receipt, "1");
+        assertEquals(2000, receipt.getTotalPrice());
+        assertTrue(receipt.getReceipt().contains("3 FOR 2"));
+
+        scan(receipt, "1", "1", "1");
+        assertEquals(4000, receipt.getTotalPrice());
+
+        receipt.removeProduct(this.store.getProduct("1"));
+        assertEquals(4000, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void promotionLinesAfterPriceChangeTest()
+    {
+        this.store.setPromotions(Collections.singletonList(Promotion.multiBuy("3 FOR 2", "1", 3, 2)));
+        Receipt receipt = new CategoryReceipt();
+        scan(receipt, "1", "1", "1");
+
+        //The printed promotion follows the new price without another scan
+        this.store.updateProduct("1", "MEJERI", "SKUMMETMÆLK", 2000);
+        String printed = receipt.getReceipt();
+        assertTrue(printed.contains("20,00-"));
+        assertFalse(printed.contains("10,00-"));
+        assertEquals(4000, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void multiBuyWithDiscountTest()
+    {
+        //The free units are worth the discounted price
+        this.store.addNewDiscountToStore("1", 3, 800);
+        this.store.setPromotions(Collections.singletonList(Promotion.multiBuy("3 FOR 2", "1", 3, 2)));
+        Receipt receipt = new CategoryReceipt();
+
+        scan(receipt, "1", "1", "1");
+        assertEquals(1600, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void mixAndMatchTest()
+    {
+        this.store.setPromotions(Collections.singletonList(Promotion.mixAndMatch("BLAND SELV", "DRIKKE", 3, 500)));
+        Receipt receipt = new CategoryReceipt();
+
+        scan(receipt, "2", "3", "1");
+        assertEquals(4500, receipt.getTotalPrice());
+
+        //The third product of the category completes the group, in any combination
+        scan(receipt, "2");
+        assertEquals(6000 - 500, receipt.getTotalPrice());
+        assertTrue(receipt.getReceipt().contains("BLAND SELV"));
+
+        receipt.removeProduct(this.store.getProduct("3"));
+        assertEquals(3000 + 1000, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void basketThresholdTest()
+    {
+        this.store.setPromotions(Arrays.asList(
+                Promotion.basketThreshold("SPAR 10", 10000, 1000),
+                Promotion.basketThreshold("SPAR 5", 5000, 500)));
+        Receipt receipt = new CategoryReceipt();
+
+        scan(receipt, "4");
+        assertEquals(5000 - 500, receipt.getTotalPrice());
+
+        //Only the best threshold that is reached counts
+        scan(receipt, "4");
+        assertEquals(10000 - 1000, receipt.getTotalPrice());
+        assertTrue(receipt.getReceipt().contains("SPAR 10"));
+        assertFalse(receipt.getReceipt().contains("SPAR 5"));
+
+        scan(receipt, "1");
+        assertEquals(11000 - 1000, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void thresholdAfterItemPromotionsTest()
+    {
+        //The basket costs 75,00 before the multi-buy, but only 60,00 after it
+        this.store.setPromotions(Arrays.asList(
+                Promotion.multiBuy("3 FOR 2", "2", 3, 2),
+                Promotion.basketThreshold("SPAR 10", 6500, 1000)));
+        Receipt receipt = new CategoryReceipt();
+
+        scan(receipt, "2", "2", "2", "1", "1", "1");
+        assertEquals(6000, receipt.getTotalPrice());
+    }
+
+    @Test
+    public void incrementalTest()
+    {
+        this.store.setPromotions(Arrays.asList(
+                Promotion.multiBuy("3 FOR 2", "1", 3, 2),
+                Promotion.multiBuy("2 FOR 1", "1", 2, 1),
+                Promotion.multiBuy("4 FOR 3", "4", 4, 3),
+                Promotion.mixAndMatch("BLAND SELV", "DRIKKE", 3, 500),
+                Promotion.mixAndMatch("BLAND MERE", "DRIKKE", 5, 1000),
+                Promotion.basketThreshold("SPAR 10", 10000, 1000),
+                Promotion.basketThreshold("SPAR 50", 30000, 5000)));
+
+        Random random = new Random(42);
+        String[] barcodes = { "1", "2", "3", "4" };
+        Receipt receipt = new CategoryReceipt();
+        List<String> scanned = new ArrayList<>();
+
+        //Every total of a basket that changes one product at a time is the same as the total of the basket scanned at once
+        for (int i = 0; i < 500; i++)
+        {
+            String barcode = barcodes[random.nextInt(barcodes.length)];
+            if (scanned.contains(barcode) && random.nextInt(3) == 0)
+            {
+                receipt.removeProduct(this.store.getProduct(barcode));
+                scanned.remove(barcode);
+            }
+            else
+            {
+                scan(receipt, barcode);
+                scanned.add(barcode);
+            }
+
+            Receipt recomputed = new CategoryReceipt();
+            scan(recomputed, scanned.toArray(new String[0]));
+            assertEquals(recomputed.getTotalPrice(), receipt.getTotalPrice());
+        }
+    }
+
+    @Test
+    public void snapshotProductsTest() throws IOException
+    {
+        //"5" is only in the snapshot, while "1" is only in the store's table
+        StoreAssortment catalog = new StoreAssortment();
+        catalog.addNewProductToStore("5", "MEJERI", "SKYR", 2000);
+        Path snapshotFile = Files.createTempFile("store", CatalogSnapshot.FILE_EXTENSION);
+
+        try
+        {
+            CatalogSnapshot.write(catalog, snapshotFile.toString());
+            this.store.attachProductSource(CatalogSnapshot.open(snapshotFile.toString()));
+            this.store.setPromotions(Collections.singletonList(Promotion.mixAndMatch("BLAND SELV", "MEJERI", 2, 500)));
+
+            //The basket is priced with the store's promotions, whichever product was scanned last
+            Receipt receipt = new CategoryReceipt();
+            scan(receipt, "1", "1", "5");
+            assertEquals(4000 - 500, receipt.getTotalPrice());
+
+            receipt = new CategoryReceipt();
+            scan(receipt, "5", "1", "1");
+            assertEquals(4000 - 500, receipt.getTotalPrice());
+
+            //Loading the product doesn't change the promotions, only what they can apply to
+            receipt = new CategoryReceipt();
+            scan(receipt, "5", "5");
+            assertEquals(4000 - 500, receipt.getTotalPrice());
+        }
+        finally
+        {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    @Test
+    public void changedPromotionsTest()
+    {
+        Receipt receipt = new CategoryReceipt();
+        scan(receipt, "1", "1", "1");
+        assertEquals(3000, receipt.getTotalPrice());
+
+        //An open basket is priced with the new promotions
+        this.store.setPromotions(Collections.singletonList(Promotion.multiBuy("3 FOR 2", "1", 3, 2)));
+        assertEquals(2000, receipt.getTotalPrice());
+        assertEquals(1, this.store.getPromotions().size());
+
+        this.store.setPromotions(Collections.emptyList());
+        assertEquals(3000, receipt.getTotalPrice());
+        assertTrue(this.store.getPromotions().isEmpty());
+    }
+
+    @Test
+    public void parsePromotionTest()
+    {
+        Promotion multiBuy = PromotionFileReader.parsePromotion("MULTIBUY, 3 FOR 2, 1, 3, 2");
+        assertEquals(Promotion.Kind.MULTI_BUY, multiBuy.getKind());
+        assertEquals("1", multiBuy.getTarget());
+        assertEquals(3, multiBuy.getQuantity());
+        assertEquals(2, multiBuy.getPaidQuantity());
+
+        Promotion mixAndMatch = PromotionFileReader.parsePromotion("MIXMATCH,BLAND SELV,DRIKKE,3,5,50");
+        assertEquals(Promotion.Kind.MIX_AND_MATCH, mixAndMatch.getKind());
+        assertEquals(550, mixAndMatch.getDiscount());
+
+        Promotion threshold = PromotionFileReader.parsePromotion("THRESHOLD,SPAR 10,100,0,10,0");
+        assertEquals(Promotion.Kind.BASKET_THRESHOLD, threshold.getKind());
+        assertEquals(10000, threshold.getMinimumTotal());
+        assertEquals(1000, threshold.getDiscount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseWrongPromotionTest()
+    {
+        PromotionFileReader.parsePromotion("MULTIBUY,2 FOR 2,1,2,2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownPromotionTest()
+    {
+        PromotionFileReader.parsePromotion("BOGOF,1,1");
+    }
+
+    private void scan(Receipt receipt, String... barcodes)
+    {
+        for (String barcode : barcodes)
+        {
+            receipt.addProductToReceipt(this.store.getProduct(barcode));
+        }
+    }
+}
@@ -2,10 +2,18 @@ package cashregister.Model;
 
 import cashregister.Model.Product.Product;
 import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.ReceiptPool;
+import cashregister.Model.Receipt.ReceiptSnapshot;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.*;
 
 /**
@@ -61,4 +69,245 @@ public class ReceiptTest
         //The price should now be lower
         //assertEquals(108, this.receipt.calculateTotalPrice(), 1e-15);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void renderedReceiptTest()
+    {
+        Product milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        milk.addDiscount(3, 500);
+        Product coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(coffee);
+
+        String expected = "\n" +
+                "         * ØVR. FØDEVARER *\n" +
+                "BØNNEKAFFE                       55,50\n" +
+                "\n" +
+                "             * MEJERI *\n" +
+                "SKUMMETMÆLK\n" +
+                " 3 x 5,95                         5,95\n" +
+                "RABAT                             0,95-\n" +
+                "\n" +
+                "TOTAL                            70,50\n" +
+                "\n" +
+                "KØBET HAR UDLØST 1 MÆRKER\n" +
+                "\n" +
+                "MOMS UDGØR                       14,10\n" +
+                "\n";
+
+        assertEquals(expected, this.receipt.toString());
+
+        //Rendering again gives the same result, even though the buffer is reused
+        assertEquals(expected, this.receipt.toString());
+    }
+
+    @Test
+    public void streamedReceiptTest() throws IOException
+    {
+        //Enough products to fill the buffer of the formatter several times
+        for (int i = 0; i < 500; i++)
+        {
+            Product product = new Product(String.valueOf(i), "Category " + (i % 7), "Product " + i, 100 + i);
+            this.receipt.addProductToReceipt(product);
+            this.receipt.addProductToReceipt(product);
+        }
+
+        String expected = this.receipt.getReceipt();
+
+        StringBuilder builder = new StringBuilder();
+        this.receipt.appendReceipt(builder);
+        assertEquals(expected, builder.toString());
+
+        StringWriter writer = new StringWriter();
+        this.receipt.appendReceipt(writer);
+        assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        this.receipt.writeReceipt(stream, StandardCharsets.UTF_8);
+        assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream channelStream = new ByteArrayOutputStream();
+        this.receipt.writeReceipt(Channels.newChannel(channelStream), StandardCharsets.UTF_8);
+        assertEquals(expected, new String(channelStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void runningTotalTest()
+    {
+        Product a = new Product("12345", "Fruit", "Orange", 10);
+        Product c = new Product("45678", "Fruit", "Portokal", 12);
+        c.addDiscount(3, 5);
+
+        this.receipt.addProductToReceipt(a);
+        this.receipt.addProductToReceipt(c);
+        this.receipt.addProductToReceipt(c);
+        assertEquals(34, this.receipt.getTotalPrice());
+
+        //The third one triggers the discount for all three
+        this.receipt.addProductToReceipt(c);
+        assertEquals(25, this.receipt.getTotalPrice());
+
+        //Removing one of them takes the discount away again
+        this.receipt.removeProduct(c);
+        assertEquals(34, this.receipt.getTotalPrice());
+
+        this.receipt.removeProduct(a);
+        this.receipt.removeProduct(c);
+        this.receipt.removeProduct(c);
+        assertEquals(0, this.receipt.getTotalPrice());
+    }
+
+    @Test
+    public void runningTotalFollowsPriceChangesTest()
+    {
+        Product a = new Product("12345", "Fruit", "Orange", 10);
+
+        this.receipt.addProductToReceipt(a);
+        this.receipt.addProductToReceipt(a);
+        assertEquals(20, this.receipt.getTotalPrice());
+
+        //A price that changes while the product is in the basket is picked up
+        a.addDiscount(2, 8);
+        assertEquals(16, this.receipt.getTotalPrice());
+
+        a.changeBasePrice(11);
+        this.receipt.addProductToReceipt(a);
+        assertEquals(24, this.receipt.getTotalPrice());
+    }
+
+    @Test
+    public void removedProductsLeaveTheReceiptTest()
+    {
+        Product milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        Product coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(coffee);
+        this.receipt.removeProduct(milk);
+
+        //The category of a product that was removed again is not printed
+        assertFalse(this.receipt.isProductInReceipt(milk));
+        assertFalse(this.receipt.toString().contains("MEJERI"));
+
+        //Adding it again counts from 0
+        this.receipt.addProductToReceipt(milk);
+        assertTrue(this.receipt.isProductInReceipt(milk));
+        assertEquals(6145, this.receipt.getTotalPrice());
+    }
+
+    @Test
+    public void categoriesKeepTheScanOrderTest()
+    {
+        Product milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        Product coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+        Product skyr = new Product("3", "MEJERI", "SKYR", 2275);
+        Product bread = new Product("4", "ØVR. FØDEVARER", "KERNEBRØD", 2075);
+
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(coffee);
+        this.receipt.addProductToReceipt(skyr);
+        this.receipt.addProductToReceipt(bread);
+        this.receipt.addProductToReceipt(milk);
+
+        //Every category is printed once, with its products in the order they were first scanned
+        String printed = this.receipt.toString();
+        assertCategory(printed, "MEJERI", "SKUMMETMÆLK", "SKYR");
+        assertCategory(printed, "ØVR. FØDEVARER", "BØNNEKAFFE", "KERNEBRØD");
+    }
+
+    @Test
+    public void pooledReceiptTest()
+    {
+        ReceiptPool pool = new ReceiptPool(1);
+        Product milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        Product coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+
+        CategoryReceipt first = pool.acquire();
+        for (int i = 0; i < 100; i++)
+        {
+            first.addProductToReceipt(new Product(String.valueOf(i), "Category " + (i % 3), "Product " + i, 100));
+        }
+        first.makeFinal();
+        pool.release(first);
+        assertEquals(1, pool.size());
+
+        //The released receipt is handed out again, empty and open
+        CategoryReceipt second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.getTotalPrice());
+
+        second.addProductToReceipt(coffee);
+        second.addProductToReceipt(milk);
+
+        CategoryReceipt fresh = new CategoryReceipt();
+        fresh.addProductToReceipt(coffee);
+        fresh.addProductToReceipt(milk);
+
+        assertEquals(fresh.toString(), second.toString());
+        assertEquals(6145, second.getTotalPrice());
+    }
+
+    @Test
+    public void snapshotTest() throws IOException
+    {
+        Product milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        milk.addDiscount(3, 500);
+        Product coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(coffee);
+        this.receipt.addProductToReceipt(milk);
+        this.receipt.addProductToReceipt(milk);
+        String rendered = this.receipt.toString();
+
+        ReceiptSnapshot snapshot = this.receipt.makeFinal();
+        assertSame(snapshot, this.receipt.makeFinal());
+        assertEquals(rendered, snapshot.getReceipt());
+        assertEquals(rendered, this.receipt.getReceipt());
+        assertEquals(7050, snapshot.getTotalPrice());
+
+        //The lines keep the prices that were charged, in the order the products were first scanned
+        assertEquals(2, snapshot.getLines().size());
+        ReceiptSnapshot.Line milkLine = snapshot.getLines().get(0);
+        assertEquals("SKUMMETMÆLK", milkLine.getProductName());
+        assertEquals(3, milkLine.getQuantity());
+        assertEquals(595, milkLine.getBasePrice());
+        assertEquals(500, milkLine.getFinalPrice());
+        assertEquals(1500, milkLine.getLineTotal());
+        assertEquals(5550, snapshot.findLine("2").getLineTotal());
+
+        //A price change after the transaction doesn't change the receipt
+        milk.changeBasePrice(1000);
+        assertEquals(7050, this.receipt.getTotalPrice());
+        assertEquals(rendered, this.receipt.getReceipt());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.writeReceipt(bytes, StandardCharsets.UTF_8);
+        assertEquals(rendered, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(bytes.size(), snapshot.getReceiptBytes().remaining());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void finalReceiptCantChangeTest()
+    {
+        this.receipt.addProductToReceipt(new Product("1", "MEJERI", "SKUMMETMÆLK", 595));
+        this.receipt.makeFinal();
+
+        this.receipt.addProductToReceipt(new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550));
+    }
+
+    private static void assertCategory(String printed, String category, String firstProduct, String secondProduct)
+    {
+        int header = printed.indexOf("* " + category + " *");
+        int end = printed.indexOf("\n\n", header);
+
+        assertTrue(header >= 0);
+        assertEquals(header, printed.lastIndexOf("* " + category + " *"));
+        assertTrue(header < printed.indexOf(firstProduct));
+        assertTrue(printed.indexOf(firstProduct) < printed.indexOf(secondProduct));
+        assertTrue(printed.indexOf(secondProduct) < end);
+    }
+}
@@ -0,0 +1,88 @@
+package cashregister.Model;
+
+import cashregister.Model.Product.Product;
+import cashregister.Model.Receipt.CategoryReceipt;
+import cashregister.Model.Receipt.ShiftTotals;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.SortedMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@code ShiftTotals} class and the shifts of the cash registers
+ */
+public class ShiftTotalsTest
+{
+    private Product milk;
+    private Product coffee;
+
+    @Before
+    public void setUp()
+    {
+        this.milk = new Product("1", "MEJERI", "SKUMMETMÆLK", 595);
+        this.milk.addDiscount(3, 500);
+        this.coffee = new Product("2", "ØVR. FØDEVARER", "BØNNEKAFFE", 5550);
+    }
+
+    @Test
+    public void totalsTest()
+    {
+        CategoryReceipt first = new CategoryReceipt();
+        first.addProductToReceipt(this.milk);
+        first.addProductToReceipt(this.milk);
+        first.addProductToReceipt(this.milk);
+        first.addProductToReceipt(this.coffee);
+
+        CategoryReceipt second = new CategoryReceipt();
+        second.addProductToReceipt(this.coffee);
+        second.addProductToReceipt(this.coffee);
+
+        ShiftTotals totals = new ShiftTotals();
+        totals.add(first.makeFinal());
+        totals.add(second.makeFinal());
+
+        assertEquals(2, totals.getReceiptCount());
+        assertEquals(6, totals.getItemCount());
+        assertEquals(7050 + 11100, totals.getGrossTotal());
+        assertEquals(3 * 95, totals.getDiscountTotal());
+
+        //Tax and marks are added up per receipt, like they are printed
+        assertEquals(1410 + 2220, totals.getSalesTax());
+        assertEquals(1 + 2, totals.getMarks());
+
+        SortedMap<String, Long> categories = totals.getCategoryTotals();
+        assertEquals(Long.valueOf(1500), categories.get("MEJERI"));
+        assertEquals(Long.valueOf(16650), categories.get("ØVR. FØDEVARER"));
+
+        String report = totals.getReport("Z-RAPPORT");
+        assertTrue(report.contains("KVITTERINGER                         2\n"));
+        assertTrue(report.contains("TOTAL                           181,50\n"));
+        assertTrue(report.contains("UDLØSTE MÆRKER                       3\n"));
+    }
+
+    @Test
+    public void closeShiftTest()
+    {
+        StoreAssortment store = new StoreAssortment();
+        store.addNewProduct(this.coffee);
+        CashRegister register = new CashRegister(store);
+
+        register.startNewReceipt();
+        register.addProductToReceipt("2", store);
+        register.startNewReceipt();
+        register.addProductToReceipt("2", store);
+
+        //Only finished receipts are in the totals
+        assertEquals(5550, register.getShiftTotals().getGrossTotal());
+
+        //Closing the shift finishes the open receipt
+        ShiftTotals closed = register.closeShift();
+        assertEquals(2, closed.getReceiptCount());
+        assertEquals(11100, closed.getGrossTotal());
+        assertEquals(0, register.getShiftTotals().getReceiptCount());
+        assertNull(register.getCurrentReceipt());
+        assertEquals(2, register.getHistory().size());
+    }
+}
@@ -46,6 +46,18 @@ public class StoreAssortmentTest
         assertEquals(500, this.store.getProduct("12345").getFinalPrice(10));
     }
 
+    @Test
+    public void testBarcodesWithSameDigits()
+    {
+        //Both barcodes have the same digits, but they are different products
+        this.store.addNewProductToStore("0 580524 463272,MEJERI,SKUMMETMÆLK,5,95");
+        this.store.addNewProductToStore("0580524463272,MEJERI,SØDMÆLK,6,95");
+
+        assertEquals("SKUMMETMÆLK", this.store.getProduct("0 580524 463272").getProductName());
+        assertEquals("SØDMÆLK", this.store.getProduct("0580524463272").getProductName());
+        assertNull(this.store.findProduct("580524463272"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testAddSameProduct()
     {